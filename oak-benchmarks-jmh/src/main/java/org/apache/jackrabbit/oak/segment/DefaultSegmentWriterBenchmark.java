@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.EMPTY_NODE;
+
+import java.io.IOException;
+
+import org.apache.jackrabbit.oak.api.Type;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DefaultSegmentWriter#writeNode(org.apache.jackrabbit.oak.spi.state.NodeState)}
+ * for new nodes and for incremental changes to existing nodes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DefaultSegmentWriterBenchmark {
+
+    private int next;
+
+    @Benchmark
+    public RecordId writeNewNode(SegmentStoreState state) throws IOException {
+        int n = next++;
+        NodeBuilder builder = EMPTY_NODE.builder();
+        builder.setProperty("jcr:primaryType", "nt:unstructured", Type.NAME);
+        builder.setProperty("title", "Title " + n);
+        builder.setProperty("count", (long) n);
+        builder.setProperty("flag", n % 2 == 0);
+        builder.child("child").setProperty("value", (long) n);
+        return state.getWriter().writeNode(builder.getNodeState());
+    }
+
+    @Benchmark
+    public RecordId writeModifiedChild(SegmentStoreState state) throws IOException {
+        String[] names = state.getChildNames();
+        int n = next++;
+        NodeBuilder builder = state.getRoot().builder();
+        builder.getChildNode(names[Math.floorMod(n, names.length)]).setProperty("count", (long) n);
+        return state.getWriter().writeNode(builder.getNodeState());
+    }
+
+    @Benchmark
+    public RecordId writeAddedChild(SegmentStoreState state) throws IOException {
+        int n = next++;
+        NodeBuilder builder = state.getRoot().builder();
+        builder.child("added-" + n).setProperty("count", (long) n);
+        return state.getWriter().writeNode(builder.getNodeState());
+    }
+
+}
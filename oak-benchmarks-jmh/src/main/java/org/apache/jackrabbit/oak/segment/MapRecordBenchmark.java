@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures key lookups and iteration on the {@link MapRecord} holding the
+ * child nodes of the root node.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapRecordBenchmark {
+
+    private MapRecord map;
+
+    /**
+     * Number of distinct missing keys, precomputed so that looking them up
+     * doesn't allocate within the measured methods.
+     */
+    private static final int MISSING_KEYS = 1024;
+
+    private String[] keys;
+
+    private String[] missingKeys;
+
+    private int next;
+
+    @Setup
+    public void setUp(SegmentStoreState state) {
+        map = state.getRoot().getChildNodeMap();
+        keys = state.getChildNames();
+        missingKeys = new String[MISSING_KEYS];
+        for (int i = 0; i < MISSING_KEYS; i++) {
+            missingKeys[i] = "missing-" + i;
+        }
+    }
+
+    private static String nextKey(String[] keys, int n) {
+        return keys[Math.floorMod(n, keys.length)];
+    }
+
+    @Benchmark
+    public MapEntry getEntry() {
+        return map.getEntry(nextKey(keys, next++));
+    }
+
+    @Benchmark
+    public MapEntry getMissingEntry() {
+        return map.getEntry(nextKey(missingKeys, next++));
+    }
+
+    @Benchmark
+    public MapEntry readMapAndGetEntry(SegmentStoreState state) {
+        return state.getReader().readMap(map.getRecordId()).getEntry(nextKey(keys, next++));
+    }
+
+    @Benchmark
+    public void getKeys(Blackhole blackhole) {
+        for (String key : map.getKeys()) {
+            blackhole.consume(key);
+        }
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.EMPTY_NODE;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.MISSING_NODE;
+import static org.apache.jackrabbit.oak.segment.file.FileStoreBuilder.fileStoreBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jackrabbit.oak.api.PropertyState;
+import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.memory.MemoryStore;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.apache.jackrabbit.oak.spi.state.NodeStateDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the sequential against the parallel diff (see {@link
+ * ParallelNodeStateDiff}) of two {@link SegmentNodeState}s differing in
+ * {@code fanOut * fanOut} nodes: {@code fanOut} changed nodes with {@code
+ * fanOut} changed child nodes each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelNodeStateDiffBenchmark {
+
+    /**
+     * The store backing the benchmark, either {@code memory} or {@code tar}.
+     */
+    @Param({"memory", "tar"})
+    public String fixture;
+
+    /**
+     * Number of changed nodes below the root and below each changed node.
+     */
+    @Param({"100", "1000"})
+    public int fanOut;
+
+    /**
+     * Number of threads of the parallel diff. With {@code 1} the trees are
+     * compared sequentially by {@link NodeState#compareAgainstBaseState}.
+     */
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    /**
+     * Minimum number of child nodes (exclusive) of a subtree to be compared
+     * concurrently by the parallel diff.
+     */
+    @Param({"50"})
+    public int threshold;
+
+    private File directory;
+
+    private FileStore fileStore;
+
+    private ForkJoinPool pool;
+
+    private ParallelNodeStateDiff parallelDiff;
+
+    private SegmentNodeState before;
+
+    private SegmentNodeState after;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SegmentReader reader;
+        SegmentWriter writer;
+        if ("memory".equals(fixture)) {
+            MemoryStore memoryStore = new MemoryStore();
+            reader = memoryStore.getReader();
+            writer = memoryStore.getWriter();
+        } else if ("tar".equals(fixture)) {
+            directory = Files.createTempDirectory("oak-benchmarks-jmh").toFile();
+            fileStore = fileStoreBuilder(directory).build();
+            reader = fileStore.getReader();
+            writer = fileStore.getWriter();
+        } else {
+            throw new IllegalArgumentException("Unknown fixture: " + fixture);
+        }
+
+        before = reader.readNode(writeTree(writer, EMPTY_NODE.builder(), "before"));
+        after = reader.readNode(writeTree(writer, before.builder(), "after"));
+        writer.flush();
+
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+            parallelDiff = new ParallelNodeStateDiff(pool, threshold);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+            parallelDiff = null;
+        }
+        if (fileStore != null) {
+            fileStore.close();
+            fileStore = null;
+        }
+        if (directory != null) {
+            FileUtils.deleteDirectory(directory);
+            directory = null;
+        }
+    }
+
+    private RecordId writeTree(SegmentWriter writer, NodeBuilder builder, String value) throws IOException {
+        for (int i = 0; i < fanOut; i++) {
+            NodeBuilder child = builder.child("node-" + i);
+            child.setProperty("p", value);
+            for (int j = 0; j < fanOut; j++) {
+                child.child("node-" + j).setProperty("p", value + "-" + i + "-" + j);
+            }
+        }
+        return writer.writeNode(builder.getNodeState());
+    }
+
+    @Benchmark
+    public long diff() {
+        CountingDiff diff = new CountingDiff(new LongAdder(), parallelDiff);
+        if (parallelDiff == null) {
+            after.compareAgainstBaseState(before, diff);
+        } else {
+            parallelDiff.compare(after, before, diff);
+        }
+        return diff.changes.sum();
+    }
+
+    private static class CountingDiff implements NodeStateDiff {
+
+        private final LongAdder changes;
+
+        private final ParallelNodeStateDiff parallel;
+
+        CountingDiff(LongAdder changes, ParallelNodeStateDiff parallel) {
+            this.changes = changes;
+            this.parallel = parallel;
+        }
+
+        private boolean compare(NodeState after, NodeState before) {
+            CountingDiff child = new CountingDiff(changes, parallel);
+            if (parallel != null) {
+                return parallel.compare(after, before, child);
+            } else {
+                return after.compareAgainstBaseState(before, child);
+            }
+        }
+
+        @Override
+        public boolean propertyAdded(PropertyState after) {
+            changes.increment();
+            return true;
+        }
+
+        @Override
+        public boolean propertyChanged(PropertyState before, PropertyState after) {
+            changes.increment();
+            return true;
+        }
+
+        @Override
+        public boolean propertyDeleted(PropertyState before) {
+            changes.increment();
+            return true;
+        }
+
+        @Override
+        public boolean childNodeAdded(String name, NodeState after) {
+            changes.increment();
+            return compare(after, EMPTY_NODE);
+        }
+
+        @Override
+        public boolean childNodeChanged(String name, NodeState before, NodeState after) {
+            changes.increment();
+            return compare(after, before);
+        }
+
+        @Override
+        public boolean childNodeDeleted(String name, NodeState before) {
+            changes.increment();
+            return compare(MISSING_NODE, before);
+        }
+
+    }
+
+}
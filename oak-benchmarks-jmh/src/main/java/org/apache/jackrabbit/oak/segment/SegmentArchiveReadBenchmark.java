@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.EMPTY_NODE;
+import static org.apache.jackrabbit.oak.segment.file.FileStoreBuilder.fileStoreBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jackrabbit.oak.api.Type;
+import org.apache.jackrabbit.oak.commons.Buffer;
+import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.file.tar.SegmentTarManager;
+import org.apache.jackrabbit.oak.segment.spi.monitor.FileStoreMonitorAdapter;
+import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitorAdapter;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveEntry;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveManager;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveReader;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveWriter;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading data segments from a TAR archive, with and without
+ * segment compression. The segments are taken from a store with content
+ * similar to the one of {@link SegmentStoreState} and copied into an archive
+ * of their own, so that the same segments are read in every configuration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SegmentArchiveReadBenchmark {
+
+    private static final String ARCHIVE = "data00000a.tar";
+
+    @Param({"false", "true"})
+    public boolean compression;
+
+    @Param({"true", "false"})
+    public boolean memoryMapping;
+
+    private File directory;
+
+    private SegmentArchiveReader reader;
+
+    private long[] ids;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("oak-benchmarks-jmh").toFile();
+
+        File source = new File(directory, "source");
+        try (FileStore store = fileStoreBuilder(source).build()) {
+            NodeBuilder builder = EMPTY_NODE.builder();
+            for (int i = 0; i < 100000; i++) {
+                NodeBuilder child = builder.child("node-" + i);
+                child.setProperty("jcr:primaryType", "nt:unstructured", Type.NAME);
+                child.setProperty("title", "Title of node " + i);
+                child.setProperty("count", (long) i);
+                child.setProperty("tags", asList("tag-" + i, "common", "shared"), Type.STRINGS);
+            }
+            store.getWriter().writeNode(builder.getNodeState());
+            store.flush();
+        }
+
+        File target = new File(directory, "target");
+        target.mkdirs();
+        SegmentArchiveManager from = newManager(source, false, false);
+        SegmentArchiveManager to = newManager(target, false, compression);
+        List<Long> segments = new ArrayList<>();
+        SegmentArchiveWriter writer = to.create(ARCHIVE);
+        for (String name : from.listArchives()) {
+            try (SegmentArchiveReader r = from.open(name)) {
+                for (SegmentArchiveEntry entry : r.listSegments()) {
+                    if (!SegmentId.isDataSegmentId(entry.getLsb())) {
+                        continue;
+                    }
+                    Buffer buffer = r.readSegment(entry.getMsb(), entry.getLsb());
+                    byte[] data = new byte[buffer.remaining()];
+                    buffer.get(data);
+                    writer.writeSegment(entry.getMsb(), entry.getLsb(), data, 0, data.length, 0, 0, false);
+                    segments.add(entry.getMsb());
+                    segments.add(entry.getLsb());
+                }
+            }
+        }
+        writer.close();
+
+        ids = new long[segments.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = segments.get(i);
+        }
+        reader = newManager(target, memoryMapping, false).open(ARCHIVE);
+    }
+
+    private static SegmentArchiveManager newManager(File directory, boolean memoryMapping, boolean compression) {
+        return new SegmentTarManager(directory, new FileStoreMonitorAdapter(), new IOMonitorAdapter(), memoryMapping, false, compression);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        if (directory != null) {
+            FileUtils.deleteDirectory(directory);
+            directory = null;
+        }
+    }
+
+    /**
+     * Read the next segment and touch all of its bytes, as parsing the
+     * records of the segment eventually does.
+     */
+    @Benchmark
+    public long readSegment() throws Exception {
+        int i = Math.floorMod(next++, ids.length / 2) * 2;
+        Buffer buffer = reader.readSegment(ids[i], ids[i + 1]);
+        long sum = 0;
+        for (int p = buffer.position(); p + Long.BYTES <= buffer.limit(); p += Long.BYTES) {
+            sum += buffer.getLong(p);
+        }
+        return sum;
+    }
+
+}
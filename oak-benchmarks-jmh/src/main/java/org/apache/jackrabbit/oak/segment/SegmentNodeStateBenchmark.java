@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.apache.jackrabbit.oak.spi.state.ChildNodeEntry;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures child node access through {@link SegmentNodeState}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SegmentNodeStateBenchmark {
+
+    /**
+     * Number of distinct names of missing child nodes, precomputed so that
+     * looking them up doesn't allocate within the measured methods.
+     */
+    private static final int MISSING_NAMES = 1024;
+
+    private String[] names;
+
+    private String[] missingNames;
+
+    private int next;
+
+    @Setup
+    public void setUp(SegmentStoreState state) {
+        names = state.getChildNames();
+        missingNames = new String[MISSING_NAMES];
+        for (int i = 0; i < MISSING_NAMES; i++) {
+            missingNames[i] = "missing-" + i;
+        }
+    }
+
+    private static String nextName(String[] names, int n) {
+        return names[Math.floorMod(n, names.length)];
+    }
+
+    @Benchmark
+    public NodeState getChildNode(SegmentStoreState state) {
+        return state.getRoot().getChildNode(nextName(names, next++));
+    }
+
+    @Benchmark
+    public boolean hasMissingChildNode(SegmentStoreState state) {
+        return state.getRoot().hasChildNode(nextName(missingNames, next++));
+    }
+
+    @Benchmark
+    public long getChildNodeCount(SegmentStoreState state) {
+        return state.getRoot().getChildNodeCount(Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public void getChildNodeEntries(SegmentStoreState state, Blackhole blackhole) {
+        for (ChildNodeEntry entry : state.getRoot().getChildNodeEntries()) {
+            blackhole.consume(entry.getName());
+        }
+    }
+
+}
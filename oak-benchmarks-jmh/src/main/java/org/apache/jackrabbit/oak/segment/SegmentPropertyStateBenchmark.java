@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.apache.jackrabbit.oak.api.Type;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures decoding of property values through {@link SegmentPropertyState}.
+ * Each invocation resolves the property from a fresh {@link SegmentNodeState}
+ * so that template and value records are read from the segment every time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SegmentPropertyStateBenchmark {
+
+    private RecordId[] nodeIds;
+
+    private int next;
+
+    @Setup
+    public void setUp(SegmentStoreState state) {
+        String[] names = state.getChildNames();
+        nodeIds = new RecordId[names.length];
+        for (int i = 0; i < names.length; i++) {
+            NodeState child = state.getRoot().getChildNode(names[i]);
+            nodeIds[i] = ((SegmentNodeState) child).getRecordId();
+        }
+    }
+
+    private SegmentNodeState nextNode(SegmentStoreState state) {
+        return state.getReader().readNode(nodeIds[Math.floorMod(next++, nodeIds.length)]);
+    }
+
+    @Benchmark
+    public String getString(SegmentStoreState state) {
+        return nextNode(state).getProperty("title").getValue(Type.STRING);
+    }
+
+    @Benchmark
+    public long getLong(SegmentStoreState state) {
+        return nextNode(state).getProperty("count").getValue(Type.LONG);
+    }
+
+    @Benchmark
+    public boolean getBoolean(SegmentStoreState state) {
+        return nextNode(state).getProperty("flag").getValue(Type.BOOLEAN);
+    }
+
+    @Benchmark
+    public String getDate(SegmentStoreState state) {
+        return nextNode(state).getProperty("created").getValue(Type.DATE);
+    }
+
+    @Benchmark
+    public void getStrings(SegmentStoreState state, Blackhole blackhole) {
+        for (String value : nextNode(state).getProperty("tags").getValue(Type.STRINGS)) {
+            blackhole.consume(value);
+        }
+    }
+
+    @Benchmark
+    public void getProperties(SegmentStoreState state, Blackhole blackhole) {
+        for (Object property : nextNode(state).getProperties()) {
+            blackhole.consume(property);
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static java.util.Arrays.asList;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.EMPTY_NODE;
+import static org.apache.jackrabbit.oak.segment.file.FileStoreBuilder.fileStoreBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jackrabbit.oak.api.Type;
+import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.memory.MemoryStore;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Shared benchmark state providing a segment store and a root node with
+ * {@link #childCount} children. Depending on {@link #fixture} the store is
+ * either a {@link MemoryStore} or a tar backed {@link FileStore} in a
+ * temporary directory.
+ */
+@State(Scope.Benchmark)
+public class SegmentStoreState {
+
+    /**
+     * The store backing the benchmark, either {@code memory} or {@code tar}.
+     */
+    @Param({"memory", "tar"})
+    public String fixture;
+
+    /**
+     * Number of child nodes of the root node. Values above
+     * {@code MapRecord.BUCKETS_PER_LEVEL} result in branch map records.
+     */
+    @Param({"10", "1000", "100000"})
+    public int childCount;
+
+    private File directory;
+
+    private FileStore fileStore;
+
+    private MemoryStore memoryStore;
+
+    private SegmentReader reader;
+
+    private SegmentWriter writer;
+
+    private SegmentNodeState root;
+
+    private String[] childNames;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if ("memory".equals(fixture)) {
+            memoryStore = new MemoryStore();
+            reader = memoryStore.getReader();
+            writer = memoryStore.getWriter();
+        } else if ("tar".equals(fixture)) {
+            directory = Files.createTempDirectory("oak-benchmarks-jmh").toFile();
+            fileStore = fileStoreBuilder(directory).build();
+            reader = fileStore.getReader();
+            writer = fileStore.getWriter();
+        } else {
+            throw new IllegalArgumentException("Unknown fixture: " + fixture);
+        }
+
+        childNames = new String[childCount];
+        NodeBuilder builder = EMPTY_NODE.builder();
+        for (int i = 0; i < childCount; i++) {
+            childNames[i] = "node-" + i;
+            NodeBuilder child = builder.child(childNames[i]);
+            child.setProperty("jcr:primaryType", "nt:unstructured", Type.NAME);
+            child.setProperty("title", "Title of node " + i);
+            child.setProperty("count", (long) i);
+            child.setProperty("flag", i % 2 == 0);
+            child.setProperty("created", "2019-10-01T12:00:00.000Z", Type.DATE);
+            child.setProperty("tags", asList("tag-" + i, "common", "shared"), Type.STRINGS);
+        }
+
+        RecordId id = writer.writeNode(builder.getNodeState());
+        writer.flush();
+        root = reader.readNode(id);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (fileStore != null) {
+            fileStore.close();
+            fileStore = null;
+        }
+        if (directory != null) {
+            FileUtils.deleteDirectory(directory);
+            directory = null;
+        }
+        memoryStore = null;
+    }
+
+    SegmentReader getReader() {
+        return reader;
+    }
+
+    SegmentWriter getWriter() {
+        return writer;
+    }
+
+    SegmentNodeState getRoot() {
+        return root;
+    }
+
+    String[] getChildNames() {
+        return childNames;
+    }
+
+}
@@ -530,6 +530,7 @@ public class BenchmarkRunner {
             new BundlingNodeTest(),
             new PersistentCacheTest(statsProvider),
             new StringWriteTest(),
+            new SegmentIdTableContentionTest(),
             new BasicWriteTest(),
             new CanReadNonExisting(),
             new IsNodeTypeTest(runAsAdmin.value(options)),
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.benchmark;
+
+import java.util.Random;
+
+import org.apache.jackrabbit.oak.segment.SegmentId;
+import org.apache.jackrabbit.oak.segment.SegmentIdFactory;
+import org.apache.jackrabbit.oak.segment.SegmentTracker;
+import org.apache.jackrabbit.oak.segment.memory.MemoryStore;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Measures the contention on the segment id tables of a {@link SegmentTracker}
+ * by resolving already tracked segment ids from many threads, as readers do
+ * when resolving record ids from the references of a segment. Run it with
+ * increasing values of {@code -concurrency} (e.g. {@code 1,8,64}) to compare
+ * the throughput under load. The benchmark doesn't use the repository.
+ */
+public class SegmentIdTableContentionTest extends AbstractTest<Random> {
+
+    private static final int SEGMENT_COUNT = Integer.getInteger("SegmentIdTableContentionTest.segmentCount", 100000);
+
+    private static final int LOOKUP_COUNT = Integer.getInteger("SegmentIdTableContentionTest.lookupCount", 1000000);
+
+    private SegmentTracker tracker;
+
+    /**
+     * Strong references to the tracked segment ids, so that they are not
+     * garbage collected and removed from the tracker while the test runs.
+     */
+    private SegmentId[] ids;
+
+    @Override
+    protected void beforeSuite() throws Exception {
+        final MemoryStore store = new MemoryStore();
+        tracker = new SegmentTracker(new SegmentIdFactory() {
+
+            @NotNull
+            @Override
+            public SegmentId newSegmentId(long msb, long lsb) {
+                return new SegmentId(store, msb, lsb);
+            }
+
+        });
+        ids = new SegmentId[SEGMENT_COUNT];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tracker.newDataSegmentId();
+        }
+    }
+
+    @Override
+    protected Random prepareThreadExecutionContext() {
+        return new Random();
+    }
+
+    @Override
+    protected void runTest() throws Exception {
+        runTest(new Random());
+    }
+
+    @Override
+    protected void runTest(Random random) throws Exception {
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            SegmentId id = ids[random.nextInt(ids.length)];
+            if (tracker.newSegmentId(id.getMostSignificantBits(), id.getLeastSignificantBits()) != id) {
+                throw new IllegalStateException("Segment id " + id + " resolved to a different instance");
+            }
+        }
+    }
+
+    @Override
+    protected void afterSuite() throws Exception {
+        ids = null;
+        tracker = null;
+    }
+
+}
@@ -64,6 +64,7 @@ import org.apache.jackrabbit.oak.scalability.benchmarks.search.SplitOrderByKeyse
 import org.apache.jackrabbit.oak.scalability.benchmarks.search.SplitOrderByOffsetPageSearcher;
 import org.apache.jackrabbit.oak.scalability.benchmarks.search.SplitOrderBySearcher;
 import org.apache.jackrabbit.oak.scalability.benchmarks.segment.standby.StandbyBulkTransferBenchmark;
+import org.apache.jackrabbit.oak.scalability.benchmarks.segment.standby.StandbyFanOutTransferBenchmark;
 import org.apache.jackrabbit.oak.scalability.suites.ScalabilityBlobSearchSuite;
 import org.apache.jackrabbit.oak.scalability.suites.ScalabilityNodeRelationshipSuite;
 import org.apache.jackrabbit.oak.scalability.suites.ScalabilityNodeSuite;
@@ -211,7 +212,8 @@ public class ScalabilityRunner {
                         new ScalabilityNodeRelationshipSuite(withStorage.value(options))
                                 .addBenchmarks(new AggregateNodeSearcher()),
                         new ScalabilityStandbySuite()
-                                .addBenchmarks(new StandbyBulkTransferBenchmark())
+                                .addBenchmarks(new StandbyBulkTransferBenchmark(),
+                                        new StandbyFanOutTransferBenchmark())
                 };
 
         Set<String> argset = Sets.newHashSet(nonOption.values(options));
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.jackrabbit.oak.scalability.benchmarks.segment.standby;
+
+import static org.apache.jackrabbit.oak.segment.file.FileStoreBuilder.fileStoreBuilder;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Stopwatch;
+import javax.jcr.Credentials;
+import javax.jcr.Repository;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.commons.io.FileUtils;
+import org.apache.jackrabbit.oak.scalability.benchmarks.ScalabilityBenchmark;
+import org.apache.jackrabbit.oak.scalability.suites.ScalabilityAbstractSuite;
+import org.apache.jackrabbit.oak.scalability.suites.ScalabilityAbstractSuite.ExecutionContext;
+import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.standby.client.StandbyClientSync;
+import org.apache.jackrabbit.oak.segment.standby.jmx.StandbyStatusMBean;
+import org.apache.jackrabbit.oak.segment.standby.server.StandbyServerSync;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk transfers the content of the primary to <code>standbyCount</code>
+ * empty standby instances concurrently and outputs the aggregated segment
+ * throughput of the primary.
+ */
+public class StandbyFanOutTransferBenchmark extends ScalabilityBenchmark {
+    protected static final Logger LOG = LoggerFactory.getLogger(ScalabilityAbstractSuite.class);
+
+    /**
+     * Number of standby instances fed concurrently by the primary.
+     */
+    private static final int STANDBY_COUNT = Integer.getInteger("standbyCount", 4);
+
+    private static final int READ_TIMEOUT = 60_000;
+
+    @Override
+    public void execute(Repository repository, Credentials credentials, ExecutionContext context) throws Exception {
+        Map<Object, Object> contextMap = context.getMap();
+        StandbyServerSync[] serverSyncs = (StandbyServerSync[]) contextMap.get("serverSyncs");
+        FileStore[] stores = (FileStore[]) contextMap.get("stores");
+
+        stores[0].flush();
+        serverSyncs[0].start();
+
+        List<File> directories = new ArrayList<>();
+        List<FileStore> standbyStores = new ArrayList<>();
+        List<StandbyClientSync> clientSyncs = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(STANDBY_COUNT);
+
+        try {
+            for (int i = 0; i < STANDBY_COUNT; i++) {
+                File directory = Files.createTempDirectory("standby-fan-out").toFile();
+                directories.add(directory);
+                FileStore store = fileStoreBuilder(directory).build();
+                standbyStores.add(store);
+                clientSyncs.add(new StandbyClientSync("127.0.0.1", serverSyncs[0].getPort(), store, false,
+                        READ_TIMEOUT, false, directory));
+            }
+
+            long bytesBefore = transferredSegmentBytes(serverSyncs[0], clientSyncs);
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            List<Future<?>> syncs = new ArrayList<>();
+            for (StandbyClientSync clientSync : clientSyncs) {
+                syncs.add(executor.submit(clientSync));
+            }
+            for (Future<?> sync : syncs) {
+                sync.get();
+            }
+            stopwatch.stop();
+
+            long bytes = transferredSegmentBytes(serverSyncs[0], clientSyncs) - bytesBefore;
+            long millis = Math.max(1, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+
+            LOG.info("Fan out transfer to {} standbys finished! Segments size = {} bytes, time = {}, throughput = {} MB/s",
+                    STANDBY_COUNT, bytes, stopwatch,
+                    String.format("%.2f", bytes * 1000.0 / millis / (1024 * 1024)));
+        } finally {
+            executor.shutdown();
+            for (StandbyClientSync clientSync : clientSyncs) {
+                clientSync.close();
+            }
+            for (FileStore store : standbyStores) {
+                store.close();
+            }
+            for (File directory : directories) {
+                FileUtils.deleteQuietly(directory);
+            }
+        }
+    }
+
+    /**
+     * Sum up the segment bytes sent by the primary to all of its standbys so
+     * far. The per connection statistics are exposed by the MBeans that are
+     * neither registered by the server nor by the clients.
+     */
+    private static long transferredSegmentBytes(StandbyServerSync serverSync, List<StandbyClientSync> clientSyncs) throws Exception {
+        MBeanServer jmxServer = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> excluded = new HashSet<>();
+        excluded.add(new ObjectName(serverSync.getMBeanName()));
+        for (StandbyClientSync clientSync : clientSyncs) {
+            excluded.add(new ObjectName(clientSync.getMBeanName()));
+        }
+
+        long bytes = 0;
+        for (ObjectName name : jmxServer.queryNames(new ObjectName(StandbyStatusMBean.JMX_NAME + ",id=*"), null)) {
+            if (!excluded.contains(name)) {
+                bytes += (Long) jmxServer.getAttribute(name, "TransferredSegmentBytes");
+            }
+        }
+        return bytes;
+    }
+}
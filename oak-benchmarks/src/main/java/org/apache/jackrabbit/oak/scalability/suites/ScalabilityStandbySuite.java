@@ -51,6 +51,8 @@ import org.apache.jackrabbit.oak.scalability.benchmarks.ScalabilityBenchmark;
  * <ul>
  * <li><code>nodeCount</code> - Controls the number of nodes to be created on
  * the primary. Defaults to 100_000.</li>
+ * <li><code>standbyCount</code> - Controls the number of standbys fed
+ * concurrently by {@code StandbyFanOutTransferBenchmark}. Defaults to 4.</li>
  * </ul>
  *
  */
@@ -65,6 +65,7 @@ import org.apache.jackrabbit.oak.spi.security.authorization.permission.Permissio
 import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
 import org.apache.jackrabbit.oak.spi.state.NodeState;
 import org.apache.jackrabbit.oak.spi.state.NodeStore;
+import org.apache.jackrabbit.oak.spi.state.PrefetchNodeStore;
 import org.jetbrains.annotations.NotNull;
 
 class MutableRoot implements Root {
@@ -315,8 +316,11 @@ class MutableRoot implements Root {
                     provider = new UUIDDiffIndexProviderWrapper(
                             provider, getBaseState(), getRootState());
                 }
+                PrefetchNodeStore prefetchNodeStore = store instanceof PrefetchNodeStore
+                        ? (PrefetchNodeStore) store : PrefetchNodeStore.NOOP;
                 return new ExecutionContext(
-                        getBaseState(), MutableRoot.this, queryEngineSettings, provider, permissionProvider.get());
+                        getBaseState(), MutableRoot.this, queryEngineSettings, provider, permissionProvider.get(),
+                        prefetchNodeStore);
             }
         };
     }
@@ -16,11 +16,14 @@
  */
 package org.apache.jackrabbit.oak.plugins.index;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.apache.jackrabbit.oak.api.Result.SizePrecision;
 import org.apache.jackrabbit.oak.commons.PathUtils;
@@ -36,6 +39,7 @@ import org.apache.jackrabbit.oak.spi.query.QueryLimits;
 import org.apache.jackrabbit.oak.spi.state.ChildNodeEntry;
 import org.apache.jackrabbit.oak.spi.state.NodeState;
 import org.apache.jackrabbit.oak.spi.state.NodeStateUtils;
+import org.apache.jackrabbit.oak.spi.state.PrefetchNodeStore;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -144,6 +148,87 @@ public class Cursors {
 
     }
 
+    /**
+     * Returns a cursor wrapper, which reads up to {@code count} rows ahead of
+     * the wrapped cursor <code>c</code> and passes their paths to {@link
+     * PrefetchNodeStore#prefetch(java.util.Collection, NodeState)}, such
+     * that the nodes of the rows can be read in a batch before they are read
+     * one by one.
+     *
+     * @param c the cursor to wrap.
+     * @param store the node store to prefetch from.
+     * @param count the number of rows to read ahead. Must be {@code >= 1}.
+     * @param rootState the root state the nodes are read from.
+     * @return the prefetching cursor.
+     */
+    public static Cursor newPrefetchCursor(Cursor c, PrefetchNodeStore store, int count, NodeState rootState) {
+        checkNotNull(c);
+        checkNotNull(store);
+        checkArgument(count >= 1);
+        return new PrefetchCursor(c, store, count, rootState);
+    }
+
+    /**
+     * This class reads ahead the rows of the wrapped cursor in batches and
+     * prefetches the nodes of each batch.
+     */
+    private static class PrefetchCursor extends AbstractCursor {
+
+        private final Cursor cursor;
+
+        private final PrefetchNodeStore store;
+
+        private final int count;
+
+        private final NodeState rootState;
+
+        private final Deque<IndexRow> rows = new ArrayDeque<IndexRow>();
+
+        PrefetchCursor(Cursor cursor, PrefetchNodeStore store, int count, NodeState rootState) {
+            this.cursor = cursor;
+            this.store = store;
+            this.count = count;
+            this.rootState = rootState;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !rows.isEmpty() || cursor.hasNext();
+        }
+
+        @Override
+        public IndexRow next() {
+            if (rows.isEmpty()) {
+                readAhead();
+            }
+            IndexRow row = rows.poll();
+            if (row == null) {
+                throw new NoSuchElementException();
+            }
+            return row;
+        }
+
+        private void readAhead() {
+            List<String> paths = new ArrayList<String>(count);
+            while (rows.size() < count && cursor.hasNext()) {
+                IndexRow row = cursor.next();
+                rows.add(row);
+                if (!row.isVirtualRow()) {
+                    paths.add(row.getPath());
+                }
+            }
+            if (!paths.isEmpty()) {
+                store.prefetch(paths, rootState);
+            }
+        }
+
+        @Override
+        public long getSize(SizePrecision precision, long max) {
+            return cursor.getSize(precision, max);
+        }
+
+    }
+
     /**
      * This class allows to iterate over the parent nodes of the wrapped cursor.
      */
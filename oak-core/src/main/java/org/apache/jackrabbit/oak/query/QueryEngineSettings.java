@@ -58,6 +58,15 @@ public class QueryEngineSettings implements QueryEngineSettingsMBean, QueryLimit
     private static final boolean DEFAULT_FAIL_TRAVERSAL =
             Boolean.getBoolean(OAK_QUERY_FAIL_TRAVERSAL);
 
+    public static final String OAK_QUERY_PREFETCH_COUNT = "oak.queryPrefetchCount";
+
+    /**
+     * The number of result rows whose nodes are prefetched together, if the
+     * node store supports it. {@code 0} disables prefetching.
+     */
+    public static final int DEFAULT_PREFETCH_COUNT =
+            Integer.getInteger(OAK_QUERY_PREFETCH_COUNT, 20);
+
     private static final boolean DEFAULT_FULL_TEXT_COMPARISON_WITHOUT_INDEX =
             Boolean.getBoolean("oak.queryFullTextComparisonWithoutIndex");
     
@@ -66,6 +75,8 @@ public class QueryEngineSettings implements QueryEngineSettingsMBean, QueryLimit
     private long limitReads = DEFAULT_QUERY_LIMIT_READS;
     
     private boolean failTraversal = DEFAULT_FAIL_TRAVERSAL;
+
+    private int prefetchCount = DEFAULT_PREFETCH_COUNT;
     
     private boolean fullTextComparisonWithoutIndex = 
             DEFAULT_FULL_TEXT_COMPARISON_WITHOUT_INDEX;
@@ -137,6 +148,14 @@ public class QueryEngineSettings implements QueryEngineSettingsMBean, QueryLimit
         System.setProperty(OAK_FAST_QUERY_SIZE, String.valueOf(fastQuerySize));
     }
 
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    public void setPrefetchCount(int prefetchCount) {
+        this.prefetchCount = prefetchCount;
+    }
+
     public String getStrictPathRestriction() {
         return strictPathRestriction.name();
     }
@@ -192,6 +211,7 @@ public class QueryEngineSettings implements QueryEngineSettingsMBean, QueryLimit
                 ", fullTextComparisonWithoutIndex=" + fullTextComparisonWithoutIndex +
                 ", sql2Optimisation=" + sql2Optimisation +
                 ", fastQuerySize=" + fastQuerySize +
+                ", prefetchCount=" + prefetchCount +
                 '}';
     }
     
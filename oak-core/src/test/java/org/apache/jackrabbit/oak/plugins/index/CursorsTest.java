@@ -16,12 +16,16 @@
  */
 package org.apache.jackrabbit.oak.plugins.index;
 
+import static java.util.Arrays.asList;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.EMPTY_NODE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.jackrabbit.oak.api.PropertyValue;
 import org.apache.jackrabbit.oak.api.Result.SizePrecision;
@@ -67,6 +71,21 @@ public class CursorsTest {
         }
     }
 
+    @Test
+    public void prefetchCursor() {
+        List<List<String>> prefetched = new ArrayList<List<String>>();
+        Cursor a = new SimpleCursor("1:", "/a", "/b", "/c", "/d", "/e");
+        Cursor c = Cursors.newPrefetchCursor(a,
+                (paths, rootState) -> prefetched.add(new ArrayList<String>(paths)),
+                2, EMPTY_NODE);
+        assertTrue(prefetched.isEmpty());
+        assertEquals("1:/a", c.next().toString());
+        assertEquals(asList(asList("/a", "/b")), prefetched);
+        assertEquals("1:/b, 1:/c, 1:/d, 1:/e", list(c));
+        assertEquals(asList(asList("/a", "/b"), asList("/c", "/d"), asList("/e")), prefetched);
+        assertFalse(c.hasNext());
+    }
+
     static String list(Cursor c) {
         StringBuilder buff = new StringBuilder();
         while (c.hasNext()) {
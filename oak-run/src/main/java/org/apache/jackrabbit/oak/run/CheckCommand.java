@@ -58,6 +58,10 @@ class CheckCommand implements Command {
             .withValuesSeparatedBy(',')
             .defaultsTo("all");
         OptionSpec<?> ioStatistics = parser.accepts("io-stats", "Print I/O statistics (only for oak-segment-tar)");
+        OptionSpec<Integer> prefetchDepth = parser.accepts("prefetch-depth", "number of levels below the checked node whose segments are read ahead (0 disables read-ahead)")
+            .withRequiredArg()
+            .ofType(Integer.class)
+            .defaultsTo(0);
         OptionSpec<File> dir = parser.nonOptions()
             .describedAs("path")
             .ofType(File.class);
@@ -80,6 +84,7 @@ class CheckCommand implements Command {
             .withCheckpoints(toCheckpointsSet(options, head, cp))
             .withFilterPaths(toSet(options, filter))
             .withIOStatistics(options.has(ioStatistics))
+            .withPrefetchDepth(prefetchDepth.value(options))
             .withOutWriter(new PrintWriter(System.out, true))
             .withErrWriter(new PrintWriter(System.err, true));
 
@@ -52,6 +52,17 @@ class CompactCommand implements Command {
                         "which is incompatible with older versions of Oak.")
                 .withOptionalArg()
                 .ofType(Boolean.class);
+        OptionSpec<Integer> threadsArg = parser.accepts("threads",
+                "Number of threads to use for compaction of a TAR segment store. " +
+                        "With more than one thread independent subtrees are compacted concurrently.")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(1);
+        OptionSpec<Boolean> compressArg = parser.accepts("compress",
+                "Compress the segments written to a TAR segment store. " +
+                        "CAUTION: compressed segments can't be read by older versions of Oak.")
+                .withOptionalArg()
+                .ofType(Boolean.class);
         OptionSet options = parser.parse(args);
 
         String path = directoryArg.value(options);
@@ -70,6 +81,8 @@ class CompactCommand implements Command {
                     .withForce(isTrue(forceArg.value(options)))
                     .withSegmentCacheSize(Integer.getInteger("cache", 256))
                     .withGCLogInterval(Long.getLong("compaction-progress-log", 150000))
+                    .withConcurrency(threadsArg.value(options))
+                    .withSegmentCompression(options.has(compressArg) && !Boolean.FALSE.equals(compressArg.value(options)))
                     .build()
                     .run();
         } else {
@@ -80,6 +93,7 @@ class CompactCommand implements Command {
                     .withOs(StandardSystemProperty.OS_NAME.value())
                     .withSegmentCacheSize(Integer.getInteger("cache", 256))
                     .withGCLogInterval(Long.getLong("compaction-progress-log", 150000))
+                    .withConcurrency(threadsArg.value(options))
                     .build()
                     .run();
         }
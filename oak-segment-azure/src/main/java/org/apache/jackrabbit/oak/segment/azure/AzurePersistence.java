@@ -116,6 +116,16 @@ public class AzurePersistence implements SegmentNodeStorePersistence {
         return new AzureGCJournalFile(getAppendBlob("gc.log"));
     }
 
+    @Override
+    public GCJournalFile getCompactionMapFile() throws IOException {
+        return new AzureGCJournalFile(getAppendBlob("compaction.map"));
+    }
+
+    @Override
+    public GCJournalFile getRecordDictionaryFile() throws IOException {
+        return new AzureGCJournalFile(getAppendBlob("record.dictionary"));
+    }
+
     @Override
     public ManifestFile getManifestFile() throws IOException {
         return new AzureManifestFile(getBlockBlob("manifest"));
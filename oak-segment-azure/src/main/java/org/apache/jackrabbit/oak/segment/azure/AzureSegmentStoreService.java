@@ -21,6 +21,9 @@ package org.apache.jackrabbit.oak.segment.azure;
 import com.microsoft.azure.storage.CloudStorageAccount;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
+import org.apache.jackrabbit.oak.segment.azure.cache.CachingPersistence;
+import org.apache.jackrabbit.oak.segment.azure.cache.PersistentDiskCache;
+import org.apache.jackrabbit.oak.segment.azure.cache.SegmentPrefetcher;
 import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentNodeStorePersistence;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
@@ -31,6 +34,7 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.security.InvalidKeyException;
@@ -47,6 +51,12 @@ public class AzureSegmentStoreService {
 
     public static final String DEFAULT_ROOT_PATH = "/oak";
 
+    public static final int DEFAULT_CACHE_SIZE_MB = 1024;
+
+    public static final int DEFAULT_PREFETCH_THREADS = 4;
+
+    private static final int PREFETCH_QUEUE_SIZE = Integer.getInteger("oak.segment.azure.prefetch.queue", 1000);
+
     private ServiceRegistration registration;
 
     private SegmentNodeStorePersistence persistence;
@@ -54,6 +64,9 @@ public class AzureSegmentStoreService {
     @Activate
     public void activate(ComponentContext context, Configuration config) throws IOException {
         persistence = createAzurePersistence(config);
+        if (config.cacheDirectory() != null && !config.cacheDirectory().trim().isEmpty()) {
+            persistence = createCachingPersistence(persistence, config);
+        }
         registration = context.getBundleContext().registerService(SegmentNodeStorePersistence.class.getName(), persistence, new Properties());
     }
 
@@ -63,9 +76,20 @@ public class AzureSegmentStoreService {
             registration.unregister();
             registration = null;
         }
+        if (persistence instanceof CachingPersistence) {
+            ((CachingPersistence) persistence).close();
+        }
         persistence = null;
     }
 
+    private static SegmentNodeStorePersistence createCachingPersistence(SegmentNodeStorePersistence persistence, Configuration configuration) throws IOException {
+        File directory = new File(configuration.cacheDirectory().trim());
+        log.info("Local segment cache: {} ({} MB, {} prefetch threads)", directory, configuration.cacheSizeMB(), configuration.prefetchThreads());
+        PersistentDiskCache cache = new PersistentDiskCache(directory, configuration.cacheSizeMB() * 1024L * 1024L);
+        SegmentPrefetcher prefetcher = new SegmentPrefetcher(cache, configuration.prefetchThreads(), PREFETCH_QUEUE_SIZE);
+        return new CachingPersistence(persistence, cache, prefetcher);
+    }
+
     private static SegmentNodeStorePersistence createAzurePersistence(Configuration configuration) throws IOException {
         try {
             StringBuilder connectionString = new StringBuilder();
@@ -56,4 +56,21 @@ import static org.apache.jackrabbit.oak.segment.azure.Configuration.PID;
             description = "Connection string to be used to connect to the Azure Storage. " +
                     "Setting it will override the accountName and accessKey properties.")
     String connectionURL() default "";
+
+    @AttributeDefinition(
+            name = "Local segment cache directory (optional)",
+            description = "Directory of a persistent cache of the segments read from the Azure Storage. " +
+                    "The cache is disabled if no directory is set.")
+    String cacheDirectory() default "";
+
+    @AttributeDefinition(
+            name = "Local segment cache size (MB)",
+            description = "Maximum size of the local segment cache, in MB.")
+    int cacheSizeMB() default AzureSegmentStoreService.DEFAULT_CACHE_SIZE_MB;
+
+    @AttributeDefinition(
+            name = "Segment prefetch threads",
+            description = "Number of threads prefetching the segments referenced by the segments being read " +
+                    "into the local segment cache. Set it to 0 to disable prefetching.")
+    int prefetchThreads() default AzureSegmentStoreService.DEFAULT_PREFETCH_THREADS;
 }
\ No newline at end of file
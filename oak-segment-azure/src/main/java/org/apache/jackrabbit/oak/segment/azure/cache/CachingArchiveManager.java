@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.segment.azure.cache;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitor;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveEntry;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveManager;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveReader;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A {@link SegmentArchiveManager} that wraps the readers of another manager in
+ * {@link CachingSegmentArchiveReader}s. It keeps track of the segments of the
+ * open readers, so that a reader can prefetch referenced segments stored in
+ * other archives.
+ */
+class CachingArchiveManager implements SegmentArchiveManager {
+
+    private final SegmentArchiveManager delegate;
+
+    private final PersistentDiskCache cache;
+
+    private final SegmentPrefetcher prefetcher;
+
+    private final IOMonitor ioMonitor;
+
+    /**
+     * The open reader of each segment. If several open readers contain the
+     * same segment, e.g. two generations of an archive, the one opened last.
+     */
+    private final Map<UUID, CachingSegmentArchiveReader> segmentReaders = new ConcurrentHashMap<>();
+
+    CachingArchiveManager(SegmentArchiveManager delegate, PersistentDiskCache cache, SegmentPrefetcher prefetcher, IOMonitor ioMonitor) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.prefetcher = prefetcher;
+        this.ioMonitor = ioMonitor;
+    }
+
+    @Override
+    @NotNull
+    public List<String> listArchives() throws IOException {
+        return delegate.listArchives();
+    }
+
+    @Override
+    @Nullable
+    public SegmentArchiveReader open(@NotNull String archiveName) throws IOException {
+        return wrap(delegate.open(archiveName));
+    }
+
+    @Override
+    @Nullable
+    public SegmentArchiveReader forceOpen(String archiveName) throws IOException {
+        return wrap(delegate.forceOpen(archiveName));
+    }
+
+    private SegmentArchiveReader wrap(SegmentArchiveReader reader) {
+        if (reader == null) {
+            return null;
+        }
+        CachingSegmentArchiveReader cachingReader = new CachingSegmentArchiveReader(reader, this, cache, ioMonitor);
+        for (SegmentArchiveEntry entry : reader.listSegments()) {
+            segmentReaders.put(new UUID(entry.getMsb(), entry.getLsb()), cachingReader);
+        }
+        return cachingReader;
+    }
+
+    void closed(CachingSegmentArchiveReader reader) {
+        for (SegmentArchiveEntry entry : reader.listSegments()) {
+            segmentReaders.remove(new UUID(entry.getMsb(), entry.getLsb()), reader);
+        }
+    }
+
+    /**
+     * Prefetch the segments referenced by a segment, from whichever open
+     * archive contains them. Segments already cached are skipped without
+     * looking up their archive.
+     */
+    void prefetch(List<UUID> references) {
+        for (UUID reference : references) {
+            long msb = reference.getMostSignificantBits();
+            long lsb = reference.getLeastSignificantBits();
+            if (cache.containsSegment(msb, lsb)) {
+                continue;
+            }
+            CachingSegmentArchiveReader reader = segmentReaders.get(reference);
+            if (reader != null) {
+                prefetcher.prefetch(msb, lsb, reader.getDelegate());
+            }
+        }
+    }
+
+    @Override
+    @NotNull
+    public SegmentArchiveWriter create(@NotNull String archiveName) throws IOException {
+        return delegate.create(archiveName);
+    }
+
+    @Override
+    public boolean delete(@NotNull String archiveName) {
+        return delegate.delete(archiveName);
+    }
+
+    @Override
+    public boolean renameTo(@NotNull String from, @NotNull String to) {
+        return delegate.renameTo(from, to);
+    }
+
+    @Override
+    public void copyFile(@NotNull String from, @NotNull String to) throws IOException {
+        delegate.copyFile(from, to);
+    }
+
+    @Override
+    public boolean exists(@NotNull String archiveName) {
+        return delegate.exists(archiveName);
+    }
+
+    @Override
+    public void recoverEntries(@NotNull String archiveName, @NotNull LinkedHashMap<UUID, byte[]> entries) throws IOException {
+        delegate.recoverEntries(archiveName, entries);
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.segment.azure.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.jackrabbit.oak.segment.spi.monitor.FileStoreMonitor;
+import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitor;
+import org.apache.jackrabbit.oak.segment.spi.monitor.RemoteStoreMonitor;
+import org.apache.jackrabbit.oak.segment.spi.persistence.GCJournalFile;
+import org.apache.jackrabbit.oak.segment.spi.persistence.JournalFile;
+import org.apache.jackrabbit.oak.segment.spi.persistence.ManifestFile;
+import org.apache.jackrabbit.oak.segment.spi.persistence.RepositoryLock;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveManager;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentNodeStorePersistence;
+
+/**
+ * A {@link SegmentNodeStorePersistence} that puts a {@link PersistentDiskCache}
+ * in front of the segment archives of another persistence, typically a remote
+ * one like {@code AzurePersistence}. Segments read from the underlying
+ * persistence are added to the cache, and the segments they reference are
+ * prefetched in the background by a {@link SegmentPrefetcher}.
+ * <p>
+ * Cache hits and misses are reported to the {@link IOMonitor} passed to
+ * {@link #createArchiveManager}. All other operations are delegated to the
+ * underlying persistence.
+ */
+public class CachingPersistence implements SegmentNodeStorePersistence, Closeable {
+
+    private final SegmentNodeStorePersistence delegate;
+
+    private final PersistentDiskCache cache;
+
+    private final SegmentPrefetcher prefetcher;
+
+    /**
+     * @param delegate   the persistence whose segments are cached.
+     * @param cache      the cache for the segments.
+     * @param prefetcher the prefetcher for the segments referenced by the
+     *                   segments being read.
+     */
+    public CachingPersistence(SegmentNodeStorePersistence delegate, PersistentDiskCache cache, SegmentPrefetcher prefetcher) {
+        this.delegate = checkNotNull(delegate);
+        this.cache = checkNotNull(cache);
+        this.prefetcher = checkNotNull(prefetcher);
+    }
+
+    @Override
+    public SegmentArchiveManager createArchiveManager(boolean memoryMapping, boolean offHeapAccess, IOMonitor ioMonitor, FileStoreMonitor fileStoreMonitor, RemoteStoreMonitor remoteStoreMonitor) throws IOException {
+        SegmentArchiveManager archiveManager = delegate.createArchiveManager(memoryMapping, offHeapAccess, ioMonitor, fileStoreMonitor, remoteStoreMonitor);
+        return new CachingArchiveManager(archiveManager, cache, prefetcher, ioMonitor);
+    }
+
+    @Override
+    public boolean segmentFilesExist() {
+        return delegate.segmentFilesExist();
+    }
+
+    @Override
+    public JournalFile getJournalFile() {
+        return delegate.getJournalFile();
+    }
+
+    @Override
+    public GCJournalFile getGCJournalFile() throws IOException {
+        return delegate.getGCJournalFile();
+    }
+
+    @Override
+    public GCJournalFile getCompactionMapFile() throws IOException {
+        return delegate.getCompactionMapFile();
+    }
+
+    @Override
+    public GCJournalFile getRecordDictionaryFile() throws IOException {
+        return delegate.getRecordDictionaryFile();
+    }
+
+    @Override
+    public ManifestFile getManifestFile() throws IOException {
+        return delegate.getManifestFile();
+    }
+
+    @Override
+    public RepositoryLock lockRepository() throws IOException {
+        return delegate.lockRepository();
+    }
+
+    SegmentPrefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    /**
+     * Stop the prefetcher. The cache itself doesn't need to be closed.
+     */
+    @Override
+    public void close() {
+        prefetcher.close();
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.segment.azure.cache;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.jackrabbit.oak.commons.Buffer;
+import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitor;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveEntry;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link SegmentArchiveReader} that serves segments from a
+ * {@link PersistentDiskCache} when possible, and otherwise reads them from the
+ * underlying reader and adds them to the cache. Whenever a segment is read,
+ * the segments it references according to the graph of the archive are
+ * prefetched.
+ */
+class CachingSegmentArchiveReader implements SegmentArchiveReader {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingSegmentArchiveReader.class);
+
+    private final SegmentArchiveReader delegate;
+
+    private final CachingArchiveManager archiveManager;
+
+    private final PersistentDiskCache cache;
+
+    private final IOMonitor ioMonitor;
+
+    private final File file;
+
+    /**
+     * The graph of this archive, loaded on first use. Empty if the archive
+     * has no graph, e.g. because it is still being written.
+     */
+    private volatile Map<UUID, List<UUID>> graph;
+
+    CachingSegmentArchiveReader(SegmentArchiveReader delegate, CachingArchiveManager archiveManager, PersistentDiskCache cache, IOMonitor ioMonitor) {
+        this.delegate = delegate;
+        this.archiveManager = archiveManager;
+        this.cache = cache;
+        this.ioMonitor = ioMonitor;
+        this.file = new File(delegate.getName());
+    }
+
+    SegmentArchiveReader getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    @Nullable
+    public Buffer readSegment(long msb, long lsb) throws IOException {
+        // The cache is shared by all archives. Only serve the segments that
+        // belong to this archive.
+        if (!delegate.containsSegment(msb, lsb)) {
+            return null;
+        }
+
+        Buffer buffer = cache.readSegment(msb, lsb);
+        if (buffer != null) {
+            ioMonitor.onSegmentCacheHit(file, msb, lsb, buffer.remaining());
+        } else {
+            ioMonitor.onSegmentCacheMiss(file, msb, lsb);
+            buffer = delegate.readSegment(msb, lsb);
+            if (buffer != null) {
+                cache.writeSegment(msb, lsb, buffer);
+            }
+        }
+
+        if (buffer != null) {
+            List<UUID> references = getReferences().get(new UUID(msb, lsb));
+            if (references != null) {
+                archiveManager.prefetch(references);
+            }
+        }
+        return buffer;
+    }
+
+    private Map<UUID, List<UUID>> getReferences() {
+        Map<UUID, List<UUID>> graph = this.graph;
+        if (graph == null) {
+            graph = loadGraph();
+            this.graph = graph;
+        }
+        return graph;
+    }
+
+    private Map<UUID, List<UUID>> loadGraph() {
+        try {
+            Buffer buffer = delegate.getGraph();
+            if (buffer == null) {
+                return emptyMap();
+            }
+            return parseGraph(buffer.duplicate());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to load the graph of {}, segments won't be prefetched", delegate.getName(), e);
+            return emptyMap();
+        }
+    }
+
+    /**
+     * Parse the graph of an archive into a map from each segment to the
+     * segments it references. See {@code GraphLoader} in oak-segment-tar
+     * for the format, which is not exported by that bundle.
+     */
+    static Map<UUID, List<UUID>> parseGraph(Buffer buffer) {
+        int count = buffer.getInt(buffer.limit() - 12);
+        Map<UUID, List<UUID>> graph = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            UUID id = new UUID(buffer.getLong(), buffer.getLong());
+            int n = buffer.getInt();
+            List<UUID> references = n == 0 ? emptyList() : new ArrayList<>(n);
+            for (int j = 0; j < n; j++) {
+                references.add(new UUID(buffer.getLong(), buffer.getLong()));
+            }
+            graph.put(id, references);
+        }
+        return graph;
+    }
+
+    @Override
+    public boolean containsSegment(long msb, long lsb) {
+        return delegate.containsSegment(msb, lsb);
+    }
+
+    @Override
+    public List<SegmentArchiveEntry> listSegments() {
+        return delegate.listSegments();
+    }
+
+    @Override
+    @Nullable
+    public Buffer getGraph() throws IOException {
+        return delegate.getGraph();
+    }
+
+    @Override
+    public boolean hasGraph() {
+        return delegate.hasGraph();
+    }
+
+    @Override
+    @NotNull
+    public Buffer getBinaryReferences() throws IOException {
+        return delegate.getBinaryReferences();
+    }
+
+    @Override
+    public long length() {
+        return delegate.length();
+    }
+
+    @Override
+    @NotNull
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void close() throws IOException {
+        archiveManager.closed(this);
+        delegate.close();
+    }
+
+    @Override
+    public int getEntrySize(int size) {
+        return delegate.getEntrySize(size);
+    }
+
+}
@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.segment.azure.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.zip.CRC32;
+
+import com.google.common.util.concurrent.Striped;
+import org.apache.jackrabbit.oak.commons.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A size-bounded cache of segments on the local disk. Each segment is stored
+ * in its own file, named after the segment identifier. As segments are
+ * immutable, the identifier is a sufficient cache key. The cache survives
+ * restarts: the files found in the cache directory are indexed when the cache
+ * is created.
+ * <p>
+ * When the total size of the cached segments exceeds the maximum size, the
+ * least recently used segments are evicted. The recency of the segments found
+ * on disk at startup is approximated by the modification time of their
+ * files.
+ * <p>
+ * Each file ends with a trailer containing the length and the CRC32 checksum
+ * of the segment. Files are written to a temporary file and only then moved
+ * to their final name. They are not forced to disk, as this would put a sync
+ * on the path of every cache miss. A crash can therefore leave an empty or
+ * partially written file behind, depending on the file system. Such files
+ * fail the verification of the trailer when read and are evicted, so that
+ * the segment is read from the persistence again.
+ * <p>
+ * Instances of this class are thread safe.
+ */
+public class PersistentDiskCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentDiskCache.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Size of the trailer following the segment in its file: the length of
+     * the segment followed by its CRC32 checksum.
+     */
+    private static final int TRAILER_SIZE = 8;
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * The sizes of the cached segments, in access order. Guarded by itself.
+     */
+    private final LinkedHashMap<UUID, Integer> index = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Serialize adding and removing the file of a segment together with its
+     * entry in {@link #index}, so that an eviction never deletes the file of
+     * a segment that was written again concurrently. Acquired before the
+     * lock on {@link #index}.
+     */
+    private final Striped<Lock> locks = Striped.lock(64);
+
+    /**
+     * Create a new cache.
+     *
+     * @param directory the directory where the segments are stored. It is
+     *                  created if it doesn't exist.
+     * @param maxSize   the maximum total size of the cached segments, in bytes.
+     */
+    public PersistentDiskCache(File directory, long maxSize) throws IOException {
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        this.directory = directory;
+        this.maxSize = maxSize;
+        Files.createDirectories(directory.toPath());
+        load();
+    }
+
+    private void load() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                // Left behind by an interrupted write
+                deleteQuietly(file);
+                continue;
+            }
+            UUID id = toId(file.getName());
+            if (id == null) {
+                continue;
+            }
+            long length = file.length() - TRAILER_SIZE;
+            if (length < 0) {
+                // Truncated by a crash
+                deleteQuietly(file);
+                continue;
+            }
+            synchronized (index) {
+                index.put(id, (int) length);
+            }
+            size.addAndGet(length);
+        }
+        evict();
+        log.info("Loaded {} segments ({} bytes) from the local segment cache {}", getSegmentCount(), size.get(), directory);
+    }
+
+    /**
+     * Read a segment from the cache.
+     *
+     * @return the segment, or {@code null} if the segment is not cached.
+     */
+    public Buffer readSegment(long msb, long lsb) {
+        UUID id = new UUID(msb, lsb);
+        synchronized (index) {
+            if (index.get(id) == null) {
+                return null;
+            }
+        }
+        try {
+            byte[] data = Files.readAllBytes(segmentFile(id).toPath());
+            if (!isValid(data)) {
+                log.warn("Discarding corrupt segment {} from the local segment cache", id);
+                remove(id);
+                return null;
+            }
+            return Buffer.wrap(data, 0, data.length - TRAILER_SIZE);
+        } catch (NoSuchFileException e) {
+            // Evicted concurrently, or deleted from outside
+            removeIfMissing(id);
+            return null;
+        } catch (IOException e) {
+            log.warn("Unable to read segment {} from the local segment cache", id, e);
+            remove(id);
+            return null;
+        }
+    }
+
+    /**
+     * Determine whether a segment is cached.
+     */
+    public boolean containsSegment(long msb, long lsb) {
+        synchronized (index) {
+            return index.containsKey(new UUID(msb, lsb));
+        }
+    }
+
+    /**
+     * Add a segment to the cache, evicting least recently used segments if
+     * the cache becomes too large. Failures to write the segment are logged
+     * and otherwise ignored, as the segment can always be read from the
+     * persistence again.
+     *
+     * @param buffer the segment. Its position is not changed.
+     */
+    public void writeSegment(long msb, long lsb, Buffer buffer) {
+        UUID id = new UUID(msb, lsb);
+        if (containsSegment(msb, lsb)) {
+            return;
+        }
+
+        File temp = new File(directory, id + "." + Thread.currentThread().getId() + TEMP_SUFFIX);
+        int length = buffer.remaining();
+        try {
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                Buffer data = buffer.duplicate();
+                while (data.hasRemaining()) {
+                    data.write(channel);
+                }
+                Buffer trailer = Buffer.allocate(TRAILER_SIZE);
+                trailer.putInt(length);
+                trailer.putInt(checksum(buffer.duplicate()));
+                trailer.flip();
+                while (trailer.hasRemaining()) {
+                    trailer.write(channel);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to write segment {} to the local segment cache", id, e);
+            deleteQuietly(temp);
+            return;
+        }
+
+        Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            if (containsSegment(msb, lsb)) {
+                // Written concurrently by another thread
+                deleteQuietly(temp);
+                return;
+            }
+            Files.move(temp.toPath(), segmentFile(id).toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+            synchronized (index) {
+                index.put(id, length);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to write segment {} to the local segment cache", id, e);
+            deleteQuietly(temp);
+            return;
+        } finally {
+            lock.unlock();
+        }
+        size.addAndGet(length);
+        evict();
+    }
+
+    private void evict() {
+        while (size.get() > maxSize) {
+            UUID id;
+            synchronized (index) {
+                Iterator<Map.Entry<UUID, Integer>> iterator = index.entrySet().iterator();
+                if (!iterator.hasNext()) {
+                    return;
+                }
+                id = iterator.next().getKey();
+            }
+            remove(id);
+        }
+    }
+
+    private void remove(UUID id) {
+        Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            Integer length;
+            synchronized (index) {
+                length = index.remove(id);
+            }
+            if (length != null) {
+                size.addAndGet(-length);
+                deleteQuietly(segmentFile(id));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the entry of a segment whose file is gone, unless the segment
+     * was written again concurrently.
+     */
+    private void removeIfMissing(UUID id) {
+        Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            if (segmentFile(id).exists()) {
+                return;
+            }
+            Integer length;
+            synchronized (index) {
+                length = index.remove(id);
+            }
+            if (length != null) {
+                size.addAndGet(-length);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of cached segments.
+     */
+    public int getSegmentCount() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    /**
+     * @return the total size of the cached segments, in bytes.
+     */
+    public long getSize() {
+        return size.get();
+    }
+
+    private static int checksum(Buffer buffer) {
+        CRC32 checksum = new CRC32();
+        buffer.update(checksum);
+        return (int) checksum.getValue();
+    }
+
+    private static boolean isValid(byte[] data) {
+        int length = data.length - TRAILER_SIZE;
+        if (length < 0) {
+            return false;
+        }
+        Buffer trailer = Buffer.wrap(data, length, TRAILER_SIZE);
+        return trailer.getInt() == length && trailer.getInt() == checksum(Buffer.wrap(data, 0, length));
+    }
+
+    private File segmentFile(UUID id) {
+        return new File(directory, id.toString());
+    }
+
+    private static UUID toId(String name) {
+        try {
+            return UUID.fromString(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void deleteQuietly(File file) {
+        if (!file.delete() && file.exists()) {
+            log.warn("Unable to delete {} from the local segment cache", file);
+        }
+    }
+
+}
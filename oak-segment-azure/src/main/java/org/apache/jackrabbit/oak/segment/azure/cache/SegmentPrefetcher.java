@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.segment.azure.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.jackrabbit.oak.commons.Buffer;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads segments from an underlying {@link SegmentArchiveReader} into a
+ * {@link PersistentDiskCache} in the background, so that they are already
+ * cached when they are needed.
+ * <p>
+ * Requests are dropped when the queue of pending requests is full, or when the
+ * segment is already cached or being prefetched. Failures are logged and
+ * otherwise ignored, as prefetching is only an optimization.
+ */
+public class SegmentPrefetcher implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentPrefetcher.class);
+
+    private final PersistentDiskCache cache;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param cache     the cache to prefetch the segments into.
+     * @param threads   the number of threads reading segments concurrently.
+     *                  If zero, prefetching is disabled.
+     * @param queueSize the maximum number of pending requests.
+     */
+    public SegmentPrefetcher(PersistentDiskCache cache, int threads, int queueSize) {
+        checkArgument(threads >= 0, "threads must not be negative");
+        checkArgument(queueSize > 0, "queueSize must be positive");
+        this.cache = checkNotNull(cache);
+        if (threads > 0) {
+            executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueSize),
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("segment-prefetch-%d")
+                            .setDaemon(true)
+                            .build());
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Request a segment to be prefetched from {@code reader}.
+     */
+    void prefetch(long msb, long lsb, SegmentArchiveReader reader) {
+        if (executor == null || cache.containsSegment(msb, lsb)) {
+            return;
+        }
+        UUID id = new UUID(msb, lsb);
+        if (!pending.add(id)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!cache.containsSegment(msb, lsb)) {
+                        Buffer buffer = reader.readSegment(msb, lsb);
+                        if (buffer != null) {
+                            cache.writeSegment(msb, lsb, buffer);
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Unable to prefetch segment {}", id, e);
+                } finally {
+                    pending.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The queue is full or the prefetcher is closed
+            pending.remove(id);
+        }
+    }
+
+    /**
+     * @return the number of prefetch requests not completed yet.
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+}
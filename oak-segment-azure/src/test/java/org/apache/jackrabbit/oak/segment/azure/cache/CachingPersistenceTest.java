@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.segment.azure.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Strings;
+import org.apache.jackrabbit.oak.segment.SegmentNodeStore;
+import org.apache.jackrabbit.oak.segment.SegmentNodeStoreBuilders;
+import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.file.FileStoreBuilder;
+import org.apache.jackrabbit.oak.segment.file.tar.TarPersistence;
+import org.apache.jackrabbit.oak.segment.spi.monitor.FileStoreMonitorAdapter;
+import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitor;
+import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitorAdapter;
+import org.apache.jackrabbit.oak.segment.spi.monitor.RemoteStoreMonitorAdapter;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveManager;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveReader;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentNodeStorePersistence;
+import org.apache.jackrabbit.oak.spi.commit.CommitInfo;
+import org.apache.jackrabbit.oak.spi.commit.EmptyHook;
+import org.apache.jackrabbit.oak.spi.state.ChildNodeEntry;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the caching layer with a {@link TarPersistence} standing in for the
+ * remote persistence, so that they don't depend on an Azure Storage emulator.
+ */
+public class CachingPersistenceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder(new File("target"));
+
+    private File storeDirectory;
+
+    private File cacheDirectory;
+
+    private static class CountingIOMonitor extends IOMonitorAdapter {
+
+        final AtomicInteger hits = new AtomicInteger();
+
+        final AtomicInteger misses = new AtomicInteger();
+
+        @Override
+        public void onSegmentCacheHit(File file, long msb, long lsb, int length) {
+            hits.incrementAndGet();
+        }
+
+        @Override
+        public void onSegmentCacheMiss(File file, long msb, long lsb) {
+            misses.incrementAndGet();
+        }
+
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        storeDirectory = folder.newFolder();
+        cacheDirectory = folder.newFolder();
+
+        try (FileStore store = newFileStore(new TarPersistence(storeDirectory), new IOMonitorAdapter())) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(store).build();
+            NodeBuilder builder = nodeStore.getRoot().builder();
+            for (int i = 0; i < 10; i++) {
+                NodeBuilder child = builder.child("c" + i);
+                for (int j = 0; j < 200; j++) {
+                    child.child("n" + j).setProperty("p", Strings.repeat(i + "-" + j, 100));
+                }
+            }
+            nodeStore.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+        }
+    }
+
+    private FileStore newFileStore(SegmentNodeStorePersistence persistence, IOMonitor ioMonitor) throws Exception {
+        return FileStoreBuilder.fileStoreBuilder(folder.newFolder())
+                .withCustomPersistence(persistence)
+                .withIOMonitor(ioMonitor)
+                .build();
+    }
+
+    private CachingPersistence newCachingPersistence(int prefetchThreads) throws Exception {
+        PersistentDiskCache cache = new PersistentDiskCache(cacheDirectory, 100 * 1024 * 1024);
+        return new CachingPersistence(new TarPersistence(storeDirectory), cache, new SegmentPrefetcher(cache, prefetchThreads, 100));
+    }
+
+    private static int traverse(NodeState state) {
+        int count = 1;
+        for (ChildNodeEntry child : state.getChildNodeEntries()) {
+            count += traverse(child.getNodeState());
+        }
+        return count;
+    }
+
+    private void traverse(CachingPersistence persistence, CountingIOMonitor ioMonitor) throws Exception {
+        try (FileStore store = newFileStore(persistence, ioMonitor)) {
+            assertEquals(1 + 10 + 10 * 200, traverse(store.getHead().getChildNode("root")));
+        }
+    }
+
+    @Test
+    public void segmentsShouldBeServedFromTheCacheAfterRestart() throws Exception {
+        CountingIOMonitor cold = new CountingIOMonitor();
+        try (CachingPersistence persistence = newCachingPersistence(0)) {
+            traverse(persistence, cold);
+        }
+        assertTrue(cold.misses.get() > 0);
+        assertEquals(0, cold.hits.get());
+
+        CountingIOMonitor warm = new CountingIOMonitor();
+        try (CachingPersistence persistence = newCachingPersistence(0)) {
+            traverse(persistence, warm);
+        }
+        assertEquals(cold.misses.get(), warm.hits.get());
+        assertEquals(0, warm.misses.get());
+    }
+
+    @Test
+    public void referencedSegmentsShouldBePrefetched() throws Exception {
+        try (CachingPersistence persistence = newCachingPersistence(2)) {
+            SegmentArchiveManager manager = persistence.createArchiveManager(false, false,
+                    new IOMonitorAdapter(), new FileStoreMonitorAdapter(), new RemoteStoreMonitorAdapter());
+
+            // Open all archives, so that references across archives can be
+            // resolved, and find a segment with references
+            UUID source = null;
+            List<UUID> references = null;
+            SegmentArchiveReader sourceReader = null;
+            for (String name : manager.listArchives()) {
+                SegmentArchiveReader reader = manager.open(name);
+                assertNotNull(reader);
+                if (source != null || reader.getGraph() == null) {
+                    continue;
+                }
+                Map<UUID, List<UUID>> graph = CachingSegmentArchiveReader.parseGraph(reader.getGraph());
+                for (Map.Entry<UUID, List<UUID>> entry : graph.entrySet()) {
+                    if (!entry.getValue().isEmpty()) {
+                        source = entry.getKey();
+                        references = entry.getValue();
+                        sourceReader = reader;
+                        break;
+                    }
+                }
+            }
+            assertNotNull("No segment with references found", source);
+
+            PersistentDiskCache cache = new PersistentDiskCache(cacheDirectory, 100 * 1024 * 1024);
+            for (UUID reference : references) {
+                assertFalse(cache.containsSegment(reference.getMostSignificantBits(), reference.getLeastSignificantBits()));
+            }
+
+            assertNotNull(sourceReader.readSegment(source.getMostSignificantBits(), source.getLeastSignificantBits()));
+            awaitPrefetch(persistence);
+
+            // Reload the cache from disk to see the prefetched segments
+            cache = new PersistentDiskCache(cacheDirectory, 100 * 1024 * 1024);
+            assertTrue(cache.containsSegment(source.getMostSignificantBits(), source.getLeastSignificantBits()));
+            for (UUID reference : references) {
+                assertTrue(cache.containsSegment(reference.getMostSignificantBits(), reference.getLeastSignificantBits()));
+            }
+        }
+    }
+
+    private static void awaitPrefetch(CachingPersistence persistence) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (persistence.getPrefetcher().getPendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, persistence.getPrefetcher().getPendingCount());
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.segment.azure.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.apache.jackrabbit.oak.commons.Buffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PersistentDiskCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder(new File("target"));
+
+    private static Buffer segment(int length, int seed) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i + seed);
+        }
+        return Buffer.wrap(data);
+    }
+
+    private static byte[] toArray(Buffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+        return data;
+    }
+
+    @Test
+    public void segmentsShouldRoundTrip() throws Exception {
+        PersistentDiskCache cache = new PersistentDiskCache(folder.newFolder(), 1024 * 1024);
+        Buffer segment = segment(1000, 1);
+
+        assertNull(cache.readSegment(1, 2));
+        cache.writeSegment(1, 2, segment);
+
+        assertTrue(cache.containsSegment(1, 2));
+        assertEquals(1000, segment.remaining());
+        assertArrayEquals(toArray(segment), toArray(cache.readSegment(1, 2)));
+        assertEquals(1, cache.getSegmentCount());
+        assertEquals(1000, cache.getSize());
+    }
+
+    @Test
+    public void segmentsShouldSurviveRestarts() throws Exception {
+        File directory = folder.newFolder();
+        Buffer segment = segment(1000, 1);
+        new PersistentDiskCache(directory, 1024 * 1024).writeSegment(1, 2, segment);
+
+        // A write interrupted by a crash
+        Files.write(new File(directory, "garbage.tmp").toPath(), new byte[10]);
+
+        PersistentDiskCache cache = new PersistentDiskCache(directory, 1024 * 1024);
+        assertEquals(1, cache.getSegmentCount());
+        assertEquals(1000, cache.getSize());
+        assertArrayEquals(toArray(segment), toArray(cache.readSegment(1, 2)));
+        assertFalse(new File(directory, "garbage.tmp").exists());
+    }
+
+    @Test
+    public void tornSegmentsShouldBeEvicted() throws Exception {
+        File directory = folder.newFolder();
+        new PersistentDiskCache(directory, 1024 * 1024).writeSegment(1, 2, segment(1000, 1));
+
+        // A segment partially written before a crash
+        File file = new File(directory, new UUID(1, 2).toString());
+        Files.write(file.toPath(), Arrays.copyOf(Files.readAllBytes(file.toPath()), 500));
+
+        PersistentDiskCache cache = new PersistentDiskCache(directory, 1024 * 1024);
+        assertTrue(cache.containsSegment(1, 2));
+        assertNull(cache.readSegment(1, 2));
+        assertFalse(cache.containsSegment(1, 2));
+        assertEquals(0, cache.getSize());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void deletedSegmentsShouldBeCachedAgain() throws Exception {
+        File directory = folder.newFolder();
+        PersistentDiskCache cache = new PersistentDiskCache(directory, 1024 * 1024);
+        Buffer segment = segment(1000, 1);
+        cache.writeSegment(1, 2, segment);
+
+        // The file is removed behind the back of the cache
+        Files.delete(new File(directory, new UUID(1, 2).toString()).toPath());
+
+        assertNull(cache.readSegment(1, 2));
+        assertFalse(cache.containsSegment(1, 2));
+        assertEquals(0, cache.getSize());
+
+        cache.writeSegment(1, 2, segment);
+        assertArrayEquals(toArray(segment), toArray(cache.readSegment(1, 2)));
+        assertEquals(1000, cache.getSize());
+    }
+
+    @Test
+    public void emptySegmentsShouldBeDiscardedOnRestart() throws Exception {
+        File directory = folder.newFolder();
+
+        // A segment file created but not written before a crash
+        Files.write(new File(directory, new UUID(1, 2).toString()).toPath(), new byte[0]);
+
+        PersistentDiskCache cache = new PersistentDiskCache(directory, 1024 * 1024);
+        assertFalse(cache.containsSegment(1, 2));
+        assertEquals(0, cache.getSegmentCount());
+        assertNull(cache.readSegment(1, 2));
+    }
+
+    @Test
+    public void leastRecentlyUsedSegmentsShouldBeEvicted() throws Exception {
+        PersistentDiskCache cache = new PersistentDiskCache(folder.newFolder(), 3000);
+        cache.writeSegment(0, 1, segment(1000, 1));
+        cache.writeSegment(0, 2, segment(1000, 2));
+        cache.writeSegment(0, 3, segment(1000, 3));
+
+        // Make the first segment the most recently used one
+        cache.readSegment(0, 1);
+        cache.writeSegment(0, 4, segment(1000, 4));
+
+        assertEquals(3, cache.getSegmentCount());
+        assertEquals(3000, cache.getSize());
+        assertTrue(cache.containsSegment(0, 1));
+        assertFalse(cache.containsSegment(0, 2));
+        assertNull(cache.readSegment(0, 2));
+        assertTrue(cache.containsSegment(0, 3));
+        assertTrue(cache.containsSegment(0, 4));
+    }
+
+    @Test
+    public void oversizedCacheShouldBeTrimmedOnRestart() throws Exception {
+        File directory = folder.newFolder();
+        PersistentDiskCache cache = new PersistentDiskCache(directory, 3000);
+        cache.writeSegment(0, 1, segment(1000, 1));
+        cache.writeSegment(0, 2, segment(1000, 2));
+        cache.writeSegment(0, 3, segment(1000, 3));
+
+        cache = new PersistentDiskCache(directory, 2000);
+        assertEquals(2, cache.getSegmentCount());
+        assertEquals(2000, cache.getSize());
+    }
+
+}
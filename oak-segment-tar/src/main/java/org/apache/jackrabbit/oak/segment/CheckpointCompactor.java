@@ -53,6 +53,9 @@ import org.jetbrains.annotations.Nullable;
  *     processed and stored.</li>
  *     <li>Caching the compacted checkpoints and root states for deduplication should
  *     the same checkpoint or root state occur again in a later compaction retry cycle.</li>
+ *     <li>Reusing checkpoints and root states compacted by a previous compaction
+ *     (see {@link #reuse(RecordId, SegmentNodeState)}) instead of compacting them
+ *     again.</li>
  * </ul>
  */
 public class CheckpointCompactor {
@@ -62,6 +65,12 @@ public class CheckpointCompactor {
     @NotNull
     private final Map<NodeState, NodeState> cpCache = newHashMap();
 
+    @NotNull
+    private final Map<RecordId, SegmentNodeState> reuseCache = newHashMap();
+
+    @NotNull
+    private final Map<RecordId, RecordId> compactedRoots = newLinkedHashMap();
+
     @NotNull
     private final Compactor compactor;
 
@@ -87,8 +96,31 @@ public class CheckpointCompactor {
             @NotNull SegmentWriter writer,
             @Nullable BlobStore blobStore,
             @NotNull GCNodeWriteMonitor compactionMonitor) {
+        this(gcListener, reader, writer, blobStore, compactionMonitor, 1);
+    }
+
+    /**
+     * Create a new instance based on the passed arguments.
+     * @param reader     segment reader used to read from the segments
+     * @param writer     segment writer used to serialise to segments. Must be
+     *                   thread safe if {@code concurrency > 1}.
+     * @param blobStore  the blob store or {@code null} if none
+     * @param compactionMonitor   notification call back for each compacted nodes,
+     *                            properties, and binaries
+     * @param concurrency  number of threads compacting each root. See {@link
+     *                     ParallelCompactor}.
+     */
+    public CheckpointCompactor(
+            @NotNull GCMonitor gcListener,
+            @NotNull SegmentReader reader,
+            @NotNull SegmentWriter writer,
+            @Nullable BlobStore blobStore,
+            @NotNull GCNodeWriteMonitor compactionMonitor,
+            int concurrency) {
         this.gcListener = gcListener;
-        this.compactor = new Compactor(reader, writer, blobStore, compactionMonitor);
+        this.compactor = concurrency > 1
+            ? new ParallelCompactor(reader, writer, blobStore, compactionMonitor, concurrency)
+            : new Compactor(reader, writer, blobStore, compactionMonitor);
         this.nodeWriter = (node, stableId) -> {
             RecordId nodeId = writer.writeNode(node, stableId);
             return new SegmentNodeState(reader, writer, blobStore, nodeId);
@@ -140,6 +172,41 @@ public class CheckpointCompactor {
         return nodeWriter.writeNode(builder.getNodeState(), getStableIdBytes(uncompacted));
     }
 
+    /**
+     * Register a previously compacted state for reuse. Whenever a checkpoint
+     * or the root to be compacted has the record id {@code uncompacted},
+     * {@code compacted} is used as its compacted state instead of compacting
+     * it again. The caller is responsible for ensuring that {@code compacted}
+     * is retained for as long as the result of this compactor is in use.
+     * @param uncompacted  record id of the uncompacted state
+     * @param compacted    compacted state of {@code uncompacted}
+     */
+    public void reuse(@NotNull RecordId uncompacted, @NotNull SegmentNodeState compacted) {
+        reuseCache.put(uncompacted, compacted);
+    }
+
+    /**
+     * Register a previously compacted node for reuse by the underlying
+     * {@link Compactor}. See {@link Compactor#reuse(String, RecordId)}.
+     * @param stableId   stable id of the uncompacted node
+     * @param compacted  record id of the compacted node
+     */
+    public void reuseNode(@NotNull String stableId, @NotNull RecordId compacted) {
+        compactor.reuse(stableId, compacted);
+    }
+
+    /**
+     * The mapping from the record ids of the uncompacted checkpoints and roots
+     * to their compacted counterparts for all states processed by this
+     * compactor so far.
+     * @return  map from uncompacted to compacted record ids in the order of
+     *          compaction
+     */
+    @NotNull
+    public Map<RecordId, RecordId> getCompactedRoots() {
+        return compactedRoots;
+    }
+
     @Nullable
     private static Buffer getStableIdBytes(@NotNull NodeState node) {
         return node instanceof SegmentNodeState
@@ -246,11 +313,19 @@ public class CheckpointCompactor {
         gcListener.info("compacting {}.", path);
         NodeState compacted = cpCache.get(after);
         if (compacted == null) {
+            compacted = getReusable(after);
+            if (compacted != null) {
+                gcListener.info("reusing {} from previous compaction.", path);
+                cpCache.put(after, compacted);
+                addCompactedRoot(after, compacted);
+                return new Result(compacted, before, onto);
+            }
             compacted = compactor.compact(before, after, onto, canceller);
             if (compacted == null) {
                 return null;
             } else {
                 cpCache.put(after, compacted);
+                addCompactedRoot(after, compacted);
                 return new Result(compacted, after, compacted);
             }
         } else {
@@ -259,4 +334,19 @@ public class CheckpointCompactor {
         }
     }
 
+    @Nullable
+    private NodeState getReusable(@NotNull NodeState state) {
+        return state instanceof SegmentNodeState
+            ? reuseCache.get(((SegmentNodeState) state).getRecordId())
+            : null;
+    }
+
+    private void addCompactedRoot(@NotNull NodeState uncompacted, @NotNull NodeState compacted) {
+        if (uncompacted instanceof SegmentNodeState && compacted instanceof SegmentNodeState) {
+            compactedRoots.put(
+                ((SegmentNodeState) uncompacted).getRecordId(),
+                ((SegmentNodeState) compacted).getRecordId());
+        }
+    }
+
 }
@@ -29,6 +29,8 @@ import static org.apache.jackrabbit.oak.plugins.memory.PropertyStates.createProp
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.jackrabbit.oak.api.Blob;
 import org.apache.jackrabbit.oak.api.PropertyState;
@@ -72,6 +74,13 @@ public class Compactor {
     @NotNull
     private final GCNodeWriteMonitor compactionMonitor;
 
+    /**
+     * Record ids of compacted nodes by the stable ids of their uncompacted
+     * counterparts. See {@link #reuse(String, RecordId)}.
+     */
+    @NotNull
+    private final Map<String, RecordId> reusable = new ConcurrentHashMap<>();
+
     /**
      * Create a new instance based on the passed arguments.
      * @param reader     segment reader used to read from the segments
@@ -120,11 +129,38 @@ public class Compactor {
         checkNotNull(before);
         checkNotNull(after);
         checkNotNull(onto);
+        SegmentNodeState reused = getReusable(after);
+        if (reused != null) {
+            return reused;
+        }
         return new CompactDiff(onto, canceller).diff(before, after);
     }
 
+    /**
+     * Register a previously compacted node for reuse. Whenever a node to be
+     * compacted has the stable id {@code stableId}, the node with the record id
+     * {@code compacted} is used as its compacted state instead of compacting
+     * its subtree again. The caller is responsible for ensuring that {@code
+     * compacted} is retained for as long as the result of this compactor is
+     * in use.
+     * @param stableId   stable id of the uncompacted node
+     * @param compacted  record id of the compacted node
+     */
+    public void reuse(@NotNull String stableId, @NotNull RecordId compacted) {
+        reusable.put(stableId, compacted);
+    }
+
+    @Nullable
+    private SegmentNodeState getReusable(@NotNull NodeState state) {
+        if (reusable.isEmpty() || !(state instanceof SegmentNodeState)) {
+            return null;
+        }
+        RecordId compacted = reusable.get(((SegmentNodeState) state).getStableId());
+        return compacted == null ? null : reader.readNode(compacted);
+    }
+
     @Nullable
-    private static Buffer getStableIdBytes(NodeState state) {
+    static Buffer getStableIdBytes(NodeState state) {
         if (state instanceof SegmentNodeState) {
             return ((SegmentNodeState) state).getStableIdBytes();
         } else {
@@ -197,7 +233,10 @@ public class Compactor {
         @Override
         public boolean childNodeAdded(@NotNull String name, @NotNull NodeState after) {
             try {
-                SegmentNodeState compacted = compact(after, canceller);
+                SegmentNodeState compacted = getReusable(after);
+                if (compacted == null) {
+                    compacted = new CompactDiff(EMPTY_NODE, canceller).diff(EMPTY_NODE, after);
+                }
                 if (compacted != null) {
                     updated();
                     builder.setChildNode(name, compacted);
@@ -214,7 +253,10 @@ public class Compactor {
         @Override
         public boolean childNodeChanged(@NotNull String name, @NotNull NodeState before, @NotNull NodeState after) {
             try {
-                SegmentNodeState compacted = compact(before, after, base.getChildNode(name), canceller);
+                SegmentNodeState compacted = getReusable(after);
+                if (compacted == null) {
+                    compacted = new CompactDiff(base.getChildNode(name), canceller).diff(before, after);
+                }
                 if (compacted != null) {
                     updated();
                     builder.setChildNode(name, compacted);
@@ -242,7 +284,7 @@ public class Compactor {
     }
 
     @NotNull
-    private  PropertyState compact(@NotNull PropertyState property) {
+    PropertyState compact(@NotNull PropertyState property) {
         compactionMonitor.onProperty();
         String name = property.getName();
         Type<?> type = property.getType();
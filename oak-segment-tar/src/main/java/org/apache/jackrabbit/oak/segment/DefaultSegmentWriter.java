@@ -36,6 +36,7 @@ import static com.google.common.io.ByteStreams.read;
 import static java.lang.Long.numberOfLeadingZeros;
 import static java.lang.Math.min;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.nCopies;
 import static org.apache.jackrabbit.oak.api.Type.BINARIES;
@@ -398,24 +399,65 @@ public class DefaultSegmentWriter implements SegmentWriter {
          * @return list record identifier
          */
         private RecordId writeList(@NotNull List<RecordId> list) throws IOException {
+            return writeList(list, null, emptyList());
+        }
+
+        /**
+         * Writes a list record containing the given list of record identifiers,
+         * sharing the buckets of {@code base} whose elements are identical to
+         * the elements at the same positions in {@code list}. Buckets are
+         * aligned to their size, so this shares all buckets of a list that
+         * is modified in place or appended to, but only the buckets before
+         * the first modification if elements are inserted or removed.
+         *
+         * @param list        list of record identifiers
+         * @param base        list to share buckets with, or {@code null}
+         * @param baseEntries the elements of {@code base}
+         * @return list record identifier
+         */
+        private RecordId writeList(@NotNull List<RecordId> list, @Nullable ListRecord base,
+                @NotNull List<RecordId> baseEntries)
+        throws IOException {
             checkNotNull(list);
             checkArgument(!list.isEmpty());
             List<RecordId> thisLevel = list;
+            int span = 1;
             while (thisLevel.size() > 1) {
+                span *= ListRecord.LEVEL_SIZE;
                 List<RecordId> nextLevel = newArrayList();
+                int index = 0;
                 for (List<RecordId> bucket :
                         partition(thisLevel, ListRecord.LEVEL_SIZE)) {
                     if (bucket.size() > 1) {
-                        nextLevel.add(writeListBucket(bucket));
+                        RecordId bucketId = null;
+                        if (base != null && isSameBucket(list, baseEntries, span, index)) {
+                            bucketId = base.getBucket(span, index);
+                        }
+                        if (bucketId == null) {
+                            bucketId = writeListBucket(bucket);
+                        }
+                        nextLevel.add(bucketId);
                     } else {
                         nextLevel.add(bucket.get(0));
                     }
+                    index++;
                 }
                 thisLevel = nextLevel;
             }
             return thisLevel.iterator().next();
         }
 
+        /**
+         * @return {@code true} if the bucket of elements {@code [index * span,
+         * (index + 1) * span)} is complete and identical in both lists.
+         */
+        private boolean isSameBucket(List<RecordId> list, List<RecordId> baseEntries, int span, int index) {
+            int start = index * span;
+            int end = start + span;
+            return end <= list.size() && end <= baseEntries.size()
+                    && list.subList(start, end).equals(baseEntries.subList(start, end));
+        }
+
         private RecordId writeListBucket(List<RecordId> bucket) throws IOException {
             checkArgument(bucket.size() > 1);
             return writeOperationHandler.execute(gcGeneration, newWriteOperation(
@@ -634,6 +676,65 @@ public class DefaultSegmentWriter implements SegmentWriter {
             return writeProperty(state, previousValues);
         }
 
+        /**
+         * Writes a multi-valued property that is a modification of the
+         * multi-valued property {@code base}. The values in the longest common
+         * prefix and suffix of both properties are reused without looking them
+         * up, the values in between are reused if they occur in the middle part
+         * of {@code base}. The list buckets that are unchanged at the same
+         * position are shared with {@code base}, so that appending or
+         * replacing a value of a large property (e.g. {@code :childOrder})
+         * only writes the affected buckets and the levels above them.
+         */
+        private RecordId writeProperty(@NotNull PropertyState state, @NotNull SegmentPropertyState base)
+        throws IOException {
+            ListRecord baseValues = base.getValueList();
+            int count = state.count();
+            int baseCount = baseValues.size();
+
+            if (count == 0 || baseCount == 0) {
+                return writeProperty(state);
+            }
+
+            List<RecordId> baseIds = baseValues.getEntries();
+            int max = Math.min(count, baseCount);
+
+            int prefix = 0;
+            while (prefix < max && isSameValue(state, prefix, baseIds.get(prefix))) {
+                prefix++;
+            }
+
+            int suffix = 0;
+            while (suffix < max - prefix && isSameValue(state, count - suffix - 1, baseIds.get(baseCount - suffix - 1))) {
+                suffix++;
+            }
+
+            Map<String, RecordId> previousValues = newHashMap();
+            for (RecordId id : baseIds.subList(prefix, baseCount - suffix)) {
+                previousValues.put(reader.readString(id), id);
+            }
+
+            List<RecordId> valueIds = newArrayListWithCapacity(count);
+            valueIds.addAll(baseIds.subList(0, prefix));
+            for (int i = prefix; i < count - suffix; i++) {
+                String value = state.getValue(STRING, i);
+                RecordId valueId = previousValues.get(value);
+                if (valueId == null) {
+                    valueId = writeString(value);
+                }
+                valueIds.add(valueId);
+            }
+            valueIds.addAll(baseIds.subList(baseCount - suffix, baseCount));
+
+            RecordId lid = writeList(valueIds, baseValues, baseIds);
+            return writeOperationHandler.execute(gcGeneration, newWriteOperation(
+                RecordWriters.newListWriter(count, lid)));
+        }
+
+        private boolean isSameValue(PropertyState state, int index, RecordId baseId) {
+            return state.getValue(STRING, index).equals(reader.readString(baseId));
+        }
+
         private RecordId writeProperty(@NotNull PropertyState state,
                 @NotNull Map<String, RecordId> previousValues
         )
@@ -843,7 +944,7 @@ public class DefaultSegmentWriter implements SegmentWriter {
                             pIds.add(bp.getRecordId()); // no changes
                         } else if (bp.isArray() && bp.getType() != BINARIES) {
                             // reuse entries from the previous list
-                            pIds.add(writeProperty(property, bp.getValueRecords()));
+                            pIds.add(writeProperty(property, bp));
                         } else {
                             pIds.add(writeProperty(property));
                         }
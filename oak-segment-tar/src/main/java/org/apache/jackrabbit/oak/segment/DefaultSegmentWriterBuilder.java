@@ -29,6 +29,9 @@ import org.apache.jackrabbit.oak.segment.file.ReadOnlyFileStore;
 import org.apache.jackrabbit.oak.segment.file.tar.GCGeneration;
 import org.apache.jackrabbit.oak.segment.memory.MemoryStore;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Builder for building {@link DefaultSegmentWriter} instances.
@@ -50,6 +53,59 @@ import org.jetbrains.annotations.NotNull;
  */
 public final class DefaultSegmentWriterBuilder {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultSegmentWriterBuilder.class);
+
+    /**
+     * The kinds of writer pools a thread safe {@code SegmentWriter} can be
+     * backed by.
+     */
+    public enum PoolType {
+
+        /**
+         * A {@link SegmentBufferWriterPool}, where threads borrow their
+         * writers from a pool shared by all threads.
+         */
+        GLOBAL,
+
+        /**
+         * A {@link ThreadAffineSegmentBufferWriterPool}, where each thread
+         * owns its writers and borrowing them doesn't acquire a shared lock.
+         */
+        THREAD_AFFINE
+
+    }
+
+    /**
+     * The pool type used by {@link #withWriterPool()}. Can be set with the
+     * {@code oak.segment.writer.poolType} system property to compare the
+     * pool implementations without code changes.
+     */
+    private static final PoolType DEFAULT_POOL_TYPE =
+            parsePoolType(System.getProperty("oak.segment.writer.poolType"));
+
+    /**
+     * Parse the name of a {@link PoolType}, ignoring case and surrounding
+     * white space. Falls back to {@link PoolType#GLOBAL} and logs a warning
+     * if {@code value} isn't a valid pool type, so that a typo in the system
+     * property doesn't render the segment writers unusable.
+     *
+     * @param value  the name of the pool type or {@code null}
+     * @return  the pool type named by {@code value} or {@link PoolType#GLOBAL}
+     */
+    @NotNull
+    static PoolType parsePoolType(@Nullable String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return PoolType.GLOBAL;
+        }
+        for (PoolType poolType : PoolType.values()) {
+            if (poolType.name().equalsIgnoreCase(value.trim())) {
+                return poolType;
+            }
+        }
+        LOG.warn("Invalid value '{}' for oak.segment.writer.poolType, falling back to {}", value, PoolType.GLOBAL);
+        return PoolType.GLOBAL;
+    }
+
     @NotNull
     private final String name;
 
@@ -58,6 +114,9 @@ public final class DefaultSegmentWriterBuilder {
 
     private boolean pooled = false;
 
+    @NotNull
+    private PoolType poolType = DEFAULT_POOL_TYPE;
+
     @NotNull
     private WriterCacheManager cacheManager = new WriterCacheManager.Default();
 
@@ -102,12 +161,23 @@ public final class DefaultSegmentWriterBuilder {
     }
 
     /**
-     * Create a {@code SegmentWriter} backed by a {@link SegmentBufferWriterPool}.
-     * The returned instance is thread safe.
+     * Create a {@code SegmentWriter} backed by a {@link SegmentBufferWriterPool},
+     * unless the {@code oak.segment.writer.poolType} system property selects
+     * another {@link PoolType}. The returned instance is thread safe.
      */
     @NotNull
     public DefaultSegmentWriterBuilder withWriterPool() {
+        return withWriterPool(DEFAULT_POOL_TYPE);
+    }
+
+    /**
+     * Create a {@code SegmentWriter} backed by a writer pool of the given
+     * {@code poolType}. The returned instance is thread safe.
+     */
+    @NotNull
+    public DefaultSegmentWriterBuilder withWriterPool(@NotNull PoolType poolType) {
         this.pooled = true;
+        this.poolType = checkNotNull(poolType);
         return this;
     }
 
@@ -209,12 +279,7 @@ public final class DefaultSegmentWriterBuilder {
     @NotNull
     private WriteOperationHandler createWriter(@NotNull FileStore store, boolean pooled) {
         if (pooled) {
-            return new SegmentBufferWriterPool(
-                    store.getSegmentIdProvider(),
-                    store.getReader(),
-                    name,
-                    generation
-            );
+            return createPool(store.getSegmentIdProvider(), store.getReader());
         } else {
             return new SegmentBufferWriter(
                     store.getSegmentIdProvider(),
@@ -228,12 +293,7 @@ public final class DefaultSegmentWriterBuilder {
     @NotNull
     private WriteOperationHandler createWriter(@NotNull MemoryStore store, boolean pooled) {
         if (pooled) {
-            return new SegmentBufferWriterPool(
-                    store.getSegmentIdProvider(),
-                    store.getReader(),
-                    name,
-                    generation
-            );
+            return createPool(store.getSegmentIdProvider(), store.getReader());
         } else {
             return new SegmentBufferWriter(
                     store.getSegmentIdProvider(),
@@ -244,4 +304,14 @@ public final class DefaultSegmentWriterBuilder {
         }
     }
 
+    @NotNull
+    private WriteOperationHandler createPool(@NotNull SegmentIdProvider idProvider, @NotNull SegmentReader reader) {
+        switch (poolType) {
+            case THREAD_AFFINE:
+                return new ThreadAffineSegmentBufferWriterPool(idProvider, reader, name, generation);
+            default:
+                return new SegmentBufferWriterPool(idProvider, reader, name, generation);
+        }
+    }
+
 }
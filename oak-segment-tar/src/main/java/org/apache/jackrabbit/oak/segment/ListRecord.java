@@ -75,6 +75,34 @@ class ListRecord extends Record {
         }
     }
 
+    /**
+     * Return the identifier of the record holding the bucket of elements
+     * {@code [index * span, (index + 1) * span)} of this list, where {@code
+     * span} is a power of {@link #LEVEL_SIZE} greater than one. Such a bucket
+     * is laid out the same way in every list, so its record can be shared by
+     * lists having the same elements in that range.
+     *
+     * @param span  the number of elements in the bucket.
+     * @param index the index of the bucket.
+     * @return the identifier of the bucket, or {@code null} if this list
+     * doesn't contain all the elements of the bucket.
+     */
+    RecordId getBucket(int span, int index) {
+        checkArgument(span > 1, "Invalid bucket span: " + span);
+        int start = index * span;
+        if (start + span > size) {
+            return null;
+        }
+        if (size == span) {
+            return getRecordId();
+        }
+        int bucketIndex = start / bucketSize;
+        RecordId id = getSegment().readRecordId(getRecordNumber(), 0, bucketIndex);
+        ListRecord bucket = new ListRecord(
+                id, Math.min(bucketSize, size - bucketIndex * bucketSize));
+        return bucket.getBucket(span, (start - bucketIndex * bucketSize) / span);
+    }
+
     public List<RecordId> getEntries() {
         return getEntries(0, size);
     }
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.jackrabbit.oak.segment;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.EMPTY_NODE;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.jackrabbit.oak.api.PropertyState;
+import org.apache.jackrabbit.oak.plugins.memory.MemoryNodeBuilder;
+import org.apache.jackrabbit.oak.segment.file.GCNodeWriteMonitor;
+import org.apache.jackrabbit.oak.segment.file.cancel.Canceller;
+import org.apache.jackrabbit.oak.spi.blob.BlobStore;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.apache.jackrabbit.oak.spi.state.NodeStateDiff;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This compactor implementation compacts independent subtrees concurrently.
+ * The changes between the passed node states are expanded on the calling
+ * thread down to {@link #EXPAND_DEPTH}. Each changed subtree below that depth
+ * is compacted by one of {@code concurrency} worker threads using the
+ * sequential algorithm of {@link Compactor}. Finally the calling thread
+ * stitches the compacted subtrees together bottom up.
+ * <p>
+ * The worker threads share the passed {@link SegmentWriter}, which therefore
+ * needs to be thread safe. A writer backed by a {@link SegmentBufferWriterPool}
+ * additionally ensures that each worker writes through its own {@link
+ * SegmentBufferWriter}.
+ */
+public class ParallelCompactor extends Compactor {
+
+    /**
+     * Depth down to which the changes are expanded on the calling thread
+     * before handing subtrees to the worker threads.
+     */
+    static final int EXPAND_DEPTH =
+            Integer.getInteger("compaction.parallel.expandDepth", 2);
+
+    /**
+     * Nodes with at least this many child nodes are not expanded but compacted
+     * as a whole by a single worker thread. This limits the number of pending
+     * child nodes in the builders used for stitching.
+     */
+    static final int EXPAND_LIMIT = UPDATE_LIMIT;
+
+    @NotNull
+    private final SegmentWriter writer;
+
+    @NotNull
+    private final SegmentReader reader;
+
+    @Nullable
+    private final BlobStore blobStore;
+
+    @NotNull
+    private final GCNodeWriteMonitor compactionMonitor;
+
+    private final int concurrency;
+
+    /**
+     * Create a new instance based on the passed arguments.
+     * @param reader     segment reader used to read from the segments
+     * @param writer     thread safe segment writer used to serialise to segments
+     * @param blobStore  the blob store or {@code null} if none
+     * @param compactionMonitor   notification call back for each compacted nodes,
+     *                            properties, and binaries
+     * @param concurrency  number of worker threads. A value of {@code 1}
+     *                     falls back to sequential compaction.
+     */
+    public ParallelCompactor(
+            @NotNull SegmentReader reader,
+            @NotNull SegmentWriter writer,
+            @Nullable BlobStore blobStore,
+            @NotNull GCNodeWriteMonitor compactionMonitor,
+            int concurrency) {
+        super(reader, writer, blobStore, compactionMonitor);
+        checkArgument(concurrency > 0, "concurrency must be positive");
+        this.writer = checkNotNull(writer);
+        this.reader = checkNotNull(reader);
+        this.blobStore = blobStore;
+        this.compactionMonitor = checkNotNull(compactionMonitor);
+        this.concurrency = concurrency;
+    }
+
+    @Nullable
+    @Override
+    public SegmentNodeState compact(
+        @NotNull NodeState before,
+        @NotNull NodeState after,
+        @NotNull NodeState onto,
+        Canceller canceller
+    ) throws IOException {
+        checkNotNull(before);
+        checkNotNull(after);
+        checkNotNull(onto);
+        if (concurrency == 1 || !isExpandable(after)) {
+            return super.compact(before, after, onto, canceller);
+        }
+
+        ExecutorService executor = newFixedThreadPool(concurrency, new ThreadFactoryBuilder()
+                .setNameFormat("compaction-worker-%d")
+                .setDaemon(true)
+                .build());
+        List<Future<SegmentNodeState>> tasks = newArrayList();
+        try {
+            CompactionTree tree = new CompactionTree(before, after, onto, 0, canceller, executor, tasks);
+            if (!tree.expand()) {
+                return null;
+            }
+            return tree.compact();
+        } finally {
+            // Never interrupt the worker threads: an interrupt while writing
+            // to a file channel would close that channel.
+            for (Future<SegmentNodeState> task : tasks) {
+                task.cancel(false);
+            }
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+    }
+
+    private static boolean isExpandable(@NotNull NodeState state) {
+        return state.getChildNodeCount(EXPAND_LIMIT) < EXPAND_LIMIT;
+    }
+
+    private static void awaitTermination(@NotNull ExecutorService executor) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                currentThread().interrupt();
+            }
+        }
+    }
+
+    @Nullable
+    private static SegmentNodeState getResult(@NotNull Future<SegmentNodeState> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for compaction worker", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * The changes between two node states expanded down to {@link
+     * #EXPAND_DEPTH}. The leaves of this tree are the subtrees being
+     * compacted concurrently.
+     */
+    private class CompactionTree implements NodeStateDiff {
+
+        @NotNull
+        private final NodeState before;
+
+        @NotNull
+        private final NodeState after;
+
+        @NotNull
+        private final NodeState onto;
+
+        private final int depth;
+
+        private final Canceller canceller;
+
+        @NotNull
+        private final ExecutorService executor;
+
+        @NotNull
+        private final List<Future<SegmentNodeState>> tasks;
+
+        private final List<PropertyState> modifiedProperties = newArrayList();
+
+        private final List<String> removedProperties = newArrayList();
+
+        private final List<String> removedChildren = newArrayList();
+
+        private final Map<String, CompactionTree> expandedChildren = newLinkedHashMap();
+
+        private final Map<String, Future<SegmentNodeState>> compactedChildren = newLinkedHashMap();
+
+        CompactionTree(
+            @NotNull NodeState before,
+            @NotNull NodeState after,
+            @NotNull NodeState onto,
+            int depth,
+            Canceller canceller,
+            @NotNull ExecutorService executor,
+            @NotNull List<Future<SegmentNodeState>> tasks
+        ) {
+            this.before = before;
+            this.after = after;
+            this.onto = onto;
+            this.depth = depth;
+            this.canceller = canceller;
+            this.executor = executor;
+            this.tasks = tasks;
+        }
+
+        /**
+         * Expand the changes of this tree and schedule the compaction of its
+         * leaves.
+         * @return {@code false} if cancelled.
+         */
+        boolean expand() {
+            return after.compareAgainstBaseState(before, new CancelableDiff(this, () -> canceller.check().isCancelled()));
+        }
+
+        /**
+         * Wait for the compaction of the leaves of this tree and write the
+         * compacted node state.
+         * @return the compacted node state or {@code null} if cancelled.
+         */
+        @Nullable
+        SegmentNodeState compact() throws IOException {
+            MemoryNodeBuilder builder = new MemoryNodeBuilder(onto);
+            for (PropertyState property : modifiedProperties) {
+                builder.setProperty(ParallelCompactor.this.compact(property));
+            }
+            for (String name : removedProperties) {
+                builder.removeProperty(name);
+            }
+            for (Entry<String, CompactionTree> child : expandedChildren.entrySet()) {
+                SegmentNodeState compacted = child.getValue().compact();
+                if (compacted == null) {
+                    return null;
+                }
+                builder.setChildNode(child.getKey(), compacted);
+            }
+            for (Entry<String, Future<SegmentNodeState>> child : compactedChildren.entrySet()) {
+                SegmentNodeState compacted = getResult(child.getValue());
+                if (compacted == null) {
+                    return null;
+                }
+                builder.setChildNode(child.getKey(), compacted);
+            }
+            for (String name : removedChildren) {
+                builder.getChildNode(name).remove();
+            }
+
+            RecordId nodeId = writer.writeNode(builder.getNodeState(), getStableIdBytes(after));
+            compactionMonitor.onNode();
+            return new SegmentNodeState(reader, writer, blobStore, nodeId);
+        }
+
+        private boolean addChild(
+            @NotNull String name,
+            @NotNull NodeState before,
+            @NotNull NodeState after,
+            @NotNull NodeState onto
+        ) {
+            if (depth + 1 < EXPAND_DEPTH && isExpandable(after)) {
+                CompactionTree child = new CompactionTree(before, after, onto, depth + 1, canceller, executor, tasks);
+                expandedChildren.put(name, child);
+                return child.expand();
+            } else {
+                Future<SegmentNodeState> task = executor.submit(
+                    () -> ParallelCompactor.super.compact(before, after, onto, canceller));
+                tasks.add(task);
+                compactedChildren.put(name, task);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean propertyAdded(@NotNull PropertyState after) {
+            modifiedProperties.add(after);
+            return true;
+        }
+
+        @Override
+        public boolean propertyChanged(@NotNull PropertyState before, @NotNull PropertyState after) {
+            modifiedProperties.add(after);
+            return true;
+        }
+
+        @Override
+        public boolean propertyDeleted(PropertyState before) {
+            removedProperties.add(before.getName());
+            return true;
+        }
+
+        @Override
+        public boolean childNodeAdded(@NotNull String name, @NotNull NodeState after) {
+            return addChild(name, EMPTY_NODE, after, EMPTY_NODE);
+        }
+
+        @Override
+        public boolean childNodeChanged(@NotNull String name, @NotNull NodeState before, @NotNull NodeState after) {
+            return addChild(name, before, after, onto.getChildNode(name));
+        }
+
+        @Override
+        public boolean childNodeDeleted(String name, NodeState before) {
+            removedChildren.add(name);
+            return true;
+        }
+    }
+
+}
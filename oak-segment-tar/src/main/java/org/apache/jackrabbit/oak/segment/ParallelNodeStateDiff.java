@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.EMPTY_NODE;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+
+import org.apache.jackrabbit.oak.api.PropertyState;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.apache.jackrabbit.oak.spi.state.NodeStateDiff;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Compares node states in a {@link ForkJoinPool}, such that the large changed
+ * subtrees below a node are processed concurrently.
+ * <p>
+ * The child node callbacks for a subtree with more than {@code threshold}
+ * child nodes (before or after the change) are dispatched to the pool. All
+ * other callbacks are delivered sequentially on the thread comparing the
+ * parent, which avoids the overhead of a task for each of the many small
+ * subtrees.
+ * <p>
+ * Diff implementations usually recurse into a changed child by calling
+ * {@code after.compareAgainstBaseState(before, childDiff)} from their child
+ * node callbacks. Diff implementations that recurse through {@link
+ * #compare(NodeState, NodeState, NodeStateDiff)} of the same instance instead
+ * fan out at every level of the tree. Implementations that don't only fan out
+ * below the node passed to the initial comparison.
+ * <p>
+ * The following guarantees apply for the callbacks of a single parent node:
+ * <ul>
+ *     <li>All property callbacks are delivered in the order of a sequential
+ *     comparison, on the thread that compares the parent.</li>
+ *     <li>The child node callbacks are delivered concurrently and in no
+ *     particular order, each of them on a single thread.</li>
+ *     <li>The comparison of the parent only returns once all of its child
+ *     node callbacks returned.</li>
+ * </ul>
+ * Diff implementations therefore need to be thread safe with respect to the
+ * child node callbacks of a parent. Once a callback returns {@code false} the
+ * child node callbacks of the same parent that did not start yet are
+ * skipped and the comparison returns {@code false}.
+ */
+public class ParallelNodeStateDiff {
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    /**
+     * Create a new instance dispatching the child node callbacks of subtrees
+     * with more than {@code threshold} child nodes to {@code pool}.
+     *
+     * @param pool      the pool executing the child node callbacks
+     * @param threshold the minimum number of child nodes (exclusive) of a
+     *                  subtree to be compared concurrently
+     */
+    public ParallelNodeStateDiff(@NotNull ForkJoinPool pool, int threshold) {
+        checkArgument(threshold >= 0, "threshold must not be negative");
+        this.pool = checkNotNull(pool);
+        this.threshold = threshold;
+    }
+
+    /**
+     * Compare {@code after} against {@code before}. When called from within
+     * the child node callbacks of an ongoing comparison of this instance, the
+     * comparison continues on the current thread of the pool. Otherwise it is
+     * submitted to the pool and this method waits for its completion.
+     *
+     * @param after  the node state after the changes
+     * @param before the node state before the changes
+     * @param diff   the thread safe diff receiving the changes
+     * @return {@code true} if the full comparison was performed, {@code false}
+     * if it was aborted
+     */
+    public boolean compare(
+            @NotNull NodeState after,
+            @NotNull NodeState before,
+            @NotNull NodeStateDiff diff
+    ) {
+        checkNotNull(after);
+        checkNotNull(before);
+        checkNotNull(diff);
+        if (ForkJoinTask.getPool() != pool) {
+            return pool.invoke(new CallbackTask(() -> compare(after, before, diff)));
+        }
+        ForkingDiff forkingDiff = new ForkingDiff(diff);
+        boolean completed = after.compareAgainstBaseState(before, forkingDiff);
+        return forkingDiff.join() && completed;
+    }
+
+    private boolean isLarge(NodeState after, NodeState before) {
+        return after.getChildNodeCount(threshold + 1L) > threshold
+                || before.getChildNodeCount(threshold + 1L) > threshold;
+    }
+
+    /**
+     * Diff delivering the callbacks for the child nodes of a single parent.
+     */
+    private class ForkingDiff implements NodeStateDiff {
+
+        private final NodeStateDiff delegate;
+
+        private List<ForkJoinTask<Boolean>> children;
+
+        private volatile boolean aborted;
+
+        ForkingDiff(NodeStateDiff delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Wait for the child node callbacks dispatched so far.
+         * @return {@code false} if any of them returned {@code false}.
+         */
+        boolean join() {
+            if (children == null) {
+                return !aborted;
+            }
+            boolean completed = !aborted;
+            for (ForkJoinTask<Boolean> child : children) {
+                if (!completed) {
+                    child.cancel(false);
+                }
+                if (!child.isCancelled() && !child.join()) {
+                    aborted = true;
+                    completed = false;
+                }
+            }
+            return completed;
+        }
+
+        private boolean fork(NodeState after, NodeState before, BooleanSupplier callback) {
+            if (aborted) {
+                return false;
+            }
+            if (!isLarge(after, before)) {
+                return callback.getAsBoolean();
+            }
+            if (children == null) {
+                children = newArrayList();
+            }
+            children.add(new CallbackTask(() -> !aborted && callback.getAsBoolean()).fork());
+            return true;
+        }
+
+        private boolean call(boolean completed) {
+            if (!completed) {
+                aborted = true;
+            }
+            return completed;
+        }
+
+        @Override
+        public boolean propertyAdded(PropertyState after) {
+            return !aborted && call(delegate.propertyAdded(after));
+        }
+
+        @Override
+        public boolean propertyChanged(PropertyState before, PropertyState after) {
+            return !aborted && call(delegate.propertyChanged(before, after));
+        }
+
+        @Override
+        public boolean propertyDeleted(PropertyState before) {
+            return !aborted && call(delegate.propertyDeleted(before));
+        }
+
+        @Override
+        public boolean childNodeAdded(String name, NodeState after) {
+            return fork(after, EMPTY_NODE, () -> call(delegate.childNodeAdded(name, after)));
+        }
+
+        @Override
+        public boolean childNodeChanged(String name, NodeState before, NodeState after) {
+            return fork(after, before, () -> call(delegate.childNodeChanged(name, before, after)));
+        }
+
+        @Override
+        public boolean childNodeDeleted(String name, NodeState before) {
+            return fork(EMPTY_NODE, before, () -> call(delegate.childNodeDeleted(name, before)));
+        }
+
+    }
+
+    private static class CallbackTask extends RecursiveTask<Boolean> {
+
+        private final BooleanSupplier callback;
+
+        CallbackTask(BooleanSupplier callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        protected Boolean compute() {
+            return callback.getAsBoolean();
+        }
+
+    }
+
+}
@@ -20,8 +20,11 @@
 package org.apache.jackrabbit.oak.segment;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Collections.emptyList;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.google.common.base.Supplier;
@@ -54,6 +57,16 @@ public abstract class RecordCache<K> implements Cache<K, RecordId> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * @param limit  maximal number of record ids to return
+     * @return  the record ids of at most {@code limit} of the most recently
+     *          accessed mappings, most recently accessed last.
+     */
+    @NotNull
+    public List<RecordId> getRecentRecordIds(int limit) {
+        return emptyList();
+    }
+
     /**
      * @return  access statistics for this cache
      */
@@ -198,6 +211,13 @@ public abstract class RecordCache<K> implements Cache<K, RecordId> {
             return records.size();
         }
 
+        @NotNull
+        @Override
+        public synchronized List<RecordId> getRecentRecordIds(int limit) {
+            List<RecordId> recordIds = new ArrayList<>(records.values());
+            return recordIds.subList(Math.max(0, recordIds.size() - limit), recordIds.size());
+        }
+
         @Override
         public long estimateCurrentWeight() {
             return weight;
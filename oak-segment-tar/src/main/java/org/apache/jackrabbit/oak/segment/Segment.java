@@ -36,6 +36,7 @@ import static org.apache.jackrabbit.oak.segment.file.tar.GCGeneration.newGCGener
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.UUID;
@@ -566,6 +567,18 @@ public class Segment {
         data.binDump(stream);
     }
 
+    /**
+     * Write the raw content of this segment to {@code channel}. The content is
+     * handed to the channel as a view on the buffer backing this segment, e.g.
+     * a memory mapped region of a tar file. This allows a channel to pass the
+     * content on without copying it to the heap first.
+     *
+     * @param channel the channel the content of this segment is written to.
+     */
+    public void transferTo(WritableByteChannel channel) throws IOException {
+        data.binDump(channel);
+    }
+
     /**
      * Convert an offset into an address.
      * @param offset
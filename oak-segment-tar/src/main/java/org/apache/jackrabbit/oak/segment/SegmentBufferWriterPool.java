@@ -230,6 +230,13 @@ public class SegmentBufferWriterPool implements WriteOperationHandler {
         if (++writerId > 9999) {
             writerId = 0;
         }
+        return formatWriterId(wid, writerId);
+    }
+
+    /**
+     * Append the four digit, zero padded {@code writerId} to {@code wid}.
+     */
+    static String formatWriterId(String wid, int writerId) {
         // Manual padding seems to be fastest here
         if (writerId < 10) {
             return wid + ".000" + writerId;
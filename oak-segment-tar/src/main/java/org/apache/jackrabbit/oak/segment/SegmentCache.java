@@ -22,6 +22,11 @@ package org.apache.jackrabbit.oak.segment;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.jackrabbit.oak.segment.CacheWeights.segmentWeight;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -33,8 +38,12 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheStats;
 import com.google.common.cache.RemovalNotification;
 import org.apache.jackrabbit.oak.cache.AbstractCacheStats;
+import org.apache.jackrabbit.oak.commons.Buffer;
 import org.apache.jackrabbit.oak.segment.CacheWeights.SegmentCacheWeigher;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A cache for {@link SegmentId#isDataSegmentId() data} {@link Segment}
@@ -45,16 +54,31 @@ import org.jetbrains.annotations.NotNull;
  * level cache is implemented by memoising the segment in its id (see {@code
  * SegmentId#segment}. Every time an segment is evicted from this cache the
  * memoised segment is discarded (see {@code SegmentId#onAccess}.
+ * <p>
+ * Optionally this cache is backed by an off-heap tier with its own byte
+ * budget. Segments evicted from the on-heap tier are copied into a fixed
+ * arena of direct memory outside of the Java heap, from where they can be
+ * retrieved by {@link #getOffHeapBuffer(SegmentId)} instead of reading them
+ * again from the underlying persistence.
  */
 public abstract class SegmentCache {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentCache.class);
+
     /**
      * Default maximum weight of this cache in MB
      */
     public static final int DEFAULT_SEGMENT_CACHE_MB = 256;
 
+    /**
+     * Default maximum weight of the off-heap tier of this cache in MB
+     */
+    public static final int DEFAULT_OFF_HEAP_SEGMENT_CACHE_MB = 0;
+
     private static final String NAME = "Segment Cache";
 
+    private static final String OFF_HEAP_NAME = "Segment Cache (off-heap)";
+
     /**
      * Create a new segment cache of the given size. Returns an always empty
      * cache for {@code cacheSizeMB <= 0}.
@@ -63,8 +87,30 @@ public abstract class SegmentCache {
      */
     @NotNull
     public static SegmentCache newSegmentCache(long cacheSizeMB) {
+        return newSegmentCache(cacheSizeMB, DEFAULT_OFF_HEAP_SEGMENT_CACHE_MB);
+    }
+
+    /**
+     * Create a new segment cache of the given size, backed by an off-heap
+     * tier of the given size. Returns an always empty cache for {@code
+     * cacheSizeMB <= 0}. The off-heap tier is disabled for {@code
+     * offHeapCacheSizeMB <= 0}.
+     * <p>
+     * The off-heap tier allocates {@code offHeapCacheSizeMB} (rounded down to
+     * whole segments) of direct memory up front, so the JVM must be allowed
+     * to allocate that much direct memory (see {@code
+     * -XX:MaxDirectMemorySize}).
+     *
+     * @param cacheSizeMB        size of the on-heap tier in megabytes.
+     * @param offHeapCacheSizeMB size of the off-heap tier in megabytes.
+     */
+    @NotNull
+    public static SegmentCache newSegmentCache(long cacheSizeMB, long offHeapCacheSizeMB) {
         if (cacheSizeMB > 0) {
-            return new NonEmptyCache(cacheSizeMB);
+            OffHeapCache offHeapCache = offHeapCacheSizeMB > 0
+                ? new OffHeapCache(offHeapCacheSizeMB)
+                : null;
+            return new NonEmptyCache(cacheSizeMB, offHeapCache);
         } else {
             return new EmptyCache();
         }
@@ -91,6 +137,19 @@ public abstract class SegmentCache {
      */
     public abstract void putSegment(@NotNull Segment segment);
 
+    /**
+     * Retrieve the raw data of a segment from the off-heap tier of this cache.
+     * The returned buffer is a copy on the heap and remains valid after the
+     * segment has been evicted from the off-heap tier.
+     *
+     * @param id the id of the segment
+     * @return the data of the segment identified by {@code id} or {@code
+     * null} if the segment is not in the off-heap tier or if this cache does
+     * not have an off-heap tier.
+     */
+    @Nullable
+    public abstract Buffer getOffHeapBuffer(@NotNull SegmentId id);
+
     /**
      * Clear all segment from the cache
      */
@@ -102,6 +161,13 @@ public abstract class SegmentCache {
     @NotNull
     public abstract AbstractCacheStats getCacheStats();
 
+    /**
+     * @return Statistics for the off-heap tier of this cache or {@code null}
+     * if this cache does not have an off-heap tier.
+     */
+    @Nullable
+    public abstract AbstractCacheStats getOffHeapCacheStats();
+
     /**
      * Record a hit in this cache's underlying statistics.
      *
@@ -124,12 +190,21 @@ public abstract class SegmentCache {
         @NotNull
         private final Stats stats;
 
+        /**
+         * Off-heap tier receiving the segments evicted from {@link #cache} or
+         * {@code null} if disabled.
+         */
+        @Nullable
+        private final OffHeapCache offHeapCache;
+
         /**
          * Create a new cache of the given size.
          *
-         * @param cacheSizeMB size of the cache in megabytes.
+         * @param cacheSizeMB  size of the cache in megabytes.
+         * @param offHeapCache the off-heap tier or {@code null}.
          */
-        private NonEmptyCache(long cacheSizeMB) {
+        private NonEmptyCache(long cacheSizeMB, @Nullable OffHeapCache offHeapCache) {
+            this.offHeapCache = offHeapCache;
             long maximumWeight = cacheSizeMB * 1024 * 1024;
             this.cache = CacheBuilder.newBuilder()
                     .concurrencyLevel(16)
@@ -147,6 +222,9 @@ public abstract class SegmentCache {
             stats.evictionCount.incrementAndGet();
             if (notification.getValue() != null) {
                 stats.currentWeight.addAndGet(-segmentWeight(notification.getValue()));
+                if (offHeapCache != null && notification.wasEvicted()) {
+                    offHeapCache.putSegment(notification.getValue());
+                }
             }
             if (notification.getKey() != null) {
                 notification.getKey().unloaded();
@@ -198,9 +276,21 @@ public abstract class SegmentCache {
             }
         }
 
+        @Override
+        @Nullable
+        public Buffer getOffHeapBuffer(@NotNull SegmentId id) {
+            if (offHeapCache != null && id.isDataSegmentId()) {
+                return offHeapCache.getBuffer(id);
+            }
+            return null;
+        }
+
         @Override
         public void clear() {
             cache.invalidateAll();
+            if (offHeapCache != null) {
+                offHeapCache.clear();
+            }
         }
 
         @Override
@@ -209,6 +299,12 @@ public abstract class SegmentCache {
             return stats;
         }
 
+        @Override
+        @Nullable
+        public AbstractCacheStats getOffHeapCacheStats() {
+            return offHeapCache == null ? null : offHeapCache.stats;
+        }
+
         @Override
         public void recordHit() {
             stats.hitCount.incrementAndGet();
@@ -242,6 +338,12 @@ public abstract class SegmentCache {
             segment.getSegmentId().unloaded();
         }
 
+        @Nullable
+        @Override
+        public Buffer getOffHeapBuffer(@NotNull SegmentId id) {
+            return null;
+        }
+
         @Override
         public void clear() {}
 
@@ -251,12 +353,194 @@ public abstract class SegmentCache {
             return stats;
         }
 
+        @Nullable
+        @Override
+        public AbstractCacheStats getOffHeapCacheStats() {
+            return null;
+        }
+
         @Override
         public void recordHit() {
             stats.hitCount.incrementAndGet();
         }
     }
 
+    /**
+     * Cache of raw segment data held outside of the Java heap, in a fixed
+     * arena of direct memory allocated when the cache is created. The arena
+     * is divided into slots of {@link Segment#MAX_SEGMENT_SIZE} bytes, each
+     * holding at most one segment. Once all slots are in use, the slot of the
+     * least recently used segment is reused. Entries are keyed by the {@link
+     * UUID} of the segment, so they survive the collection of the
+     * corresponding {@link SegmentId} instance.
+     * <p>
+     * Since slots are reused, segments are copied out of the arena when read.
+     */
+    private static class OffHeapCache {
+
+        private static final int SLOT_SIZE = Segment.MAX_SEGMENT_SIZE;
+
+        /**
+         * Number of slots per direct buffer of the arena (1 GB)
+         */
+        private static final int SLOTS_PER_CHUNK = (1 << 30) / SLOT_SIZE;
+
+        @NotNull
+        private final Buffer[] chunks;
+
+        /**
+         * Size of the segment in each slot
+         */
+        @NotNull
+        private final int[] sizes;
+
+        /**
+         * Stack of the slots not in use
+         */
+        @NotNull
+        private final int[] freeSlots;
+
+        private int freeCount;
+
+        /**
+         * Slots of the cached segments in access order
+         */
+        @NotNull
+        private final LinkedHashMap<UUID, Integer> index = new LinkedHashMap<>(16, 0.75f, true);
+
+        @NotNull
+        private final Stats stats;
+
+        private OffHeapCache(long cacheSizeMB) {
+            int slots = Math.toIntExact(Math.max(1, cacheSizeMB * 1024 * 1024 / SLOT_SIZE));
+            this.chunks = new Buffer[(slots + SLOTS_PER_CHUNK - 1) / SLOTS_PER_CHUNK];
+            for (int i = 0; i < chunks.length; i++) {
+                int chunkSlots = Math.min(SLOTS_PER_CHUNK, slots - i * SLOTS_PER_CHUNK);
+                chunks[i] = Buffer.allocateDirect(chunkSlots * SLOT_SIZE);
+            }
+            this.sizes = new int[slots];
+            this.freeSlots = new int[slots];
+            for (int i = 0; i < slots; i++) {
+                freeSlots[i] = slots - 1 - i;
+            }
+            this.freeCount = slots;
+            this.stats = new Stats(OFF_HEAP_NAME, (long) slots * SLOT_SIZE, this::size);
+        }
+
+        private synchronized long size() {
+            return index.size();
+        }
+
+        @NotNull
+        private Buffer slot(int slot) {
+            Buffer buffer = chunks[slot / SLOTS_PER_CHUNK].duplicate();
+            int offset = (slot % SLOTS_PER_CHUNK) * SLOT_SIZE;
+            buffer.position(offset);
+            buffer.limit(offset + SLOT_SIZE);
+            return buffer.slice();
+        }
+
+        @Nullable
+        Buffer getBuffer(@NotNull SegmentId id) {
+            Buffer copy;
+            synchronized (this) {
+                Integer slot = index.get(id.asUUID());
+                if (slot == null) {
+                    stats.missCount.incrementAndGet();
+                    return null;
+                }
+                Buffer data = slot(slot);
+                data.limit(sizes[slot]);
+                copy = Buffer.allocate(sizes[slot]);
+                copy.put(data);
+            }
+            stats.hitCount.incrementAndGet();
+            copy.flip();
+            return copy;
+        }
+
+        /**
+         * Copy the data of {@code segment} into a slot of the arena unless it
+         * is already there.
+         */
+        synchronized void putSegment(@NotNull Segment segment) {
+            UUID id = segment.getSegmentId().asUUID();
+            int size = segment.size();
+            if (size > SLOT_SIZE || index.containsKey(id)) {
+                return;
+            }
+
+            long t0 = System.nanoTime();
+            int slot = allocateSlot();
+            try {
+                segment.writeTo(new BufferOutputStream(slot(slot)));
+                sizes[slot] = size;
+                index.put(id, slot);
+                stats.currentWeight.addAndGet(size);
+                stats.loadSuccessCount.incrementAndGet();
+            } catch (IOException e) {
+                LOG.debug("Unable to cache segment {} off-heap", id, e);
+                freeSlots[freeCount++] = slot;
+                stats.loadExceptionCount.incrementAndGet();
+            } finally {
+                stats.loadTime.addAndGet(System.nanoTime() - t0);
+            }
+        }
+
+        /**
+         * Take a free slot, reusing the slot of the least recently used
+         * segment if there is none.
+         */
+        private int allocateSlot() {
+            if (freeCount == 0) {
+                Iterator<Integer> eldest = index.values().iterator();
+                int slot = eldest.next();
+                eldest.remove();
+                release(slot);
+            }
+            return freeSlots[--freeCount];
+        }
+
+        private void release(int slot) {
+            stats.currentWeight.addAndGet(-sizes[slot]);
+            stats.evictionCount.incrementAndGet();
+            sizes[slot] = 0;
+            freeSlots[freeCount++] = slot;
+        }
+
+        synchronized void clear() {
+            for (int slot : index.values()) {
+                release(slot);
+            }
+            index.clear();
+        }
+
+    }
+
+    /**
+     * An output stream writing to a {@link Buffer}.
+     */
+    private static class BufferOutputStream extends OutputStream {
+
+        @NotNull
+        private final Buffer buffer;
+
+        BufferOutputStream(@NotNull Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(@NotNull byte[] b, int off, int len) {
+            buffer.put(b, off, len);
+        }
+
+    }
+
     /**
      * We cannot rely on the statistics of the underlying Guava cache as all
      * cache hits are taken by {@link SegmentId#getSegment()} and thus never
@@ -214,6 +214,15 @@ public class SegmentId implements Comparable<SegmentId> {
         this.segment = null;
     }
 
+    /**
+     * @return  {@code true} iff the segment of this id is currently memoised,
+     *          i.e. it can be returned by {@link #getSegment()} without
+     *          reading it from the store.
+     */
+    boolean isLoaded() {
+        return segment != null;
+    }
+
     /**
      * Determine whether this instance belongs to the passed {@code store}
      * @param store
@@ -18,9 +18,7 @@
  */
 package org.apache.jackrabbit.oak.segment;
 
-import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMapWithExpectedSize;
-import static java.util.Collections.nCopies;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
@@ -29,18 +27,27 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Hash table of weak references to segment identifiers.
+ * <p>
+ * Lookups of identifiers already tracked by this table don't acquire any
+ * lock. Only adding a new identifier and refreshing the table are
+ * synchronized. A lookup that doesn't find its identifier without locking
+ * falls back to the synchronized path, which searches the table again
+ * before adding the identifier. This guarantees that there is never more
+ * than one {@link SegmentId} instance for the same pair of MSB/LSB.
  */
 public class SegmentIdTable {
 
     /**
-     * The list of weak references to segment identifiers that are currently
+     * The array of weak references to segment identifiers that are currently
      * being accessed. This represents a hash table that uses open addressing
      * with linear probing. It is not a hash map, to speed up read access.
      * <p>
@@ -58,9 +65,14 @@ public class SegmentIdTable {
      * <p>
      * The array is not sorted (we could; lookup might be faster, but adding
      * entries would be slower).
+     * <p>
+     * The array is only modified while holding the lock of this table. When
+     * the table is rebuilt, a new array is created and published by writing
+     * this field, so that unsynchronized readers always see a consistent
+     * array.
      */
-    private final ArrayList<WeakReference<SegmentId>> references =
-            newArrayList(nCopies(1024, (WeakReference<SegmentId>) null));
+    private volatile AtomicReferenceArray<WeakReference<SegmentId>> references =
+            new AtomicReferenceArray<WeakReference<SegmentId>>(1024);
 
     private static final Logger LOG = LoggerFactory.getLogger(SegmentIdTable.class);
 
@@ -87,8 +99,48 @@ public class SegmentIdTable {
      * @return the segment id
      */
     @NotNull
-    synchronized SegmentId newSegmentId(long msb, long lsb, SegmentIdFactory maker) {
-        int index = getIndex(lsb);
+    SegmentId newSegmentId(long msb, long lsb, SegmentIdFactory maker) {
+        SegmentId id = findSegmentId(msb, lsb);
+        if (id != null) {
+            return id;
+        }
+        return addSegmentId(msb, lsb, maker);
+    }
+
+    /**
+     * Search the table for a segment id without locking. A {@code null}
+     * return value doesn't imply that the segment id is not tracked, as the
+     * table might be concurrently modified.
+     */
+    @Nullable
+    private SegmentId findSegmentId(long msb, long lsb) {
+        AtomicReferenceArray<WeakReference<SegmentId>> references = this.references;
+        int size = references.length();
+        int index = getIndex(lsb, size);
+
+        // Bound the search by the size of the table, as concurrent writers
+        // could otherwise keep this reader probing indefinitely.
+        for (int i = 0; i < size; i++) {
+            WeakReference<SegmentId> reference = references.get(index);
+            if (reference == null) {
+                return null;
+            }
+            SegmentId id = reference.get();
+            if (id != null
+                    && id.getMostSignificantBits() == msb
+                    && id.getLeastSignificantBits() == lsb) {
+                return id;
+            }
+            index = (index + 1) & (size - 1);
+        }
+        return null;
+    }
+
+    @NotNull
+    private synchronized SegmentId addSegmentId(long msb, long lsb, SegmentIdFactory maker) {
+        AtomicReferenceArray<WeakReference<SegmentId>> references = this.references;
+        int size = references.length();
+        int index = getIndex(lsb, size);
         boolean shouldRefresh = false;
 
         WeakReference<SegmentId> reference = references.get(index);
@@ -102,14 +154,14 @@ public class SegmentIdTable {
             // shouldRefresh if we have a garbage collected entry
             shouldRefresh = shouldRefresh || id == null;
             // open addressing / linear probing
-            index = (index + 1) % references.size();
+            index = (index + 1) & (size - 1);
             reference = references.get(index);
         }
 
         SegmentId id = maker.newSegmentId(msb, lsb);
         references.set(index, new WeakReference<SegmentId>(id));
         entryCount++;
-        if (entryCount > references.size() * 0.75) {
+        if (entryCount > size * 0.75) {
             // more than 75% full            
             shouldRefresh = true;
         }
@@ -129,7 +181,8 @@ public class SegmentIdTable {
     }
 
     private synchronized Collection<SegmentId> refresh() {
-        int size = references.size();
+        AtomicReferenceArray<WeakReference<SegmentId>> references = this.references;
+        int size = references.length();
         Map<SegmentId, WeakReference<SegmentId>> ids =
                 newHashMapWithExpectedSize(size);
 
@@ -141,7 +194,7 @@ public class SegmentIdTable {
                 SegmentId id = reference.get();
                 if (id != null) {
                     ids.put(id, reference);
-                    hashCollisions = hashCollisions || (i != getIndex(id));
+                    hashCollisions = hashCollisions || (i != getIndex(id, size));
                 } else {
                     references.set(i, null);
                     entryCount--;
@@ -168,34 +221,38 @@ public class SegmentIdTable {
         // but also if we removed some of the entries (because an entry was
         // garbage collected) and there is at least one entry at the "wrong"
         // location (due to open addressing)
-        if ((hashCollisions && emptyReferences) || size != references.size()) {
+        if ((hashCollisions && emptyReferences) || size != references.length()) {
             rebuildCount++;
-            references.clear();
-            references.addAll(nCopies(size, (WeakReference<SegmentId>) null));
+            AtomicReferenceArray<WeakReference<SegmentId>> rebuilt =
+                    new AtomicReferenceArray<WeakReference<SegmentId>>(size);
 
             for (Map.Entry<SegmentId, WeakReference<SegmentId>> entry
                     : ids.entrySet()) {
-                int index = getIndex(entry.getKey());
-                while (references.get(index) != null) {
-                    index = (index + 1) % size;
+                int index = getIndex(entry.getKey(), size);
+                while (rebuilt.get(index) != null) {
+                    index = (index + 1) & (size - 1);
                 }
-                references.set(index, entry.getValue());
+                rebuilt.set(index, entry.getValue());
             }
+
+            this.references = rebuilt;
         }
 
         return ids.keySet();
     }
 
-    private int getIndex(SegmentId id) {
-        return getIndex(id.getLeastSignificantBits());
+    private static int getIndex(SegmentId id, int size) {
+        return getIndex(id.getLeastSignificantBits(), size);
     }
 
-    private int getIndex(long lsb) {
-        return ((int) lsb) & (references.size() - 1);
+    private static int getIndex(long lsb, int size) {
+        return ((int) lsb) & (size - 1);
     }
 
     synchronized void clearSegmentIdTables(@NotNull Set<UUID> reclaimed, @NotNull String gcInfo) {
-        for (WeakReference<SegmentId> reference : references) {
+        AtomicReferenceArray<WeakReference<SegmentId>> references = this.references;
+        for (int i = 0; i < references.length(); i++) {
+            WeakReference<SegmentId> reference = references.get(i);
             if (reference != null) {
                 SegmentId id = reference.get();
                 if (id != null && reclaimed.contains(id.asUUID())) {
@@ -210,7 +267,7 @@ public class SegmentIdTable {
      * 
      * @return the rebuild count
      */
-    int getMapRebuildCount() {
+    synchronized int getMapRebuildCount() {
         return rebuildCount;
     }
     
@@ -219,7 +276,7 @@ public class SegmentIdTable {
      * 
      * @return the entry count
      */
-    int getEntryCount() {
+    synchronized int getEntryCount() {
         return entryCount;
     }
     
@@ -229,7 +286,7 @@ public class SegmentIdTable {
      * @return the map size
      */
     int getMapSize() {
-        return references.size();
+        return references.length();
     }
     
     /**
@@ -238,8 +295,10 @@ public class SegmentIdTable {
      * @return the raw list
      */
     List<SegmentId> getRawSegmentIdList() {
+        AtomicReferenceArray<WeakReference<SegmentId>> references = this.references;
         ArrayList<SegmentId> list = new ArrayList<SegmentId>();
-        for (WeakReference<SegmentId> ref : references) {
+        for (int i = 0; i < references.length(); i++) {
+            WeakReference<SegmentId> ref = references.get(i);
             if (ref != null) {
                 SegmentId id = ref.get();
                 if (id != null) {
@@ -118,6 +118,8 @@ class SegmentNodeStoreRegistrar {
 
         int getSegmentCacheSize();
 
+        int getOffHeapSegmentCacheSize();
+
         int getStringCacheSize();
 
         int getTemplateCacheSize();
@@ -214,6 +216,7 @@ class SegmentNodeStoreRegistrar {
         // Build the FileStore
         FileStoreBuilder builder = fileStoreBuilder(cfg.getSegmentDirectory())
             .withSegmentCacheSize(cfg.getSegmentCacheSize())
+            .withOffHeapSegmentCacheSize(cfg.getOffHeapSegmentCacheSize())
             .withStringCacheSize(cfg.getStringCacheSize())
             .withTemplateCacheSize(cfg.getTemplateCacheSize())
             .withStringDeduplicationCacheSize(cfg.getStringDeduplicationCacheSize())
@@ -276,6 +279,16 @@ class SegmentNodeStoreRegistrar {
             segmentCacheStats.getName()
         ));
 
+        CacheStatsMBean offHeapSegmentCacheStats = store.getOffHeapSegmentCacheStats();
+        if (offHeapSegmentCacheStats != null) {
+            registerCloseable(registerMBean(
+                CacheStatsMBean.class,
+                offHeapSegmentCacheStats,
+                CacheStats.TYPE,
+                offHeapSegmentCacheStats.getName()
+            ));
+        }
+
         // Expose stats about the string and template caches
 
         CacheStatsMBean stringCacheStats = store.getStringCacheStats();
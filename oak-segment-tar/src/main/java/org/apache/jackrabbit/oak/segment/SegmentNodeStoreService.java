@@ -23,6 +23,7 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static org.apache.jackrabbit.oak.commons.IOUtils.closeQuietly;
 import static org.apache.jackrabbit.oak.segment.CachingSegmentReader.DEFAULT_STRING_CACHE_MB;
 import static org.apache.jackrabbit.oak.segment.CachingSegmentReader.DEFAULT_TEMPLATE_CACHE_MB;
+import static org.apache.jackrabbit.oak.segment.SegmentCache.DEFAULT_OFF_HEAP_SEGMENT_CACHE_MB;
 import static org.apache.jackrabbit.oak.segment.SegmentCache.DEFAULT_SEGMENT_CACHE_MB;
 import static org.apache.jackrabbit.oak.segment.WriterCacheManager.DEFAULT_NODE_CACHE_SIZE_OSGi;
 import static org.apache.jackrabbit.oak.segment.WriterCacheManager.DEFAULT_STRING_CACHE_SIZE_OSGi;
@@ -123,6 +124,14 @@ public class SegmentNodeStoreService {
         )
         int segmentCache_size() default DEFAULT_SEGMENT_CACHE_MB;
 
+        @AttributeDefinition(
+            name = "Off-heap segment cache size (MB)",
+            description = "Size in megabytes of the off-heap tier of the segment cache, which " +
+                "holds segments evicted from the segment cache in direct memory. " +
+                "Default value is '" + DEFAULT_OFF_HEAP_SEGMENT_CACHE_MB + "' (disabled)."
+        )
+        int segmentCache_offHeapSize() default DEFAULT_OFF_HEAP_SEGMENT_CACHE_MB;
+
         @AttributeDefinition(
             name = "String cache size (MB)",
             description = "Cache size for storing most recently used strings in megabytes. " +
@@ -422,6 +431,15 @@ public class SegmentNodeStoreService {
                 return configuration.segmentCache_size();
             }
 
+            @Override
+            public int getOffHeapSegmentCacheSize() {
+                Integer size = Integer.getInteger("segmentCache.offHeapSize");
+                if (size != null) {
+                    return size;
+                }
+                return configuration.segmentCache_offHeapSize();
+            }
+
             @Override
             public int getStringCacheSize() {
                 return getCacheSize("stringCache.size", configuration.stringCache_size());
@@ -23,9 +23,7 @@ import static com.google.common.base.Preconditions.checkElementIndex;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Lists.newArrayListWithCapacity;
-import static com.google.common.collect.Maps.newHashMap;
 import static java.util.Collections.emptyList;
-import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonList;
 import static org.apache.jackrabbit.oak.api.Type.BINARIES;
 import static org.apache.jackrabbit.oak.api.Type.BINARY;
@@ -42,9 +40,6 @@ import static org.apache.jackrabbit.oak.api.Type.URI;
 import static org.apache.jackrabbit.oak.api.Type.WEAKREFERENCE;
 
 import java.util.List;
-import java.util.Map;
-
-import javax.jcr.PropertyType;
 
 import org.apache.jackrabbit.oak.api.PropertyState;
 import org.apache.jackrabbit.oak.api.Type;
@@ -95,22 +90,11 @@ public class SegmentPropertyState extends Record implements PropertyState {
         return new ListRecord(listId, size);
     }
 
-    Map<String, RecordId> getValueRecords() {
-        if (getType().tag() == PropertyType.BINARY) {
-            return emptyMap();
-        }
-
-        Map<String, RecordId> map = newHashMap();
-
-        Segment segment = getSegment();
-        ListRecord values = getValueList(segment);
-        for (int i = 0; i < values.size(); i++) {
-            RecordId valueId = values.getEntry(i);
-            String value = reader.readString(valueId);
-            map.put(value, valueId);
-        }
-
-        return map;
+    /**
+     * @return the list of the records of the values of this property.
+     */
+    ListRecord getValueList() {
+        return getValueList(getSegment());
     }
 
     @Override @NotNull
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Closeable;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.jackrabbit.oak.spi.state.ChildNodeEntry;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-ahead for traversals of {@link SegmentNodeState}s.
+ * <p>
+ * A traversal discovers the segments it needs one at a time: the segments of
+ * the children of a node are only known once the map of its child nodes has
+ * been read. This class lets a traversal opt in to loading them ahead of
+ * time. {@link #prefetch(NodeState)} reads the child node map of a node and
+ * the node records of its descendants, up to the configured depth, on a
+ * bounded pool of I/O threads. The segments read this way end up in the
+ * {@link SegmentCache} of the store, where the traversal finds them later.
+ * <p>
+ * Read-ahead is best effort. Prefetch requests are dropped when the pool is
+ * saturated, and errors encountered while prefetching are ignored: the
+ * traversal will run into them again and report them.
+ */
+public class SegmentReadAhead implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentReadAhead.class);
+
+    /**
+     * Default number of threads used to prefetch segments.
+     */
+    public static final int DEFAULT_THREADS = 4;
+
+    /**
+     * Maximum number of prefetch requests waiting for a thread.
+     */
+    private static final int QUEUE_SIZE = 1000;
+
+    /**
+     * Maximum number of nodes visited by a single prefetch request. This
+     * bounds the work done ahead of the traversal below nodes with many
+     * children.
+     */
+    private static final int MAX_NODES_PER_REQUEST = 1000;
+
+    private final int depth;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Set<RecordId> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param threads the number of threads used to prefetch segments. Must
+     *                be positive.
+     * @param depth   the number of levels below a node whose segments are
+     *                prefetched. Must be positive.
+     */
+    public SegmentReadAhead(int threads, int depth) {
+        checkArgument(threads > 0, "threads must be positive");
+        checkArgument(depth > 0, "depth must be positive");
+        this.depth = depth;
+        this.executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_SIZE),
+            new ThreadFactoryBuilder()
+                .setNameFormat("segment-read-ahead-%d")
+                .setDaemon(true)
+                .build()
+        );
+    }
+
+    /**
+     * Asynchronously load the segments of the descendants of {@code node}.
+     * This method returns immediately and does nothing if {@code node} is
+     * not a {@link SegmentNodeState}.
+     *
+     * @param node the node about to be traversed.
+     */
+    public void prefetch(@NotNull NodeState node) {
+        if (!(node instanceof SegmentNodeState)) {
+            return;
+        }
+
+        SegmentNodeState state = (SegmentNodeState) node;
+        RecordId id = state.getRecordId();
+
+        if (!pending.add(id)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    prefetch(state, depth, new int[] {MAX_NODES_PER_REQUEST});
+                } catch (RuntimeException e) {
+                    log.debug("Unable to prefetch the segments below {}", id, e);
+                } finally {
+                    pending.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(id);
+        }
+    }
+
+    private static void prefetch(SegmentNodeState node, int depth, int[] budget) {
+        for (ChildNodeEntry entry : node.getChildNodeEntries()) {
+            if (budget[0]-- <= 0) {
+                return;
+            }
+
+            NodeState child = entry.getNodeState();
+
+            if (!(child instanceof SegmentNodeState)) {
+                continue;
+            }
+
+            SegmentNodeState segmentChild = (SegmentNodeState) child;
+            SegmentId segmentId = segmentChild.getRecordId().getSegmentId();
+
+            if (!segmentId.isLoaded()) {
+                segmentId.getSegment();
+            }
+
+            if (depth > 1) {
+                prefetch(segmentChild, depth - 1, budget);
+            }
+        }
+    }
+
+    /**
+     * Prefetch the segments of the descendants of {@code node} and return
+     * its child node entries. A recursive traversal using this method to
+     * iterate over the children of every node reads ahead of itself.
+     *
+     * @param node the node about to be traversed.
+     * @return the child node entries of {@code node}.
+     */
+    @NotNull
+    public Iterable<? extends ChildNodeEntry> getChildNodeEntries(@NotNull NodeState node) {
+        prefetch(node);
+        return node.getChildNodeEntries();
+    }
+
+    /**
+     * @return the number of prefetch requests either waiting or in progress.
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stop prefetching. Pending prefetch requests are discarded.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static com.google.common.collect.Maps.newHashMap;
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.common.base.Supplier;
+import org.apache.jackrabbit.oak.segment.file.tar.GCGeneration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This {@link WriteOperationHandler} gives each thread its own
+ * {@link SegmentBufferWriter}s, which it passes to its
+ * {@link #execute(GCGeneration, WriteOperation) execute} method.
+ * <p>
+ * Unlike {@link SegmentBufferWriterPool}, borrowing and returning a writer
+ * doesn't acquire a lock shared by all threads. Each thread owns a slot,
+ * which holds its writers for the current <em>epoch</em>. A call to
+ * {@link #flush(SegmentStore)} starts a new epoch and then waits until no
+ * thread is executing a write operation in a previous epoch any more. At that
+ * point the writers of the previous epochs can't be used any more and are
+ * flushed. Write operations started after the new epoch began are not waited
+ * for and use fresh writers.
+ * <p>
+ * Instances of this class are thread safe.
+ */
+public class ThreadAffineSegmentBufferWriterPool implements WriteOperationHandler {
+
+    /**
+     * Value of {@link Slot#active} while its thread is not executing a write
+     * operation.
+     */
+    private static final long IDLE = -1;
+
+    /**
+     * The current epoch. Only {@link #flush(SegmentStore)} advances it.
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * The slots of the threads that used this pool and that are not yet
+     * discarded because their thread terminated. This is deliberately not a
+     * {@code ThreadLocal}, whose values would keep this pool reachable from
+     * every thread that ever used it.
+     */
+    private final ConcurrentMap<Thread, Slot> slots = newConcurrentMap();
+
+    /**
+     * Serializes calls to {@link #flush(SegmentStore)}. Write operations
+     * never acquire this lock.
+     */
+    private final Object flushLock = new Object();
+
+    private final AtomicInteger writerId = new AtomicInteger();
+
+    @NotNull
+    private final SegmentIdProvider idProvider;
+
+    @NotNull
+    private final SegmentReader reader;
+
+    @NotNull
+    private final Supplier<GCGeneration> gcGeneration;
+
+    @NotNull
+    private final String wid;
+
+    public ThreadAffineSegmentBufferWriterPool(
+            @NotNull SegmentIdProvider idProvider,
+            @NotNull SegmentReader reader,
+            @NotNull String wid,
+            @NotNull Supplier<GCGeneration> gcGeneration) {
+        this.idProvider = checkNotNull(idProvider);
+        this.reader = checkNotNull(reader);
+        this.wid = checkNotNull(wid);
+        this.gcGeneration = checkNotNull(gcGeneration);
+    }
+
+    @Override
+    @NotNull
+    public GCGeneration getGCGeneration() {
+        return gcGeneration.get();
+    }
+
+    @NotNull
+    @Override
+    public RecordId execute(@NotNull GCGeneration gcGeneration,
+                            @NotNull WriteOperation writeOperation)
+    throws IOException {
+        Slot slot = getSlot();
+
+        if (slot.active != IDLE) {
+            // A nested write operation must not share the writer of the
+            // enclosing one. It runs in the epoch of the enclosing operation,
+            // which keeps a concurrent flush waiting until both are done.
+            SegmentBufferWriter writer = slot.writers.get().nested(gcGeneration);
+            return writeOperation.execute(writer);
+        }
+
+        // Announce the epoch this thread is about to work in. Re-reading the
+        // epoch after publishing it guarantees that a concurrent flush either
+        // sees this thread as active in the old epoch and waits for it, or
+        // this thread observes the new epoch.
+        long current;
+        do {
+            current = epoch.get();
+            slot.active = current;
+        } while (current != epoch.get());
+
+        try {
+            return writeOperation.execute(slot.writers(current).get(gcGeneration));
+        } finally {
+            slot.active = IDLE;
+        }
+    }
+
+    @Override
+    public void flush(@NotNull SegmentStore store) throws IOException {
+        List<SegmentBufferWriter> toFlush = newArrayList();
+
+        synchronized (flushLock) {
+            long previous = epoch.getAndIncrement();
+
+            for (Iterator<Slot> iterator = slots.values().iterator(); iterator.hasNext(); ) {
+                Slot slot = iterator.next();
+
+                // Wait for the write operation of this slot to complete, if
+                // it started in a previous epoch. Operations started in the
+                // new epoch use fresh writers and are not waited for.
+                if (!awaitQuiescence(slot, previous)) {
+                    // Interrupted: the writers of this slot are flushed by a
+                    // later call to this method.
+                    continue;
+                }
+
+                Writers writers = slot.writers.get();
+                if (writers.epoch <= previous) {
+                    if (slot.writers.compareAndSet(writers, new Writers(previous + 1, null))) {
+                        writers.drainTo(toFlush);
+                    } else {
+                        // The owner replaced its writers concurrently and
+                        // left the previous ones behind for us.
+                        writers = slot.writers.get();
+                    }
+                }
+                Writers retired = writers.takePrevious();
+                if (retired != null) {
+                    retired.drainTo(toFlush);
+                }
+
+                if (slot.isDiscardable()) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        // Call flush from outside the flush lock to avoid blocking subsequent
+        // flushes on SegmentStore.writeSegment
+        for (SegmentBufferWriter writer : toFlush) {
+            writer.flush(store);
+        }
+    }
+
+    @NotNull
+    private Slot getSlot() {
+        Thread thread = currentThread();
+        Slot slot = slots.get(thread);
+        if (slot == null) {
+            slot = slots.computeIfAbsent(thread, t -> new Slot(t, epoch.get()));
+        }
+        return slot;
+    }
+
+    /**
+     * Wait until the thread owning {@code slot} is not executing a write
+     * operation that started in an epoch before or at {@code epoch}.
+     *
+     * @return {@code false} if the current thread was interrupted while
+     * waiting, {@code true} otherwise.
+     */
+    private static boolean awaitQuiescence(Slot slot, long epoch) {
+        for (int spins = 0; ; spins++) {
+            long active = slot.active;
+            if (active == IDLE || active > epoch) {
+                return true;
+            }
+            if (currentThread().isInterrupted()) {
+                return false;
+            }
+            if (spins < 100) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(MICROSECONDS.toNanos(100));
+            }
+        }
+    }
+
+    @NotNull
+    private SegmentBufferWriter newWriter(@NotNull GCGeneration gcGeneration) {
+        return new SegmentBufferWriter(
+                idProvider,
+                reader,
+                SegmentBufferWriterPool.formatWriterId(wid, (writerId.getAndIncrement() & Integer.MAX_VALUE) % 10000),
+                gcGeneration
+        );
+    }
+
+    /**
+     * The state of a thread with respect to this pool.
+     */
+    private class Slot {
+
+        private final Thread owner;
+
+        /**
+         * The epoch of the write operation currently being executed by the
+         * owner, or {@link #IDLE}. Only written by the owner.
+         */
+        private volatile long active = IDLE;
+
+        /**
+         * The writers of the owner. Replaced either by the owner when it finds
+         * writers from a previous epoch, or by {@code flush()} when it takes
+         * them for flushing.
+         */
+        private final AtomicReference<Writers> writers;
+
+        Slot(Thread owner, long epoch) {
+            this.owner = owner;
+            this.writers = new AtomicReference<>(new Writers(epoch, null));
+        }
+
+        /**
+         * Return the writers of the owner for {@code epoch}, replacing the
+         * writers of a previous epoch if necessary. Replaced writers are left
+         * behind for {@code flush()}, which is guaranteed to collect them as
+         * they can only have been replaced after it started a new epoch.
+         */
+        @NotNull
+        Writers writers(long epoch) {
+            Writers current = writers.get();
+            if (current.epoch == epoch) {
+                return current;
+            }
+            Writers fresh = new Writers(epoch, current);
+            if (writers.compareAndSet(current, fresh)) {
+                return fresh;
+            }
+            // flush() took the previous writers and installed fresh ones
+            return writers.get();
+        }
+
+        /**
+         * A slot can be discarded once its thread terminated and it holds no
+         * writers that still need to be flushed.
+         */
+        boolean isDiscardable() {
+            return !owner.isAlive() && writers.get().isEmpty();
+        }
+
+    }
+
+    /**
+     * The writers of a thread during an epoch, keyed by their GC generation.
+     */
+    private class Writers {
+
+        private final long epoch;
+
+        /**
+         * Writers of a previous epoch the owner replaced before {@code
+         * flush()} could take them.
+         */
+        private final AtomicReference<Writers> previous;
+
+        /**
+         * Only accessed by the owner while executing a write operation in
+         * {@link #epoch}, or by {@code flush()} once the owner stopped doing
+         * so.
+         */
+        private final Map<GCGeneration, SegmentBufferWriter> writers = newHashMap();
+
+        /**
+         * Writers for nested write operations. Accessed like {@link #writers}.
+         */
+        private final List<SegmentBufferWriter> nested = newArrayList();
+
+        Writers(long epoch, @Nullable Writers previous) {
+            this.epoch = epoch;
+            this.previous = new AtomicReference<>(previous);
+        }
+
+        @NotNull
+        SegmentBufferWriter get(@NotNull GCGeneration gcGeneration) {
+            SegmentBufferWriter writer = writers.get(gcGeneration);
+            if (writer == null) {
+                writer = newWriter(gcGeneration);
+                writers.put(gcGeneration, writer);
+            }
+            return writer;
+        }
+
+        @NotNull
+        SegmentBufferWriter nested(@NotNull GCGeneration gcGeneration) {
+            SegmentBufferWriter writer = newWriter(gcGeneration);
+            nested.add(writer);
+            return writer;
+        }
+
+        @Nullable
+        Writers takePrevious() {
+            return previous.getAndSet(null);
+        }
+
+        void drainTo(List<SegmentBufferWriter> toFlush) {
+            toFlush.addAll(writers.values());
+            toFlush.addAll(nested);
+            writers.clear();
+            nested.clear();
+            Writers retired = takePrevious();
+            if (retired != null) {
+                retired.drainTo(toFlush);
+            }
+        }
+
+        boolean isEmpty() {
+            return writers.isEmpty() && nested.isEmpty() && previous.get() == null;
+        }
+
+    }
+
+}
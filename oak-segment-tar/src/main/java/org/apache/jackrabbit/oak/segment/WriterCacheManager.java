@@ -24,9 +24,11 @@ import static com.google.common.base.Suppliers.memoize;
 import static com.google.common.collect.Iterators.transform;
 import static com.google.common.collect.Maps.newConcurrentMap;
 import static java.lang.Integer.getInteger;
+import static java.util.Collections.emptyList;
 import static org.apache.jackrabbit.oak.segment.RecordCache.newRecordCache;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.base.Function;
@@ -103,6 +105,28 @@ public abstract class WriterCacheManager {
     @NotNull
     public abstract Cache<String, RecordId> getNodeCache(int generation);
 
+    /**
+     * @param generation
+     * @param limit  maximal number of record ids to return
+     * @return  the record ids of at most {@code limit} of the most recently
+     *          used string records in the cache of the given {@code generation}.
+     */
+    @NotNull
+    public List<RecordId> getRecentStringRecordIds(int generation, int limit) {
+        return emptyList();
+    }
+
+    /**
+     * @param generation
+     * @param limit  maximal number of record ids to return
+     * @return  the record ids of at most {@code limit} of the most recently
+     *          used template records in the cache of the given {@code generation}.
+     */
+    @NotNull
+    public List<RecordId> getRecentTemplateRecordIds(int generation, int limit) {
+        return emptyList();
+    }
+
     /**
      * Enable access statistics for this cache. The instance returned by from
      * this method delegates back to this instance and adds access statistics
@@ -310,6 +334,18 @@ public abstract class WriterCacheManager {
             return templateCaches.getGeneration(generation);
         }
 
+        @NotNull
+        @Override
+        public List<RecordId> getRecentStringRecordIds(int generation, int limit) {
+            return stringCaches.getGeneration(generation).getRecentRecordIds(limit);
+        }
+
+        @NotNull
+        @Override
+        public List<RecordId> getRecentTemplateRecordIds(int generation, int limit) {
+            return templateCaches.getGeneration(generation).getRecentRecordIds(limit);
+        }
+
         private PriorityCache<String, RecordId> nodeCache() {
             return nodeCache.get();
         }
@@ -497,6 +533,18 @@ public abstract class WriterCacheManager {
             );
         }
 
+        @NotNull
+        @Override
+        public List<RecordId> getRecentStringRecordIds(int generation, int limit) {
+            return delegate.getRecentStringRecordIds(generation, limit);
+        }
+
+        @NotNull
+        @Override
+        public List<RecordId> getRecentTemplateRecordIds(int generation, int limit) {
+            return delegate.getRecentTemplateRecordIds(generation, limit);
+        }
+
         /**
          * @return the wrapped cache returned by the delegate's method of
          * the same name exposing access statistics under
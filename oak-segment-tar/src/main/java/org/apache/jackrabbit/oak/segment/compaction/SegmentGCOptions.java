@@ -19,6 +19,8 @@
 
 package org.apache.jackrabbit.oak.segment.compaction;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -83,6 +85,11 @@ public class SegmentGCOptions {
      */
     public static final int MEMORY_THRESHOLD_DEFAULT = 15;
 
+    /**
+     * Default value for {@link #getConcurrency()}
+     */
+    public static final int CONCURRENCY_DEFAULT = 1;
+
     private boolean paused = PAUSE_DEFAULT;
 
     /**
@@ -103,6 +110,8 @@ public class SegmentGCOptions {
 
     private int memoryThreshold = MEMORY_THRESHOLD_DEFAULT;
 
+    private int concurrency = CONCURRENCY_DEFAULT;
+
     private long gcSizeDeltaEstimation = Long.getLong(
             "oak.segment.compaction.gcSizeDeltaEstimation",
             SIZE_DELTA_ESTIMATION_DEFAULT);
@@ -235,7 +244,8 @@ public class SegmentGCOptions {
         if (offline) {
             return getClass().getSimpleName() + "{" +
                     "offline=" + offline +
-                    ", retainedGenerations=" + retainedGenerations + "}";
+                    ", retainedGenerations=" + retainedGenerations +
+                    ", concurrency=" + concurrency + "}";
         } else {
             return getClass().getSimpleName() + "{" +
                     "paused=" + paused +
@@ -244,7 +254,8 @@ public class SegmentGCOptions {
                     ", retryCount=" + retryCount +
                     ", forceTimeout=" + forceTimeout +
                     ", retainedGenerations=" + retainedGenerations +
-                    ", gcType=" + gcType + "}";
+                    ", gcType=" + gcType +
+                    ", concurrency=" + concurrency + "}";
         }
     }
 
@@ -341,4 +352,25 @@ public class SegmentGCOptions {
         return gcLogInterval;
     }
 
+    /**
+     * @return the number of threads used for compaction and cleanup.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Set the number of threads used for compaction and cleanup. With a value
+     * greater than {@code 1} independent subtrees are compacted concurrently,
+     * and the segment graph is marked and the TAR files are swept concurrently
+     * during cleanup.
+     * @param concurrency  number of threads. Must be positive.
+     * @return this instance
+     */
+    public SegmentGCOptions setConcurrency(int concurrency) {
+        checkArgument(concurrency > 0, "concurrency must be positive");
+        this.concurrency = concurrency;
+        return this;
+    }
+
 }
@@ -19,6 +19,7 @@ package org.apache.jackrabbit.oak.segment.data;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.jackrabbit.oak.commons.Buffer;
 
@@ -117,6 +118,8 @@ public interface SegmentData {
 
     void binDump(OutputStream stream) throws IOException;
 
+    void binDump(WritableByteChannel channel) throws IOException;
+
     int estimateMemoryUsage();
 
 }
@@ -19,6 +19,7 @@ package org.apache.jackrabbit.oak.segment.data;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.jackrabbit.oak.commons.Buffer;
 
@@ -49,6 +50,11 @@ class SegmentDataRaw implements SegmentData {
         SegmentDataUtils.binDump(buffer, stream);
     }
 
+    @Override
+    public void binDump(WritableByteChannel channel) throws IOException {
+        SegmentDataUtils.binDump(buffer, channel);
+    }
+
     @Override
     public int size() {
         return buffer.remaining();
@@ -40,11 +40,15 @@ class SegmentDataUtils {
     }
 
     static void binDump(Buffer buffer, OutputStream stream) throws IOException {
-        Buffer data = buffer.duplicate();
         try (WritableByteChannel channel = Channels.newChannel(stream)) {
-            while (data.hasRemaining()) {
-                data.write(channel);
-            }
+            binDump(buffer, channel);
+        }
+    }
+
+    static void binDump(Buffer buffer, WritableByteChannel channel) throws IOException {
+        Buffer data = buffer.duplicate();
+        while (data.hasRemaining()) {
+            data.write(channel);
         }
     }
 
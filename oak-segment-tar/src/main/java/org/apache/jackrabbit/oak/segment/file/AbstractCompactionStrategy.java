@@ -33,8 +33,10 @@ import com.google.common.base.Function;
 import org.apache.jackrabbit.oak.segment.CheckpointCompactor;
 import org.apache.jackrabbit.oak.segment.RecordId;
 import org.apache.jackrabbit.oak.segment.SegmentNodeState;
+import org.apache.jackrabbit.oak.segment.SegmentNotFoundException;
 import org.apache.jackrabbit.oak.segment.SegmentWriter;
 import org.apache.jackrabbit.oak.segment.compaction.SegmentGCOptions.GCType;
+import org.apache.jackrabbit.oak.segment.file.CompactionMap.CompactionMapEntry;
 import org.apache.jackrabbit.oak.segment.file.cancel.Cancellation;
 import org.apache.jackrabbit.oak.segment.file.cancel.Canceller;
 import org.apache.jackrabbit.oak.segment.file.tar.GCGeneration;
@@ -99,6 +101,68 @@ abstract class AbstractCompactionStrategy implements CompactionStrategy {
         return context.getSegmentReader().readNode(compactedId);
     }
 
+    /**
+     * Register the roots compacted by the previous compaction with the
+     * compactor if they are in the same compacted tail as {@code
+     * nextGeneration}. Such roots are retained by the cleanup following the
+     * compaction and can be reused as is.
+     */
+    private static void reuseCompactedRoots(Context context, CheckpointCompactor compactor, GCGeneration nextGeneration) {
+        int count = 0;
+        for (CompactionMapEntry entry : context.getCompactionMap().read()) {
+            if (entry.getGcGeneration().getFullGeneration() != nextGeneration.getFullGeneration()) {
+                continue;
+            }
+            try {
+                RecordId compactedId = RecordId.fromString(context.getSegmentTracker(), entry.getCompacted());
+                GCGeneration generation = compactedId.getSegmentId().getGcGeneration();
+                if (!generation.isCompacted() || generation.getFullGeneration() != nextGeneration.getFullGeneration()) {
+                    continue;
+                }
+                SegmentNodeState compacted = context.getSegmentReader().readNode(compactedId);
+                compactor.reuse(RecordId.fromString(context.getSegmentTracker(), entry.getUncompacted()), compacted);
+                compactor.reuse(compactedId, compacted);
+                count++;
+            } catch (SegmentNotFoundException | IllegalArgumentException e) {
+                context.getGCListener().warn("compacted root {} is not accessible: {}", entry.getCompacted(), e.getMessage());
+            }
+        }
+        if (count > 0) {
+            context.getGCListener().info("found {} reusable roots from previous compaction", count);
+        }
+    }
+
+    /**
+     * Register the node records rewritten by the previous compactions with
+     * the compactor if they are in the same compacted tail as {@code
+     * nextGeneration}. Such records are retained by the cleanup following the
+     * compaction, so they are also carried over to the compaction map of
+     * {@code nextGeneration}.
+     */
+    private static void reuseCompactedNodes(Context context, CheckpointCompactor compactor, GCGeneration nextGeneration) {
+        int count = 0;
+        for (CompactionMapEntry entry : context.getCompactionMap().readNodes()) {
+            if (entry.getGcGeneration().getFullGeneration() != nextGeneration.getFullGeneration()) {
+                continue;
+            }
+            try {
+                RecordId compactedId = RecordId.fromString(context.getSegmentTracker(), entry.getCompacted());
+                GCGeneration generation = compactedId.getSegmentId().getGcGeneration();
+                if (!generation.isCompacted() || generation.getFullGeneration() != nextGeneration.getFullGeneration()) {
+                    continue;
+                }
+                compactor.reuseNode(entry.getUncompacted(), compactedId);
+                context.getCompactionMap().carryOver(nextGeneration, entry);
+                count++;
+            } catch (SegmentNotFoundException | IllegalArgumentException e) {
+                context.getGCListener().warn("compacted node {} is not accessible: {}", entry.getCompacted(), e.getMessage());
+            }
+        }
+        if (count > 0) {
+            context.getGCListener().info("found {} reusable node records from previous compaction", count);
+        }
+    }
+
     private static RecordId setHead(Context context, Function<RecordId, RecordId> f) throws InterruptedException {
         return context.getRevisions().setHead(f, timeout(context.getGCOptions().getForceTimeout(), SECONDS));
     }
@@ -132,7 +196,8 @@ abstract class AbstractCompactionStrategy implements CompactionStrategy {
             GCJournal.GCJournalEntry gcEntry = context.getGCJournal().read();
             long initialSize = size(context);
 
-            SegmentWriter writer = context.getSegmentWriterFactory().newSegmentWriter(nextGeneration);
+            int concurrency = context.getGCOptions().getConcurrency();
+            SegmentWriter writer = context.getSegmentWriterFactory().newSegmentWriter(nextGeneration, concurrency > 1);
 
             context.getCompactionMonitor().init(gcEntry.getRepoSize(), gcEntry.getNodes(), initialSize);
 
@@ -143,8 +208,11 @@ abstract class AbstractCompactionStrategy implements CompactionStrategy {
                 context.getSegmentReader(),
                 writer,
                 context.getBlobStore(),
-                context.getCompactionMonitor()
+                context.getCompactionMonitor(),
+                concurrency
             );
+            reuseCompactedRoots(context, compactor, nextGeneration);
+            reuseCompactedNodes(context, compactor, nextGeneration);
 
             SegmentNodeState head = getHead(context);
             SegmentNodeState compacted = compactor.compact(base, head, base, compactionCanceller);
@@ -222,6 +290,7 @@ abstract class AbstractCompactionStrategy implements CompactionStrategy {
                 context.getSuccessfulCompactionListener().onSuccessfulCompaction(getCompactionType());
                 writer.flush();
                 context.getFlusher().flush();
+                context.getCompactionMap().persist(nextGeneration, compactor.getCompactedRoots());
                 context.getGCListener().info("compaction succeeded in {}, after {} cycles", watch, cycles);
                 return compactionSucceeded(context, nextGeneration, compacted.getRecordId());
             } else {
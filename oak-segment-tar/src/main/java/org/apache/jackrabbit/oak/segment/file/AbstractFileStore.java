@@ -29,6 +29,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.function.Consumer;
 
+import com.google.common.collect.ImmutableList;
 import org.apache.jackrabbit.oak.api.jmx.CacheStatsMBean;
 import org.apache.jackrabbit.oak.commons.Buffer;
 import org.apache.jackrabbit.oak.segment.CachingSegmentReader;
@@ -52,6 +53,7 @@ import org.apache.jackrabbit.oak.segment.file.tar.EntryRecovery;
 import org.apache.jackrabbit.oak.segment.file.tar.GCGeneration;
 import org.apache.jackrabbit.oak.segment.file.tar.TarFiles;
 import org.apache.jackrabbit.oak.segment.file.tar.TarRecovery;
+import org.apache.jackrabbit.oak.segment.spi.monitor.CompositeIOMonitor;
 import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitor;
 import org.apache.jackrabbit.oak.segment.spi.monitor.RemoteStoreMonitor;
 import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentNodeStorePersistence;
@@ -129,6 +131,9 @@ public abstract class AbstractFileStore implements SegmentStore, Closeable {
 
     protected final IOMonitor ioMonitor;
 
+    @NotNull
+    private final IOStatsMonitor ioStats = new IOStatsMonitor();
+
     protected final RemoteStoreMonitor remoteStoreMonitor;
 
     AbstractFileStore(final FileStoreBuilder builder) {
@@ -140,7 +145,7 @@ public abstract class AbstractFileStore implements SegmentStore, Closeable {
             }
         });
         this.blobStore = builder.getBlobStore();
-        this.segmentCache = newSegmentCache(builder.getSegmentCacheSize());
+        this.segmentCache = newSegmentCache(builder.getSegmentCacheSize(), builder.getOffHeapSegmentCacheSize());
         this.segmentReader = new CachingSegmentReader(
             this::getWriter,
             blobStore,
@@ -150,7 +155,7 @@ public abstract class AbstractFileStore implements SegmentStore, Closeable {
         );
         this.memoryMapping = builder.getMemoryMapping();
         this.offHeapAccess = builder.getOffHeapAccess();
-        this.ioMonitor = builder.getIOMonitor();
+        this.ioMonitor = new CompositeIOMonitor(ImmutableList.of(builder.getIOMonitor(), ioStats));
         this.remoteStoreMonitor = builder.getRemoteStoreMonitor();
         this.segmentBufferMonitor = new SegmentBufferMonitor(builder.getStatsProvider());
     }
@@ -162,11 +167,25 @@ public abstract class AbstractFileStore implements SegmentStore, Closeable {
         return new SegmentNotFoundException(id, e);
     }
 
+    /**
+     * @return  the always enabled statistics about the segment reads and
+     *          writes of this store
+     */
+    @NotNull
+    IOStatsMonitor getIOStats() {
+        return ioStats;
+    }
+
     @NotNull
     public CacheStatsMBean getSegmentCacheStats() {
         return segmentCache.getCacheStats();
     }
 
+    @Nullable
+    public CacheStatsMBean getOffHeapSegmentCacheStats() {
+        return segmentCache.getOffHeapCacheStats();
+    }
+
     @NotNull
     public CacheStatsMBean getStringCacheStats() {
         return segmentReader.getStringCacheStats();
@@ -283,7 +302,11 @@ public abstract class AbstractFileStore implements SegmentStore, Closeable {
     }
 
     Segment readSegmentUncached(TarFiles tarFiles, SegmentId id) {
-        Buffer buffer = tarFiles.readSegment(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        Buffer buffer = segmentCache.getOffHeapBuffer(id);
+        if (buffer != null) {
+            return new Segment(tracker, segmentReader, id, buffer);
+        }
+        buffer = tarFiles.readSegment(id.getMostSignificantBits(), id.getLeastSignificantBits());
         if (buffer == null) {
             throw new SegmentNotFoundException(id);
         }
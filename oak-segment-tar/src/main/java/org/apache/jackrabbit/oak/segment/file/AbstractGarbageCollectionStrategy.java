@@ -194,6 +194,11 @@ abstract class AbstractGarbageCollectionStrategy implements GarbageCollectionStr
                 return context.getGCJournal();
             }
 
+            @Override
+            public CompactionMap getCompactionMap() {
+                return context.getCompactionMap();
+            }
+
             @Override
             public SegmentGCOptions getGCOptions() {
                 return context.getGCOptions();
@@ -255,6 +260,11 @@ abstract class AbstractGarbageCollectionStrategy implements GarbageCollectionStr
     private CleanupStrategy.Context newCleanupStrategyContext(Context context, CompactionResult compactionResult) {
         return new CleanupStrategy.Context() {
 
+            @Override
+            public SegmentGCOptions getGCOptions() {
+                return context.getGCOptions();
+            }
+
             @Override
             public GCListener getGCListener() {
                 return context.getGCListener();
@@ -124,7 +124,10 @@ class CleanupFirstCompactionStrategy implements CompactionStrategy {
 
         System.gc();
 
-        TarFiles.CleanupResult cleanupResult = context.getTarFiles().cleanup(newCleanupContext(context, reclaimer));
+        TarFiles.CleanupResult cleanupResult = context.getTarFiles().cleanup(
+            newCleanupContext(context, reclaimer),
+            context.getGCOptions().getConcurrency()
+        );
 
         if (cleanupResult.isInterrupted()) {
             context.getGCListener().info("cleanup interrupted");
@@ -0,0 +1,478 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.jackrabbit.oak.segment.file;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.jackrabbit.oak.segment.file.tar.GCGeneration.newGCGeneration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+
+import com.google.common.base.Joiner;
+import org.apache.jackrabbit.oak.api.jmx.CacheStatsMBean;
+import org.apache.jackrabbit.oak.segment.Cache;
+import org.apache.jackrabbit.oak.segment.RecordId;
+import org.apache.jackrabbit.oak.segment.Template;
+import org.apache.jackrabbit.oak.segment.WriterCacheManager;
+import org.apache.jackrabbit.oak.segment.file.tar.GCGeneration;
+import org.apache.jackrabbit.oak.segment.spi.persistence.GCJournalFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the mapping from uncompacted to compacted records of the last
+ * successful compaction in the {@code compaction.map} file next to the {@code
+ * gc.log}. The map has two kinds of entries:
+ * <ul>
+ *     <li>Roots (checkpoints and root) processed by the compaction. Each line
+ *     has the format 'gc generation, gc full generation, uncompacted record
+ *     id, compacted record id'.</li>
+ *     <li>Node records rewritten by the compaction. Each line has the format
+ *     'gc generation, gc full generation, stable id of the uncompacted node,
+ *     compacted record id, cost'. Only the {@link #RECORD_MAP_SIZE} nodes
+ *     with the highest cost, i.e. the most child nodes, are kept.</li>
+ * </ul>
+ * <p>
+ * A subsequent tail compaction uses the roots to reuse checkpoints that have
+ * already been compacted into the same compacted tail instead of compacting
+ * them again. It uses the node records to reuse the compacted counterparts of
+ * nodes rewritten by an earlier compaction of the same compacted tail instead
+ * of compacting their subtrees again. The node deduplication caches of the
+ * writers can't provide this, as they are per generation and lost on
+ * restart. The node records are collected from the node cache of the
+ * compacting writer (see {@link #newRecordingCacheManager(GCGeneration,
+ * WriterCacheManager)}). Node records of the previous map that are still
+ * valid are carried over (see {@link #carryOver(GCGeneration,
+ * CompactionMapEntry)}), such that the map accumulates over the tail
+ * compactions following a full compaction.
+ */
+public class CompactionMap {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompactionMap.class);
+
+    /**
+     * Maximal number of node records persisted.
+     */
+    static final int RECORD_MAP_SIZE =
+            Integer.getInteger("oak.segment.compaction.recordMapSize", 10000);
+
+    private final GCJournalFile mapFile;
+
+    private List<CompactionMapEntry> roots;
+
+    private List<CompactionMapEntry> nodes;
+
+    /**
+     * The node records rewritten by the compaction in progress, if any.
+     */
+    private NodeRecords records;
+
+    public CompactionMap(@NotNull GCJournalFile mapFile) {
+        this.mapFile = checkNotNull(mapFile);
+    }
+
+    /**
+     * Replaces the persisted mapping with the roots compacted by a successful
+     * compaction and the node records it rewrote.
+     *
+     * @param gcGeneration  gc generation of the compacted roots
+     * @param compactedRoots  map from uncompacted to compacted record ids
+     */
+    public synchronized void persist(@NotNull GCGeneration gcGeneration, @NotNull Map<RecordId, RecordId> compactedRoots) {
+        List<CompactionMapEntry> updatedRoots = new ArrayList<>();
+        for (Entry<RecordId, RecordId> root : compactedRoots.entrySet()) {
+            updatedRoots.add(new CompactionMapEntry(gcGeneration,
+                    root.getKey().toString10(), root.getValue().toString10()));
+        }
+        List<CompactionMapEntry> updatedNodes = records != null && records.generation.equals(gcGeneration)
+                ? records.entries()
+                : new ArrayList<>();
+        records = null;
+        roots = updatedRoots;
+        nodes = updatedNodes;
+        try {
+            mapFile.truncate();
+            for (CompactionMapEntry entry : updatedRoots) {
+                mapFile.writeLine(entry.toString());
+            }
+            for (CompactionMapEntry entry : updatedNodes) {
+                mapFile.writeLine(entry.toString());
+            }
+        } catch (IOException e) {
+            LOG.error("Error writing compaction map", e);
+        }
+    }
+
+    /**
+     * Returns the roots persisted by the last successful compaction
+     */
+    @NotNull
+    public synchronized List<CompactionMapEntry> read() {
+        load();
+        return roots;
+    }
+
+    /**
+     * Returns the node records persisted by the last successful compaction
+     */
+    @NotNull
+    public synchronized List<CompactionMapEntry> readNodes() {
+        load();
+        return nodes;
+    }
+
+    /**
+     * Create the cache manager for the writer of a compaction into {@code
+     * generation}. All node records put into the node cache of {@code
+     * generation} through the returned cache manager are recorded and
+     * persisted by the next call to {@link #persist(GCGeneration, Map)} for
+     * {@code generation}.
+     *
+     * @param generation  the generation of the compaction
+     * @param delegate    the cache manager to delegate to
+     * @return  a cache manager recording the node records of {@code generation}
+     */
+    @NotNull
+    synchronized WriterCacheManager newRecordingCacheManager(
+            @NotNull GCGeneration generation,
+            @NotNull WriterCacheManager delegate
+    ) {
+        records = new NodeRecords(generation, RECORD_MAP_SIZE);
+        return new RecordingCacheManager(delegate, generation.getGeneration(), records);
+    }
+
+    /**
+     * Carry a node record persisted by a previous compaction over to the map
+     * of the compaction into {@code generation}. The caller is responsible for
+     * ensuring that the compacted record is retained by the cleanup following
+     * that compaction.
+     *
+     * @param generation  the generation of the compaction
+     * @param entry       the node record to carry over
+     */
+    synchronized void carryOver(@NotNull GCGeneration generation, @NotNull CompactionMapEntry entry) {
+        if (records != null && records.generation.equals(generation)) {
+            records.add(entry.getUncompacted(), entry.getCompacted(), entry.getCost());
+        }
+    }
+
+    private void load() {
+        if (roots != null) {
+            return;
+        }
+        List<CompactionMapEntry> allRoots = new ArrayList<>();
+        List<CompactionMapEntry> allNodes = new ArrayList<>();
+        for (String line : readLines()) {
+            CompactionMapEntry entry = CompactionMapEntry.fromString(line);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.isNode()) {
+                allNodes.add(entry);
+            } else {
+                allRoots.add(entry);
+            }
+        }
+        roots = allRoots;
+        nodes = allNodes;
+    }
+
+    private List<String> readLines() {
+        try {
+            return mapFile.readLines();
+        } catch (IOException e) {
+            LOG.error("Error reading compaction map", e);
+        }
+        return new ArrayList<>();
+    }
+
+    public static class CompactionMapEntry {
+
+        @NotNull
+        private final GCGeneration gcGeneration;
+
+        @NotNull
+        private final String uncompacted;
+
+        @NotNull
+        private final String compacted;
+
+        private final boolean node;
+
+        private final byte cost;
+
+        public CompactionMapEntry(@NotNull GCGeneration gcGeneration,
+                @NotNull String uncompacted, @NotNull String compacted
+        ) {
+            this(gcGeneration, uncompacted, compacted, false, (byte) 0);
+        }
+
+        private CompactionMapEntry(@NotNull GCGeneration gcGeneration,
+                @NotNull String uncompacted, @NotNull String compacted,
+                boolean node, byte cost
+        ) {
+            this.gcGeneration = gcGeneration;
+            this.uncompacted = uncompacted;
+            this.compacted = compacted;
+            this.node = node;
+            this.cost = cost;
+        }
+
+        static CompactionMapEntry newNodeEntry(@NotNull GCGeneration gcGeneration,
+                @NotNull String stableId, @NotNull String compacted, byte cost
+        ) {
+            return new CompactionMapEntry(gcGeneration, stableId, compacted, true, cost);
+        }
+
+        @Override
+        public String toString() {
+            if (node) {
+                return Joiner.on(",").join(
+                        gcGeneration.getGeneration(),
+                        gcGeneration.getFullGeneration(),
+                        uncompacted,
+                        compacted,
+                        cost
+                );
+            }
+            return Joiner.on(",").join(
+                    gcGeneration.getGeneration(),
+                    gcGeneration.getFullGeneration(),
+                    uncompacted,
+                    compacted
+            );
+        }
+
+        @Nullable
+        static CompactionMapEntry fromString(String in) {
+            String[] items = in.split(",");
+            if (items.length != 4 && items.length != 5) {
+                LOG.warn("Unable to parse {} as compaction map entry.", in);
+                return null;
+            }
+            try {
+                int generation = Integer.parseInt(items[0]);
+                int fullGeneration = Integer.parseInt(items[1]);
+                GCGeneration gcGeneration = newGCGeneration(generation, fullGeneration, true);
+                if (items.length == 5) {
+                    return newNodeEntry(gcGeneration, items[2], items[3], Byte.parseByte(items[4]));
+                }
+                return new CompactionMapEntry(gcGeneration, items[2], items[3]);
+            } catch (NumberFormatException e) {
+                LOG.warn("Unable to parse {} as compaction map entry.", in, e);
+                return null;
+            }
+        }
+
+        /**
+         * Returns the gc generation of the compacted record
+         */
+        @NotNull
+        public GCGeneration getGcGeneration() {
+            return gcGeneration;
+        }
+
+        /**
+         * Returns the record id of the uncompacted root, or the stable id of
+         * the uncompacted node for a node record
+         */
+        @NotNull
+        public String getUncompacted() {
+            return uncompacted;
+        }
+
+        /**
+         * Returns the record id of the compacted root or node
+         */
+        @NotNull
+        public String getCompacted() {
+            return compacted;
+        }
+
+        /**
+         * Returns {@code true} for a node record, {@code false} for a root
+         */
+        public boolean isNode() {
+            return node;
+        }
+
+        /**
+         * Returns the cost of a node record as passed to the node
+         * deduplication cache
+         */
+        public byte getCost() {
+            return cost;
+        }
+
+    }
+
+    /**
+     * The node records with the highest cost rewritten by a compaction.
+     */
+    private static class NodeRecords {
+
+        private static final Comparator<CompactionMapEntry> COST_ORDER =
+                Comparator.comparingInt(CompactionMapEntry::getCost);
+
+        @NotNull
+        private final GCGeneration generation;
+
+        private final int maxSize;
+
+        private final PriorityQueue<CompactionMapEntry> byCost = new PriorityQueue<>(COST_ORDER);
+
+        private final Map<String, CompactionMapEntry> byStableId = new HashMap<>();
+
+        NodeRecords(@NotNull GCGeneration generation, int maxSize) {
+            this.generation = generation;
+            this.maxSize = maxSize;
+        }
+
+        synchronized void add(@NotNull String stableId, @NotNull String compacted, byte cost) {
+            if (maxSize <= 0 || byStableId.containsKey(stableId)) {
+                return;
+            }
+            if (byCost.size() >= maxSize) {
+                if (byCost.peek().getCost() >= cost) {
+                    return;
+                }
+                byStableId.remove(byCost.poll().getUncompacted());
+            }
+            CompactionMapEntry entry = CompactionMapEntry.newNodeEntry(generation, stableId, compacted, cost);
+            byCost.add(entry);
+            byStableId.put(stableId, entry);
+        }
+
+        synchronized List<CompactionMapEntry> entries() {
+            List<CompactionMapEntry> entries = new ArrayList<>(byCost);
+            entries.sort(COST_ORDER.reversed());
+            return entries;
+        }
+
+    }
+
+    /**
+     * A {@code WriterCacheManager} recording the node records put into the
+     * node cache of a given generation.
+     */
+    private static class RecordingCacheManager extends WriterCacheManager {
+
+        @NotNull
+        private final WriterCacheManager delegate;
+
+        private final int generation;
+
+        @NotNull
+        private final NodeRecords records;
+
+        RecordingCacheManager(@NotNull WriterCacheManager delegate, int generation, @NotNull NodeRecords records) {
+            this.delegate = delegate;
+            this.generation = generation;
+            this.records = records;
+        }
+
+        @NotNull
+        @Override
+        public Cache<String, RecordId> getStringCache(int generation) {
+            return delegate.getStringCache(generation);
+        }
+
+        @NotNull
+        @Override
+        public Cache<Template, RecordId> getTemplateCache(int generation) {
+            return delegate.getTemplateCache(generation);
+        }
+
+        @NotNull
+        @Override
+        public Cache<String, RecordId> getNodeCache(int generation) {
+            Cache<String, RecordId> cache = delegate.getNodeCache(generation);
+            if (generation != this.generation) {
+                return cache;
+            }
+            return new Cache<String, RecordId>() {
+
+                @Override
+                public void put(@NotNull String stableId, @NotNull RecordId recordId) {
+                    cache.put(stableId, recordId);
+                }
+
+                @Override
+                public void put(@NotNull String stableId, @NotNull RecordId recordId, byte cost) {
+                    cache.put(stableId, recordId, cost);
+                    records.add(stableId, recordId.toString10(), cost);
+                }
+
+                @Nullable
+                @Override
+                public RecordId get(@NotNull String stableId) {
+                    return cache.get(stableId);
+                }
+
+            };
+        }
+
+        @NotNull
+        @Override
+        public List<RecordId> getRecentStringRecordIds(int generation, int limit) {
+            return delegate.getRecentStringRecordIds(generation, limit);
+        }
+
+        @NotNull
+        @Override
+        public List<RecordId> getRecentTemplateRecordIds(int generation, int limit) {
+            return delegate.getRecentTemplateRecordIds(generation, limit);
+        }
+
+        @Nullable
+        @Override
+        public CacheStatsMBean getStringCacheStats() {
+            return delegate.getStringCacheStats();
+        }
+
+        @Nullable
+        @Override
+        public CacheStatsMBean getTemplateCacheStats() {
+            return delegate.getTemplateCacheStats();
+        }
+
+        @Nullable
+        @Override
+        public CacheStatsMBean getNodeCacheStats() {
+            return delegate.getNodeCacheStats();
+        }
+
+        @Nullable
+        @Override
+        public String getNodeCacheOccupancyInfo() {
+            return delegate.getNodeCacheOccupancyInfo();
+        }
+
+    }
+
+}
@@ -37,6 +37,8 @@ interface CompactionStrategy {
 
         GCJournal getGCJournal();
 
+        CompactionMap getCompactionMap();
+
         SegmentGCOptions getGCOptions();
 
         GCNodeWriteMonitor getCompactionMonitor();
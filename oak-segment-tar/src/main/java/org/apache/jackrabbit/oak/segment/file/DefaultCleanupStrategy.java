@@ -52,7 +52,10 @@ class DefaultCleanupStrategy implements CleanupStrategy {
         // to clear stale weak references in the SegmentTracker
         System.gc();
 
-        TarFiles.CleanupResult cleanupResult = context.getTarFiles().cleanup(newCleanupContext(context, context.getReclaimer()));
+        TarFiles.CleanupResult cleanupResult = context.getTarFiles().cleanup(
+            newCleanupContext(context, context.getReclaimer()),
+            context.getGCOptions().getConcurrency()
+        );
         if (cleanupResult.isInterrupted()) {
             context.getGCListener().info("cleanup interrupted");
         }
@@ -28,7 +28,11 @@ import static org.apache.jackrabbit.oak.segment.file.PrintableBytes.newPrintable
 import static org.apache.jackrabbit.oak.stats.StatsOptions.DEFAULT;
 import static org.apache.jackrabbit.oak.stats.StatsOptions.METRICS_ONLY;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
@@ -40,6 +44,7 @@ import com.google.common.io.Closer;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import org.apache.jackrabbit.oak.commons.Buffer;
+import org.apache.jackrabbit.oak.segment.DefaultSegmentWriterBuilder;
 import org.apache.jackrabbit.oak.segment.RecordId;
 import org.apache.jackrabbit.oak.segment.Segment;
 import org.apache.jackrabbit.oak.segment.SegmentId;
@@ -47,11 +52,14 @@ import org.apache.jackrabbit.oak.segment.SegmentNodeState;
 import org.apache.jackrabbit.oak.segment.SegmentNotFoundException;
 import org.apache.jackrabbit.oak.segment.SegmentNotFoundExceptionListener;
 import org.apache.jackrabbit.oak.segment.SegmentWriter;
+import org.apache.jackrabbit.oak.segment.WriterCacheManager;
 import org.apache.jackrabbit.oak.segment.compaction.SegmentGCOptions;
+import org.apache.jackrabbit.oak.segment.file.RecordDictionary.LoadingCacheManager;
 import org.apache.jackrabbit.oak.segment.file.ShutDown.ShutDownCloser;
 import org.apache.jackrabbit.oak.segment.file.cancel.Canceller;
 import org.apache.jackrabbit.oak.segment.file.tar.GCGeneration;
 import org.apache.jackrabbit.oak.segment.file.tar.TarFiles;
+import org.apache.jackrabbit.oak.segment.file.tar.TarPersistence;
 import org.apache.jackrabbit.oak.segment.spi.persistence.RepositoryLock;
 import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentNodeStorePersistence;
 import org.apache.jackrabbit.oak.segment.spi.RepositoryNotReachableException;
@@ -137,18 +145,37 @@ public class FileStore extends AbstractFileStore {
 
     private final boolean eagerSegmentCaching;
 
+    /**
+     * Whether the archives of this store are local files, i.e. whether
+     * {@link #getSealedTarFiles()} can return them.
+     */
+    private final boolean localArchives;
+
+    /**
+     * Cache manager of the writers of this store, whose string and template
+     * caches are persisted in the {@link #recordDictionary}.
+     */
+    @NotNull
+    private final WriterCacheManager cacheManager;
+
+    @NotNull
+    private final RecordDictionary recordDictionary;
+
     FileStore(final FileStoreBuilder builder) throws InvalidFileStoreVersionException, IOException {
         super(builder);
 
         SegmentNodeStorePersistence persistence = builder.getPersistence();
         repositoryLock = persistence.lockRepository();
         StatisticsProvider statsProvider = builder.getStatsProvider();
+        this.cacheManager = builder.getCacheManager();
+        this.recordDictionary = new RecordDictionary(persistence.getRecordDictionaryFile());
 
         this.segmentWriter = defaultSegmentWriterBuilder("sys")
                 .withGeneration(() -> getGcGeneration().nonGC())
                 .withWriterPool()
-                .with(builder.getCacheManager()
-                        .withAccessTracking("WRITE", statsProvider))
+                .with(new LoadingCacheManager(
+                        cacheManager.withAccessTracking("WRITE", statsProvider),
+                        this::loadRecordDictionary))
                 .build(this);
 
         newManifestChecker(persistence, builder.getStrictVersionCheck()).checkAndUpdateManifest();
@@ -165,6 +192,8 @@ public class FileStore extends AbstractFileStore {
                 .withRemoteStoreMonitor(remoteStoreMonitor)
                 .withFileStoreMonitor(stats)
                 .withMaxFileSize(builder.getMaxFileSize() * MB)
+                .withWriteQueueSize(builder.getWriteQueueSize())
+                .withOpenConcurrency(builder.getOpenConcurrency())
                 .withPersistence(builder.getPersistence())
                 .withReaderCountStats(readerCountStats)
                 .withSegmentCountStats(segmentCountStats);
@@ -175,10 +204,12 @@ public class FileStore extends AbstractFileStore {
 
         this.fileReaper = this.tarFiles.createFileReaper();
 
+        CompactionMap compactionMap = new CompactionMap(persistence.getCompactionMapFile());
         this.garbageCollector = new GarbageCollector(
             builder.getGcOptions(),
             builder.getGcListener(),
             new GCJournal(persistence.getGCJournalFile()),
+            compactionMap,
             sufficientMemory,
             fileReaper,
             tarFiles,
@@ -194,16 +225,24 @@ public class FileStore extends AbstractFileStore {
                 .withCondition("not enough memory", () -> !sufficientMemory.get())
                 .withCondition("FileStore is shutting down", shutDown::isShutDown),
             this::flush,
-            generation ->
-                defaultSegmentWriterBuilder("c")
-                    .with(builder.getCacheManager().withAccessTracking("COMPACT", statsProvider))
-                    .withGeneration(generation)
-                    .withoutWriterPool()
-                    .build(this)
+            (generation, threadSafe) -> {
+                DefaultSegmentWriterBuilder writerBuilder = defaultSegmentWriterBuilder("c")
+                    .with(compactionMap.newRecordingCacheManager(
+                        generation,
+                        builder.getCacheManager().withAccessTracking("COMPACT", statsProvider)))
+                    .withGeneration(generation);
+                if (threadSafe) {
+                    writerBuilder.withWriterPool();
+                } else {
+                    writerBuilder.withoutWriterPool();
+                }
+                return writerBuilder.build(this);
+            }
         );
 
         this.snfeListener = builder.getSnfeListener();
         this.eagerSegmentCaching = builder.getEagerSegmentCaching();
+        this.localArchives = persistence instanceof TarPersistence;
 
         TimerStats flushTimer = statsProvider.getTimer("oak.segment.flush", METRICS_ONLY);
         fileStoreScheduler.scheduleWithFixedDelay(format("TarMK flush [%s]", directory), 5, SECONDS, () -> {
@@ -266,6 +305,11 @@ public class FileStore extends AbstractFileStore {
         };
     }
 
+    private void loadRecordDictionary() {
+        int loaded = recordDictionary.load(getGcGeneration().getGeneration(), cacheManager, tracker, segmentReader);
+        log.info("Loaded {} records from the record dictionary", loaded);
+    }
+
     @NotNull
     private GCGeneration getGcGeneration() {
         return revisions.getHead().getSegmentId().getGcGeneration();
@@ -315,6 +359,28 @@ public class FileStore extends AbstractFileStore {
         }
     }
 
+    /**
+     * Return the sealed tar files of this store, i.e. all the tar files
+     * except the one currently being written, sorted in the order they were
+     * created. Sealed tar files are never modified again, but they might be
+     * removed by a cleanup. The returned list is empty if the store is not
+     * backed by local tar files.
+     *
+     * @return the sealed tar files of this store.
+     */
+    public List<File> getSealedTarFiles() {
+        if (!localArchives) {
+            return Collections.emptyList();
+        }
+        try (ShutDownCloser ignored = shutDown.keepAlive()) {
+            List<File> files = new ArrayList<>();
+            for (String name : tarFiles.getReaderFileNames()) {
+                files.add(new File(directory, name));
+            }
+            return files;
+        }
+    }
+
     public FileStoreStats getStats() {
         return stats;
     }
@@ -472,6 +538,7 @@ public class FileStore extends AbstractFileStore {
 
             try {
                 doFlush();
+                recordDictionary.persist(getGcGeneration().getGeneration(), cacheManager);
             } catch (IOException e) {
                 log.warn("Unable to flush the store", e);
             }
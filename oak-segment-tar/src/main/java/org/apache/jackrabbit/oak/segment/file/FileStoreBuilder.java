@@ -19,12 +19,14 @@
 
 package org.apache.jackrabbit.oak.segment.file;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.lang.Boolean.getBoolean;
 import static org.apache.jackrabbit.oak.segment.CachingSegmentReader.DEFAULT_STRING_CACHE_MB;
 import static org.apache.jackrabbit.oak.segment.CachingSegmentReader.DEFAULT_TEMPLATE_CACHE_MB;
+import static org.apache.jackrabbit.oak.segment.SegmentCache.DEFAULT_OFF_HEAP_SEGMENT_CACHE_MB;
 import static org.apache.jackrabbit.oak.segment.SegmentCache.DEFAULT_SEGMENT_CACHE_MB;
 import static org.apache.jackrabbit.oak.segment.SegmentNotFoundExceptionListener.LOG_SNFE;
 import static org.apache.jackrabbit.oak.segment.WriterCacheManager.DEFAULT_NODE_CACHE_SIZE;
@@ -72,6 +74,8 @@ public class FileStoreBuilder {
 
     public static final int DEFAULT_MAX_FILE_SIZE = 256;
 
+    public static final int DEFAULT_OPEN_CONCURRENCY = Math.min(4, Runtime.getRuntime().availableProcessors());
+
     @NotNull
     private final File directory;
 
@@ -82,6 +86,12 @@ public class FileStoreBuilder {
 
     private int segmentCacheSize = DEFAULT_SEGMENT_CACHE_MB;
 
+    private int offHeapSegmentCacheSize = DEFAULT_OFF_HEAP_SEGMENT_CACHE_MB;
+
+    private int writeQueueSize = 0;
+
+    private int openConcurrency = DEFAULT_OPEN_CONCURRENCY;
+
     private int stringCacheSize = DEFAULT_STRING_CACHE_MB;
 
     private int templateCacheSize = DEFAULT_TEMPLATE_CACHE_MB;
@@ -96,8 +106,12 @@ public class FileStoreBuilder {
 
     private boolean offHeapAccess = getBoolean("access.off.heap");
 
+    private boolean segmentCompression = getBoolean("oak.segment.compression");
+
     private SegmentNodeStorePersistence persistence;
 
+    private boolean customPersistence;
+
     @NotNull
     private StatisticsProvider statsProvider = StatisticsProvider.NOOP;
 
@@ -156,7 +170,7 @@ public class FileStoreBuilder {
     private FileStoreBuilder(@NotNull File directory) {
         this.directory = checkNotNull(directory);
         this.gcListener.registerGCMonitor(new LoggingGCMonitor(LOG));
-        this.persistence = new TarPersistence(directory);
+        this.persistence = new TarPersistence(directory, segmentCompression);
     }
 
     /**
@@ -195,6 +209,53 @@ public class FileStoreBuilder {
         return this;
     }
 
+    /**
+     * Size of the off-heap tier of the segment cache in MB. The off-heap
+     * tier holds the data of segments evicted from the segment cache in
+     * direct buffers. It is disabled for values {@code <= 0}.
+     *
+     * @param offHeapSegmentCacheSize cache size
+     * @return this instance
+     */
+    @NotNull
+    public FileStoreBuilder withOffHeapSegmentCacheSize(int offHeapSegmentCacheSize) {
+        this.offHeapSegmentCacheSize = offHeapSegmentCacheSize;
+        return this;
+    }
+
+    /**
+     * Capacity of the queue of segments waiting to be written to the current
+     * tar file. If positive, segments are appended to the tar file by a
+     * dedicated I/O thread and flushes are batched into a single sync of the
+     * file. Writers only block once the queue is full. Segments are written
+     * synchronously for values {@code <= 0}.
+     *
+     * @param writeQueueSize capacity of the write queue
+     * @return this instance
+     */
+    @NotNull
+    public FileStoreBuilder withWriteQueueSize(int writeQueueSize) {
+        this.writeQueueSize = writeQueueSize;
+        return this;
+    }
+
+    /**
+     * Maximum number of tar files opened concurrently when the file store is
+     * created. Opening a tar file reads and validates its index and its
+     * binary references, so opening them concurrently shortens the startup
+     * of stores with many tar files. A value of {@code 1} opens the tar files
+     * one after the other.
+     *
+     * @param openConcurrency maximum number of tar files opened concurrently
+     * @return this instance
+     */
+    @NotNull
+    public FileStoreBuilder withOpenConcurrency(int openConcurrency) {
+        checkArgument(openConcurrency > 0, "openConcurrency must be positive");
+        this.openConcurrency = openConcurrency;
+        return this;
+    }
+
     /**
      * Size of the string cache in MB.
      *
@@ -381,6 +442,32 @@ public class FileStoreBuilder {
 
     public FileStoreBuilder withCustomPersistence(SegmentNodeStorePersistence persistence) {
         this.persistence = persistence;
+        this.customPersistence = true;
+        return this;
+    }
+
+    /**
+     * Compress segments before writing them to the tar files. Compressed and
+     * uncompressed segments can coexist in the same store, and compressed
+     * segments are always readable independently of this setting. This
+     * setting only applies to the default tar persistence, and it is ignored
+     * when a custom persistence is specified. The default is given by the
+     * {@code oak.segment.compression} system property.
+     * <p>
+     * Compressed segments can't be memory mapped and are decompressed into the
+     * heap whenever they are read, which makes reading them considerably more
+     * expensive. Tar files containing compressed segments use an index format
+     * that older versions of Oak don't recognize.
+     *
+     * @param segmentCompression enables segment compression iff {@code true}.
+     * @return this instance
+     */
+    @NotNull
+    public FileStoreBuilder withSegmentCompression(boolean segmentCompression) {
+        this.segmentCompression = segmentCompression;
+        if (!customPersistence) {
+            this.persistence = new TarPersistence(directory, segmentCompression);
+        }
         return this;
     }
 
@@ -498,6 +585,18 @@ public class FileStoreBuilder {
         return segmentCacheSize;
     }
 
+    int getOffHeapSegmentCacheSize() {
+        return offHeapSegmentCacheSize;
+    }
+
+    int getWriteQueueSize() {
+        return writeQueueSize;
+    }
+
+    int getOpenConcurrency() {
+        return openConcurrency;
+    }
+
     int getStringCacheSize() {
         return stringCacheSize;
     }
@@ -583,6 +682,9 @@ public class FileStoreBuilder {
                 ", blobStore=" + blobStore +
                 ", maxFileSize=" + maxFileSize +
                 ", segmentCacheSize=" + segmentCacheSize +
+                ", offHeapSegmentCacheSize=" + offHeapSegmentCacheSize +
+                ", writeQueueSize=" + writeQueueSize +
+                ", openConcurrency=" + openConcurrency +
                 ", stringCacheSize=" + stringCacheSize +
                 ", templateCacheSize=" + templateCacheSize +
                 ", stringDeduplicationCacheSize=" + stringDeduplicationCacheSize +
@@ -590,6 +692,7 @@ public class FileStoreBuilder {
                 ", nodeDeduplicationCacheSize=" + nodeDeduplicationCacheSize +
                 ", memoryMapping=" + memoryMapping +
                 ", offHeapAccess=" + offHeapAccess +
+                ", segmentCompression=" + segmentCompression +
                 ", gcOptions=" + gcOptions +
                 '}';
     }
@@ -21,32 +21,66 @@ package org.apache.jackrabbit.oak.segment.file;
 
 import static org.apache.jackrabbit.stats.TimeSeriesStatsUtil.asCompositeData;
 
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
 import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
 
 import org.apache.jackrabbit.api.stats.TimeSeries;
 import org.apache.jackrabbit.oak.commons.IOUtils;
 import org.apache.jackrabbit.oak.segment.SegmentId;
 import org.apache.jackrabbit.oak.segment.SegmentNotFoundException;
 import org.apache.jackrabbit.oak.segment.SegmentNotFoundExceptionListener;
+import org.apache.jackrabbit.oak.segment.file.IOStatsMonitor.GenerationStats;
 import org.apache.jackrabbit.oak.segment.spi.monitor.FileStoreMonitor;
 import org.apache.jackrabbit.oak.stats.CounterStats;
+import org.apache.jackrabbit.oak.stats.HistogramStats;
 import org.apache.jackrabbit.oak.stats.MeterStats;
 import org.apache.jackrabbit.oak.stats.StatisticsProvider;
 import org.apache.jackrabbit.oak.stats.StatsOptions;
+import org.apache.jackrabbit.oak.stats.TimerStats;
 import org.jetbrains.annotations.NotNull;
 
 public class FileStoreStats implements FileStoreStatsMBean, FileStoreMonitor, SegmentNotFoundExceptionListener {
     public static final String SEGMENT_REPO_SIZE = "SEGMENT_REPO_SIZE";
     public static final String SEGMENT_WRITES = "SEGMENT_WRITES";
     public static final String JOURNAL_WRITES = "JOURNAL_WRITES";
+    public static final String SEGMENT_WRITE_QUEUE_DEPTH = "SEGMENT_WRITE_QUEUE_DEPTH";
+    public static final String SEGMENT_SYNC_TIME = "SEGMENT_SYNC_TIME";
     private static final String SNFE_COUNT = "SNFE_COUNT";
 
+    private static final String[] IO_STATS_ITEMS = {
+            "generation", "operation", "count",
+            "meanLatencyMicros", "p50LatencyMicros", "p90LatencyMicros", "p99LatencyMicros",
+            "p999LatencyMicros", "maxLatencyMicros",
+            "meanSizeBytes", "p50SizeBytes", "p99SizeBytes", "maxSizeBytes"
+    };
+
+    private static final OpenType<?>[] IO_STATS_TYPES = {
+            SimpleType.STRING, SimpleType.STRING, SimpleType.LONG,
+            SimpleType.DOUBLE, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG,
+            SimpleType.LONG, SimpleType.LONG,
+            SimpleType.DOUBLE, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG
+    };
+
     private final StatisticsProvider statisticsProvider;
     private final FileStore store;
     private final MeterStats writeStats;
     private final CounterStats repoSize;
     private final MeterStats journalWriteStats;
     private final CounterStats snfeCountStats;
+    private final HistogramStats writeQueueDepthStats;
+    private final TimerStats syncTimeStats;
+    private volatile int writeQueueDepth;
 
     public FileStoreStats(StatisticsProvider statisticsProvider, FileStore store, long initialSize) {
         this.statisticsProvider = statisticsProvider;
@@ -55,6 +89,8 @@ public class FileStoreStats implements FileStoreStatsMBean, FileStoreMonitor, Se
         this.repoSize = statisticsProvider.getCounterStats(SEGMENT_REPO_SIZE, StatsOptions.DEFAULT);
         this.journalWriteStats = statisticsProvider.getMeter(JOURNAL_WRITES, StatsOptions.DEFAULT);
         this.snfeCountStats = statisticsProvider.getCounterStats(SNFE_COUNT, StatsOptions.DEFAULT);
+        this.writeQueueDepthStats = statisticsProvider.getHistogram(SEGMENT_WRITE_QUEUE_DEPTH, StatsOptions.METRICS_ONLY);
+        this.syncTimeStats = statisticsProvider.getTimer(SEGMENT_SYNC_TIME, StatsOptions.METRICS_ONLY);
         repoSize.inc(initialSize);
     }
 
@@ -86,6 +122,18 @@ public class FileStoreStats implements FileStoreStatsMBean, FileStoreMonitor, Se
         journalWriteStats.mark();
     }
 
+    @Override
+    public void queued(int depth) {
+        writeQueueDepth = depth;
+        writeQueueDepthStats.update(depth);
+    }
+
+    @Override
+    public void synced(long nanos) {
+        writeQueueDepth = 0;
+        syncTimeStats.update(nanos, TimeUnit.NANOSECONDS);
+    }
+
     //~--------------------------------< FileStoreStatsMBean >
 
     @Override
@@ -133,6 +181,68 @@ public class FileStoreStats implements FileStoreStatsMBean, FileStoreMonitor, Se
         return asCompositeData(getTimeSeries(JOURNAL_WRITES), JOURNAL_WRITES);
     }
 
+    @Override
+    public int getWriteQueueDepth() {
+        return writeQueueDepth;
+    }
+
+    @Override
+    public long getSyncCount() {
+        return syncTimeStats.getCount();
+    }
+
+    @Override
+    public TabularData getSegmentIOStats() throws OpenDataException {
+        CompositeType rowType = new CompositeType("segmentIOStats", "segmentIOStats",
+                IO_STATS_ITEMS, IO_STATS_ITEMS, IO_STATS_TYPES);
+        TabularDataSupport tabularData = new TabularDataSupport(new TabularType("segmentIOStats",
+                "Segment reads and writes per tar file generation", rowType,
+                new String[] {"generation", "operation"}));
+
+        for (Entry<String, GenerationStats> entry : store.getIOStats().getGenerationStats().entrySet()) {
+            GenerationStats stats = entry.getValue();
+            tabularData.put(toCompositeData(rowType, entry.getKey(), "read", stats.readLatency, stats.readSize));
+            tabularData.put(toCompositeData(rowType, entry.getKey(), "write", stats.writeLatency, stats.writeSize));
+        }
+        return tabularData;
+    }
+
+    private static CompositeData toCompositeData(CompositeType rowType, String generation, String operation,
+            ConcurrentHistogram latency, ConcurrentHistogram size) throws OpenDataException {
+        return new CompositeDataSupport(rowType, IO_STATS_ITEMS, new Object[] {
+                generation,
+                operation,
+                latency.getCount(),
+                latency.getMean(),
+                latency.getValueAtPercentile(50),
+                latency.getValueAtPercentile(90),
+                latency.getValueAtPercentile(99),
+                latency.getValueAtPercentile(99.9),
+                latency.getMax(),
+                size.getMean(),
+                size.getValueAtPercentile(50),
+                size.getValueAtPercentile(99),
+                size.getMax()
+        });
+    }
+
+    @Override
+    public TabularData getHotSegments() throws OpenDataException {
+        CompositeType rowType = new CompositeType("hotSegments", "hotSegments",
+                new String[] {"segmentId", "sampledReads"},
+                new String[] {"segmentId", "sampledReads"},
+                new OpenType[] {SimpleType.STRING, SimpleType.LONG});
+        TabularDataSupport tabularData = new TabularDataSupport(new TabularType("hotSegments",
+                "Most frequently read segments", rowType, new String[] {"segmentId"}));
+
+        for (Entry<UUID, Long> entry : store.getIOStats().getHotSegments()) {
+            tabularData.put(new CompositeDataSupport(rowType,
+                    new String[] {"segmentId", "sampledReads"},
+                    new Object[] {entry.getKey().toString(), entry.getValue()}));
+        }
+        return tabularData;
+    }
+
     private TimeSeries getTimeSeries(String name) {
         return statisticsProvider.getStats().getTimeSeries(name, true);
     }
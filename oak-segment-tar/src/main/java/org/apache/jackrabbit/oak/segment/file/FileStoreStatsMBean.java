@@ -20,6 +20,8 @@
 package org.apache.jackrabbit.oak.segment.file;
 
 import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.TabularData;
 
 public interface FileStoreStatsMBean {
 
@@ -58,4 +60,31 @@ public interface FileStoreStatsMBean {
      * @return  time series of the writes to journal
      */
     CompositeData getJournalWriteStatsAsCompositeData();
+
+    /**
+     * @return  number of items in the queue of segments waiting to be
+     *          written asynchronously, as of the last write or sync
+     */
+    int getWriteQueueDepth();
+
+    /**
+     * @return  count of the syncs of written segments to the storage
+     */
+    long getSyncCount();
+
+    /**
+     * @return tabular data of the form <em>&lt;generation, operation, count,
+     * latency percentiles in microseconds, size percentiles in bytes&gt;</em>
+     * for the segment reads and writes of each tar file generation
+     * @throws OpenDataException if data is not available
+     */
+    TabularData getSegmentIOStats() throws OpenDataException;
+
+    /**
+     * @return tabular data of the form <em>&lt;segmentId, sampledReads&gt;</em>
+     * for the most frequently read segments, in descending order of the
+     * estimated number of sampled reads
+     * @throws OpenDataException if data is not available
+     */
+    TabularData getHotSegments() throws OpenDataException;
 }
@@ -50,6 +50,8 @@ interface GarbageCollectionStrategy {
 
         GCJournal getGCJournal();
 
+        CompactionMap getCompactionMap();
+
         SegmentTracker getSegmentTracker();
 
         SegmentWriterFactory getSegmentWriterFactory();
@@ -70,6 +70,9 @@ class GarbageCollector {
     @NotNull
     private final GCJournal gcJournal;
 
+    @NotNull
+    private final CompactionMap compactionMap;
+
     private final AtomicBoolean sufficientMemory;
 
     private final FileReaper fileReaper;
@@ -119,6 +122,7 @@ class GarbageCollector {
         SegmentGCOptions gcOptions,
         GCListener gcListener,
         GCJournal gcJournal,
+        CompactionMap compactionMap,
         AtomicBoolean sufficientMemory,
         FileReaper fileReaper,
         TarFiles tarFiles,
@@ -136,6 +140,7 @@ class GarbageCollector {
         this.gcOptions = gcOptions;
         this.gcListener = new PrefixedGCListener(gcListener, GC_COUNT);
         this.gcJournal = gcJournal;
+        this.compactionMap = compactionMap;
         this.sufficientMemory = sufficientMemory;
         this.fileReaper = fileReaper;
         this.tarFiles = tarFiles;
@@ -183,6 +188,11 @@ class GarbageCollector {
                 return gcJournal;
             }
 
+            @Override
+            public CompactionMap getCompactionMap() {
+                return compactionMap;
+            }
+
             @Override
             public SegmentTracker getSegmentTracker() {
                 return tracker;
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.jackrabbit.oak.segment.file;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate top-k of the most frequently accessed segments. Accesses are
+ * counted in a count-min sketch of fixed size. The segments with the highest
+ * estimated counts are kept as candidates for the top-k. Counts are halved
+ * each time {@code AGING_PERIOD} accesses were added, such that the top-k
+ * reflects recent accesses.
+ */
+final class HotSegmentSketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int WIDTH = 1 << 12;
+
+    private static final long AGING_PERIOD = 16L * WIDTH;
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0x27D4EB2F165667C5L
+    };
+
+    private final AtomicLongArray counters = new AtomicLongArray(DEPTH * WIDTH);
+
+    private final AtomicLong added = new AtomicLong();
+
+    private final ConcurrentMap<UUID, Long> candidates = new ConcurrentHashMap<>();
+
+    private final int k;
+
+    private volatile long threshold;
+
+    HotSegmentSketch(int k) {
+        checkArgument(k > 0, "k must be positive");
+        this.k = k;
+    }
+
+    private static int index(int row, long msb, long lsb) {
+        long hash = (msb ^ Long.rotateLeft(lsb, 17)) * SEEDS[row];
+        hash ^= hash >>> 29;
+        return row * WIDTH + (int) (hash & (WIDTH - 1));
+    }
+
+    /**
+     * Count an access to a segment.
+     */
+    void add(long msb, long lsb) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, msb, lsb)));
+        }
+        if (estimate > threshold || candidates.size() < k) {
+            candidates.put(new UUID(msb, lsb), estimate);
+            if (candidates.size() > 2 * k) {
+                prune();
+            }
+        }
+        if (added.incrementAndGet() % AGING_PERIOD == 0) {
+            age();
+        }
+    }
+
+    /**
+     * Estimate the number of accesses to a segment.
+     */
+    long estimate(long msb, long lsb) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, msb, lsb)));
+        }
+        return estimate;
+    }
+
+    /**
+     * @return  the segments with the highest estimated number of accesses
+     *          in descending order of that estimate.
+     */
+    List<Entry<UUID, Long>> getTopK() {
+        List<Entry<UUID, Long>> top = newArrayList(candidates.entrySet());
+        top.sort(Entry.<UUID, Long>comparingByValue(Comparator.reverseOrder()));
+        return top.size() > k ? top.subList(0, k) : top;
+    }
+
+    private synchronized void prune() {
+        List<Entry<UUID, Long>> top = newArrayList(candidates.entrySet());
+        if (top.size() <= 2 * k) {
+            return;
+        }
+        top.sort(Entry.<UUID, Long>comparingByValue(Comparator.reverseOrder()));
+        threshold = top.get(k - 1).getValue();
+        for (Entry<UUID, Long> entry : top.subList(k, top.size())) {
+            candidates.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private synchronized void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            long value;
+            do {
+                value = counters.get(i);
+            } while (!counters.compareAndSet(i, value, value / 2));
+        }
+        candidates.replaceAll((id, count) -> count / 2);
+        threshold /= 2;
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.jackrabbit.oak.segment.file;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitorAdapter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This {@code IOMonitor} implementation keeps distributions of the latencies
+ * and sizes of segment reads and writes per tar file generation, and an
+ * approximate top-k of the most frequently read segments. Its overhead is low
+ * enough for it to be always enabled: recording an operation only consists
+ * of a few atomic increments and the segment reads contributing to the top-k
+ * are sampled.
+ */
+class IOStatsMonitor extends IOMonitorAdapter {
+
+    /**
+     * Number of most frequently read segments to keep track of.
+     */
+    static final int HOT_SEGMENTS =
+            Integer.getInteger("oak.segment.ioStats.hotSegments", 20);
+
+    /**
+     * Only one out of this many segment reads is counted for the top-k of the
+     * most frequently read segments.
+     */
+    static final int HOT_SEGMENTS_SAMPLE_RATE =
+            Integer.getInteger("oak.segment.ioStats.hotSegmentsSampleRate", 8);
+
+    /**
+     * The generation names {@code "a"} to {@code "z"}, indexed by the
+     * generation suffix of the tar file name.
+     */
+    private static final String[] GENERATIONS = new String[26];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            GENERATIONS[c - 'a'] = String.valueOf(c);
+        }
+    }
+
+    /**
+     * Latency and size distributions of the segment operations on the tar
+     * files of a single generation. Latencies are in microseconds, sizes in
+     * bytes.
+     */
+    static class GenerationStats {
+
+        final ConcurrentHistogram readLatency = new ConcurrentHistogram();
+
+        final ConcurrentHistogram readSize = new ConcurrentHistogram();
+
+        final ConcurrentHistogram writeLatency = new ConcurrentHistogram();
+
+        final ConcurrentHistogram writeSize = new ConcurrentHistogram();
+
+    }
+
+    private final Map<String, GenerationStats> generations = new ConcurrentHashMap<>();
+
+    private final HotSegmentSketch hotSegments = new HotSegmentSketch(HOT_SEGMENTS);
+
+    /**
+     * Parse the generation from the name of a tar file of the form {@code
+     * data[0-9]+[a-z]?.tar}. This is called for every segment operation, so
+     * the name is scanned directly instead of being matched against a regular
+     * expression.
+     *
+     * @param file  the tar file or {@code null}
+     * @return  the generation of {@code file}, {@code "a"} if its name has
+     *          no generation suffix or {@code "-"} if it isn't a tar file
+     */
+    @NotNull
+    static String getGeneration(File file) {
+        if (file == null) {
+            return "-";
+        }
+        String name = file.getName();
+        int end = name.length() - ".tar".length();
+        if (end <= "data".length() || !name.startsWith("data") || !name.endsWith(".tar")) {
+            return "-";
+        }
+        String generation = "a";
+        char suffix = name.charAt(end - 1);
+        if (suffix >= 'a' && suffix <= 'z') {
+            generation = GENERATIONS[suffix - 'a'];
+            end--;
+        }
+        if (end == "data".length()) {
+            return "-";
+        }
+        for (int i = "data".length(); i < end; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return "-";
+            }
+        }
+        return generation;
+    }
+
+    private GenerationStats getStats(File file) {
+        String generation = getGeneration(file);
+        GenerationStats stats = generations.get(generation);
+        if (stats == null) {
+            stats = generations.computeIfAbsent(generation, g -> new GenerationStats());
+        }
+        return stats;
+    }
+
+    @Override
+    public void afterSegmentRead(File file, long msb, long lsb, int length, long elapsed) {
+        GenerationStats stats = getStats(file);
+        stats.readLatency.record(NANOSECONDS.toMicros(elapsed));
+        stats.readSize.record(length);
+        if (ThreadLocalRandom.current().nextInt(HOT_SEGMENTS_SAMPLE_RATE) == 0) {
+            hotSegments.add(msb, lsb);
+        }
+    }
+
+    @Override
+    public void afterSegmentWrite(File file, long msb, long lsb, int length, long elapsed) {
+        GenerationStats stats = getStats(file);
+        stats.writeLatency.record(NANOSECONDS.toMicros(elapsed));
+        stats.writeSize.record(length);
+    }
+
+    /**
+     * @return  the statistics per tar file generation, ordered by generation
+     */
+    @NotNull
+    SortedMap<String, GenerationStats> getGenerationStats() {
+        return new ConcurrentSkipListMap<>(generations);
+    }
+
+    /**
+     * @return  the most frequently read segments along with their estimated
+     *          number of sampled reads, in descending order of that number
+     */
+    @NotNull
+    List<Entry<UUID, Long>> getHotSegments() {
+        return hotSegments.getTopK();
+    }
+
+}
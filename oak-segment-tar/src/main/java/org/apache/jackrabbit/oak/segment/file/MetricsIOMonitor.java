@@ -23,6 +23,7 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import java.io.File;
 
 import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitorAdapter;
+import org.apache.jackrabbit.oak.stats.HistogramStats;
 import org.apache.jackrabbit.oak.stats.MeterStats;
 import org.apache.jackrabbit.oak.stats.StatisticsProvider;
 import org.apache.jackrabbit.oak.stats.StatsOptions;
@@ -41,6 +42,16 @@ import org.jetbrains.annotations.NotNull;
  *          a timer metrics for the time spent reading from tar files</li>
  *     <li>{@link #OAK_SEGMENT_SEGMENT_WRITE_TIME}:
  *          a timer metrics for the time spent writing to tar files</li>
+ *     <li>{@link #OAK_SEGMENT_SEGMENT_READ_SIZE}:
+ *          a histogram metrics for the sizes of the segments read from tar files</li>
+ *     <li>{@link #OAK_SEGMENT_SEGMENT_WRITE_SIZE}:
+ *          a histogram metrics for the sizes of the segments written to tar files</li>
+ *     <li>{@link #OAK_SEGMENT_SEGMENT_CACHE_HITS}:
+ *          a meter metrics for the number of segments served by a cache in
+ *          front of the persistence</li>
+ *     <li>{@link #OAK_SEGMENT_SEGMENT_CACHE_MISSES}:
+ *          a meter metrics for the number of segments not found in a cache in
+ *          front of the persistence</li>
  * </ul>
  */
 public class MetricsIOMonitor extends IOMonitorAdapter {
@@ -48,11 +59,19 @@ public class MetricsIOMonitor extends IOMonitorAdapter {
     public static final String OAK_SEGMENT_SEGMENT_WRITE_BYTES = "oak.segment.segment-write-bytes";
     public static final String OAK_SEGMENT_SEGMENT_READ_TIME = "oak.segment.segment-read-time";
     public static final String OAK_SEGMENT_SEGMENT_WRITE_TIME = "oak.segment.segment-write-time";
+    public static final String OAK_SEGMENT_SEGMENT_READ_SIZE = "oak.segment.segment-read-size";
+    public static final String OAK_SEGMENT_SEGMENT_WRITE_SIZE = "oak.segment.segment-write-size";
+    public static final String OAK_SEGMENT_SEGMENT_CACHE_HITS = "oak.segment.segment-cache-hits";
+    public static final String OAK_SEGMENT_SEGMENT_CACHE_MISSES = "oak.segment.segment-cache-misses";
 
     private final MeterStats segmentReadBytes;
     private final MeterStats segmentWriteBytes;
     private final TimerStats segmentReadTime;
     private final TimerStats segmentWriteTime;
+    private final HistogramStats segmentReadSize;
+    private final HistogramStats segmentWriteSize;
+    private final MeterStats segmentCacheHits;
+    private final MeterStats segmentCacheMisses;
 
     public MetricsIOMonitor(@NotNull StatisticsProvider statisticsProvider) {
         segmentReadBytes = statisticsProvider.getMeter(
@@ -63,17 +82,37 @@ public class MetricsIOMonitor extends IOMonitorAdapter {
                 OAK_SEGMENT_SEGMENT_READ_TIME, StatsOptions.METRICS_ONLY);
         segmentWriteTime = statisticsProvider.getTimer(
                 OAK_SEGMENT_SEGMENT_WRITE_TIME, StatsOptions.METRICS_ONLY);
+        segmentReadSize = statisticsProvider.getHistogram(
+                OAK_SEGMENT_SEGMENT_READ_SIZE, StatsOptions.METRICS_ONLY);
+        segmentWriteSize = statisticsProvider.getHistogram(
+                OAK_SEGMENT_SEGMENT_WRITE_SIZE, StatsOptions.METRICS_ONLY);
+        segmentCacheHits = statisticsProvider.getMeter(
+                OAK_SEGMENT_SEGMENT_CACHE_HITS, StatsOptions.METRICS_ONLY);
+        segmentCacheMisses = statisticsProvider.getMeter(
+                OAK_SEGMENT_SEGMENT_CACHE_MISSES, StatsOptions.METRICS_ONLY);
     }
 
     @Override
     public void afterSegmentRead(File file, long msb, long lsb, int length, long elapsed) {
         segmentReadBytes.mark(length);
         segmentReadTime.update(elapsed, NANOSECONDS);
+        segmentReadSize.update(length);
     }
 
     @Override
     public void afterSegmentWrite(File file, long msb, long lsb, int length, long elapsed) {
         segmentWriteBytes.mark(length);
         segmentWriteTime.update(elapsed, NANOSECONDS);
+        segmentWriteSize.update(length);
+    }
+
+    @Override
+    public void onSegmentCacheHit(File file, long msb, long lsb, int length) {
+        segmentCacheHits.mark();
+    }
+
+    @Override
+    public void onSegmentCacheMiss(File file, long msb, long lsb) {
+        segmentCacheMisses.mark();
     }
 }
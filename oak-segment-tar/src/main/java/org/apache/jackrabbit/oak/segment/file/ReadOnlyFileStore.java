@@ -76,6 +76,7 @@ public class ReadOnlyFileStore extends AbstractFileStore {
                 .withRemoteStoreMonitor(remoteStoreMonitor)
                 .withMemoryMapping(memoryMapping)
                 .withReadOnly()
+                .withOpenConcurrency(builder.getOpenConcurrency())
                 .withPersistence(builder.getPersistence())
                 .build();
 
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.jackrabbit.oak.segment.file;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Collections.emptyList;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.jackrabbit.oak.api.jmx.CacheStatsMBean;
+import org.apache.jackrabbit.oak.segment.Cache;
+import org.apache.jackrabbit.oak.segment.RecordId;
+import org.apache.jackrabbit.oak.segment.SegmentIdProvider;
+import org.apache.jackrabbit.oak.segment.SegmentNotFoundException;
+import org.apache.jackrabbit.oak.segment.SegmentReader;
+import org.apache.jackrabbit.oak.segment.Template;
+import org.apache.jackrabbit.oak.segment.WriterCacheManager;
+import org.apache.jackrabbit.oak.segment.spi.persistence.GCJournalFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the record ids of the most recently used string and template
+ * records of the current gc generation in the {@code record.dictionary} file
+ * next to the {@code gc.log}. Each line has the format 'gc generation, record
+ * type, record id', where the record type is {@code s} for strings and {@code
+ * t} for templates.
+ * <p>
+ * The deduplication caches of the {@link WriterCacheManager} are empty after
+ * a restart, such that the writers would write the same strings and templates
+ * again into new segments. Loading the dictionary pre-populates these caches
+ * with the records persisted at the last shutdown, provided they are still of
+ * the current gc generation. To avoid reading segments on startup of stores
+ * that are only read from, the dictionary is loaded when the caches are first
+ * accessed by a writer, see {@link LoadingCacheManager}.
+ */
+class RecordDictionary {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecordDictionary.class);
+
+    /**
+     * Maximal number of string and of template records persisted.
+     */
+    static final int DICTIONARY_SIZE =
+            Integer.getInteger("oak.segment.recordDictionary.size", 1000);
+
+    private static final String STRING = "s";
+
+    private static final String TEMPLATE = "t";
+
+    private final GCJournalFile dictionaryFile;
+
+    private boolean loaded;
+
+    RecordDictionary(@NotNull GCJournalFile dictionaryFile) {
+        this.dictionaryFile = checkNotNull(dictionaryFile);
+    }
+
+    /**
+     * Replace the persisted dictionary with the most recently used string
+     * and template records of the given gc generation. This does nothing if
+     * the dictionary has not been loaded, as the caches were not used then.
+     *
+     * @param generation    the current gc generation
+     * @param cacheManager  the cache manager of the writers of the store
+     */
+    synchronized void persist(int generation, @NotNull WriterCacheManager cacheManager) {
+        if (!loaded) {
+            return;
+        }
+        try {
+            dictionaryFile.truncate();
+            for (RecordId id : cacheManager.getRecentStringRecordIds(generation, DICTIONARY_SIZE)) {
+                dictionaryFile.writeLine(toString(generation, STRING, id));
+            }
+            for (RecordId id : cacheManager.getRecentTemplateRecordIds(generation, DICTIONARY_SIZE)) {
+                dictionaryFile.writeLine(toString(generation, TEMPLATE, id));
+            }
+        } catch (IOException e) {
+            LOG.error("Error writing record dictionary", e);
+        }
+    }
+
+    /**
+     * Populate the deduplication caches of the given gc generation with the
+     * persisted records of that generation. Records of other generations and
+     * records that cannot be read anymore are skipped.
+     *
+     * @param generation    the current gc generation
+     * @param cacheManager  the cache manager of the writers of the store
+     * @param idProvider    provider for the segment ids of the records
+     * @param reader        reader for the records
+     * @return  the number of records added to the caches
+     */
+    synchronized int load(
+            int generation,
+            @NotNull WriterCacheManager cacheManager,
+            @NotNull SegmentIdProvider idProvider,
+            @NotNull SegmentReader reader
+    ) {
+        loaded = true;
+        int count = 0;
+        for (String line : readLines()) {
+            String[] items = line.split(",");
+            if (items.length != 3) {
+                LOG.warn("Unable to parse {} as record dictionary entry.", line);
+                continue;
+            }
+            try {
+                if (Integer.parseInt(items[0]) != generation) {
+                    continue;
+                }
+                RecordId id = RecordId.fromString(idProvider, items[2]);
+                if (id.getSegmentId().getGcGeneration().getGeneration() != generation) {
+                    continue;
+                }
+                if (STRING.equals(items[1])) {
+                    cacheManager.getStringCache(generation).put(reader.readString(id), id);
+                    count++;
+                } else if (TEMPLATE.equals(items[1])) {
+                    Template template = reader.readTemplate(id);
+                    cacheManager.getTemplateCache(generation).put(template, id);
+                    count++;
+                } else {
+                    LOG.warn("Unable to parse {} as record dictionary entry.", line);
+                }
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Unable to parse {} as record dictionary entry.", line, e);
+            } catch (SegmentNotFoundException e) {
+                LOG.debug("Skipping record dictionary entry {} of a missing segment", line);
+            }
+        }
+        return count;
+    }
+
+    private static String toString(int generation, String type, RecordId id) {
+        return generation + "," + type + "," + id.toString10();
+    }
+
+    private List<String> readLines() {
+        try {
+            return dictionaryFile.readLines();
+        } catch (IOException e) {
+            LOG.error("Error reading record dictionary", e);
+        }
+        return emptyList();
+    }
+
+    /**
+     * A {@code WriterCacheManager} running a load action before the string,
+     * template or node caches of the delegate are accessed for the first
+     * time.
+     */
+    static class LoadingCacheManager extends WriterCacheManager {
+
+        @NotNull
+        private final WriterCacheManager delegate;
+
+        @NotNull
+        private final Runnable load;
+
+        private volatile boolean loaded;
+
+        LoadingCacheManager(@NotNull WriterCacheManager delegate, @NotNull Runnable load) {
+            this.delegate = checkNotNull(delegate);
+            this.load = checkNotNull(load);
+        }
+
+        private void load() {
+            if (!loaded) {
+                synchronized (this) {
+                    if (!loaded) {
+                        load.run();
+                        loaded = true;
+                    }
+                }
+            }
+        }
+
+        @NotNull
+        @Override
+        public Cache<String, RecordId> getStringCache(int generation) {
+            load();
+            return delegate.getStringCache(generation);
+        }
+
+        @NotNull
+        @Override
+        public Cache<Template, RecordId> getTemplateCache(int generation) {
+            load();
+            return delegate.getTemplateCache(generation);
+        }
+
+        @NotNull
+        @Override
+        public Cache<String, RecordId> getNodeCache(int generation) {
+            load();
+            return delegate.getNodeCache(generation);
+        }
+
+        @NotNull
+        @Override
+        public List<RecordId> getRecentStringRecordIds(int generation, int limit) {
+            return delegate.getRecentStringRecordIds(generation, limit);
+        }
+
+        @NotNull
+        @Override
+        public List<RecordId> getRecentTemplateRecordIds(int generation, int limit) {
+            return delegate.getRecentTemplateRecordIds(generation, limit);
+        }
+
+        @Nullable
+        @Override
+        public CacheStatsMBean getStringCacheStats() {
+            return delegate.getStringCacheStats();
+        }
+
+        @Nullable
+        @Override
+        public CacheStatsMBean getTemplateCacheStats() {
+            return delegate.getTemplateCacheStats();
+        }
+
+        @Nullable
+        @Override
+        public CacheStatsMBean getNodeCacheStats() {
+            return delegate.getNodeCacheStats();
+        }
+
+        @Nullable
+        @Override
+        public String getNodeCacheOccupancyInfo() {
+            return delegate.getNodeCacheOccupancyInfo();
+        }
+
+    }
+
+}
@@ -24,6 +24,12 @@ import org.apache.jackrabbit.oak.segment.file.tar.GCGeneration;
 
 interface SegmentWriterFactory {
 
-    SegmentWriter newSegmentWriter(GCGeneration generation);
+    /**
+     * Create a new segment writer for compaction.
+     * @param generation  the generation of the segments written
+     * @param threadSafe  whether the writer must support concurrent writes
+     *                    from multiple threads
+     */
+    SegmentWriter newSegmentWriter(GCGeneration generation, boolean threadSafe);
 
 }
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment.file.tar;
+
+import java.io.IOException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.compression.Snappy;
+import org.apache.jackrabbit.oak.commons.Buffer;
+import org.apache.jackrabbit.oak.segment.SegmentId;
+
+/**
+ * Compression of the segments stored in a TAR file.
+ * <p>
+ * A compressed segment is stored in its TAR entry with a header of eight
+ * bytes, followed by the compressed data. The header consists of the
+ * signature {@code 0aZ}, one byte identifying the compression format, and
+ * the length of the uncompressed segment as a four byte integer. The
+ * segment is compressed in independent chunks of at most
+ * {@link #CHUNK_SIZE} bytes, each one stored as its compressed length followed
+ * by the compressed data.
+ * <p>
+ * Whether an entry is compressed is never guessed from its content. It is
+ * recorded in the flags of the entry in the TAR index and, for recovery, by
+ * the {@link #ENTRY_NAME_SUFFIX} appended to the name of the TAR entry. The
+ * signature is only used to validate an entry that claims to be compressed.
+ * This allows compressed and uncompressed segments to coexist in the same
+ * store, and even in the same TAR file.
+ * <p>
+ * Only data segments are compressed. Bulk segments contain binary data as
+ * supplied by the user, which is usually already compressed.
+ * <p>
+ * The index of the TAR file refers to the data as stored, i.e. compressed.
+ * Segments are transparently decompressed when read from a TAR file.
+ */
+final class SegmentCompression {
+
+    /**
+     * Identifier of the Snappy block format.
+     */
+    private static final byte SNAPPY = 0x01;
+
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The Snappy block encoder works on inputs of at most 64 KiB. Larger
+     * segments are split into chunks of this size.
+     */
+    private static final int CHUNK_SIZE = 32 * 1024;
+
+    /**
+     * A compressed segment is stored only if it is at most this fraction of
+     * the size of the uncompressed segment. A compressed segment can't be
+     * memory mapped and has to be inflated into the heap whenever it is read,
+     * which is only worth it for a substantial saving of space.
+     */
+    static final double MAX_COMPRESSION_RATIO = 0.75;
+
+    /**
+     * Suffix of the name of a TAR entry containing a compressed segment.
+     */
+    static final String ENTRY_NAME_SUFFIX = ".z";
+
+    private SegmentCompression() {
+        // Prevent instantiation.
+    }
+
+    /**
+     * Compress a segment.
+     *
+     * @param data   the buffer containing the segment.
+     * @param offset the offset of the segment in the buffer.
+     * @param length the length of the segment.
+     * @return the compressed segment, including its header, or {@code null} if
+     * compressing the segment doesn't save at least the fraction of space
+     * given by {@link #MAX_COMPRESSION_RATIO}.
+     */
+    static byte[] compress(byte[] data, int offset, int length) {
+        ByteBuf out = Unpooled.buffer(HEADER_SIZE + length + length / 6 + 32);
+        out.writeByte('0');
+        out.writeByte('a');
+        out.writeByte('Z');
+        out.writeByte(SNAPPY);
+        out.writeInt(length);
+
+        Snappy snappy = new Snappy();
+
+        for (int p = 0; p < length; p += CHUNK_SIZE) {
+            int n = Math.min(CHUNK_SIZE, length - p);
+            int lengthIndex = out.writerIndex();
+            out.writeInt(0);
+            try {
+                snappy.encode(Unpooled.wrappedBuffer(data, offset + p, n), out, n);
+            } catch (RuntimeException e) {
+                return null;
+            }
+            snappy.reset();
+            out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+        }
+
+        if (out.readableBytes() > length * MAX_COMPRESSION_RATIO) {
+            return null;
+        }
+
+        byte[] compressed = new byte[out.readableBytes()];
+        out.readBytes(compressed);
+        return compressed;
+    }
+
+    /**
+     * Determine whether the segment with the given identifier may be
+     * compressed. Only data segments are compressed.
+     *
+     * @param lsb the least significant bits of the segment identifier.
+     */
+    static boolean isCompressible(long lsb) {
+        return SegmentId.isDataSegmentId(lsb);
+    }
+
+    /**
+     * Decompress the segment at the current position of {@code buffer}.
+     *
+     * @param buffer the compressed segment, as stored in the TAR file.
+     * @return the uncompressed segment.
+     * @throws IOException if the compressed segment is corrupt or uses an
+     *                     unknown compression format.
+     */
+    static Buffer decompress(Buffer buffer) throws IOException {
+        if (!hasSignature(buffer)) {
+            throw new IOException("Corrupt compressed segment: invalid header");
+        }
+
+        int p = buffer.position();
+        byte format = buffer.get(p + 3);
+        int length = buffer.getInt(p + 4);
+
+        if (format != SNAPPY) {
+            throw new IOException("Unknown segment compression format " + format);
+        }
+
+        if (length < 0) {
+            throw new IOException("Corrupt compressed segment: invalid length " + length);
+        }
+
+        byte[] compressed = new byte[buffer.remaining() - HEADER_SIZE];
+        buffer.duplicate().position(p + HEADER_SIZE).get(compressed);
+
+        byte[] uncompressed = new byte[length];
+        ByteBuf in = Unpooled.wrappedBuffer(compressed);
+        ByteBuf out = Unpooled.wrappedBuffer(uncompressed).writerIndex(0);
+        Snappy snappy = new Snappy();
+
+        try {
+            while (in.isReadable()) {
+                int n = in.readInt();
+                if (n < 0 || n > in.readableBytes()) {
+                    throw new IOException("Corrupt compressed segment: invalid chunk length " + n);
+                }
+                snappy.decode(in.readSlice(n), out);
+                snappy.reset();
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt compressed segment", e);
+        }
+
+        if (out.writerIndex() != length) {
+            throw new IOException("Corrupt compressed segment: expected " + length + " bytes, found " + out.writerIndex());
+        }
+
+        return Buffer.wrap(uncompressed);
+    }
+
+    /**
+     * Decompress a segment stored in a byte array.
+     *
+     * @see #decompress(Buffer)
+     */
+    static byte[] decompress(byte[] data) throws IOException {
+        Buffer uncompressed = decompress(Buffer.wrap(data));
+        byte[] result = new byte[uncompressed.remaining()];
+        uncompressed.get(result);
+        return result;
+    }
+
+    private static boolean hasSignature(Buffer buffer) {
+        int p = buffer.position();
+        return buffer.remaining() >= HEADER_SIZE
+                && buffer.get(p) == '0'
+                && buffer.get(p + 1) == 'a'
+                && buffer.get(p + 2) == 'Z';
+    }
+
+}
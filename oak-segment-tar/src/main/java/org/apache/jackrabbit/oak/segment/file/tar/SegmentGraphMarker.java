@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jackrabbit.oak.segment.file.tar;
+
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Concurrent implementation of the mark phase of {@link
+ * TarFiles#cleanup(CleanupContext, int)}.
+ * <p>
+ * The TAR files are marked one at a time by {@link TarReader#mark(Set, Set,
+ * CleanupContext, Map)}, from the most recent to the oldest one, exactly like
+ * the sequential mark phase. Only the graphs of the TAR files are loaded
+ * concurrently: while a TAR file is marked, the graphs of the next TAR files
+ * are loaded by the pool. At most {@link ForkJoinPool#getParallelism()}
+ * graphs are loaded ahead, so the memory used by the mark phase stays
+ * bounded regardless of the number of TAR files.
+ */
+final class SegmentGraphMarker {
+
+    private SegmentGraphMarker() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Compute the segments that can be reclaimed from the provided TAR files.
+     *
+     * @param readers    The TAR files to mark, from the most recent to the
+     *                   oldest one.
+     * @param references The initial references, as returned by {@link
+     *                   CleanupContext#initialReferences()}. This set is
+     *                   updated as by {@link TarReader#mark(Set, Set,
+     *                   CleanupContext)}.
+     * @param context    An instance of {@link CleanupContext}.
+     * @param pool       The pool loading the graphs of the TAR files.
+     * @param shutdown   Returns {@code true} if the mark phase should be
+     *                   aborted. The returned set is incomplete in this case.
+     * @return The identifiers of the segments to reclaim.
+     */
+    @NotNull
+    static Set<UUID> mark(List<TarReader> readers, Set<UUID> references, CleanupContext context, ForkJoinPool pool, BooleanSupplier shutdown) throws IOException {
+        Set<UUID> reclaim = new HashSet<>();
+        Deque<Future<Map<UUID, List<UUID>>>> graphs = new ArrayDeque<>();
+        int loaded = 0;
+
+        try {
+            for (TarReader reader : readers) {
+                while (loaded < readers.size() && graphs.size() < pool.getParallelism()) {
+                    TarReader next = readers.get(loaded++);
+                    graphs.add(pool.submit(next::getGraph));
+                }
+                Map<UUID, List<UUID>> graph = getGraph(graphs.remove());
+                if (shutdown.getAsBoolean()) {
+                    break;
+                }
+                reader.mark(references, reclaim, context, graph);
+            }
+        } finally {
+            // Don't leave graphs being loaded behind, the TAR files may be
+            // closed once this method returns
+            for (Future<Map<UUID, List<UUID>>> graph : graphs) {
+                try {
+                    getUninterruptibly(graph);
+                } catch (ExecutionException e) {
+                    // Ignored, the graph is not used
+                }
+            }
+        }
+
+        return reclaim;
+    }
+
+    private static Map<UUID, List<UUID>> getGraph(Future<Map<UUID, List<UUID>>> graph) throws IOException {
+        try {
+            return getUninterruptibly(graph);
+        } catch (ExecutionException e) {
+            throw TarFiles.asIOException(e.getCause());
+        }
+    }
+
+}
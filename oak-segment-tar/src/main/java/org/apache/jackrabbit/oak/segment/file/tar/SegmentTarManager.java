@@ -67,13 +67,21 @@ public class SegmentTarManager implements SegmentArchiveManager {
 
     private final boolean offHeapAccess;
 
+    private final boolean segmentCompression;
+
     public SegmentTarManager(File segmentstoreDir, FileStoreMonitor fileStoreMonitor, IOMonitor ioMonitor, boolean memoryMapping,
             boolean offHeapAccess) {
+        this(segmentstoreDir, fileStoreMonitor, ioMonitor, memoryMapping, offHeapAccess, false);
+    }
+
+    public SegmentTarManager(File segmentstoreDir, FileStoreMonitor fileStoreMonitor, IOMonitor ioMonitor, boolean memoryMapping,
+            boolean offHeapAccess, boolean segmentCompression) {
         this.segmentstoreDir = segmentstoreDir;
         this.fileStoreMonitor = fileStoreMonitor;
         this.ioMonitor = ioMonitor;
         this.memoryMapping = memoryMapping;
         this.offHeapAccess = offHeapAccess;
+        this.segmentCompression = segmentCompression;
     }
 
     @Override
@@ -132,7 +140,7 @@ public class SegmentTarManager implements SegmentArchiveManager {
 
     @Override
     public SegmentArchiveWriter create(String archiveName) {
-        return new SegmentTarWriter(new File(segmentstoreDir, archiveName), fileStoreMonitor, ioMonitor);
+        return new SegmentTarWriter(new File(segmentstoreDir, archiveName), fileStoreMonitor, ioMonitor, segmentCompression);
     }
 
     @Override
@@ -245,6 +253,15 @@ public class SegmentTarManager implements SegmentArchiveManager {
                         access.seek(position + (BLOCK_SIZE - remainder));
                     }
 
+                    if (SegmentCompression.ENTRY_NAME_SUFFIX.equals(matcher.group(4))) {
+                        try {
+                            data = SegmentCompression.decompress(data);
+                        } catch (IOException e) {
+                            log.warn("Unable to decompress entry {} of tar file {}, skipping...", name, file, e);
+                            continue;
+                        }
+                    }
+
                     if (checksum != null) {
                         CRC32 crc = new CRC32();
                         crc.update(data, 0, data.length);
@@ -86,10 +86,21 @@ public class SegmentTarWriter implements SegmentArchiveWriter {
 
     private volatile long length;
 
+    /**
+     * Whether segments are compressed before being written. See {@link
+     * SegmentCompression}.
+     */
+    private final boolean compression;
+
     public SegmentTarWriter(File file, FileStoreMonitor monitor, IOMonitor ioMonitor) {
+        this(file, monitor, ioMonitor, false);
+    }
+
+    public SegmentTarWriter(File file, FileStoreMonitor monitor, IOMonitor ioMonitor, boolean compression) {
         this.file = file;
         this.monitor = monitor;
         this.ioMonitor = ioMonitor;
+        this.compression = compression;
     }
 
     @Override
@@ -98,6 +109,21 @@ public class SegmentTarWriter implements SegmentArchiveWriter {
         CRC32 checksum = new CRC32();
         checksum.update(data, offset, size);
         String entryName = String.format("%s.%08x", uuid, checksum.getValue());
+
+        // The checksum in the entry name is the one of the uncompressed
+        // segment. Recovery code not aware of compressed entries thus
+        // discards them instead of recovering the compressed data.
+        boolean compressed = false;
+        if (compression && SegmentCompression.isCompressible(lsb)) {
+            byte[] c = SegmentCompression.compress(data, offset, size);
+            if (c != null) {
+                data = c;
+                offset = 0;
+                size = c.length;
+                compressed = true;
+                entryName += SegmentCompression.ENTRY_NAME_SUFFIX;
+            }
+        }
         byte[] header = newEntryHeader(entryName, size);
 
         log.debug("Writing segment {} to {}", uuid, file);
@@ -129,7 +155,7 @@ public class SegmentTarWriter implements SegmentArchiveWriter {
 
         length = currentLength;
 
-        index.put(new UUID(msb, lsb), new SimpleIndexEntry(msb, lsb, (int) dataOffset, size, generation, fullGeneration, compacted));
+        index.put(new UUID(msb, lsb), new SimpleIndexEntry(msb, lsb, (int) dataOffset, size, generation, fullGeneration, compacted, compressed));
     }
 
     @Override
@@ -144,6 +170,9 @@ public class SegmentTarWriter implements SegmentArchiveWriter {
             throw new EOFException();
         }
         data.rewind();
+        if (indexEntry.isCompressed()) {
+            return SegmentCompression.decompress(data);
+        }
         return data;
     }
 
@@ -201,7 +230,8 @@ public class SegmentTarWriter implements SegmentArchiveWriter {
                     entry.getLength(),
                     entry.getGeneration(),
                     entry.getFullGeneration(),
-                    entry.isCompacted()
+                    entry.isCompacted(),
+                    entry.isCompressed()
             );
         }
 
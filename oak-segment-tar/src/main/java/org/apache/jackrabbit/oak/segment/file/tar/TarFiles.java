@@ -23,6 +23,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
 import static java.util.Collections.emptySet;
 
 import java.io.Closeable;
@@ -30,6 +31,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -40,6 +42,16 @@ import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
@@ -48,6 +60,7 @@ import java.util.regex.Pattern;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.apache.jackrabbit.oak.commons.Buffer;
 import org.apache.jackrabbit.oak.segment.file.FileReaper;
@@ -128,6 +141,10 @@ public class TarFiles implements Closeable {
 
         private long maxFileSize;
 
+        private int writeQueueSize;
+
+        private int openConcurrency = 1;
+
         private boolean readOnly;
 
         private SegmentNodeStorePersistence persistence;
@@ -181,6 +198,23 @@ public class TarFiles implements Closeable {
             return this;
         }
 
+        public Builder withWriteQueueSize(int writeQueueSize) {
+            this.writeQueueSize = writeQueueSize;
+            return this;
+        }
+
+        /**
+         * Maximum number of TAR files opened concurrently when the {@link
+         * TarFiles} instance is built. Opening a TAR file reads and validates
+         * its index, which dominates the startup time of a store with many
+         * TAR files on slow disks. Defaults to {@code 1}.
+         */
+        public Builder withOpenConcurrency(int openConcurrency) {
+            checkArgument(openConcurrency > 0);
+            this.openConcurrency = openConcurrency;
+            return this;
+        }
+
         public Builder withReadOnly() {
             this.readOnly = true;
             return this;
@@ -347,6 +381,16 @@ public class TarFiles implements Closeable {
      */
     private Node readers;
 
+    /**
+     * Maps the segments stored in the TAR readers to the TAR reader storing
+     * them, such that reading a segment doesn't have to probe the index of
+     * every TAR reader in turn. Entries are added while holding {@link #lock}
+     * in write mode, together with the TAR reader they point to. Where a
+     * segment is stored in more than one TAR reader, the most recent TAR
+     * reader wins, as it would when iterating {@link #readers}.
+     */
+    private final Map<UUID, TarReader> segmentReaders = new ConcurrentHashMap<>();
+
     /**
      * The currently used TAR writer. Its access is protected by {@link #lock}.
      */
@@ -373,6 +417,12 @@ public class TarFiles implements Closeable {
         return reader.getEntries().length;
     }
 
+    private void addSegmentReader(TarReader reader) {
+        for (UUID uuid : reader.getUUIDs()) {
+            segmentReaders.put(uuid, reader);
+        }
+    }
+
     private TarFiles(Builder builder) throws IOException {
         maxFileSize = builder.maxFileSize;
         archiveManager = builder.buildArchiveManager();
@@ -388,15 +438,10 @@ public class TarFiles implements Closeable {
         // appending - the corresponding TAR readers to the linked list. This
         // results in a properly ordered linked list.
 
-        for (Integer index : indices) {
-            TarReader r;
-            if (builder.readOnly) {
-                r = TarReader.openRO(map.get(index), builder.tarRecovery, archiveManager);
-            } else {
-                r = TarReader.open(map.get(index), builder.tarRecovery, archiveManager);
-            }
+        for (TarReader r : openReaders(builder, map, indices)) {
             segmentCount.inc(getSegmentCount(r));
             readers = new Node(r, readers);
+            addSegmentReader(r);
             readerCount.inc();
         }
         if (builder.readOnly) {
@@ -406,7 +451,171 @@ public class TarFiles implements Closeable {
         if (indices.length > 0) {
             writeNumber = indices[indices.length - 1] + 1;
         }
-        writer = new TarWriter(archiveManager, writeNumber, segmentCount);
+        writer = new TarWriter(archiveManager, writeNumber, segmentCount, builder.fileStoreMonitor, Math.max(builder.writeQueueSize, 0));
+    }
+
+    /**
+     * Open the TAR readers for the provided indices, using up to {@link
+     * Builder#openConcurrency} threads. The returned readers are in the same
+     * order as the indices. If any TAR file can't be opened or the calling
+     * thread is interrupted, the readers opened so far are closed and the
+     * first failure is rethrown.
+     */
+    private List<TarReader> openReaders(Builder builder, Map<Integer, Map<Character, String>> map, Integer[] indices) throws IOException {
+        int threads = Math.min(builder.openConcurrency, indices.length);
+
+        if (threads <= 1) {
+            List<TarReader> readers = new ArrayList<>(indices.length);
+            try {
+                for (Integer index : indices) {
+                    readers.add(openReader(builder, map.get(index)));
+                }
+            } catch (IOException | RuntimeException | Error e) {
+                discardAll(readers, TarReader::close, e);
+                throw e;
+            }
+            return readers;
+        }
+
+        log.info("Opening {} TAR files with {} threads", indices.length, threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("tar-open-%d")
+                .setDaemon(true)
+                .build());
+
+        try {
+            List<Callable<TarReader>> openers = new ArrayList<>(indices.length);
+            for (Integer index : indices) {
+                Map<Character, String> files = map.get(index);
+                openers.add(() -> openReader(builder, files));
+            }
+            return invokeAll(executor, openers, TarReader::close);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private TarReader openReader(Builder builder, Map<Character, String> files) throws IOException {
+        if (builder.readOnly) {
+            return TarReader.openRO(files, builder.tarRecovery, archiveManager);
+        }
+        return TarReader.open(files, builder.tarRecovery, archiveManager);
+    }
+
+    /**
+     * Releases a result of a task executed by {@link #invokeAll(ExecutorService,
+     * List, Discard)} that won't be returned to the caller.
+     */
+    @FunctionalInterface
+    interface Discard<T> {
+
+        void discard(T result) throws IOException;
+
+    }
+
+    /**
+     * Execute the provided tasks with {@code executor} and return their
+     * results, like {@link #invokeAll(ExecutorService, List, Discard)}, for
+     * tasks whose results don't need to be released on failure.
+     */
+    static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) throws IOException {
+        return invokeAll(executor, tasks, result -> {});
+    }
+
+    /**
+     * Execute the provided tasks with {@code executor} and return their
+     * results, in the same order as the tasks. If any task fails or the
+     * calling thread is interrupted, the tasks that didn't start yet are
+     * skipped and the running ones are awaited. The results of all the
+     * tasks that completed are then passed to {@code discard} and the first
+     * failure is rethrown. An interrupt is rethrown as an {@code IOException}
+     * with the interrupt flag of the calling thread set again.
+     */
+    static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks, Discard<T> discard) throws IOException {
+        // Cancelling a future doesn't stop a task that is already running,
+        // but drops its result. The tasks check this flag instead, so that
+        // the result of every task that ran is returned or discarded.
+
+        AtomicBoolean aborted = new AtomicBoolean();
+
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(() -> {
+                if (aborted.get()) {
+                    throw new CancellationException();
+                }
+                return task.call();
+            }));
+        }
+
+        List<T> results = new ArrayList<>(tasks.size());
+        Throwable failure = null;
+        boolean interrupted = false;
+
+        for (Future<T> future : futures) {
+            while (true) {
+                try {
+                    T result = interrupted ? getUninterruptibly(future) : future.get();
+                    results.add(result);
+                } catch (CancellationException e) {
+                    // The task didn't start before the abort.
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof CancellationException) {
+                        // The task didn't start before the abort.
+                    } else if (failure == null) {
+                        failure = e.getCause();
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    if (failure == null) {
+                        failure = new IOException("Interrupted while waiting for TAR files", e);
+                    }
+                    aborted.set(true);
+                    continue;
+                }
+                break;
+            }
+            if (failure != null) {
+                aborted.set(true);
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure == null) {
+            return results;
+        }
+
+        discardAll(results, discard, failure);
+        throw asIOException(failure);
+    }
+
+    private static <T> void discardAll(List<T> results, Discard<T> discard, Throwable failure) {
+        for (T result : results) {
+            try {
+                discard.discard(result);
+            } catch (IOException | RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    static IOException asIOException(Throwable t) {
+        if (t instanceof IOException) {
+            return (IOException) t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IOException(t);
     }
 
     @Override
@@ -530,16 +739,22 @@ public class TarFiles implements Closeable {
     }
 
     public void flush() throws IOException {
+        TarWriter w;
+
+        // Don't hold the lock while flushing. This would block concurrent
+        // writes for the duration of the flush.
         lock.readLock().lock();
         try {
-            writer.flush();
+            w = writer;
         } finally {
             lock.readLock().unlock();
         }
+
+        w.flush();
     }
 
     public boolean containsSegment(long msb, long lsb) {
-        Node head;
+        TarReader reader;
 
         lock.readLock().lock();
         try {
@@ -548,22 +763,17 @@ public class TarFiles implements Closeable {
                     return true;
                 }
             }
-            head = readers;
+            reader = segmentReaders.get(new UUID(msb, lsb));
         } finally {
             lock.readLock().unlock();
         }
 
-        for (TarReader reader : iterable(head)) {
-            if (reader.containsEntry(msb, lsb)) {
-                return true;
-            }
-        }
-        return false;
+        return reader != null && reader.containsEntry(msb, lsb);
     }
 
     public Buffer readSegment(long msb, long lsb) {
         try {
-            Node head;
+            TarReader reader;
 
             lock.readLock().lock();
             try {
@@ -573,16 +783,13 @@ public class TarFiles implements Closeable {
                         return b;
                     }
                 }
-                head = readers;
+                reader = segmentReaders.get(new UUID(msb, lsb));
             } finally {
                 lock.readLock().unlock();
             }
 
-            for (TarReader reader : iterable(head)) {
-                Buffer b = reader.readEntry(msb, lsb);
-                if (b != null) {
-                    return b;
-                }
+            if (reader != null) {
+                return reader.readEntry(msb, lsb);
             }
         } catch (IOException e) {
             log.warn("Unable to read from TAR file", e);
@@ -637,6 +844,7 @@ public class TarFiles implements Closeable {
         }
         TarReader reader = TarReader.open(writer.getFileName(), archiveManager);
         readers = new Node(reader, readers);
+        addSegmentReader(reader);
         segmentCount.inc(getSegmentCount(reader));
         readerCount.inc();
         writer = newWriter;
@@ -652,6 +860,23 @@ public class TarFiles implements Closeable {
     }
 
     public CleanupResult cleanup(CleanupContext context) throws IOException {
+        return cleanup(context, 1);
+    }
+
+    /**
+     * Remove the segments that are no longer in use from the TAR files. With
+     * a {@code concurrency} greater than {@code 1}, the graphs of the TAR
+     * files are loaded ahead of the mark phase by up to {@code concurrency}
+     * threads (see {@link SegmentGraphMarker}) and the TAR files are swept
+     * concurrently.
+     *
+     * @param context     An instance of {@link CleanupContext}.
+     * @param concurrency The number of threads to use. Must be positive.
+     * @return An instance of {@link CleanupResult}.
+     */
+    public CleanupResult cleanup(CleanupContext context, int concurrency) throws IOException {
+        checkArgument(concurrency > 0, "concurrency must be positive");
+
         CleanupResult result = new CleanupResult();
         result.removableFiles = new ArrayList<>();
         result.reclaimedSegmentIds = new HashSet<>();
@@ -680,22 +905,34 @@ public class TarFiles implements Closeable {
             result.reclaimedSize += reader.size();
         }
 
-        Set<UUID> reclaim = newHashSet();
+        if (concurrency > 1 && cleaned.size() > 1) {
+            ForkJoinPool pool = newCleanupPool(concurrency);
+            try {
+                if (!markAndSweep(cleaned, references, context, pool, result)) {
+                    result.interrupted = true;
+                    return result;
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        } else {
+            Set<UUID> reclaim = newHashSet();
 
-        for (TarReader reader : cleaned.keySet()) {
-            if (shutdown) {
-                result.interrupted = true;
-                return result;
+            for (TarReader reader : cleaned.keySet()) {
+                if (shutdown) {
+                    result.interrupted = true;
+                    return result;
+                }
+                reader.mark(references, reclaim, context);
             }
-            reader.mark(references, reclaim, context);
-        }
 
-        for (TarReader reader : cleaned.keySet()) {
-            if (shutdown) {
-                result.interrupted = true;
-                return result;
+            for (TarReader reader : cleaned.keySet()) {
+                if (shutdown) {
+                    result.interrupted = true;
+                    return result;
+                }
+                cleaned.put(reader, reader.sweep(reclaim, result.reclaimedSegmentIds));
             }
-            cleaned.put(reader, reader.sweep(reclaim, result.reclaimedSegmentIds));
         }
 
         Node closeables;
@@ -777,6 +1014,26 @@ public class TarFiles implements Closeable {
                 lock.writeLock().unlock();
             }
         }
+        // Point the segments kept by the swept TAR readers to the readers
+        // replacing them before forgetting about the swept segments. The
+        // swept TAR readers are closed only afterwards, so concurrent reads
+        // never see a segment without an open TAR reader.
+
+        for (Entry<TarReader, TarReader> entry : cleaned.entrySet()) {
+            TarReader reader = entry.getKey();
+            TarReader cleanedReader = entry.getValue();
+            if (cleanedReader != null && cleanedReader != reader) {
+                for (UUID uuid : cleanedReader.getUUIDs()) {
+                    segmentReaders.replace(uuid, reader, cleanedReader);
+                }
+            }
+        }
+        for (TarReader closeable : iterable(closeables)) {
+            for (UUID uuid : closeable.getUUIDs()) {
+                segmentReaders.remove(uuid, closeable);
+            }
+        }
+
         readerCount.dec(getSize(head) - getSize(swept));
         segmentCount.dec(getSegmentCount(head) - getSegmentCount(swept));
 
@@ -794,6 +1051,54 @@ public class TarFiles implements Closeable {
         return result;
     }
 
+    /**
+     * Concurrent version of the mark and sweep phases of {@link
+     * #cleanup(CleanupContext, int)}. The TAR readers in {@code cleaned} are
+     * mapped to their swept versions.
+     *
+     * @return {@code false} if the cleanup was interrupted by a shutdown.
+     */
+    private boolean markAndSweep(Map<TarReader, TarReader> cleaned, Set<UUID> references, CleanupContext context, ForkJoinPool pool, CleanupResult result) throws IOException {
+        List<TarReader> marked = new ArrayList<>(cleaned.keySet());
+
+        log.debug("Marking and sweeping {} TAR files with {} threads", marked.size(), pool.getParallelism());
+
+        Set<UUID> reclaim = SegmentGraphMarker.mark(marked, references, context, pool, () -> shutdown);
+
+        if (shutdown) {
+            return false;
+        }
+
+        Set<UUID> reclaimed = ConcurrentHashMap.newKeySet();
+        List<Callable<TarReader>> sweepers = new ArrayList<>(marked.size());
+        for (TarReader reader : marked) {
+            sweepers.add(() -> shutdown ? reader : reader.sweep(reclaim, reclaimed));
+        }
+
+        // Close the TAR readers of the new generations if the sweep fails,
+        // but not the ones being swept, which are still in use.
+
+        List<TarReader> swept = invokeAll(pool, sweepers, reader -> {
+            if (reader != null && !marked.contains(reader)) {
+                reader.close();
+            }
+        });
+        for (int i = 0; i < marked.size(); i++) {
+            cleaned.put(marked.get(i), swept.get(i));
+        }
+        result.reclaimedSegmentIds.addAll(reclaimed);
+
+        return !shutdown;
+    }
+
+    private static ForkJoinPool newCleanupPool(int concurrency) {
+        return new ForkJoinPool(concurrency, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("tar-cleanup-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
     private static int getSegmentCount(Node head) {
         int c = 0;
         for (TarReader reader : iterable(head)) {
@@ -836,6 +1141,28 @@ public class TarFiles implements Closeable {
         return ids;
     }
 
+    /**
+     * @return the names of the sealed archives, i.e. all the archives except
+     * the one currently being written, sorted in the order they were created.
+     */
+    public List<String> getReaderFileNames() {
+        Node head;
+
+        lock.readLock().lock();
+        try {
+            head = readers;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<String> names = new ArrayList<>();
+        for (TarReader reader : iterable(head)) {
+            names.add(reader.getFileName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
     public Map<UUID, Set<UUID>> getGraph(String fileName) throws IOException {
         Node head;
 
@@ -44,6 +44,10 @@ public class TarPersistence implements SegmentNodeStorePersistence {
 
     private static final String GC_JOURNAL = "gc.log";
 
+    private static final String COMPACTION_MAP = "compaction.map";
+
+    private static final String RECORD_DICTIONARY = "record.dictionary";
+
     private static final String MANIFEST_FILE_NAME = "manifest";
 
     private static final String JOURNAL_FILE_NAME = "journal.log";
@@ -52,19 +56,39 @@ public class TarPersistence implements SegmentNodeStorePersistence {
 
     private final File journal;
 
+    private final boolean segmentCompression;
+
     public TarPersistence(File directory) {
         this(directory, new File(directory, JOURNAL_FILE_NAME));
     }
 
     public TarPersistence(File directory, File journal) {
+        this(directory, journal, false);
+    }
+
+    /**
+     * @param segmentCompression whether new segments are compressed before
+     *                           being written to the TAR files. Compressed
+     *                           segments are always readable, independently
+     *                           of this setting.
+     */
+    public TarPersistence(File directory, File journal, boolean segmentCompression) {
         this.directory = directory;
         this.journal = journal;
+        this.segmentCompression = segmentCompression;
+    }
+
+    /**
+     * @see #TarPersistence(File, File, boolean)
+     */
+    public TarPersistence(File directory, boolean segmentCompression) {
+        this(directory, new File(directory, JOURNAL_FILE_NAME), segmentCompression);
     }
 
     @Override
     public SegmentArchiveManager createArchiveManager(boolean memoryMapping, boolean offHeapAccess, IOMonitor ioMonitor,
                                                       FileStoreMonitor fileStoreMonitor, RemoteStoreMonitor remoteStoreMonitor) {
-        return new SegmentTarManager(directory, fileStoreMonitor, ioMonitor, memoryMapping, offHeapAccess);
+        return new SegmentTarManager(directory, fileStoreMonitor, ioMonitor, memoryMapping, offHeapAccess, segmentCompression);
     }
 
     @Override
@@ -83,6 +107,16 @@ public class TarPersistence implements SegmentNodeStorePersistence {
         return new LocalGCJournalFile(directory, GC_JOURNAL);
     }
 
+    @Override
+    public GCJournalFile getCompactionMapFile() {
+        return new LocalGCJournalFile(directory, COMPACTION_MAP);
+    }
+
+    @Override
+    public GCJournalFile getRecordDictionaryFile() {
+        return new LocalGCJournalFile(directory, RECORD_DICTIONARY);
+    }
+
     @Override
     public ManifestFile getManifestFile() {
         return new LocalManifestFile(directory, MANIFEST_FILE_NAME);
@@ -405,7 +405,19 @@ public class TarReader implements Closeable {
      * @param context     An instance of {@link CleanupContext}.
      */
     void mark(Set<UUID> references, Set<UUID> reclaimable, CleanupContext context) throws IOException {
-        Map<UUID, List<UUID>> graph = getGraph();
+        mark(references, reclaimable, context, getGraph());
+    }
+
+    /**
+     * Same as {@link #mark(Set, Set, CleanupContext)}, but using a graph
+     * previously loaded by {@link #getGraph()}.
+     *
+     * @param references  The set of bulk segments to keep.
+     * @param reclaimable The set of segments to remove.
+     * @param context     An instance of {@link CleanupContext}.
+     * @param graph       The graph of this TAR file.
+     */
+    void mark(Set<UUID> references, Set<UUID> reclaimable, CleanupContext context, Map<UUID, List<UUID>> graph) {
         SegmentArchiveEntry[] entries = getEntries();
         for (int i = entries.length - 1; i >= 0; i--) {
             // A bulk segments is *always* written before any data segment referencing it.
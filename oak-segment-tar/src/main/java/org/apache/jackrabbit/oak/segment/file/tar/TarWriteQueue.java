@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.jackrabbit.oak.segment.file.tar;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+import static com.google.common.util.concurrent.Uninterruptibles.joinUninterruptibly;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jackrabbit.oak.commons.Buffer;
+import org.apache.jackrabbit.oak.segment.spi.monitor.FileStoreMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous write pipeline of a {@link TarWriter}. Segments added to this
+ * queue are appended to the underlying archive by a dedicated I/O thread.
+ * Callers only block when the number of pending items reaches the capacity
+ * of the queue.
+ * <p>
+ * A call to {@link #flush()} returns once all segments added before have been
+ * written and synced to the storage. The I/O thread processes the pending
+ * items in batches and syncs the storage at most once per batch, so
+ * concurrent flushes share a single sync.
+ * <p>
+ * Segments remain available through {@link #read(long, long)} until they are
+ * written to the archive. After a write error the queue refuses further
+ * segments and all subsequent flushes fail. The segments that were not
+ * written are discarded and are no longer available from this queue. This
+ * holds for any {@code Throwable} thrown by the writer or the syncer, and
+ * also if the I/O thread terminates unexpectedly: callers never block on a
+ * queue without an I/O thread.
+ */
+class TarWriteQueue implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TarWriteQueue.class);
+
+    /**
+     * Callback writing a single segment to the archive.
+     */
+    interface EntryWriter {
+
+        void write(long msb, long lsb, byte[] data, int offset, int size, GCGeneration generation) throws IOException;
+
+    }
+
+    /**
+     * Callback syncing the archive to the storage.
+     */
+    interface Syncer {
+
+        void sync() throws IOException;
+
+    }
+
+    private abstract static class Item {}
+
+    private static class Entry extends Item {
+
+        private final long msb;
+
+        private final long lsb;
+
+        private final byte[] data;
+
+        private final GCGeneration generation;
+
+        Entry(long msb, long lsb, byte[] data, GCGeneration generation) {
+            this.msb = msb;
+            this.lsb = lsb;
+            this.data = data;
+            this.generation = generation;
+        }
+
+    }
+
+    private static class Barrier extends Item {
+
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private final boolean sync;
+
+        private final boolean stop;
+
+        Barrier(boolean sync, boolean stop) {
+            this.sync = sync;
+            this.stop = stop;
+        }
+
+    }
+
+    private final BlockingQueue<Item> queue;
+
+    private final Map<UUID, Entry> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    private final EntryWriter writer;
+
+    private final Syncer syncer;
+
+    private final FileStoreMonitor monitor;
+
+    private final Thread thread;
+
+    private volatile Throwable failure;
+
+    /**
+     * Set by the I/O thread right before it terminates, for whatever reason.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Set once the stop barrier is queued. Guarded by {@code this}.
+     */
+    private boolean closed;
+
+    TarWriteQueue(String name, int capacity, EntryWriter writer, Syncer syncer, FileStoreMonitor monitor) {
+        checkArgument(capacity > 0, "capacity must be positive");
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = writer;
+        this.syncer = syncer;
+        this.monitor = monitor;
+        this.thread = new Thread(this::run, "TarMK write queue [" + name + "]");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Add a segment to this queue. The data is copied, so the caller may
+     * reuse the passed array once this method returns.
+     *
+     * @throws IOException if a previous write failed
+     */
+    void add(long msb, long lsb, byte[] data, int offset, int size, GCGeneration generation) throws IOException {
+        checkFailure();
+        byte[] copy = new byte[size];
+        System.arraycopy(data, offset, copy, 0, size);
+        Entry entry = new Entry(msb, lsb, copy, generation);
+        UUID id = new UUID(msb, lsb);
+        synchronized (this) {
+            checkState(!closed, "TAR write queue closed");
+            pending.put(id, entry);
+            pendingBytes.addAndGet(size);
+            try {
+                enqueue(entry);
+            } catch (IOException e) {
+                discard(id, entry);
+                throw e;
+            }
+        }
+        if (stopped && pending.remove(id, entry)) {
+            // The I/O thread terminated before it could take the segment
+            pendingBytes.addAndGet(-size);
+            checkFailure();
+        }
+        monitor.queued(queue.size());
+    }
+
+    /**
+     * @return the data of the segment if it is still pending, {@code null}
+     * otherwise.
+     */
+    Buffer read(long msb, long lsb) {
+        Entry entry = pending.get(new UUID(msb, lsb));
+        if (entry == null) {
+            return null;
+        }
+        return Buffer.wrap(entry.data);
+    }
+
+    boolean contains(long msb, long lsb) {
+        return pending.containsKey(new UUID(msb, lsb));
+    }
+
+    /**
+     * @return the number of segments not yet written to the archive.
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of bytes of the segments not yet written to the
+     * archive.
+     */
+    long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * Wait until all segments added so far are written and synced to the
+     * storage. Does nothing if this queue is already closed.
+     */
+    void flush() throws IOException {
+        Barrier barrier = new Barrier(true, false);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            enqueue(barrier);
+        }
+        await(barrier);
+    }
+
+    /**
+     * Write all pending segments and stop the I/O thread. Pending segments are
+     * not synced to the storage.
+     */
+    @Override
+    public void close() throws IOException {
+        Barrier barrier = new Barrier(false, true);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (stopped) {
+                checkFailure();
+                return;
+            }
+            enqueue(barrier);
+        }
+        try {
+            await(barrier);
+        } finally {
+            joinUninterruptibly(thread);
+        }
+    }
+
+    /**
+     * Put an item into the queue, waiting for space to become available.
+     * Fails instead of waiting forever if the I/O thread terminated.
+     */
+    private void enqueue(Item item) throws IOException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                if (stopped) {
+                    checkFailure();
+                    throw new IOException("The TAR write queue is stopped");
+                }
+                try {
+                    if (queue.offer(item, 100, MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wait for a barrier to complete. Completes the barrier exceptionally
+     * if the I/O thread terminated without taking it.
+     */
+    private void await(Barrier barrier) throws IOException {
+        while (true) {
+            try {
+                getUninterruptibly(barrier.done, 100, MILLISECONDS);
+                return;
+            } catch (ExecutionException e) {
+                throw new IOException("Unable to write to the TAR file", e.getCause());
+            } catch (TimeoutException e) {
+                if (stopped) {
+                    barrier.done.completeExceptionally(getStopFailure());
+                }
+            }
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable e = failure;
+        if (e != null) {
+            throw new IOException("A previous write to the TAR file failed", e);
+        }
+    }
+
+    private Throwable getStopFailure() {
+        Throwable e = failure;
+        if (e != null) {
+            return e;
+        }
+        return new IOException("The TAR write queue is stopped");
+    }
+
+    private void discard(UUID id, Entry entry) {
+        if (pending.remove(id, entry)) {
+            pendingBytes.addAndGet(-entry.data.length);
+        }
+    }
+
+    private void run() {
+        List<Item> batch = new ArrayList<>();
+        boolean stop = false;
+        try {
+            while (!stop) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    // The queue is only ever stopped through close()
+                    log.debug("Ignoring interrupt of the TAR write queue");
+                    continue;
+                }
+                queue.drainTo(batch);
+                stop = process(batch);
+                batch.clear();
+            }
+        } catch (Throwable t) {
+            log.error("The TAR write queue terminated unexpectedly", t);
+            if (failure == null) {
+                failure = t;
+            }
+        } finally {
+            // Fail whatever is left. The flag is set before draining the
+            // queue, so items added afterwards are failed by their callers.
+            stopped = true;
+            queue.drainTo(batch);
+            fail(batch);
+        }
+    }
+
+    private void fail(List<Item> items) {
+        Throwable e = getStopFailure();
+        for (Item item : items) {
+            if (item instanceof Entry) {
+                Entry entry = (Entry) item;
+                discard(new UUID(entry.msb, entry.lsb), entry);
+            } else {
+                ((Barrier) item).done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private boolean process(List<Item> batch) {
+        boolean sync = false;
+        boolean stop = false;
+        List<Barrier> barriers = new ArrayList<>();
+
+        for (Item item : batch) {
+            if (item instanceof Entry) {
+                write((Entry) item);
+            } else {
+                Barrier barrier = (Barrier) item;
+                sync |= barrier.sync;
+                stop |= barrier.stop;
+                barriers.add(barrier);
+            }
+        }
+
+        if (sync && failure == null) {
+            long start = System.nanoTime();
+            try {
+                syncer.sync();
+                monitor.synced(System.nanoTime() - start);
+            } catch (Throwable e) {
+                log.error("Unable to sync the TAR file", e);
+                failure = e;
+            }
+        }
+
+        for (Barrier barrier : barriers) {
+            if (failure == null) {
+                barrier.done.complete(null);
+            } else {
+                barrier.done.completeExceptionally(failure);
+            }
+        }
+        return stop;
+    }
+
+    private void write(Entry entry) {
+        UUID id = new UUID(entry.msb, entry.lsb);
+        try {
+            if (failure == null) {
+                writer.write(entry.msb, entry.lsb, entry.data, 0, entry.data.length, entry.generation);
+            }
+        } catch (Throwable e) {
+            log.error("Unable to write segment {} to the TAR file", id, e);
+            failure = e;
+        } finally {
+            // Once the queue failed, the segment will never be persisted.
+            // Don't keep serving it from memory.
+            discard(id, entry);
+        }
+    }
+
+}
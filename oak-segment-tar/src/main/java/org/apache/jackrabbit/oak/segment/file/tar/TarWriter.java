@@ -39,6 +39,8 @@ import java.util.zip.CRC32;
 
 import org.apache.jackrabbit.oak.commons.Buffer;
 import org.apache.jackrabbit.oak.segment.file.tar.binaries.BinaryReferencesIndexWriter;
+import org.apache.jackrabbit.oak.segment.spi.monitor.FileStoreMonitor;
+import org.apache.jackrabbit.oak.segment.spi.monitor.FileStoreMonitorAdapter;
 import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveManager;
 import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveWriter;
 import org.apache.jackrabbit.oak.stats.CounterStats;
@@ -88,6 +90,20 @@ class TarWriter implements Closeable {
      */
     private final CounterStats segmentCount;
 
+    private final FileStoreMonitor monitor;
+
+    /**
+     * Capacity of the {@link #writeQueue}. {@code 0} if segments are written
+     * synchronously.
+     */
+    private final int writeQueueSize;
+
+    /**
+     * Queue of the segments waiting to be appended to the archive or {@code
+     * null} if segments are written synchronously.
+     */
+    private final TarWriteQueue writeQueue;
+
     /**
      * Used for maintenance operations (GC or recovery) via the TarReader and
      * tests
@@ -97,18 +113,40 @@ class TarWriter implements Closeable {
         this.archive = archiveManager.create(archiveName);
         this.writeIndex = -1;
         this.segmentCount = NoopStats.INSTANCE;
+        this.monitor = new FileStoreMonitorAdapter();
+        this.writeQueueSize = 0;
+        this.writeQueue = null;
     }
 
     TarWriter(SegmentArchiveManager archiveManager, int writeIndex, CounterStats segmentCountStats)
+    throws IOException {
+        this(archiveManager, writeIndex, segmentCountStats, new FileStoreMonitorAdapter(), 0);
+    }
+
+    /**
+     * @param writeQueueSize  capacity of the queue of segments written
+     *                        asynchronously or {@code 0} to write segments
+     *                        synchronously. See {@link TarWriteQueue}.
+     */
+    TarWriter(SegmentArchiveManager archiveManager, int writeIndex, CounterStats segmentCountStats,
+              FileStoreMonitor monitor, int writeQueueSize)
     throws IOException {
         this.archiveManager = archiveManager;
         this.archive = archiveManager.create(format(FILE_NAME_FORMAT, writeIndex, "a"));
         this.writeIndex = writeIndex;
         this.segmentCount = segmentCountStats;
+        this.monitor = monitor;
+        this.writeQueueSize = writeQueueSize;
+        this.writeQueue = writeQueueSize > 0
+            ? new TarWriteQueue(archive.getName(), writeQueueSize, this::doWriteEntry, this::doFlush, monitor)
+            : null;
     }
 
     synchronized boolean containsEntry(long msb, long lsb) {
         checkState(!closed);
+        if (writeQueue != null && writeQueue.contains(msb, lsb)) {
+            return true;
+        }
         return archive.containsSegment(msb, lsb);
     }
 
@@ -116,6 +154,9 @@ class TarWriter implements Closeable {
      * @return  the number of entries currently in this writer
      */
     int getEntryCount() {
+        if (writeQueue != null) {
+            return archive.getEntryCount() + writeQueue.getPendingCount();
+        }
         return archive.getEntryCount();
     }
 
@@ -131,13 +172,38 @@ class TarWriter implements Closeable {
         synchronized (this) {
             checkState(!closed);
         }
+        if (writeQueue != null) {
+            Buffer b = writeQueue.read(msb, lsb);
+            if (b != null) {
+                return b;
+            }
+        }
         return archive.readSegment(msb, lsb);
     }
 
+    /**
+     * Write a segment to this file. If this writer has a write queue the
+     * segment is only added to the queue and written asynchronously.
+     *
+     * @return the length of this file including the segments still pending
+     * in the write queue. For pending segments the length is an estimate.
+     */
     long writeEntry(long msb, long lsb, byte[] data, int offset, int size, GCGeneration generation) throws IOException {
         checkNotNull(data);
         checkPositionIndexes(offset, offset + size, data.length);
 
+        if (writeQueue == null) {
+            return doWriteEntry(msb, lsb, data, offset, size, generation);
+        }
+
+        synchronized (this) {
+            checkState(!closed);
+        }
+        writeQueue.add(msb, lsb, data, offset, size, generation);
+        return fileLength() + writeQueue.getPendingBytes();
+    }
+
+    private long doWriteEntry(long msb, long lsb, byte[] data, int offset, int size, GCGeneration generation) throws IOException {
         synchronized (this) {
             checkState(!closed);
 
@@ -171,10 +237,31 @@ class TarWriter implements Closeable {
      * and writes to proceed while the file is being flushed. However,
      * this method <em>is</em> carefully synchronized with {@link #close()}
      * to prevent accidental flushing of an already closed file.
+     * <p>
+     * If this writer has a write queue, this method waits until the segments
+     * pending in the queue are written and flushed. Concurrent calls are
+     * served by a single flush of the underlying archive.
      *
      * @throws IOException if the tar file could not be flushed
      */
     void flush() throws IOException {
+        if (writeQueue == null) {
+            long start = System.nanoTime();
+            if (doFlush()) {
+                monitor.synced(System.nanoTime() - start);
+            }
+            return;
+        }
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+        }
+        writeQueue.flush();
+    }
+
+    private boolean doFlush() throws IOException {
         synchronized (closeMonitor) {
             boolean doFlush;
 
@@ -185,6 +272,7 @@ class TarWriter implements Closeable {
             if (doFlush) {
                 archive.flush();
             }
+            return doFlush;
         }
     }
 
@@ -195,6 +283,12 @@ class TarWriter implements Closeable {
      */
     @Override
     public void close() throws IOException {
+        // Write the segments still pending in the queue before marking this
+        // writer as closed.
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+
         // Mark this writer as closed. Note that we only need to synchronize
         // this part, as no other synchronized methods should get invoked
         // once close() has been initiated (see related checkState calls).
@@ -238,7 +332,7 @@ class TarWriter implements Closeable {
         }
         close();
         int newIndex = writeIndex + 1;
-        return new TarWriter(archiveManager, newIndex, segmentCount);
+        return new TarWriter(archiveManager, newIndex, segmentCount, monitor, writeQueueSize);
     }
 
     private void writeBinaryReferences() throws IOException {
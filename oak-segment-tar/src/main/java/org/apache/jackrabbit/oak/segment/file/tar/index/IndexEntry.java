@@ -75,6 +75,13 @@ public interface IndexEntry extends SegmentArchiveEntry {
      */
     boolean isCompacted();
 
+    /**
+     * Return {@code true} if the data of this entry is stored compressed.
+     *
+     * @return {@code true} if the data of this entry is stored compressed.
+     */
+    boolean isCompressed();
+
     Comparator<IndexEntry> POSITION_ORDER = new Comparator<IndexEntry>() {
         @Override
         public int compare(IndexEntry a, IndexEntry b) {
@@ -67,4 +67,9 @@ class IndexEntryV1 implements IndexEntry {
         return true;
     }
 
+    @Override
+    public boolean isCompressed() {
+        return false;
+    }
+
 }
@@ -23,9 +23,9 @@ class IndexEntryV2 implements IndexEntry {
 
     static final int SIZE = 33;
 
-    private final Buffer index;
+    final Buffer index;
 
-    private final int position;
+    final int position;
 
     IndexEntryV2(Buffer index, int position) {
         this.index = index;
@@ -67,4 +67,9 @@ class IndexEntryV2 implements IndexEntry {
         return index.get(position + 32) != 0;
     }
 
+    @Override
+    public boolean isCompressed() {
+        return false;
+    }
+
 }
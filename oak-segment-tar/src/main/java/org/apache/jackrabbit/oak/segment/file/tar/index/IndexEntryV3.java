@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jackrabbit.oak.segment.file.tar.index;
+
+import org.apache.jackrabbit.oak.commons.Buffer;
+
+/**
+ * An entry of a {@link IndexV3}. The layout is the same as the one of {@link
+ * IndexEntryV2}, but the last byte of the entry is interpreted as a set of
+ * flags instead of a boolean.
+ */
+class IndexEntryV3 extends IndexEntryV2 {
+
+    /**
+     * Flag set if the entry was generated by a compaction operation.
+     */
+    static final int COMPACTED = 0x01;
+
+    /**
+     * Flag set if the data of the entry is stored compressed.
+     */
+    static final int COMPRESSED = 0x02;
+
+    IndexEntryV3(Buffer index, int position) {
+        super(index, position);
+    }
+
+    @Override
+    public boolean isCompacted() {
+        return (index.get(position + 32) & COMPACTED) != 0;
+    }
+
+    @Override
+    public boolean isCompressed() {
+        return (index.get(position + 32) & COMPRESSED) != 0;
+    }
+
+}
@@ -43,7 +43,7 @@ class IndexLoaderV2 {
         int bytes = meta.getInt();
         int magic = meta.getInt();
 
-        if (magic != MAGIC) {
+        if (magic != magic()) {
             throw new InvalidIndexException("Magic number mismatch");
         }
         if (count < 1) {
@@ -100,6 +100,14 @@ class IndexLoaderV2 {
         }
         entries.reset();
 
+        return newIndex(entries);
+    }
+
+    int magic() {
+        return MAGIC;
+    }
+
+    IndexV2 newIndex(Buffer entries) {
         return new IndexV2(entries);
     }
 
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jackrabbit.oak.segment.file.tar.index;
+
+import org.apache.jackrabbit.oak.commons.Buffer;
+
+class IndexLoaderV3 extends IndexLoaderV2 {
+
+    static final int MAGIC = ('\n' << 24) + ('2' << 16) + ('K' << 8) + '\n';
+
+    IndexLoaderV3(int blockSize) {
+        super(blockSize);
+    }
+
+    @Override
+    int magic() {
+        return MAGIC;
+    }
+
+    @Override
+    IndexV2 newIndex(Buffer entries) {
+        return new IndexV3(entries);
+    }
+
+}
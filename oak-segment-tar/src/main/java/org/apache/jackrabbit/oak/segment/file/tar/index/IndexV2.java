@@ -103,7 +103,11 @@ class IndexV2 implements Index {
 
     @Override
     public IndexEntryV2 entry(int i) {
-        return new IndexEntryV2(entries, checkElementIndex(i, count()) * IndexEntryV2.SIZE);
+        return newEntry(entries, checkElementIndex(i, count()) * IndexEntryV2.SIZE);
+    }
+
+    IndexEntryV2 newEntry(Buffer entries, int position) {
+        return new IndexEntryV2(entries, position);
     }
 
 }
@@ -47,6 +47,8 @@ public class IndexWriter {
 
         boolean isCompacted;
 
+        boolean isCompressed;
+
     }
 
     /**
@@ -85,6 +87,25 @@ public class IndexWriter {
      *                       compaction operation.
      */
     public void addEntry(long msb, long lsb, int offset, int size, int generation, int fullGeneration, boolean isCompacted) {
+        addEntry(msb, lsb, offset, size, generation, fullGeneration, isCompacted, false);
+    }
+
+    /**
+     * Add an entry to this index.
+     *
+     * @param msb            The most significant bits of the entry identifier.
+     * @param lsb            The least significant bits of the entry
+     *                       identifier.
+     * @param offset         The position of the entry in the file.
+     * @param size           The size of the entry.
+     * @param generation     The generation of the entry.
+     * @param fullGeneration The full generation of the entry.
+     * @param isCompacted    Whether the entry is generated as part of a
+     *                       compaction operation.
+     * @param isCompressed   Whether the data of the entry is stored
+     *                       compressed.
+     */
+    public void addEntry(long msb, long lsb, int offset, int size, int generation, int fullGeneration, boolean isCompacted, boolean isCompressed) {
         Entry entry = new Entry();
         entry.msb = msb;
         entry.lsb = lsb;
@@ -93,6 +114,7 @@ public class IndexWriter {
         entry.generation = generation;
         entry.fullGeneration = fullGeneration;
         entry.isCompacted = isCompacted;
+        entry.isCompressed = isCompressed;
         entries.add(entry);
     }
 
@@ -100,6 +122,10 @@ public class IndexWriter {
      * Serializes the content of the index. The returned array of bytes is
      * always a multiple of the block size specified when this {@link
      * IndexWriter} was created.
+     * <p>
+     * The index is written in the V2 format unless at least one of its entries
+     * is compressed. In that case the V3 format is used, which readers not
+     * aware of compressed entries reject.
      *
      * @return the serialized content of the index.
      */
@@ -126,6 +152,8 @@ public class IndexWriter {
             return 0;
         });
 
+        boolean hasCompressedEntries = entries.stream().anyMatch(e -> e.isCompressed);
+
         for (Entry entry : entries) {
             buffer.putLong(entry.msb);
             buffer.putLong(entry.lsb);
@@ -133,7 +161,14 @@ public class IndexWriter {
             buffer.putInt(entry.size);
             buffer.putInt(entry.generation);
             buffer.putInt(entry.fullGeneration);
-            buffer.put((byte) (entry.isCompacted ? 1 : 0));
+            int flags = 0;
+            if (entry.isCompacted) {
+                flags |= IndexEntryV3.COMPACTED;
+            }
+            if (entry.isCompressed) {
+                flags |= IndexEntryV3.COMPRESSED;
+            }
+            buffer.put((byte) flags);
         }
 
         CRC32 checksum = new CRC32();
@@ -142,7 +177,7 @@ public class IndexWriter {
         buffer.putInt((int) checksum.getValue());
         buffer.putInt(entries.size());
         buffer.putInt(totalSize);
-        buffer.putInt(IndexLoaderV2.MAGIC);
+        buffer.putInt(hasCompressedEntries ? IndexLoaderV3.MAGIC : IndexLoaderV2.MAGIC);
 
         return buffer.array();
     }
@@ -19,6 +19,7 @@
 
 package org.apache.jackrabbit.oak.segment.file.tooling;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.apache.jackrabbit.oak.api.Type.BINARIES;
 import static org.apache.jackrabbit.oak.api.Type.BINARY;
 import static org.apache.jackrabbit.oak.commons.PathUtils.concat;
@@ -41,6 +42,7 @@ import org.apache.jackrabbit.oak.segment.SegmentBlob;
 import org.apache.jackrabbit.oak.segment.SegmentNodeStore;
 import org.apache.jackrabbit.oak.segment.SegmentNodeStoreBuilders;
 import org.apache.jackrabbit.oak.segment.SegmentNotFoundException;
+import org.apache.jackrabbit.oak.segment.SegmentReadAhead;
 import org.apache.jackrabbit.oak.segment.file.JournalEntry;
 import org.apache.jackrabbit.oak.segment.file.ReadOnlyFileStore;
 import org.apache.jackrabbit.oak.spi.state.ChildNodeEntry;
@@ -71,6 +73,26 @@ public class ConsistencyChecker {
 
     }
 
+    private final int prefetchDepth;
+
+    private SegmentReadAhead readAhead;
+
+    public ConsistencyChecker() {
+        this(0);
+    }
+
+    /**
+     * @param prefetchDepth the number of levels below the node being checked
+     *                      whose segments are loaded ahead of time by {@link
+     *                      #checkConsistency(ReadOnlyFileStore, Iterator,
+     *                      boolean, Set, Set, boolean)}, or {@code 0} to
+     *                      disable read-ahead.
+     */
+    public ConsistencyChecker(int prefetchDepth) {
+        checkArgument(prefetchDepth >= 0, "prefetchDepth must not be negative");
+        this.prefetchDepth = prefetchDepth;
+    }
+
     protected void onCheckRevision(String revision) {
         // Do nothing.
     }
@@ -346,6 +368,27 @@ public class ConsistencyChecker {
         Set<String> checkpoints,
         Set<String> paths,
         boolean binaries
+    ) {
+        if (prefetchDepth == 0) {
+            return checkJournalConsistency(store, journal, head, checkpoints, paths, binaries);
+        }
+
+        readAhead = new SegmentReadAhead(SegmentReadAhead.DEFAULT_THREADS, prefetchDepth);
+        try {
+            return checkJournalConsistency(store, journal, head, checkpoints, paths, binaries);
+        } finally {
+            readAhead.close();
+            readAhead = null;
+        }
+    }
+
+    private ConsistencyCheckResult checkJournalConsistency(
+        ReadOnlyFileStore store,
+        Iterator<JournalEntry> journal,
+        boolean head,
+        Set<String> checkpoints,
+        Set<String> paths,
+        boolean binaries
     ) {
         List<PathToCheck> headPaths = new ArrayList<>();
         Map<String, List<PathToCheck>> checkpointPaths = new HashMap<>();
@@ -489,7 +532,11 @@ public class ConsistencyChecker {
         }
 
         try {
-            for (ChildNodeEntry cne : node.getChildNodeEntries()) {
+            Iterable<? extends ChildNodeEntry> children = readAhead == null
+                ? node.getChildNodeEntries()
+                : readAhead.getChildNodeEntries(node);
+
+            for (ChildNodeEntry cne : children) {
                 String childName = cne.getName();
                 NodeState child = cne.getNodeState();
                 result = checkNodeAndDescendants(child, concat(path, childName), checkBinaries);
@@ -87,4 +87,16 @@ public class CompositeIOMonitor implements IOMonitor {
         ioMonitors.forEach(ioMonitor ->
             ioMonitor.afterSegmentWrite(file, msb, lsb, length, elapsed));
     }
+
+    @Override
+    public void onSegmentCacheHit(File file, long msb, long lsb, int length) {
+        ioMonitors.forEach(ioMonitor ->
+            ioMonitor.onSegmentCacheHit(file, msb, lsb, length));
+    }
+
+    @Override
+    public void onSegmentCacheMiss(File file, long msb, long lsb) {
+        ioMonitors.forEach(ioMonitor ->
+            ioMonitor.onSegmentCacheMiss(file, msb, lsb));
+    }
 }
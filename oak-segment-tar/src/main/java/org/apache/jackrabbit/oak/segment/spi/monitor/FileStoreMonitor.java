@@ -44,4 +44,23 @@ public interface FileStoreMonitor {
      */
     void flushed();
 
+    /**
+     * Notifies the monitor when a segment is added to the queue of segments
+     * waiting to be written asynchronously.
+     *
+     * @param depth number of items in the queue after adding the segment
+     */
+    default void queued(int depth) {
+        // Intentionally left blank
+    }
+
+    /**
+     * Notifies the monitor when written data is synced to the storage.
+     *
+     * @param nanos time taken by the sync operation in nanoseconds
+     */
+    default void synced(long nanos) {
+        // Intentionally left blank
+    }
+
 }
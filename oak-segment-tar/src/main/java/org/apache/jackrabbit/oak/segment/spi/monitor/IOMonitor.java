@@ -69,4 +69,30 @@ public interface IOMonitor {
      */
     void afterSegmentWrite(File file, long msb, long lsb, int length, long elapsed);
 
+    /**
+     * Called when a segment is served by a cache in front of the persistence,
+     * e.g. a local disk cache of a remote store, instead of being read from
+     * the persistence.
+     *
+     * @param file   File containing the segment.
+     * @param msb    Most significant bits of the segment ID.
+     * @param lsb    Least significant bits of the segment ID.
+     * @param length Size of the segment.
+     */
+    default void onSegmentCacheHit(File file, long msb, long lsb, int length) {
+        // Intentionally left blank
+    }
+
+    /**
+     * Called when a segment is not found in a cache in front of the
+     * persistence and needs to be read from the persistence.
+     *
+     * @param file   File containing the segment.
+     * @param msb    Most significant bits of the segment ID.
+     * @param lsb    Least significant bits of the segment ID.
+     */
+    default void onSegmentCacheMiss(File file, long msb, long lsb) {
+        // Intentionally left blank
+    }
+
 }
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment.spi.persistence;
+
+import static java.util.Collections.emptyList;
+
+import java.util.List;
+
+/**
+ * A {@link GCJournalFile} that discards all lines written to it. Used as the
+ * default for the optional files of a {@link SegmentNodeStorePersistence}.
+ */
+class EmptyGCJournalFile implements GCJournalFile {
+
+    static final GCJournalFile INSTANCE = new EmptyGCJournalFile();
+
+    private EmptyGCJournalFile() {
+        // Prevent external instantiation.
+    }
+
+    @Override
+    public void writeLine(String line) {
+        // Intentionally left blank
+    }
+
+    @Override
+    public List<String> readLines() {
+        return emptyList();
+    }
+
+    @Override
+    public void truncate() {
+        // Intentionally left blank
+    }
+
+}
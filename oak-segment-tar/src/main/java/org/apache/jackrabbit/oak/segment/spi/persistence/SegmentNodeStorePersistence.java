@@ -66,6 +66,32 @@ public interface SegmentNodeStorePersistence {
      */
     GCJournalFile getGCJournalFile() throws IOException;
 
+    /**
+     * Create the file persisting the mapping from uncompacted to compacted
+     * roots and node records of the last successful compaction. The file has
+     * the same line oriented contract as the {@link GCJournalFile}. The
+     * default implementation doesn't persist anything, such that each
+     * compaction starts without a mapping.
+     * @return object representing the compaction map file
+     * @throws IOException
+     */
+    default GCJournalFile getCompactionMapFile() throws IOException {
+        return EmptyGCJournalFile.INSTANCE;
+    }
+
+    /**
+     * Create the file persisting the dictionary of frequently written string
+     * and template records of the current gc generation. The file has the
+     * same line oriented contract as the {@link GCJournalFile}. The default
+     * implementation doesn't persist anything, such that the writer caches
+     * start empty after a restart.
+     * @return object representing the record dictionary file
+     * @throws IOException
+     */
+    default GCJournalFile getRecordDictionaryFile() throws IOException {
+        return EmptyGCJournalFile.INSTANCE;
+    }
+
     /**
      * Create the {@link ManifestFile}.
      * @return object representing the manifest file
@@ -65,6 +65,16 @@ public class SplitPersistence implements SegmentNodeStorePersistence {
             gcJournalFile.writeLine(line);
         }
 
+        GCJournalFile compactionMapFile = rwPersistence.getCompactionMapFile();
+        for (String line : roPersistence.getCompactionMapFile().readLines()) {
+            compactionMapFile.writeLine(line);
+        }
+
+        GCJournalFile recordDictionaryFile = rwPersistence.getRecordDictionaryFile();
+        for (String line : roPersistence.getRecordDictionaryFile().readLines()) {
+            recordDictionaryFile.writeLine(line);
+        }
+
         List<String> journalLines = new ArrayList<>();
         try (JournalFileReader journalFileReader = roPersistence.getJournalFile().openJournalReader()) {
             String journalLine;
@@ -120,6 +130,16 @@ public class SplitPersistence implements SegmentNodeStorePersistence {
         return rwPersistence.getGCJournalFile();
     }
 
+    @Override
+    public GCJournalFile getCompactionMapFile() throws IOException {
+        return rwPersistence.getCompactionMapFile();
+    }
+
+    @Override
+    public GCJournalFile getRecordDictionaryFile() throws IOException {
+        return rwPersistence.getRecordDictionaryFile();
+    }
+
     @Override
     public ManifestFile getManifestFile() throws IOException {
         return rwPersistence.getManifestFile();
@@ -18,6 +18,7 @@
 package org.apache.jackrabbit.oak.segment.standby.client;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -42,6 +43,11 @@ import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.util.CharsetUtil;
 import org.apache.jackrabbit.oak.segment.standby.codec.GetBlobRequest;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetArchiveRequest;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetArchiveRequestEncoder;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetArchivesRequest;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetArchivesRequestEncoder;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetArchivesResponse;
 import org.apache.jackrabbit.oak.segment.standby.codec.GetBlobRequestEncoder;
 import org.apache.jackrabbit.oak.segment.standby.codec.GetBlobResponse;
 import org.apache.jackrabbit.oak.segment.standby.codec.GetHeadRequest;
@@ -70,6 +76,8 @@ class StandbyClient implements AutoCloseable {
 
     private final BlockingQueue<GetReferencesResponse> referencesQueue = new LinkedBlockingDeque<>();
 
+    private final BlockingQueue<GetArchivesResponse> archivesQueue = new LinkedBlockingDeque<>();
+
     private final int readTimeoutMs;
 
     private final String clientId;
@@ -115,6 +123,8 @@ class StandbyClient implements AutoCloseable {
                     p.addLast(new GetSegmentRequestEncoder());
                     p.addLast(new GetBlobRequestEncoder());
                     p.addLast(new GetReferencesRequestEncoder());
+                    p.addLast(new GetArchivesRequestEncoder());
+                    p.addLast(new GetArchiveRequestEncoder());
 
                     // Handlers
 
@@ -122,6 +132,7 @@ class StandbyClient implements AutoCloseable {
                     p.addLast(new GetSegmentResponseHandler(segmentQueue));
                     p.addLast(new GetBlobResponseHandler(blobQueue));
                     p.addLast(new GetReferencesResponseHandler(referencesQueue));
+                    p.addLast(new GetArchivesResponseHandler(archivesQueue));
 
                     // Exception handler
 
@@ -171,11 +182,43 @@ class StandbyClient implements AutoCloseable {
         return response.getSegmentData();
     }
 
+    /**
+     * Send a request for a segment without waiting for the response. The
+     * primary answers requests in the order they are sent. Use {@link
+     * #receiveSegment(String)} to retrieve the responses in the same order.
+     */
+    void requestSegment(String segmentId) {
+        channel.writeAndFlush(new GetSegmentRequest(clientId, segmentId));
+    }
+
+    /**
+     * Wait for the response to a request previously sent by {@link
+     * #requestSegment(String)}.
+     *
+     * @return the content of the segment or {@code null} if the response
+     * timed out or if it is not the one for {@code segmentId}.
+     */
+    @Nullable
+    byte[] receiveSegment(String segmentId) throws InterruptedException {
+        GetSegmentResponse response = segmentQueue.poll(readTimeoutMs, TimeUnit.MILLISECONDS);
+
+        if (response == null) {
+            return null;
+        }
+
+        if (!segmentId.equals(response.getSegmentId())) {
+            log.debug("Expected segment {}, received segment {}", segmentId, response.getSegmentId());
+            return null;
+        }
+
+        return response.getSegmentData();
+    }
+
     @Nullable
     InputStream getBlob(String blobId) throws InterruptedException {
         channel.writeAndFlush(new GetBlobRequest(clientId, blobId));
 
-        GetBlobResponse response = blobQueue.poll(readTimeoutMs, TimeUnit.MILLISECONDS);
+        GetBlobResponse response = receiveBlob(blobId);
 
         if (response == null) {
             return null;
@@ -184,6 +227,40 @@ class StandbyClient implements AutoCloseable {
         return response.getInputStream();
     }
 
+    /**
+     * Wait for the response for the binary or archive {@code id}. Binaries
+     * and archives share the same queue, so a response to a previous request
+     * that timed out can still be received here. Such stale responses are
+     * discarded, and their spooled content deleted, while waiting.
+     *
+     * @return the response for {@code id} or {@code null} if the response
+     * timed out.
+     */
+    @Nullable
+    private GetBlobResponse receiveBlob(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeoutMs);
+
+        while (true) {
+            GetBlobResponse response = blobQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+            if (response == null) {
+                return null;
+            }
+
+            if (id.equals(response.getBlobId())) {
+                return response;
+            }
+
+            log.debug("Expected {}, discarding stale response for {}", id, response.getBlobId());
+
+            try {
+                response.getInputStream().close();
+            } catch (IOException e) {
+                log.warn("Unable to discard stale response for {}", response.getBlobId(), e);
+            }
+        }
+    }
+
     @Nullable
     Iterable<String> getReferences(String segmentId) throws InterruptedException {
         channel.writeAndFlush(new GetReferencesRequest(clientId, segmentId));
@@ -197,6 +274,74 @@ class StandbyClient implements AutoCloseable {
         return response.getReferences();
     }
 
+    /**
+     * Send a request for the references of a segment without waiting for the
+     * response. Use {@link #receiveReferences(String)} to retrieve the
+     * responses in the order the requests were sent.
+     */
+    void requestReferences(String segmentId) {
+        channel.writeAndFlush(new GetReferencesRequest(clientId, segmentId));
+    }
+
+    /**
+     * Wait for the response to a request previously sent by {@link
+     * #requestReferences(String)}.
+     *
+     * @return the references of the segment or {@code null} if the response
+     * timed out or if it is not the one for {@code segmentId}.
+     */
+    @Nullable
+    Iterable<String> receiveReferences(String segmentId) throws InterruptedException {
+        GetReferencesResponse response = referencesQueue.poll(readTimeoutMs, TimeUnit.MILLISECONDS);
+
+        if (response == null) {
+            return null;
+        }
+
+        if (!segmentId.equals(response.getSegmentId())) {
+            log.debug("Expected references of segment {}, received references of segment {}", segmentId, response.getSegmentId());
+            return null;
+        }
+
+        return response.getReferences();
+    }
+
+    /**
+     * Retrieve the names of the sealed archives of the primary.
+     *
+     * @return the names of the sealed archives, sorted in the order they were
+     * created, or {@code null} if the response timed out. The latter is also
+     * the case when the primary doesn't support the transfer of archives.
+     */
+    @Nullable
+    Iterable<String> getArchives() throws InterruptedException {
+        channel.writeAndFlush(new GetArchivesRequest(clientId));
+
+        GetArchivesResponse response = archivesQueue.poll(readTimeoutMs, TimeUnit.MILLISECONDS);
+
+        if (response == null) {
+            return null;
+        }
+
+        return response.getArchiveNames();
+    }
+
+    /**
+     * Retrieve the content of a sealed archive of the primary. The content is
+     * transferred like the one of a binary and spooled to a file, which is
+     * available from {@link GetBlobResponse#getFile()} until the stream of the
+     * response is closed.
+     *
+     * @return the response containing the archive or {@code null} if the
+     * response timed out.
+     */
+    @Nullable
+    GetBlobResponse getArchive(String archiveName) throws InterruptedException {
+        channel.writeAndFlush(new GetArchiveRequest(clientId, archiveName));
+
+        return receiveBlob(archiveName);
+    }
+
     public int getReadTimeoutMs() {
         return readTimeoutMs;
     }
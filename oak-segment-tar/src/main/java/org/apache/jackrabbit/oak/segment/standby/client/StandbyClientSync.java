@@ -96,6 +96,30 @@ public final class StandbyClientSync implements ClientStandbyStatusMBean, Runnab
     }
 
     public StandbyClientSync(String host, int port, FileStore store, boolean secure, int readTimeoutMs, boolean autoClean, File spoolFolder) {
+        this(host, port, store, secure, readTimeoutMs, autoClean, spoolFolder, 1);
+    }
+
+    /**
+     * @param maxInFlightRequests maximum number of requests kept in flight
+     *                            while copying missing segments from the
+     *                            primary. A value greater than {@code 1}
+     *                            enables pipelined copying.
+     */
+    public StandbyClientSync(String host, int port, FileStore store, boolean secure, int readTimeoutMs, boolean autoClean, File spoolFolder, int maxInFlightRequests) {
+        this(host, port, store, secure, readTimeoutMs, autoClean, spoolFolder, maxInFlightRequests, false);
+    }
+
+    /**
+     * @param maxInFlightRequests maximum number of requests kept in flight
+     *                            while copying missing segments from the
+     *                            primary. A value greater than {@code 1}
+     *                            enables pipelined copying.
+     * @param archiveBootstrap    if {@code true}, a standby with an empty
+     *                            store copies the sealed archives of the
+     *                            primary as a whole before synchronizing
+     *                            incrementally.
+     */
+    public StandbyClientSync(String host, int port, FileStore store, boolean secure, int readTimeoutMs, boolean autoClean, File spoolFolder, int maxInFlightRequests, boolean archiveBootstrap) {
         this.state = STATUS_INITIALIZING;
         this.lastSuccessfulRequest = -1;
         this.syncStartTimestamp = -1;
@@ -109,7 +133,7 @@ public final class StandbyClientSync implements ClientStandbyStatusMBean, Runnab
         this.fileStore = store;
         this.observer = new CommunicationObserver(clientId());
         this.group = new NioEventLoopGroup(0, new NamedThreadFactory("standby"));
-        this.execution = new StandbyClientSyncExecution(fileStore, () -> running);
+        this.execution = new StandbyClientSyncExecution(fileStore, () -> running, maxInFlightRequests, archiveBootstrap);
         this.spoolFolder = spoolFolder;
         try {
             ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(this, ClientStandbyStatusMBean.class), new ObjectName(this.getMBeanName()));
@@ -268,6 +292,26 @@ public final class StandbyClientSync implements ClientStandbyStatusMBean, Runnab
         return syncEndTimestamp;
     }
 
+    @Override
+    public int getMaxInFlightRequests() {
+        return execution.getMaxInFlightRequests();
+    }
+
+    @Override
+    public int getInFlightRequests() {
+        return execution.getInFlightRequests();
+    }
+
+    @Override
+    public long getSegmentBytesPerSecond() {
+        return execution.getSegmentBytesPerSecond();
+    }
+
+    @Override
+    public int getBootstrappedArchives() {
+        return execution.getBootstrappedArchives();
+    }
+
     private void closeGroup() {
         if (group == null) {
             return;
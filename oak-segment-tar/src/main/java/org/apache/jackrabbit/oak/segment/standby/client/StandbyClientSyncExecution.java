@@ -17,14 +17,38 @@
 
 package org.apache.jackrabbit.oak.segment.standby.client;
 
+import static java.util.Collections.emptyList;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.jackrabbit.oak.commons.Buffer;
 import org.apache.jackrabbit.oak.segment.RecordId;
 import org.apache.jackrabbit.oak.segment.SegmentId;
 import org.apache.jackrabbit.oak.segment.SegmentIdProvider;
@@ -32,6 +56,13 @@ import org.apache.jackrabbit.oak.segment.SegmentNodeBuilder;
 import org.apache.jackrabbit.oak.segment.SegmentNodeState;
 import org.apache.jackrabbit.oak.segment.SegmentNotFoundException;
 import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.file.tar.SegmentTarManager;
+import org.apache.jackrabbit.oak.segment.spi.monitor.FileStoreMonitorAdapter;
+import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitorAdapter;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveEntry;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveReader;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetBlobResponse;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,13 +83,86 @@ class StandbyClientSyncExecution {
 
     private final Supplier<Boolean> running;
 
+    /**
+     * Maximum number of requests kept in flight when copying segments from
+     * the primary. A value of {@code 1} issues one request at a time.
+     */
+    private final int maxInFlightRequests;
+
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+    private final AtomicLong segmentBytes = new AtomicLong();
+
+    private volatile long startNanos = -1;
+
+    private volatile long endNanos = -1;
+
+    /**
+     * Whether a new standby is bootstrapped from the sealed archives of the
+     * primary. If {@code false}, the content is always copied one segment at
+     * a time.
+     */
+    private final boolean archiveBootstrap;
+
+    private final AtomicInteger bootstrappedArchives = new AtomicInteger();
+
     StandbyClientSyncExecution(FileStore store, Supplier<Boolean> running) {
+        this(store, running, 1);
+    }
+
+    StandbyClientSyncExecution(FileStore store, Supplier<Boolean> running, int maxInFlightRequests) {
+        this(store, running, maxInFlightRequests, false);
+    }
+
+    StandbyClientSyncExecution(FileStore store, Supplier<Boolean> running, int maxInFlightRequests, boolean archiveBootstrap) {
         this.store = store;
         this.idProvider = store.getSegmentIdProvider();
         this.running = running;
+        this.maxInFlightRequests = Math.max(1, maxInFlightRequests);
+        this.archiveBootstrap = archiveBootstrap;
+    }
+
+    int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    /**
+     * @return the number of archives copied from the primary by the archive
+     * bootstrap since this instance was created.
+     */
+    int getBootstrappedArchives() {
+        return bootstrappedArchives.get();
+    }
+
+    /**
+     * @return the number of segment bytes received per second during the
+     * current or the last execution, or {@code -1} if there was none yet.
+     */
+    long getSegmentBytesPerSecond() {
+        long start = startNanos;
+        if (start < 0) {
+            return -1;
+        }
+        long end = endNanos < start ? System.nanoTime() : endNanos;
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - start));
+        return segmentBytes.get() * 1000 / millis;
     }
 
     void execute(StandbyClient client) throws Exception {
+        segmentBytes.set(0);
+        startNanos = System.nanoTime();
+        try {
+            doExecute(client);
+        } finally {
+            endNanos = System.nanoTime();
+        }
+    }
+
+    private void doExecute(StandbyClient client) throws Exception {
         RecordId remoteHead = getHead(client);
 
         if (remoteHead == null) {
@@ -70,6 +174,10 @@ class StandbyClientSyncExecution {
             return;
         }
 
+        if (archiveBootstrap && isEmpty(store.getHead())) {
+            bootstrapFromArchives(client);
+        }
+
         Stopwatch stopwatch = Stopwatch.createStarted();
         SegmentNodeState before = store.getHead();
         SegmentNodeBuilder builder = before.builder();
@@ -79,6 +187,108 @@ class StandbyClientSyncExecution {
         log.info("Updated head state in {}", stopwatch);
     }
 
+    /**
+     * @return {@code true} if {@code head} is the head state of a newly
+     * created store, i.e. an empty root node and nothing else.
+     */
+    private static boolean isEmpty(SegmentNodeState head) {
+        if (head.getPropertyCount() > 0 || head.getChildNodeCount(2) > 1) {
+            return false;
+        }
+        NodeState root = head.getChildNode("root");
+        return root.getPropertyCount() == 0 && root.getChildNodeCount(1) == 0;
+    }
+
+    /**
+     * Copy the segments contained in the sealed archives of the primary into
+     * the local store. Transferring whole archives avoids a round trip for
+     * every segment when a new standby instance is started with an empty
+     * store. Segments that are already local are skipped, so an interrupted
+     * bootstrap is resumed by the next execution. Segments not contained in a
+     * sealed archive are copied afterwards by the regular, incremental
+     * synchronization. The bootstrap is skipped if the primary doesn't
+     * support the transfer of archives.
+     */
+    private void bootstrapFromArchives(StandbyClient client) throws Exception {
+        Iterable<String> archives = client.getArchives();
+
+        if (archives == null) {
+            log.info("Unable to fetch the archives of the primary, skipping bootstrap");
+            return;
+        }
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int count = 0;
+
+        for (String archive : archives) {
+            if (!running.get()) {
+                return;
+            }
+            if (!copyArchiveFromPrimary(client, archive)) {
+                log.info("Unable to copy archive {} from primary, skipping bootstrap", archive);
+                return;
+            }
+            bootstrappedArchives.incrementAndGet();
+            count++;
+        }
+
+        log.info("Bootstrapped {} archives from primary in {}", count, stopwatch);
+    }
+
+    private boolean copyArchiveFromPrimary(StandbyClient client, String archive) throws Exception {
+        log.info("Copying archive {} from primary", archive);
+
+        GetBlobResponse response = client.getArchive(archive);
+
+        if (response == null) {
+            return false;
+        }
+
+        // The archive is read from the file it was spooled to. Closing the
+        // stream of the response deletes that file.
+
+        try (InputStream ignored = response.getInputStream()) {
+            File file = response.getFile();
+            return file != null && installArchive(file);
+        }
+    }
+
+    private boolean installArchive(File file) throws IOException {
+        SegmentTarManager manager = new SegmentTarManager(file.getParentFile(), new FileStoreMonitorAdapter(), new IOMonitorAdapter(), false, false);
+        SegmentArchiveReader reader = manager.open(file.getName());
+
+        if (reader == null) {
+            return false;
+        }
+
+        try {
+            // Segments are listed in the order they were written to the
+            // archive, which is also the order they should be written locally.
+
+            for (SegmentArchiveEntry entry : reader.listSegments()) {
+                UUID uuid = new UUID(entry.getMsb(), entry.getLsb());
+
+                if (isLocal(uuid)) {
+                    continue;
+                }
+
+                Buffer buffer = reader.readSegment(entry.getMsb(), entry.getLsb());
+
+                if (buffer == null) {
+                    return false;
+                }
+
+                byte[] data = new byte[buffer.remaining()];
+                buffer.get(data);
+                writeSegment(uuid, data);
+            }
+        } finally {
+            reader.close();
+        }
+
+        return true;
+    }
+
     @Nullable
     private RecordId getHead(StandbyClient client) throws Exception {
         String head = client.getHead();
@@ -105,6 +315,11 @@ class StandbyClientSyncExecution {
     }
 
     private void copySegmentHierarchyFromPrimary(StandbyClient client, UUID segmentId) throws Exception {
+        if (maxInFlightRequests > 1) {
+            copySegmentHierarchyPipelined(client, segmentId);
+            return;
+        }
+
         Set<UUID> visited = new HashSet<>();
         List<UUID> bulk = new LinkedList<>();
         List<UUID> data = new LinkedList<>();
@@ -171,10 +386,198 @@ class StandbyClientSyncExecution {
             throw new IllegalStateException("Unable to read segment " + uuid);
         }
 
+        writeSegment(uuid, data);
+    }
+
+    private void writeSegment(UUID uuid, byte[] data) throws IOException {
         long msb = uuid.getMostSignificantBits();
         long lsb = uuid.getLeastSignificantBits();
         SegmentId segmentId = idProvider.newSegmentId(msb, lsb);
         store.writeSegment(segmentId, data, 0, data.length);
+        segmentBytes.addAndGet(data.length);
+    }
+
+    /**
+     * Copy the segments reachable from {@code root} and missing locally while
+     * keeping up to {@link #maxInFlightRequests} requests in flight. First the
+     * segment graph is discovered breadth first, then the segments are
+     * fetched in topological order and written to the local store
+     * concurrently. A data segment is only written once all the segments it
+     * references are written, which keeps the local store consistent if the
+     * copy is interrupted.
+     */
+    private void copySegmentHierarchyPipelined(StandbyClient client, UUID root) throws Exception {
+        Map<UUID, List<UUID>> graph = readReferencesPipelined(client, root);
+
+        List<UUID> bulk = new ArrayList<>();
+        List<UUID> data = new ArrayList<>();
+        sortTopologically(root, graph, new HashSet<>(), data, bulk);
+
+        List<UUID> order = new ArrayList<>(bulk.size() + data.size());
+        order.addAll(bulk);
+        order.addAll(data);
+
+        log.info("Copying {} bulk and {} data segments from primary", bulk.size(), data.size());
+        copySegmentsPipelined(client, order, graph);
+    }
+
+    private Map<UUID, List<UUID>> readReferencesPipelined(StandbyClient client, UUID root) throws Exception {
+        Map<UUID, List<UUID>> graph = new HashMap<>();
+        Set<UUID> visited = new HashSet<>();
+        Deque<UUID> pending = new ArrayDeque<>();
+        Deque<UUID> inFlight = new ArrayDeque<>();
+
+        if (isLocal(root)) {
+            return graph;
+        }
+
+        visited.add(root);
+        pending.add(root);
+
+        try {
+            while (!pending.isEmpty() || !inFlight.isEmpty()) {
+                while (!pending.isEmpty() && inFlight.size() < maxInFlightRequests) {
+                    UUID id = pending.remove();
+                    if (SegmentId.isDataSegmentId(id.getLeastSignificantBits())) {
+                        log.debug("Inspecting segment {}", id);
+                        client.requestReferences(id.toString());
+                        inFlight.add(id);
+                        inFlightRequests.incrementAndGet();
+                    } else {
+                        graph.put(id, emptyList());
+                    }
+                }
+
+                if (inFlight.isEmpty()) {
+                    continue;
+                }
+
+                UUID id = inFlight.remove();
+                inFlightRequests.decrementAndGet();
+                Iterable<String> references = client.receiveReferences(id.toString());
+
+                if (references == null) {
+                    throw new IllegalStateException(String.format("Unable to read references of segment %s from primary", id));
+                }
+
+                List<UUID> missing = new ArrayList<>();
+                for (String s : references) {
+                    UUID referenced = UUID.fromString(s);
+                    if (visited.contains(referenced)) {
+                        missing.add(referenced);
+                    } else if (!isLocal(referenced)) {
+                        log.debug("Found reference from {} to {}", id, referenced);
+                        missing.add(referenced);
+                        visited.add(referenced);
+                        pending.add(referenced);
+                    }
+                }
+                graph.put(id, missing);
+            }
+        } finally {
+            inFlightRequests.addAndGet(-inFlight.size());
+        }
+
+        return graph;
+    }
+
+    private static void sortTopologically(UUID id, Map<UUID, List<UUID>> graph, Set<UUID> visited, List<UUID> data, List<UUID> bulk) {
+        if (!graph.containsKey(id) || !visited.add(id)) {
+            return;
+        }
+
+        if (SegmentId.isDataSegmentId(id.getLeastSignificantBits())) {
+            for (UUID referenced : graph.get(id)) {
+                sortTopologically(referenced, graph, visited, data, bulk);
+            }
+            data.add(id);
+        } else {
+            bulk.add(id);
+        }
+    }
+
+    private void copySegmentsPipelined(StandbyClient client, List<UUID> order, Map<UUID, List<UUID>> graph) throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(
+            Math.min(maxInFlightRequests, Runtime.getRuntime().availableProcessors()),
+            new ThreadFactoryBuilder().setNameFormat("standby-segment-writer-%d").setDaemon(true).build()
+        );
+
+        // Each permit stands for a segment that was requested but not yet
+        // written. This bounds both the requests in flight and the segments
+        // held in memory while waiting to be written.
+        Semaphore window = new Semaphore(maxInFlightRequests);
+        AtomicReference<Throwable> writeFailure = new AtomicReference<>();
+        Map<UUID, CompletableFuture<Void>> written = new HashMap<>();
+        Deque<UUID> inFlight = new ArrayDeque<>();
+        Iterator<UUID> ids = order.iterator();
+
+        try {
+            while (ids.hasNext() || !inFlight.isEmpty()) {
+                Throwable failure = writeFailure.get();
+                if (failure != null) {
+                    throw new IOException("Unable to write segment copied from primary", failure);
+                }
+
+                while (ids.hasNext() && window.tryAcquire()) {
+                    UUID id = ids.next();
+                    client.requestSegment(id.toString());
+                    inFlight.add(id);
+                    inFlightRequests.incrementAndGet();
+                }
+
+                if (inFlight.isEmpty()) {
+                    // All permits are held by segments waiting to be written
+                    window.acquire();
+                    window.release();
+                    continue;
+                }
+
+                UUID id = inFlight.remove();
+                inFlightRequests.decrementAndGet();
+                byte[] data = client.receiveSegment(id.toString());
+
+                if (data == null) {
+                    throw new IllegalStateException("Unable to read segment " + id);
+                }
+
+                // References not yet scheduled for writing can only be part
+                // of a cycle. As in the sequential copy they are ignored.
+                CompletableFuture<?>[] dependencies = graph.get(id).stream()
+                    .map(written::get)
+                    .filter(Objects::nonNull)
+                    .toArray(CompletableFuture<?>[]::new);
+
+                CompletableFuture<Void> write = CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    try {
+                        log.debug("Writing segment {} copied from primary", id);
+                        writeSegment(id, data);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, writers);
+                write.whenComplete((v, e) -> {
+                    if (e != null) {
+                        writeFailure.compareAndSet(null, e);
+                    }
+                    window.release();
+                });
+                written.put(id, write);
+            }
+
+            CompletableFuture.allOf(written.values().toArray(new CompletableFuture<?>[0])).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        } finally {
+            inFlightRequests.addAndGet(-inFlight.size());
+            writers.shutdown();
+            if (!writers.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Timed out waiting for segment writers to terminate");
+            }
+        }
     }
 
 }
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.jackrabbit.oak.segment.standby.codec;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class GetArchivesResponseEncoder extends MessageToByteEncoder<GetArchivesResponse> {
+
+    private static final Logger log = LoggerFactory.getLogger(GetArchivesResponseEncoder.class);
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, GetArchivesResponse msg, ByteBuf out) throws Exception {
+        log.debug("Sending sealed archives to client {}", msg.getClientId());
+        encode(msg.getArchiveNames(), out);
+    }
+
+    private static void encode(Iterable<String> archiveNames, ByteBuf out) {
+        byte[] data = Joiner.on(",").join(archiveNames).getBytes(Charsets.UTF_8);
+        out.writeInt(data.length + 1);
+        out.writeByte(Messages.HEADER_ARCHIVES);
+        out.writeBytes(data);
+    }
+
+}
@@ -17,8 +17,11 @@
 
 package org.apache.jackrabbit.oak.segment.standby.codec;
 
+import java.io.File;
 import java.io.InputStream;
 
+import org.jetbrains.annotations.Nullable;
+
 public class GetBlobResponse {
 
     private final String clientId;
@@ -29,11 +32,18 @@ public class GetBlobResponse {
     
     private final long length;
 
+    private final File file;
+
     public GetBlobResponse(String clientId, String blobId, InputStream in, long length) {
+        this(clientId, blobId, in, length, null);
+    }
+
+    public GetBlobResponse(String clientId, String blobId, InputStream in, long length, @Nullable File file) {
         this.clientId = clientId;
         this.blobId = blobId;
         this.in = in;
         this.length = length;
+        this.file = file;
     }
 
     public String getClientId() {
@@ -51,4 +61,14 @@ public class GetBlobResponse {
     public long getLength() {
         return length;
     }
+
+    /**
+     * @return the file the content was spooled to, or {@code null} if the
+     * content is not backed by a file. The file is deleted when the stream
+     * returned by {@link #getInputStream()} is closed.
+     */
+    @Nullable
+    public File getFile() {
+        return file;
+    }
 }
@@ -15,17 +15,31 @@
  * limitations under the License.
  */
 
+
 package org.apache.jackrabbit.oak.segment.standby.codec;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
 public class GetSegmentResponse {
 
     private final String clientId;
 
     private final String segmentId;
 
-    private final byte[] segmentData;
+    private final ByteBuf segmentData;
 
     public GetSegmentResponse(String clientId, String segmentId, byte[] segmentData) {
+        this(clientId, segmentId, Unpooled.wrappedBuffer(segmentData));
+    }
+
+    /**
+     * Create a response whose content is backed by {@code segmentData}. The
+     * buffer is not copied, which allows to send a segment straight from the
+     * memory backing it.
+     */
+    public GetSegmentResponse(String clientId, String segmentId, ByteBuf segmentData) {
         this.clientId = clientId;
         this.segmentId = segmentId;
         this.segmentData = segmentData;
@@ -40,7 +54,15 @@ public class GetSegmentResponse {
     }
 
     public byte[] getSegmentData() {
-        return segmentData;
+        return ByteBufUtil.getBytes(segmentData, segmentData.readerIndex(), segmentData.readableBytes(), false);
+    }
+
+    public ByteBuf getSegmentBuffer() {
+        return segmentData.duplicate();
+    }
+
+    public int getSegmentSize() {
+        return segmentData.readableBytes();
     }
 
 }
@@ -17,20 +17,25 @@
 
 package org.apache.jackrabbit.oak.segment.standby.codec;
 
+import java.util.List;
 import java.util.UUID;
 
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Encodes a 'get segment' response.
+ * Encodes a 'get segment' response. Only the header of the response is
+ * allocated by this encoder. The content of the segment is appended to the
+ * header as is, which saves a copy of every segment on the heap. The content
+ * is still read by the {@code SnappyFrameEncoder} further down the pipeline.
  */
-public class GetSegmentResponseEncoder extends MessageToByteEncoder<GetSegmentResponse> {
+public class GetSegmentResponseEncoder extends MessageToMessageEncoder<GetSegmentResponse> {
 
     private static final Logger log = LoggerFactory.getLogger(GetSegmentResponseEncoder.class);
 
@@ -38,25 +43,43 @@ public class GetSegmentResponseEncoder extends MessageToByteEncoder<GetSegmentRe
 
     private static final int EXTRA_HEADERS_WO_SIZE = EXTRA_HEADERS_LEN - 4;
 
+    private static final int HASH_CHUNK_SIZE = 8192;
+
     @Override
-    protected void encode(ChannelHandlerContext ctx, GetSegmentResponse msg, ByteBuf out) throws Exception {
+    protected void encode(ChannelHandlerContext ctx, GetSegmentResponse msg, List<Object> out) throws Exception {
         log.debug("Sending segment {} to client {}", msg.getSegmentId(), msg.getClientId());
-        encode(msg.getSegmentId(), msg.getSegmentData(), out);
+        ByteBuf data = msg.getSegmentBuffer();
+        ByteBuf header = ctx.alloc().buffer(EXTRA_HEADERS_LEN);
+        encodeHeader(msg.getSegmentId(), data, header);
+        // The composite buffer takes ownership of the content of the
+        // response and releases it once written.
+        out.add(Unpooled.wrappedBuffer(header, data));
     }
 
-    private static void encode(String segmentId, byte[] data, ByteBuf out) {
+    private static void encodeHeader(String segmentId, ByteBuf data, ByteBuf out) {
         UUID id = UUID.fromString(segmentId);
 
-        Hasher hasher = Hashing.murmur3_32().newHasher();
-        long hash = hasher.putBytes(data).hash().padToLong();
-
-        int len = data.length + EXTRA_HEADERS_WO_SIZE;
+        int len = data.readableBytes() + EXTRA_HEADERS_WO_SIZE;
         out.writeInt(len);
         out.writeByte(Messages.HEADER_SEGMENT);
         out.writeLong(id.getMostSignificantBits());
         out.writeLong(id.getLeastSignificantBits());
-        out.writeLong(hash);
-        out.writeBytes(data);
+        out.writeLong(hash(data));
+    }
+
+    private static long hash(ByteBuf data) {
+        Hasher hasher = Hashing.murmur3_32().newHasher();
+        if (data.hasArray()) {
+            hasher.putBytes(data.array(), data.arrayOffset() + data.readerIndex(), data.readableBytes());
+        } else {
+            byte[] chunk = new byte[Math.min(HASH_CHUNK_SIZE, data.readableBytes())];
+            for (int i = data.readerIndex(); i < data.writerIndex(); i += chunk.length) {
+                int n = Math.min(chunk.length, data.writerIndex() - i);
+                data.getBytes(i, chunk, 0, n);
+                hasher.putBytes(chunk, 0, n);
+            }
+        }
+        return hasher.hash().padToLong();
     }
 
 }
@@ -29,6 +29,8 @@ final class Messages {
 
     static final byte HEADER_REFERENCES = 0x03;
 
+    static final byte HEADER_ARCHIVES = 0x04;
+
     static final String GET_HEAD = "h";
 
     static final String GET_SEGMENT = "s.";
@@ -37,6 +39,10 @@ final class Messages {
 
     static final String GET_REFERENCES = "r.";
 
+    static final String GET_ARCHIVES = "a";
+
+    static final String GET_ARCHIVE = "t.";
+
     private static final String MAGIC = "Standby-CMD@";
 
     private static final String SEPARATOR = ":";
@@ -92,6 +98,22 @@ final class Messages {
         return newGetBlobRequest(clientId, blobId, true);
     }
 
+    static String newGetArchivesRequest(String clientId, boolean delimited) {
+        return newRequest(clientId, GET_ARCHIVES, delimited);
+    }
+
+    static String newGetArchivesRequest(String clientId) {
+        return newGetArchivesRequest(clientId, true);
+    }
+
+    static String newGetArchiveRequest(String clientId, String archiveName, boolean delimited) {
+        return newRequest(clientId, GET_ARCHIVE + archiveName, delimited);
+    }
+
+    static String newGetArchiveRequest(String clientId, String archiveName) {
+        return newGetArchiveRequest(clientId, archiveName, true);
+    }
+
     static String extractMessageFrom(String payload) {
         if (payload.startsWith(MAGIC) && payload.length() > MAGIC.length()) {
             int i = payload.indexOf(SEPARATOR);
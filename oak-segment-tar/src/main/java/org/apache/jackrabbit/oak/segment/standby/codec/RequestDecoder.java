@@ -47,6 +47,12 @@ public class RequestDecoder extends MessageToMessageDecoder<String> {
         } else if (request.startsWith(Messages.GET_REFERENCES)) {
             log.debug("Parsed 'get references' message");
             out.add(new GetReferencesRequest(Messages.extractClientFrom(msg), request.substring(Messages.GET_REFERENCES.length())));
+        } else if (request.equalsIgnoreCase(Messages.GET_ARCHIVES)) {
+            log.debug("Parsed 'get archives' message");
+            out.add(new GetArchivesRequest(Messages.extractClientFrom(msg)));
+        } else if (request.startsWith(Messages.GET_ARCHIVE)) {
+            log.debug("Parsed 'get archive' message");
+            out.add(new GetArchiveRequest(Messages.extractClientFrom(msg), request.substring(Messages.GET_ARCHIVE.length())));
         } else {
             log.debug("Received unrecognizable message {}, dropping", msg);
         }
@@ -96,6 +96,10 @@ public class ResponseDecoder extends ByteToMessageDecoder {
                 log.debug("Decoding 'get references' response");
                 decodeGetReferencesResponse(length, in, out);
                 break;
+            case Messages.HEADER_ARCHIVES:
+                log.debug("Decoding 'get archives' response");
+                decodeGetArchivesResponse(length, in, out);
+                break;
             default:
                 log.debug("Invalid type, dropping message");
         }
@@ -167,7 +171,7 @@ public class ResponseDecoder extends ByteToMessageDecoder {
             log.debug("Received entire blob {}", blobId);
 
             if (blobLength == tempFile.length()) {
-                out.add(new GetBlobResponse(null, blobId, new DeleteOnCloseFileInputStream(tempFile), blobLength));
+                out.add(new GetBlobResponse(null, blobId, new DeleteOnCloseFileInputStream(tempFile), blobLength, tempFile));
             } else {
                 log.debug("Blob {} discarded due to size mismatch. Expected size: {}, actual size: {} ", blobId,
                         blobLength, tempFile.length());
@@ -202,6 +206,24 @@ public class ResponseDecoder extends ByteToMessageDecoder {
         out.add(new GetReferencesResponse(null, segmentId, references));
     }
 
+    private static void decodeGetArchivesResponse(int length, ByteBuf in, List<Object> out) {
+        byte[] data = new byte[length - 1];
+
+        in.readBytes(data);
+
+        String body = new String(data, Charsets.UTF_8);
+
+        List<String> archiveNames;
+
+        if (body.isEmpty()) {
+            archiveNames = emptyList();
+        } else {
+            archiveNames = asList(body.split(","));
+        }
+
+        out.add(new GetArchivesResponse(null, archiveNames));
+    }
+
     private static long hash(byte[] data) {
         return Hashing.murmur3_32().newHasher().putBytes(data).hash().padToLong();
     }
@@ -33,6 +33,18 @@ public interface ClientStandbyStatusMBean extends StandbyStatusMBean {
     @Description("Local timestamp of the moment when the last sync cycle ended")
     long getSyncEndTimestamp();
 
+    @Description("maximum number of requests kept in flight while copying segments")
+    int getMaxInFlightRequests();
+
+    @Description("number of requests currently in flight while copying segments")
+    int getInFlightRequests();
+
+    @Description("segment bytes received per second during the current or last sync cycle")
+    long getSegmentBytesPerSecond();
+
+    @Description("number of archives copied from the primary to bootstrap an empty standby")
+    int getBootstrappedArchives();
+
     // expose the informations as operations, too
 
     @Description("number of consecutive failed requests")
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.jackrabbit.oak.segment.standby.server;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.jackrabbit.oak.segment.file.FileStore;
+
+class DefaultStandbyArchiveReader implements StandbyArchiveReader {
+
+    private final FileStore store;
+
+    DefaultStandbyArchiveReader(FileStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Iterable<String> readArchiveNames() {
+        List<String> names = newArrayList();
+
+        for (File file : store.getSealedTarFiles()) {
+            names.add(file.getName());
+        }
+
+        return names;
+    }
+
+    @Override
+    public File readArchive(String archiveName) {
+        // Only serve files that are known to be sealed archives. This
+        // prevents a client from reading arbitrary files from the primary.
+
+        for (File file : store.getSealedTarFiles()) {
+            if (file.getName().equals(archiveName) && file.isFile()) {
+                return file;
+            }
+        }
+
+        return null;
+    }
+
+}
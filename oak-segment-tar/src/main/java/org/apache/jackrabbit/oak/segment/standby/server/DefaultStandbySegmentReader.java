@@ -18,9 +18,13 @@
 package org.apache.jackrabbit.oak.segment.standby.server;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.UUID;
 
-import org.apache.commons.io.output.ByteArrayOutputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import org.apache.jackrabbit.oak.segment.Segment;
 import org.apache.jackrabbit.oak.segment.SegmentId;
 import org.apache.jackrabbit.oak.segment.file.FileStore;
@@ -38,7 +42,7 @@ class DefaultStandbySegmentReader implements StandbySegmentReader {
     }
 
     @Override
-    public byte[] readSegment(String id) {
+    public ByteBuf readSegment(String id) {
         UUID uuid = UUID.fromString(id);
         long msb = uuid.getMostSignificantBits();
         long lsb = uuid.getLeastSignificantBits();
@@ -46,9 +50,8 @@ class DefaultStandbySegmentReader implements StandbySegmentReader {
 
         if (store.containsSegment(segmentId)) {
             Segment segment = store.readSegment(segmentId);
-            try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
-                segment.writeTo(stream);
-                return stream.toByteArray();
+            try {
+                return wrap(segment);
             } catch (IOException e) {
                 log.warn("Error while reading segment content", e);
                 return null;
@@ -58,4 +61,39 @@ class DefaultStandbySegmentReader implements StandbySegmentReader {
         return null;
     }
 
+    private static ByteBuf wrap(Segment segment) throws IOException {
+        WrappingChannel channel = new WrappingChannel();
+        segment.transferTo(channel);
+        return channel.buffer;
+    }
+
+    /**
+     * A channel that does not copy the buffers written to it, but wraps them
+     * into a {@link ByteBuf}. The segment content is thus passed on as a view
+     * on the heap array or the memory mapped region backing the segment.
+     */
+    private static class WrappingChannel implements WritableByteChannel {
+
+        private final CompositeByteBuf buffer = Unpooled.compositeBuffer();
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            buffer.addComponent(true, Unpooled.wrappedBuffer(src.slice()));
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+
+    }
+
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.jackrabbit.oak.segment.standby.server;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetArchiveRequest;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetBlobResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves the content of a sealed archive. The archive is streamed with the
+ * same chunked transport used for binaries, using the archive name as the
+ * identifier of the transferred content.
+ */
+class GetArchiveRequestHandler extends SimpleChannelInboundHandler<GetArchiveRequest> {
+
+    private static final Logger log = LoggerFactory.getLogger(GetArchiveRequestHandler.class);
+
+    private final StandbyArchiveReader reader;
+
+    GetArchiveRequestHandler(StandbyArchiveReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, GetArchiveRequest msg) throws Exception {
+        log.debug("Reading archive {} for client {}", msg.getArchiveName(), msg.getClientId());
+
+        File file = reader.readArchive(msg.getArchiveName());
+
+        if (file == null) {
+            log.debug("Archive {} not found, discarding request from client {}", msg.getArchiveName(), msg.getClientId());
+            return;
+        }
+
+        InputStream in;
+        long length;
+
+        try {
+            in = new FileInputStream(file);
+            length = file.length();
+        } catch (IOException e) {
+            log.debug("Archive {} not readable, discarding request from client {}", msg.getArchiveName(), msg.getClientId(), e);
+            return;
+        }
+
+        ctx.writeAndFlush(new GetBlobResponse(msg.getClientId(), msg.getArchiveName(), in, length));
+    }
+
+}
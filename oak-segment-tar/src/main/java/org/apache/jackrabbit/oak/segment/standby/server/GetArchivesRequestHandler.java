@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.jackrabbit.oak.segment.standby.server;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetArchivesRequest;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetArchivesResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class GetArchivesRequestHandler extends SimpleChannelInboundHandler<GetArchivesRequest> {
+
+    private static final Logger log = LoggerFactory.getLogger(GetArchivesRequestHandler.class);
+
+    private final StandbyArchiveReader reader;
+
+    GetArchivesRequestHandler(StandbyArchiveReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, GetArchivesRequest msg) throws Exception {
+        log.debug("Reading sealed archives for client {}", msg.getClientId());
+        ctx.writeAndFlush(new GetArchivesResponse(msg.getClientId(), reader.readArchiveNames()));
+    }
+
+}
@@ -48,7 +48,7 @@ class ResponseObserverHandler extends ChannelOutboundHandlerAdapter {
     }
 
     private void onGetSegmentResponse(GetSegmentResponse response) {
-        observer.didSendSegmentBytes(response.getClientId(), response.getSegmentData().length);
+        observer.didSendSegmentBytes(response.getClientId(), response.getSegmentSize());
     }
 
     private void onGetBlobResponse(GetBlobResponse response) {
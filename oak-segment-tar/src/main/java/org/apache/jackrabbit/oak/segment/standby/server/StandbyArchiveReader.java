@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.jackrabbit.oak.segment.standby.server;
+
+import java.io.File;
+
+/**
+ * Read the sealed archives of a store, so that a new standby instance can be
+ * bootstrapped by transferring whole archives instead of single segments.
+ */
+interface StandbyArchiveReader {
+
+    /**
+     * @return the names of the sealed archives, sorted in the order they were
+     * created.
+     */
+    Iterable<String> readArchiveNames();
+
+    /**
+     * @param archiveName the name of a sealed archive.
+     * @return the file backing the archive, or {@code null} if the name
+     * doesn't refer to a sealed archive.
+     */
+    File readArchive(String archiveName);
+
+}
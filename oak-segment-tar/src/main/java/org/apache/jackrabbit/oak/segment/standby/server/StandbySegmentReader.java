@@ -15,10 +15,13 @@
  * limitations under the License.
  */
 
+
 package org.apache.jackrabbit.oak.segment.standby.server;
 
+import io.netty.buffer.ByteBuf;
+
 interface StandbySegmentReader {
 
-    byte[] readSegment(String segmentId);
+    ByteBuf readSegment(String segmentId);
 
 }
@@ -45,6 +45,7 @@ import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.CharsetUtil;
 import org.apache.jackrabbit.core.data.util.NamedThreadFactory;
 import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetArchivesResponseEncoder;
 import org.apache.jackrabbit.oak.segment.standby.codec.GetBlobResponseEncoder;
 import org.apache.jackrabbit.oak.segment.standby.codec.GetHeadResponseEncoder;
 import org.apache.jackrabbit.oak.segment.standby.codec.GetReferencesResponseEncoder;
@@ -104,6 +105,8 @@ class StandbyServer implements AutoCloseable {
 
         private StandbyBlobReader standbyBlobReader;
 
+        private StandbyArchiveReader standbyArchiveReader;
+
         private Builder(final int port, final StoreProvider storeProvider, final int blobChunkSize) {
             this.port = port;
             this.storeProvider = storeProvider;
@@ -150,6 +153,11 @@ class StandbyServer implements AutoCloseable {
             return this;
         }
 
+        Builder withStandbyArchiveReader(StandbyArchiveReader standbyArchiveReader) {
+            this.standbyArchiveReader = standbyArchiveReader;
+            return this;
+        }
+
         StandbyServer build() throws CertificateException, SSLException {
             checkState(storeProvider != null);
 
@@ -171,6 +179,10 @@ class StandbyServer implements AutoCloseable {
                 standbyHeadReader = new DefaultStandbyHeadReader(store, READ_HEAD_TIMEOUT);
             }
 
+            if (standbyArchiveReader == null) {
+                standbyArchiveReader = new DefaultStandbyArchiveReader(store);
+            }
+
             return new StandbyServer(this);
         }
 
@@ -230,6 +242,7 @@ class StandbyServer implements AutoCloseable {
                 p.addLast(new GetSegmentResponseEncoder());
                 p.addLast(new GetBlobResponseEncoder(builder.blobChunkSize));
                 p.addLast(new GetReferencesResponseEncoder());
+                p.addLast(new GetArchivesResponseEncoder());
                 p.addLast(new ResponseObserverHandler(builder.observer));
 
                 // Handlers
@@ -238,6 +251,8 @@ class StandbyServer implements AutoCloseable {
                 p.addLast(new GetSegmentRequestHandler(builder.standbySegmentReader));
                 p.addLast(new GetBlobRequestHandler(builder.standbyBlobReader));
                 p.addLast(new GetReferencesRequestHandler(builder.standbyReferencesReader));
+                p.addLast(new GetArchivesRequestHandler(builder.standbyArchiveReader));
+                p.addLast(new GetArchiveRequestHandler(builder.standbyArchiveReader));
 
                 // Exception handler
 
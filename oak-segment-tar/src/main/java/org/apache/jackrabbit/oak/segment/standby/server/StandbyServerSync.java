@@ -63,6 +63,8 @@ public class StandbyServerSync implements StandbyStatusMBean, StateConsumer, Sto
 
         private StandbySegmentReader standbySegmentReader;
 
+        private StandbyArchiveReader standbyArchiveReader;
+
         private Builder() {
             // Prevent external instantiation
         }
@@ -119,6 +121,12 @@ public class StandbyServerSync implements StandbyStatusMBean, StateConsumer, Sto
             return this;
         }
 
+        Builder withStandbyArchiveReader(StandbyArchiveReader standbyArchiveReader) {
+            checkArgument(standbyArchiveReader != null, "standbyArchiveReader");
+            this.standbyArchiveReader = standbyArchiveReader;
+            return this;
+        }
+
         public StandbyServerSync build() {
             checkArgument(port > 0);
             checkArgument(fileStore != null);
@@ -154,6 +162,8 @@ public class StandbyServerSync implements StandbyStatusMBean, StateConsumer, Sto
 
     private final StandbySegmentReader standbySegmentReader;
 
+    private final StandbyArchiveReader standbyArchiveReader;
+
     private StandbyServer server;
 
     private StandbyServerSync(Builder builder) {
@@ -166,6 +176,7 @@ public class StandbyServerSync implements StandbyStatusMBean, StateConsumer, Sto
         this.standbyHeadReader = builder.standbyHeadReader;
         this.standbyReferencesReader = builder.standbyReferencesReader;
         this.standbySegmentReader = builder.standbySegmentReader;
+        this.standbyArchiveReader = builder.standbyArchiveReader;
         this.observer = new CommunicationObserver("primary");
 
         final MBeanServer jmxServer = ManagementFactory.getPlatformMBeanServer();
@@ -205,6 +216,7 @@ public class StandbyServerSync implements StandbyStatusMBean, StateConsumer, Sto
                 .withStandbyHeadReader(standbyHeadReader)
                 .withStandbyReferencesReader(standbyReferencesReader)
                 .withStandbySegmentReader(standbySegmentReader)
+                .withStandbyArchiveReader(standbyArchiveReader)
                 .build();
             server.start();
 
@@ -267,4 +279,8 @@ public class StandbyServerSync implements StandbyStatusMBean, StateConsumer, Sto
         return StandbyStatusMBean.JMX_NAME + ",id=" + this.port;
     }
 
+    public int getPort() {
+        return port;
+    }
+
 }
@@ -117,6 +117,20 @@ public class StandbyStoreService {
         )
         boolean standby_autoclean() default true;
 
+        @AttributeDefinition(
+            name = "Standby Max In-Flight Requests",
+            description = "Maximum number of requests kept in flight while copying segments from the primary. " +
+                "Values greater than 1 pipeline the requests, which speeds up catching up over high latency links (standby mode only)"
+        )
+        int standby_maxinflightrequests() default 1;
+
+        @AttributeDefinition(
+            name = "Standby Archive Bootstrap",
+            description = "Copy the sealed tar files of the primary as a whole when the standby starts with an empty " +
+                "repository, instead of copying one segment at a time (standby mode only)"
+        )
+        boolean standby_archivebootstrap() default false;
+
     }
 
     @Reference(policy = STATIC, policyOption = GREEDY)
@@ -180,8 +194,10 @@ public class StandbyStoreService {
         boolean secure = config.secure();
         int readTimeout = config.standby_readtimeout();
         boolean clean = config.standby_autoclean();
+        int maxInFlightRequests = config.standby_maxinflightrequests();
+        boolean archiveBootstrap = config.standby_archivebootstrap();
 
-        StandbyClientSync standbyClientSync = new StandbyClientSync(host, port, fileStore, secure, readTimeout, clean, new File(StandardSystemProperty.JAVA_IO_TMPDIR.value()));
+        StandbyClientSync standbyClientSync = new StandbyClientSync(host, port, fileStore, secure, readTimeout, clean, new File(StandardSystemProperty.JAVA_IO_TMPDIR.value()), maxInFlightRequests, archiveBootstrap);
         closer.register(standbyClientSync);
 
         Dictionary<Object, Object> dictionary = new Hashtable<Object, Object>();
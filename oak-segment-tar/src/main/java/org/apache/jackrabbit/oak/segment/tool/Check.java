@@ -84,6 +84,8 @@ public class Check {
 
         private boolean ioStatistics;
 
+        private int prefetchDepth;
+
         private RepositoryStatistics repoStatistics;
 
         private PrintWriter outWriter;
@@ -210,6 +212,22 @@ public class Check {
             return this;
         }
 
+        /**
+         * Instruct the command to load the segments of the nodes below the
+         * one being checked ahead of time, down to the given depth. This
+         * parameter is not required and defaults to {@code 0}, i.e. no
+         * read-ahead.
+         *
+         * @param prefetchDepth the number of levels to read ahead. Must not
+         *                      be negative.
+         * @return this builder.
+         */
+        public Builder withPrefetchDepth(int prefetchDepth) {
+            checkArgument(prefetchDepth >= 0, "prefetchDepth must not be negative");
+            this.prefetchDepth = prefetchDepth;
+            return this;
+        }
+
         /**
          * Attach a repository statistics instance to collect info on nodes
          * and properties checked on head.
@@ -304,6 +322,8 @@ public class Check {
 
     private final boolean ioStatistics;
 
+    private final int prefetchDepth;
+
     private RepositoryStatistics repoStatistics;
 
     private final PrintWriter out;
@@ -329,6 +349,7 @@ public class Check {
         this.requestedCheckpoints = builder.checkpoints;
         this.filterPaths = builder.filterPaths;
         this.ioStatistics = builder.ioStatistics;
+        this.prefetchDepth = builder.prefetchDepth;
         this.repoStatistics = builder.repoStatistics;
         this.out = builder.outWriter;
         this.err = builder.errWriter;
@@ -420,7 +441,7 @@ public class Check {
     }
 
     private ConsistencyChecker newConsistencyChecker() {
-        return new ConsistencyChecker() {
+        return new ConsistencyChecker(prefetchDepth) {
 
             @Override
             protected void onCheckRevision(String revision) {
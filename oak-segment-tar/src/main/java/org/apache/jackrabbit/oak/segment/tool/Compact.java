@@ -77,6 +77,10 @@ public class Compact {
 
         private int segmentCacheSize = DEFAULT_SEGMENT_CACHE_MB;
 
+        private int concurrency = 1;
+
+        private boolean segmentCompression;
+
         private Builder() {
             // Prevent external instantiation.
         }
@@ -159,6 +163,35 @@ public class Compact {
             return this;
         }
 
+        /**
+         * The number of threads to use for compaction. With more than one
+         * thread independent subtrees are compacted concurrently. If not
+         * specified, it defaults to 1.
+         *
+         * @param concurrency number of threads
+         * @return this builder
+         * @throws IllegalArgumentException if {@code concurrency} is not a
+         *                                  positive integer.
+         */
+        public Builder withConcurrency(int concurrency) {
+            checkArgument(concurrency > 0, "concurrency must be strictly positive");
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Whether to compress the segments written by the compaction. The
+         * compacted store stays readable by this and later versions only. If
+         * not specified, it defaults to {@code false}.
+         *
+         * @param segmentCompression compress segments iff {@code true}
+         * @return this builder
+         */
+        public Builder withSegmentCompression(boolean segmentCompression) {
+            this.segmentCompression = segmentCompression;
+            return this;
+        }
+
         /**
          * Create an executable version of the {@link Compact} command.
          *
@@ -251,6 +284,10 @@ public class Compact {
 
     private final long gcLogInterval;
 
+    private final int concurrency;
+
+    private final boolean segmentCompression;
+
     private Compact(Builder builder) {
         this.path = builder.path;
         this.journal = new File(builder.path, "journal.log");
@@ -258,6 +295,8 @@ public class Compact {
         this.segmentCacheSize = builder.segmentCacheSize;
         this.strictVersionCheck = !builder.force;
         this.gcLogInterval = builder.gcLogInterval;
+        this.concurrency = builder.concurrency;
+        this.segmentCompression = builder.segmentCompression;
     }
 
     public int run() {
@@ -310,9 +349,11 @@ public class Compact {
         FileStoreBuilder builder = fileStoreBuilder(path.getAbsoluteFile())
             .withStrictVersionCheck(strictVersionCheck)
             .withSegmentCacheSize(segmentCacheSize)
+            .withSegmentCompression(segmentCompression)
             .withGCOptions(defaultGCOptions()
                 .setOffline()
-                .setGCLogInterval(gcLogInterval));
+                .setGCLogInterval(gcLogInterval)
+                .setConcurrency(concurrency));
         if (fileAccessMode.memoryMapped != null) {
             builder.withMemoryMapping(fileAccessMode.memoryMapped);
         }
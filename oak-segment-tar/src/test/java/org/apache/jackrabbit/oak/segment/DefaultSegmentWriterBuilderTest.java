@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.jackrabbit.oak.segment;
+
+import static org.apache.jackrabbit.oak.segment.DefaultSegmentWriterBuilder.parsePoolType;
+import static org.junit.Assert.assertEquals;
+
+import org.apache.jackrabbit.oak.segment.DefaultSegmentWriterBuilder.PoolType;
+import org.junit.Test;
+
+public class DefaultSegmentWriterBuilderTest {
+
+    @Test
+    public void parseValidPoolType() {
+        assertEquals(PoolType.GLOBAL, parsePoolType("GLOBAL"));
+        assertEquals(PoolType.THREAD_AFFINE, parsePoolType("THREAD_AFFINE"));
+        assertEquals(PoolType.THREAD_AFFINE, parsePoolType(" thread_affine "));
+    }
+
+    @Test
+    public void parseInvalidPoolTypeFallsBackToGlobal() {
+        assertEquals(PoolType.GLOBAL, parsePoolType(null));
+        assertEquals(PoolType.GLOBAL, parsePoolType(""));
+        assertEquals(PoolType.GLOBAL, parsePoolType("THREAD-AFFINE"));
+    }
+
+}
@@ -21,6 +21,8 @@ package org.apache.jackrabbit.oak.segment;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
+import static org.apache.jackrabbit.oak.api.Type.NAMES;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.EMPTY_NODE;
 import static org.apache.jackrabbit.oak.segment.DefaultSegmentWriterBuilder.defaultSegmentWriterBuilder;
 import static org.apache.jackrabbit.oak.segment.ListRecord.LEVEL_SIZE;
 import static org.apache.jackrabbit.oak.segment.ListRecord.MAX_ELEMENTS;
@@ -41,6 +43,7 @@ import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import org.apache.jackrabbit.oak.segment.test.TemporaryFileStore;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -136,6 +139,27 @@ public class DefaultSegmentWriterTest {
         ListRecord one = writeList(MAX_ELEMENTS + 1, blockId);
     }
 
+    @Test
+    public void testListRecordBuckets() throws IOException {
+        List<RecordId> ids = newArrayList();
+        for (int i = 0; i < LEVEL_SIZE * LEVEL_SIZE + 1; i++) {
+            ids.add(writer.writeString("value-" + i));
+        }
+
+        ListRecord list = new ListRecord(writer.writeList(ids), ids.size());
+        ListRecord prefix = new ListRecord(writer.writeList(ids.subList(0, LEVEL_SIZE)), LEVEL_SIZE);
+
+        assertEquals(ids.subList(0, LEVEL_SIZE),
+            new ListRecord(list.getBucket(LEVEL_SIZE, 0), LEVEL_SIZE).getEntries());
+        assertEquals(ids.subList(LEVEL_SIZE, 2 * LEVEL_SIZE),
+            new ListRecord(list.getBucket(LEVEL_SIZE, 1), LEVEL_SIZE).getEntries());
+        assertEquals(ids.subList(0, LEVEL_SIZE * LEVEL_SIZE),
+            new ListRecord(list.getBucket(LEVEL_SIZE * LEVEL_SIZE, 0), LEVEL_SIZE * LEVEL_SIZE).getEntries());
+        assertEquals(prefix.getRecordId(), prefix.getBucket(LEVEL_SIZE, 0));
+        assertNull(list.getBucket(LEVEL_SIZE * LEVEL_SIZE, 1));
+        assertNull(prefix.getBucket(LEVEL_SIZE, 1));
+    }
+
     private ListRecord writeList(int size, RecordId id) throws IOException {
         List<RecordId> list = Collections.nCopies(size, id);
         return new ListRecord(writer.writeList(list), size);
@@ -170,6 +194,114 @@ public class DefaultSegmentWriterTest {
         assertEquals(builder.toString(), store.fileStore().getReader().readString(large));
     }
 
+    private SegmentNodeState writeNode(NodeBuilder builder) throws IOException {
+        return store.fileStore().getReader().readNode(writer.writeNode(builder.getNodeState(), null));
+    }
+
+    private static ListRecord getValueList(SegmentNodeState node, String name) {
+        return ((SegmentPropertyState) node.getProperty(name)).getValueList();
+    }
+
+    private static List<String> names(int from, int to) {
+        List<String> names = newArrayList();
+        for (int i = from; i < to; i++) {
+            names.add("child-" + i);
+        }
+        return names;
+    }
+
+    @Test
+    public void testAppendToLargeMultiValuedProperty() throws IOException {
+        List<String> names = names(0, 10 * LEVEL_SIZE + 10);
+        NodeBuilder builder = EMPTY_NODE.builder();
+        builder.setProperty(":childOrder", names, NAMES);
+        SegmentNodeState before = writeNode(builder);
+
+        builder = before.builder();
+        names.add("child-new");
+        builder.setProperty(":childOrder", names, NAMES);
+        SegmentNodeState after = writeNode(builder);
+
+        assertEquals(names, newArrayList(after.getProperty(":childOrder").getValue(NAMES)));
+
+        // Only the last, partial bucket and the level above it are rewritten
+
+        ListRecord beforeList = getValueList(before, ":childOrder");
+        ListRecord afterList = getValueList(after, ":childOrder");
+        for (int i = 0; i < 10; i++) {
+            assertEquals(beforeList.getBucket(LEVEL_SIZE, i), afterList.getBucket(LEVEL_SIZE, i));
+        }
+        assertFalse(beforeList.getRecordId().equals(afterList.getRecordId()));
+    }
+
+    @Test
+    public void testModifyLargeMultiValuedProperty() throws IOException {
+        List<String> names = names(0, 10 * LEVEL_SIZE);
+        NodeBuilder builder = EMPTY_NODE.builder();
+        builder.setProperty(":childOrder", names, NAMES);
+        SegmentNodeState before = writeNode(builder);
+        ListRecord beforeList = getValueList(before, ":childOrder");
+
+        // Insert a value, move a value to the front and remove a value
+
+        List<String> modified = newArrayList(names);
+        modified.add(3 * LEVEL_SIZE + 7, "child-new");
+        modified.add(0, modified.remove(5 * LEVEL_SIZE));
+        modified.remove(9 * LEVEL_SIZE);
+
+        builder = before.builder();
+        builder.setProperty(":childOrder", modified, NAMES);
+        SegmentNodeState after = writeNode(builder);
+        ListRecord afterList = getValueList(after, ":childOrder");
+
+        assertEquals(modified, newArrayList(after.getProperty(":childOrder").getValue(NAMES)));
+        assertEquals(modified.size(), after.getProperty(":childOrder").count());
+
+        // The values are reused even if their position changed
+
+        for (int i = 0; i < modified.size(); i++) {
+            String value = modified.get(i);
+            if (!value.equals("child-new")) {
+                assertEquals(beforeList.getEntry(names.indexOf(value)), afterList.getEntry(i));
+            }
+        }
+
+        // Insert a value in the middle: the buckets before it are shared
+
+        modified = newArrayList(names);
+        modified.add(3 * LEVEL_SIZE + 7, "child-new");
+
+        builder = before.builder();
+        builder.setProperty(":childOrder", modified, NAMES);
+        after = writeNode(builder);
+        afterList = getValueList(after, ":childOrder");
+
+        assertEquals(modified, newArrayList(after.getProperty(":childOrder").getValue(NAMES)));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(beforeList.getBucket(LEVEL_SIZE, i), afterList.getBucket(LEVEL_SIZE, i));
+        }
+        assertFalse(beforeList.getBucket(LEVEL_SIZE, 3).equals(afterList.getBucket(LEVEL_SIZE, 3)));
+
+        // Replace a value in the middle: all other buckets are shared
+
+        modified = newArrayList(names);
+        modified.set(5 * LEVEL_SIZE + 7, "child-new");
+
+        builder = before.builder();
+        builder.setProperty(":childOrder", modified, NAMES);
+        after = writeNode(builder);
+        afterList = getValueList(after, ":childOrder");
+
+        assertEquals(modified, newArrayList(after.getProperty(":childOrder").getValue(NAMES)));
+        for (int i = 0; i < 10; i++) {
+            if (i == 5) {
+                assertFalse(beforeList.getBucket(LEVEL_SIZE, i).equals(afterList.getBucket(LEVEL_SIZE, i)));
+            } else {
+                assertEquals(beforeList.getBucket(LEVEL_SIZE, i), afterList.getBucket(LEVEL_SIZE, i));
+            }
+        }
+    }
+
     @Test
     public void testMapRecord() throws IOException {
         RecordId blockId = writer.writeBlock(bytes, 0, bytes.length);
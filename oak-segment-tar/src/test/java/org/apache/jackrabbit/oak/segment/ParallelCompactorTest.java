@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jackrabbit.oak.segment;
+
+import static org.apache.jackrabbit.oak.segment.DefaultSegmentWriterBuilder.defaultSegmentWriterBuilder;
+import static org.apache.jackrabbit.oak.segment.file.FileStoreBuilder.fileStoreBuilder;
+import static org.apache.jackrabbit.oak.segment.file.tar.GCGeneration.newGCGeneration;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.jackrabbit.oak.api.CommitFailedException;
+import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.file.GCNodeWriteMonitor;
+import org.apache.jackrabbit.oak.segment.file.InvalidFileStoreVersionException;
+import org.apache.jackrabbit.oak.segment.file.cancel.Canceller;
+import org.apache.jackrabbit.oak.spi.commit.CommitInfo;
+import org.apache.jackrabbit.oak.spi.commit.EmptyHook;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelCompactorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder(new File("target"));
+
+    private FileStore fileStore;
+
+    private SegmentNodeStore nodeStore;
+
+    @Before
+    public void setup() throws IOException, InvalidFileStoreVersionException {
+        fileStore = fileStoreBuilder(folder.getRoot()).build();
+        nodeStore = SegmentNodeStoreBuilders.builder(fileStore).build();
+    }
+
+    @After
+    public void tearDown() {
+        fileStore.close();
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        Compactor compactor = createCompactor(fileStore, 4);
+        addTestContent(nodeStore, 10, 3);
+
+        SegmentNodeState uncompacted = (SegmentNodeState) nodeStore.getRoot();
+        SegmentNodeState compacted = compactor.compact(uncompacted, Canceller.newCanceller());
+        assertNotNull(compacted);
+        assertFalse(uncompacted == compacted);
+        assertEquals(uncompacted, compacted);
+        assertEquals(uncompacted.getSegment().getGcGeneration().nextFull(), compacted.getSegment().getGcGeneration());
+
+        modifyTestContent(nodeStore);
+        NodeState modified = nodeStore.getRoot();
+        compacted = compactor.compact(uncompacted, modified, compacted, Canceller.newCanceller());
+        assertNotNull(compacted);
+        assertFalse(modified == compacted);
+        assertEquals(modified, compacted);
+        assertEquals(uncompacted.getSegment().getGcGeneration().nextFull(), compacted.getSegment().getGcGeneration());
+    }
+
+    @Test
+    public void testCompactSingleThreaded() throws Exception {
+        Compactor compactor = createCompactor(fileStore, 1);
+        addTestContent(nodeStore, 5, 2);
+
+        SegmentNodeState uncompacted = (SegmentNodeState) nodeStore.getRoot();
+        SegmentNodeState compacted = compactor.compact(uncompacted, Canceller.newCanceller());
+        assertNotNull(compacted);
+        assertEquals(uncompacted, compacted);
+    }
+
+    @Test
+    public void testExceedUpdateLimit() throws Exception {
+        Compactor compactor = createCompactor(fileStore, 4);
+        NodeBuilder builder = nodeStore.getRoot().builder();
+        for (int k = 0; k < Compactor.UPDATE_LIMIT * 2 + 1; k++) {
+            builder.setChildNode("n-" + k);
+        }
+        nodeStore.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+
+        SegmentNodeState uncompacted = (SegmentNodeState) nodeStore.getRoot();
+        SegmentNodeState compacted = compactor.compact(uncompacted, Canceller.newCanceller());
+        assertNotNull(compacted);
+        assertEquals(uncompacted, compacted);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        Compactor compactor = createCompactor(fileStore, 4);
+        addTestContent(nodeStore, 10, 3);
+
+        assertNull(compactor.compact(nodeStore.getRoot(), Canceller.newCanceller().withCondition("reason", () -> true)));
+    }
+
+    @NotNull
+    private static Compactor createCompactor(FileStore fileStore, int concurrency) {
+        SegmentWriter writer = defaultSegmentWriterBuilder("c")
+                .withGeneration(newGCGeneration(1, 1, true))
+                .withWriterPool()
+                .build(fileStore);
+        return new ParallelCompactor(fileStore.getReader(), writer, fileStore.getBlobStore(), GCNodeWriteMonitor.EMPTY, concurrency);
+    }
+
+    private static void addTestContent(SegmentNodeStore nodeStore, int fanOut, int depth)
+    throws CommitFailedException {
+        NodeBuilder builder = nodeStore.getRoot().builder();
+        builder.setProperty("p", "root");
+        addChildren(builder, fanOut, depth);
+        nodeStore.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+    }
+
+    private static void addChildren(NodeBuilder builder, int fanOut, int depth) {
+        if (depth == 0) {
+            return;
+        }
+        for (int k = 0; k < fanOut; k++) {
+            NodeBuilder child = builder.setChildNode("n-" + k);
+            child.setProperty("p", k);
+            addChildren(child, fanOut, depth - 1);
+        }
+    }
+
+    private static void modifyTestContent(SegmentNodeStore nodeStore) throws CommitFailedException {
+        NodeBuilder builder = nodeStore.getRoot().builder();
+        builder.removeProperty("p");
+        builder.getChildNode("n-0").remove();
+        builder.getChildNode("n-1").setProperty("q", "added");
+        builder.getChildNode("n-2").getChildNode("n-0").getChildNode("n-0").setProperty("p", "changed");
+        builder.getChildNode("n-3").getChildNode("n-1").remove();
+        builder.setChildNode("added").setChildNode("x").setProperty("p", 1);
+        nodeStore.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+    }
+}
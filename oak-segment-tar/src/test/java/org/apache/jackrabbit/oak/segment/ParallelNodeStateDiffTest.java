@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static com.google.common.base.Throwables.getRootCause;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Collections.synchronizedList;
+import static org.apache.jackrabbit.oak.commons.PathUtils.concat;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.EMPTY_NODE;
+import static org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState.MISSING_NODE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.jackrabbit.oak.api.PropertyState;
+import org.apache.jackrabbit.oak.segment.memory.MemoryStore;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.apache.jackrabbit.oak.spi.state.NodeStateDiff;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelNodeStateDiffTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    private NodeState before;
+
+    private NodeState after;
+
+    @Before
+    public void setUp() throws IOException {
+        MemoryStore store = new MemoryStore();
+        RecordId id = store.getWriter().writeNode(EMPTY_NODE);
+        SegmentNodeState empty = new SegmentNodeState(store.getReader(), store.getWriter(), store.getBlobStore(), id);
+
+        NodeBuilder builder = empty.builder();
+        for (int i = 0; i < 10; i++) {
+            NodeBuilder a = builder.child("a" + i);
+            for (int j = 0; j < 10; j++) {
+                NodeBuilder b = a.child("b" + j);
+                b.setProperty("p", i * j);
+                for (int k = 0; k < 10; k++) {
+                    b.child("c" + k);
+                }
+            }
+        }
+        before = builder.getNodeState();
+
+        builder = before.builder();
+        builder.setProperty("p", "root");
+        builder.getChildNode("a1").remove();
+        builder.child("a10").child("b0").child("c0");
+        for (int i = 2; i < 10; i++) {
+            NodeBuilder a = builder.getChildNode("a" + i);
+            for (int j = 0; j < 10; j += i) {
+                NodeBuilder b = a.getChildNode("b" + j);
+                b.setProperty("p", -1);
+                b.getChildNode("c" + i).remove();
+                b.child("d" + j).setProperty("q", j);
+            }
+        }
+        after = builder.getNodeState();
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSameChangesAsSequentialDiff() {
+        CollectingDiff sequential = new CollectingDiff("/", null);
+        assertTrue(after.compareAgainstBaseState(before, sequential));
+
+        ParallelNodeStateDiff parallelDiff = new ParallelNodeStateDiff(pool, 0);
+        CollectingDiff parallel = new CollectingDiff("/", parallelDiff);
+        assertTrue(parallelDiff.compare(after, before, parallel));
+
+        assertFalse(sequential.changes.isEmpty());
+        assertEquals(newHashSet(sequential.changes), newHashSet(parallel.changes));
+    }
+
+    @Test
+    public void testSameChangesWithoutNestedParallelDiff() {
+        CollectingDiff sequential = new CollectingDiff("/", null);
+        assertTrue(after.compareAgainstBaseState(before, sequential));
+
+        CollectingDiff parallel = new CollectingDiff("/", null);
+        assertTrue(new ParallelNodeStateDiff(pool, 0).compare(after, before, parallel));
+
+        assertEquals(newHashSet(sequential.changes), newHashSet(parallel.changes));
+    }
+
+    @Test
+    public void testSequentialBelowThreshold() {
+        CollectingDiff sequential = new CollectingDiff("/", null);
+        assertTrue(after.compareAgainstBaseState(before, sequential));
+
+        // no subtree has more than 11 child nodes
+        ParallelNodeStateDiff parallelDiff = new ParallelNodeStateDiff(pool, 11);
+        CollectingDiff parallel = new CollectingDiff("/", parallelDiff);
+        assertTrue(parallelDiff.compare(after, before, parallel));
+
+        assertEquals(sequential.changes, parallel.changes);
+    }
+
+    @Test
+    public void testAbort() {
+        ParallelNodeStateDiff parallelDiff = new ParallelNodeStateDiff(pool, 0);
+        CollectingDiff diff = new CollectingDiff("/", parallelDiff);
+        diff.abortAt = "-/a2/b0/c2";
+        assertFalse(parallelDiff.compare(after, before, diff));
+        assertFalse(diff.changes.contains("-/a2/b0/c2"));
+    }
+
+    @Test
+    public void testException() {
+        ParallelNodeStateDiff parallelDiff = new ParallelNodeStateDiff(pool, 0);
+        CollectingDiff diff = new CollectingDiff("/", parallelDiff);
+        diff.failAt = "^/a3/b3/p";
+        try {
+            parallelDiff.compare(after, before, diff);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("^/a3/b3/p", getRootCause(e).getMessage());
+        }
+    }
+
+    private static class CollectingDiff implements NodeStateDiff {
+
+        final List<String> changes;
+
+        private final String path;
+
+        private final ParallelNodeStateDiff parallel;
+
+        String abortAt;
+
+        String failAt;
+
+        CollectingDiff(String path, ParallelNodeStateDiff parallel) {
+            this(synchronizedList(new ArrayList<>()), path, parallel);
+        }
+
+        private CollectingDiff(List<String> changes, String path, ParallelNodeStateDiff parallel) {
+            this.changes = changes;
+            this.path = path;
+            this.parallel = parallel;
+        }
+
+        private boolean add(String change) {
+            if (change.equals(failAt)) {
+                throw new IllegalStateException(change);
+            }
+            if (change.equals(abortAt)) {
+                return false;
+            }
+            changes.add(change);
+            return true;
+        }
+
+        private boolean compare(NodeState after, NodeState before, String name) {
+            CollectingDiff child = new CollectingDiff(changes, concat(path, name), parallel);
+            child.abortAt = abortAt;
+            child.failAt = failAt;
+            if (parallel != null) {
+                return parallel.compare(after, before, child);
+            } else {
+                return after.compareAgainstBaseState(before, child);
+            }
+        }
+
+        @Override
+        public boolean propertyAdded(PropertyState after) {
+            return add("+" + concat(path, after.getName()));
+        }
+
+        @Override
+        public boolean propertyChanged(PropertyState before, PropertyState after) {
+            return add("^" + concat(path, after.getName()));
+        }
+
+        @Override
+        public boolean propertyDeleted(PropertyState before) {
+            return add("-" + concat(path, before.getName()));
+        }
+
+        @Override
+        public boolean childNodeAdded(String name, NodeState after) {
+            return add("+" + concat(path, name)) && compare(after, EMPTY_NODE, name);
+        }
+
+        @Override
+        public boolean childNodeChanged(String name, NodeState before, NodeState after) {
+            return add("^" + concat(path, name)) && compare(after, before, name);
+        }
+
+        @Override
+        public boolean childNodeDeleted(String name, NodeState before) {
+            return add("-" + concat(path, name)) && compare(MISSING_NODE, before, name);
+        }
+
+    }
+
+}
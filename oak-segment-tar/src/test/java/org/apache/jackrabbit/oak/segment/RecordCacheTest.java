@@ -19,13 +19,16 @@
 
 package org.apache.jackrabbit.oak.segment;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 import static org.apache.jackrabbit.oak.segment.RecordCache.newRecordCache;
 import static org.apache.jackrabbit.oak.segment.TestUtils.newRecordId;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
@@ -86,4 +89,25 @@ public class RecordCacheTest {
         }
     }
 
+    @Test
+    public void recentRecordIds() {
+        RecordCache<String> cache = newRecordCache(10);
+        assertTrue(cache.getRecentRecordIds(5).isEmpty());
+
+        List<RecordId> values = newArrayList();
+        for (int k = 0; k < 10; k ++) {
+            RecordId value = newRecordId(idProvider, rnd);
+            values.add(value);
+            cache.put("key-" + k, value);
+        }
+
+        // Accessing "key-0" makes it the most recently accessed key
+        cache.get("key-0");
+        values.add(values.remove(0));
+
+        assertEquals(values.subList(7, 10), cache.getRecentRecordIds(3));
+        assertEquals(values, cache.getRecentRecordIds(20));
+        assertTrue(newRecordCache(0).getRecentRecordIds(5).isEmpty());
+    }
+
 }
@@ -19,23 +19,29 @@
 
 package org.apache.jackrabbit.oak.segment;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newConcurrentMap;
 import static com.google.common.collect.Sets.intersection;
 import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
+import org.apache.jackrabbit.oak.segment.DefaultSegmentWriterBuilder.PoolType;
 import org.apache.jackrabbit.oak.segment.WriteOperationHandler.WriteOperation;
 import org.apache.jackrabbit.oak.segment.file.tar.GCGeneration;
 import org.apache.jackrabbit.oak.segment.memory.MemoryStore;
@@ -43,25 +49,47 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.junit.After;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
+@RunWith(Parameterized.class)
 public class SegmentBufferWriterPoolTest {
+
+    @Parameterized.Parameters(name="{0}")
+    public static Collection<Object[]> fixtures() {
+        return newArrayList(
+                new Object[]{PoolType.GLOBAL},
+                new Object[]{PoolType.THREAD_AFFINE});
+    }
+
     private final MemoryStore store = new MemoryStore();
 
     private final RecordId rootId = store.getRevisions().getHead();
 
     private GCGeneration gcGeneration = GCGeneration.NULL;
 
-    private final SegmentBufferWriterPool pool = new SegmentBufferWriterPool(
-            store.getSegmentIdProvider(),
-            store.getReader(),
-            "",
-            () -> gcGeneration
-    );
+    private final WriteOperationHandler pool;
 
     private final ExecutorService[] executors = new ExecutorService[] {
         newSingleThreadExecutor(), newSingleThreadExecutor(), newSingleThreadExecutor()};
 
-    public SegmentBufferWriterPoolTest() throws IOException { }
+    public SegmentBufferWriterPoolTest(PoolType poolType) throws IOException {
+        if (poolType == PoolType.THREAD_AFFINE) {
+            pool = new ThreadAffineSegmentBufferWriterPool(
+                    store.getSegmentIdProvider(),
+                    store.getReader(),
+                    "",
+                    () -> gcGeneration
+            );
+        } else {
+            pool = new SegmentBufferWriterPool(
+                    store.getSegmentIdProvider(),
+                    store.getReader(),
+                    "",
+                    () -> gcGeneration
+            );
+        }
+    }
 
     @After
     public void tearDown() {
@@ -233,4 +261,51 @@ public class SegmentBufferWriterPoolTest {
         assertEquals(rootId, res.get());
     }
 
+    @Test
+    public void testFlushWaitsForPendingWrites() throws Exception {
+        GCGeneration gen = pool.getGCGeneration();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ConcurrentMap<String, SegmentBufferWriter> map1 = newConcurrentMap();
+
+        Future<RecordId> res1 = execute(gen, new WriteOperation() {
+            @NotNull @Override
+            public RecordId execute(@NotNull SegmentBufferWriter writer) {
+                map1.put("a", writer);
+                started.countDown();
+                awaitUninterruptibly(release);
+                return rootId;
+            }
+        }, 0);
+        started.await();
+
+        Future<?> flush = executors[1].submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                pool.flush(store);
+                return null;
+            }
+        });
+
+        // The flush must not complete before the pending write operation
+        sleepUninterruptibly(100, MILLISECONDS);
+        assertFalse(flush.isDone());
+
+        // Write operations started after the flush don't block and don't
+        // reuse the writer of the pending operation
+        ConcurrentMap<String, SegmentBufferWriter> map2 = newConcurrentMap();
+        assertEquals(rootId, execute(gen, createOp("b", map2), 2).get());
+        assertFalse(map2.containsValue(map1.get("a")));
+
+        release.countDown();
+        assertEquals(rootId, res1.get());
+        flush.get();
+
+        // The writer of the pending operation has been flushed and is not
+        // reused afterwards
+        ConcurrentMap<String, SegmentBufferWriter> map3 = newConcurrentMap();
+        assertEquals(rootId, execute(gen, createOp("a", map3), 0).get());
+        assertFalse(map3.containsValue(map1.get("a")));
+    }
+
 }
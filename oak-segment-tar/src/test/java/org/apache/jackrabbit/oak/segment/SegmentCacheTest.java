@@ -23,15 +23,23 @@ import static org.apache.jackrabbit.oak.segment.SegmentCache.newSegmentCache;
 import static org.apache.jackrabbit.oak.segment.SegmentStore.EMPTY_STORE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.jackrabbit.oak.cache.AbstractCacheStats;
+import org.apache.jackrabbit.oak.commons.Buffer;
 import org.junit.Test;
 
 public class SegmentCacheTest {
@@ -240,6 +248,93 @@ public class SegmentCacheTest {
         assertEquals(0, stats.getEvictionCount());
     }
 
+    @Test
+    public void offHeapTier() throws Exception {
+        SegmentCache cache = newSegmentCache(1, 1);
+        AbstractCacheStats stats = cache.getOffHeapCacheStats();
+        assertNotNull(stats);
+
+        SegmentId id = new SegmentId(EMPTY_STORE, 0x0000000000000004L, 0xa000000000000004L, cache::recordHit);
+        byte[] data = {1, 2, 3, 4};
+        Segment segment = newOffHeapSegment(id, data);
+
+        assertNull(cache.getOffHeapBuffer(id));
+        assertEquals(0, stats.getElementCount());
+        assertEquals(1, stats.getMissCount());
+
+        // The segment is too big for the on-heap tier and gets evicted
+        // into the off-heap tier right away
+        cache.putSegment(segment);
+        expect(SegmentNotFoundException.class, id::getSegment);
+        assertEquals(1, stats.getElementCount());
+        assertEquals(1, stats.getLoadCount());
+        assertEquals(data.length, stats.estimateCurrentWeight());
+
+        Buffer buffer = cache.getOffHeapBuffer(id);
+        assertNotNull(buffer);
+        assertEquals(data.length, buffer.remaining());
+        for (byte b : data) {
+            assertEquals(b, buffer.get());
+        }
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+
+        cache.clear();
+        assertNull(cache.getOffHeapBuffer(id));
+        assertEquals(0, stats.getElementCount());
+        assertEquals(0, stats.estimateCurrentWeight());
+        assertEquals(1, stats.getEvictionCount());
+    }
+
+    @Test
+    public void offHeapTierReusesSlots() throws Exception {
+        // 1 MB holds 4 slots of the maximum segment size
+        SegmentCache cache = newSegmentCache(1, 1);
+        AbstractCacheStats stats = cache.getOffHeapCacheStats();
+        assertNotNull(stats);
+        assertEquals(4 * Segment.MAX_SEGMENT_SIZE, stats.getMaxTotalWeight());
+
+        SegmentId[] ids = new SegmentId[5];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new SegmentId(EMPTY_STORE, i, 0xa000000000000000L | i, cache::recordHit);
+            byte[] data = new byte[Segment.MAX_SEGMENT_SIZE];
+            Arrays.fill(data, (byte) i);
+            cache.putSegment(newOffHeapSegment(ids[i], data));
+        }
+
+        // The least recently used segment gave its slot to the last one
+        assertEquals(4, stats.getElementCount());
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(4 * Segment.MAX_SEGMENT_SIZE, stats.estimateCurrentWeight());
+        assertNull(cache.getOffHeapBuffer(ids[0]));
+        for (int i = 1; i < ids.length; i++) {
+            Buffer buffer = cache.getOffHeapBuffer(ids[i]);
+            assertNotNull(buffer);
+            assertEquals(Segment.MAX_SEGMENT_SIZE, buffer.remaining());
+            assertEquals((byte) i, buffer.get(0));
+            assertEquals((byte) i, buffer.get(Segment.MAX_SEGMENT_SIZE - 1));
+        }
+    }
+
+    @Test
+    public void noOffHeapTierByDefault() {
+        assertNull(cache.getOffHeapCacheStats());
+        assertNull(newSegmentCache(0, 1).getOffHeapCacheStats());
+    }
+
+    private static Segment newOffHeapSegment(SegmentId id, byte[] data) throws IOException {
+        Segment segment = mock(Segment.class);
+        when(segment.getSegmentId()).thenReturn(id);
+        when(segment.size()).thenReturn(data.length);
+        // Too big for the on-heap tier, so it is evicted to the off-heap tier
+        when(segment.estimateMemoryUsage()).thenReturn(2 * 1024 * 1024);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(data);
+            return null;
+        }).when(segment).writeTo(any());
+        return segment;
+    }
+
     private static void expect(Class<? extends Throwable> exceptionType, Callable<?> thunk) {
         try {
             thunk.call();
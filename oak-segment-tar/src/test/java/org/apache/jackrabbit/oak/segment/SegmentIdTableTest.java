@@ -27,11 +27,14 @@ import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -91,6 +94,47 @@ public class SegmentIdTableTest {
         assertEquals(1, s.getLeastSignificantBits());
     }
     
+    @Test
+    public void concurrentLookupsShouldReturnTheSameInstance() throws Exception {
+        final SegmentIdFactory maker = newSegmentIdMaker();
+        final SegmentIdTable tbl = new SegmentIdTable();
+        final int count = 16 * 1024;
+
+        List<Callable<List<SegmentId>>> tasks = new ArrayList<Callable<List<SegmentId>>>();
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            tasks.add(new Callable<List<SegmentId>>() {
+
+                @Override
+                public List<SegmentId> call() {
+                    // Every thread resolves the same ids, in a different order
+                    List<SegmentId> ids = new ArrayList<SegmentId>();
+                    for (int i = 0; i < count; i++) {
+                        int k = (i * 7919 + seed * 104729) % count;
+                        ids.add(tbl.newSegmentId(k, k % 512, maker));
+                    }
+                    return ids;
+                }
+
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            Map<Long, SegmentId> seen = new HashMap<Long, SegmentId>();
+            for (Future<List<SegmentId>> f : executor.invokeAll(tasks)) {
+                for (SegmentId id : f.get()) {
+                    SegmentId other = seen.put(id.getMostSignificantBits(), id);
+                    assertTrue(other == null || other == id);
+                }
+            }
+            assertEquals(count, seen.size());
+            assertEquals(count, tbl.getEntryCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void randomized() throws IOException {
         SegmentIdFactory maker = newSegmentIdMaker();
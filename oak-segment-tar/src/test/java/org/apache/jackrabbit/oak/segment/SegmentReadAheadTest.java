@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jackrabbit.oak.segment;
+
+import static com.google.common.base.Strings.repeat;
+import static org.apache.jackrabbit.oak.segment.file.FileStoreBuilder.fileStoreBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.file.ReadOnlyFileStore;
+import org.apache.jackrabbit.oak.spi.commit.CommitInfo;
+import org.apache.jackrabbit.oak.spi.commit.EmptyHook;
+import org.apache.jackrabbit.oak.spi.state.ChildNodeEntry;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentReadAheadTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder(new File("target"));
+
+    private ReadOnlyFileStore fileStore;
+
+    private NodeState root;
+
+    @Before
+    public void setUp() throws Exception {
+        File directory = folder.getRoot();
+
+        // Spread the tree over several segments, so that the children of
+        // `a` can't all be read from the segment of their parent.
+
+        try (FileStore store = fileStoreBuilder(directory).build()) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(store).build();
+            NodeBuilder builder = nodeStore.getRoot().builder();
+            NodeBuilder a = builder.child("a");
+            for (int i = 0; i < 20; i++) {
+                NodeBuilder child = a.child("child-" + i);
+                for (int j = 0; j < 40; j++) {
+                    child.child("grandchild-" + j).setProperty("p", repeat("x", 2048) + i + j);
+                }
+            }
+            nodeStore.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+            store.flush();
+        }
+
+        fileStore = fileStoreBuilder(directory).buildReadOnly();
+        root = fileStore.getHead().getChildNode("root");
+    }
+
+    @After
+    public void tearDown() {
+        fileStore.close();
+    }
+
+    private long segmentCacheMisses() {
+        return fileStore.getSegmentCacheStats().getMissCount();
+    }
+
+    private static void traverse(NodeState node, int depth) {
+        for (ChildNodeEntry entry : node.getChildNodeEntries()) {
+            if (depth > 1) {
+                traverse(entry.getNodeState(), depth - 1);
+            }
+        }
+    }
+
+    private static void awaitPrefetch(SegmentReadAhead readAhead) throws InterruptedException {
+        for (int i = 0; i < 1000 && readAhead.getPendingCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, readAhead.getPendingCount());
+    }
+
+    @Test
+    public void segmentsOfChildrenShouldBePrefetched() throws Exception {
+        NodeState a = root.getChildNode("a");
+        long misses = segmentCacheMisses();
+
+        try (SegmentReadAhead readAhead = new SegmentReadAhead(2, 1)) {
+            readAhead.prefetch(a);
+            awaitPrefetch(readAhead);
+        }
+
+        assertTrue(segmentCacheMisses() > misses);
+
+        // The traversal finds every segment it needs in the cache.
+
+        misses = segmentCacheMisses();
+        traverse(a, 1);
+        assertEquals(misses, segmentCacheMisses());
+    }
+
+    @Test
+    public void segmentsOfDescendantsShouldBePrefetched() throws Exception {
+        NodeState a = root.getChildNode("a");
+
+        try (SegmentReadAhead readAhead = new SegmentReadAhead(2, 2)) {
+            readAhead.prefetch(a);
+            awaitPrefetch(readAhead);
+        }
+
+        long misses = segmentCacheMisses();
+        traverse(a, 2);
+        assertEquals(misses, segmentCacheMisses());
+    }
+
+    @Test
+    public void childNodeEntriesShouldBeReturned() throws Exception {
+        NodeState a = root.getChildNode("a");
+
+        try (SegmentReadAhead readAhead = new SegmentReadAhead(1, 1)) {
+            List<String> names = new ArrayList<>();
+            for (ChildNodeEntry entry : readAhead.getChildNodeEntries(a)) {
+                names.add(entry.getName());
+            }
+            assertEquals(20, names.size());
+            assertTrue(names.contains("child-0"));
+        }
+    }
+
+}
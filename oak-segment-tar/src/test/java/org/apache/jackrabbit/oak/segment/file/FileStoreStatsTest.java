@@ -21,12 +21,15 @@ package org.apache.jackrabbit.oak.segment.file;
 
 import static org.apache.jackrabbit.oak.segment.file.FileStoreBuilder.fileStoreBuilder;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 import java.io.File;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
+import javax.management.openmbean.CompositeData;
+
 import org.apache.jackrabbit.oak.commons.concurrent.ExecutorCloser;
 import org.apache.jackrabbit.oak.segment.SegmentNodeStore;
 import org.apache.jackrabbit.oak.segment.SegmentNodeStoreBuilders;
@@ -86,4 +89,48 @@ public class FileStoreStatsTest {
 
         assertEquals(10, stats.getJournalWriteStatsAsCount());
     }
+
+    @Test
+    public void testSegmentIOStats() throws Exception {
+        File directory = segmentFolder.newFolder();
+        try (FileStore fileStore = fileStoreBuilder(directory).build()) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(fileStore).build();
+            NodeBuilder root = nodeStore.getRoot().builder();
+            for (int i = 0; i < 1000; i++) {
+                root.child("node-" + i).setProperty("p", i);
+            }
+            nodeStore.merge(root, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+            fileStore.flush();
+
+            CompositeData write = fileStore.getStats().getSegmentIOStats().get(new Object[] {"a", "write"});
+            assertTrue((Long) write.get("count") > 0);
+            assertTrue((Long) write.get("maxSizeBytes") > 0);
+        }
+
+        try (FileStore fileStore = fileStoreBuilder(directory).build()) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(fileStore).build();
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(nodeStore.getRoot().hasChildNode("node-" + i));
+            }
+
+            CompositeData read = fileStore.getStats().getSegmentIOStats().get(new Object[] {"a", "read"});
+            assertTrue((Long) read.get("count") > 0);
+            assertTrue((Long) read.get("p50SizeBytes") <= (Long) read.get("maxSizeBytes"));
+            assertTrue(fileStore.getStats().getHotSegments().size() <= IOStatsMonitor.HOT_SEGMENTS);
+        }
+    }
+
+    @Test
+    public void testGeneration() {
+        assertEquals("a", IOStatsMonitor.getGeneration(new File("data00000.tar")));
+        assertEquals("a", IOStatsMonitor.getGeneration(new File("data00000a.tar")));
+        assertEquals("c", IOStatsMonitor.getGeneration(new File("segmentstore", "data00042c.tar")));
+        assertEquals("-", IOStatsMonitor.getGeneration(null));
+        assertEquals("-", IOStatsMonitor.getGeneration(new File("data.tar")));
+        assertEquals("-", IOStatsMonitor.getGeneration(new File("dataa.tar")));
+        assertEquals("-", IOStatsMonitor.getGeneration(new File("data0x0a.tar")));
+        assertEquals("-", IOStatsMonitor.getGeneration(new File("data00000A.tar")));
+        assertEquals("-", IOStatsMonitor.getGeneration(new File("data00000a.tar.bak")));
+        assertEquals("-", IOStatsMonitor.getGeneration(new File("journal.log")));
+    }
 }
@@ -19,14 +19,33 @@
 
 package org.apache.jackrabbit.oak.segment.file;
 
+import static java.util.concurrent.TimeUnit.DAYS;
 import static org.apache.jackrabbit.oak.segment.file.FileStoreBuilder.fileStoreBuilder;
+import static org.apache.commons.lang.RandomStringUtils.randomAlphanumeric;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.List;
 
+import org.apache.jackrabbit.oak.api.CommitFailedException;
+import org.apache.jackrabbit.oak.api.PropertyState;
+import org.apache.jackrabbit.oak.api.jmx.CacheStatsMBean;
+import org.apache.jackrabbit.oak.segment.RecordId;
 import org.apache.jackrabbit.oak.segment.SegmentId;
 import org.apache.jackrabbit.oak.segment.SegmentNodeBuilder;
 import org.apache.jackrabbit.oak.segment.SegmentNodeState;
+import org.apache.jackrabbit.oak.segment.SegmentNodeStore;
+import org.apache.jackrabbit.oak.segment.SegmentNodeStoreBuilders;
+import org.apache.jackrabbit.oak.segment.SegmentPropertyState;
+import org.apache.jackrabbit.oak.segment.file.tar.TarPersistence;
+import org.apache.jackrabbit.oak.spi.commit.CommitInfo;
+import org.apache.jackrabbit.oak.spi.commit.EmptyHook;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -84,5 +103,144 @@ public class FileStoreTest {
         }
     }
 
+    @Test
+    public void readFromOffHeapSegmentCache() throws Exception {
+        try (FileStore fileStore = fileStoreBuilder(getFileStoreFolder())
+                .withSegmentCacheSize(1)
+                .withOffHeapSegmentCacheSize(64)
+                .build()) {
+            SegmentNodeState head = fileStore.getHead();
+            SegmentNodeBuilder builder = head.builder();
+            for (int i = 0; i < 4000; i++) {
+                builder.child("node-" + i).setProperty("value", randomAlphanumeric(1024));
+            }
+            SegmentNodeState newHead = builder.getNodeState();
+            fileStore.getRevisions().setHead(head.getRecordId(), newHead.getRecordId());
+            fileStore.flush();
+
+            SegmentNodeState root = fileStore.getReader().readHeadState(fileStore.getRevisions());
+            for (int i = 0; i < 4000; i++) {
+                assertEquals(
+                    newHead.getChildNode("node-" + i).getString("value"),
+                    root.getChildNode("node-" + i).getString("value"));
+            }
+
+            CacheStatsMBean stats = fileStore.getOffHeapSegmentCacheStats();
+            assertNotNull(stats);
+            assertTrue(stats.getElementCount() > 0);
+            assertTrue(stats.getHitCount() > 0);
+        }
+    }
+
+    @Test
+    public void tailCompactionReusesCompactedCheckpoints() throws Exception {
+        try (FileStore fileStore = fileStoreBuilder(getFileStoreFolder()).build()) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(fileStore).build();
+            addContent(nodeStore, "a");
+            String checkpoint = nodeStore.checkpoint(DAYS.toMillis(1));
+            addContent(nodeStore, "b");
+
+            assertTrue(fileStore.compactFull());
+            fileStore.cleanup();
+            RecordId compacted = getCheckpointId(fileStore, checkpoint);
+            assertEquals(2, new CompactionMap(new TarPersistence(getFileStoreFolder()).getCompactionMapFile()).read().size());
+
+            addContent(nodeStore, "c");
+            assertTrue(fileStore.compactTail());
+            assertEquals(compacted, getCheckpointId(fileStore, checkpoint));
+        }
+    }
+
+    @Test
+    public void tailCompactionReusesCompactedNodesAfterRestart() throws Exception {
+        try (FileStore fileStore = fileStoreBuilder(getFileStoreFolder()).build()) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(fileStore).build();
+            addContent(nodeStore, "a");
+
+            assertTrue(fileStore.compactFull());
+            fileStore.cleanup();
+            assertFalse(new CompactionMap(new TarPersistence(getFileStoreFolder()).getCompactionMapFile()).readNodes().isEmpty());
+        }
+
+        try (FileStore fileStore = fileStoreBuilder(getFileStoreFolder()).build()) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(fileStore).build();
+            NodeBuilder builder = nodeStore.getRoot().builder();
+            builder.setChildNode("moved", nodeStore.getRoot().getChildNode("a"));
+            builder.getChildNode("a").remove();
+            nodeStore.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+            RecordId compacted = getNodeId(fileStore, "moved");
+
+            assertTrue(fileStore.compactTail());
+            assertEquals(compacted, getNodeId(fileStore, "moved"));
+        }
+    }
+
+    @Test
+    public void recordDictionaryIsLoadedAfterRestart() throws Exception {
+        RecordId valueId;
+        try (FileStore fileStore = fileStoreBuilder(getFileStoreFolder()).build()) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(fileStore).build();
+            addContent(nodeStore, "a");
+            valueId = getPropertyId(nodeStore, "a");
+        }
+        assertTrue(new TarPersistence(getFileStoreFolder()).getRecordDictionaryFile().readLines()
+                .contains("0,s," + valueId.toString10()));
+
+        try (FileStore fileStore = fileStoreBuilder(getFileStoreFolder()).build()) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(fileStore).build();
+            NodeBuilder builder = nodeStore.getRoot().builder();
+            builder.setChildNode("b").setProperty("p", "a");
+            nodeStore.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+            assertEquals(valueId, getPropertyId(nodeStore, "b"));
+        }
+    }
+
+    @Test
+    public void recordDictionaryOfOtherGenerationIsIgnored() throws Exception {
+        RecordId valueId;
+        try (FileStore fileStore = fileStoreBuilder(getFileStoreFolder()).build()) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(fileStore).build();
+            addContent(nodeStore, "a");
+            valueId = getPropertyId(nodeStore, "a");
+        }
+
+        TarPersistence persistence = new TarPersistence(getFileStoreFolder());
+        List<String> lines = persistence.getRecordDictionaryFile().readLines();
+        persistence.getRecordDictionaryFile().truncate();
+        for (String line : lines) {
+            persistence.getRecordDictionaryFile().writeLine(line.replaceFirst("^0,", "1,"));
+        }
+
+        try (FileStore fileStore = fileStoreBuilder(getFileStoreFolder()).build()) {
+            SegmentNodeStore nodeStore = SegmentNodeStoreBuilders.builder(fileStore).build();
+            NodeBuilder builder = nodeStore.getRoot().builder();
+            builder.setChildNode("b").setProperty("p", "a");
+            nodeStore.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+            assertNotEquals(valueId, getPropertyId(nodeStore, "b"));
+        }
+    }
+
+    private static RecordId getPropertyId(SegmentNodeStore nodeStore, String name) {
+        PropertyState property = nodeStore.getRoot().getChildNode(name).getProperty("p");
+        return ((SegmentPropertyState) property).getRecordId();
+    }
+
+    private static void addContent(SegmentNodeStore nodeStore, String name) throws CommitFailedException {
+        NodeBuilder builder = nodeStore.getRoot().builder();
+        builder.setChildNode(name).setProperty("p", name);
+        nodeStore.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+    }
+
+    private static RecordId getNodeId(FileStore fileStore, String name) {
+        return ((SegmentNodeState) fileStore.getHead().getChildNode("root").getChildNode(name)).getRecordId();
+    }
+
+    private static RecordId getCheckpointId(FileStore fileStore, String checkpoint) {
+        NodeState root = fileStore.getHead()
+                .getChildNode("checkpoints")
+                .getChildNode(checkpoint)
+                .getChildNode("root");
+        return ((SegmentNodeState) root).getRecordId();
+    }
 
 }
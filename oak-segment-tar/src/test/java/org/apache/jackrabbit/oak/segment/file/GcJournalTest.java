@@ -22,6 +22,7 @@ package org.apache.jackrabbit.oak.segment.file;
 import static com.google.common.collect.Lists.newArrayList;
 import static org.apache.jackrabbit.oak.segment.file.tar.GCGeneration.newGCGeneration;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -29,13 +30,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.jackrabbit.oak.commons.IOUtils;
 import org.apache.jackrabbit.oak.segment.RecordId;
+import org.apache.jackrabbit.oak.segment.WriterCacheManager.Empty;
 import org.apache.jackrabbit.oak.segment.spi.persistence.GCJournalFile;
 import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentNodeStorePersistence;
+import org.apache.jackrabbit.oak.segment.file.CompactionMap.CompactionMapEntry;
 import org.apache.jackrabbit.oak.segment.file.GCJournal.GCJournalEntry;
+import org.apache.jackrabbit.oak.segment.file.tar.GCGeneration;
 import org.apache.jackrabbit.oak.segment.file.tar.TarPersistence;
 import org.junit.Rule;
 import org.junit.Test;
@@ -91,6 +97,40 @@ public class GcJournalTest {
         assertEquals(allLines.size(), 3);
     }
 
+    @Test
+    public void compactionMap() throws Exception {
+        Map<RecordId, RecordId> roots = new LinkedHashMap<>();
+        roots.put(RecordId.NULL, RecordId.NULL);
+        CompactionMap out = new CompactionMap(getPersistence().getCompactionMapFile());
+        out.persist(newGCGeneration(2, 1, true), roots);
+        out.persist(newGCGeneration(3, 1, true), roots);
+
+        List<CompactionMapEntry> entries = new CompactionMap(getPersistence().getCompactionMapFile()).read();
+        assertEquals(1, entries.size());
+        assertEquals(newGCGeneration(3, 1, true), entries.get(0).getGcGeneration());
+        assertEquals(RecordId.NULL.toString10(), entries.get(0).getUncompacted());
+        assertEquals(RecordId.NULL.toString10(), entries.get(0).getCompacted());
+    }
+
+    @Test
+    public void compactionMapNodes() throws Exception {
+        GCGeneration generation = newGCGeneration(2, 1, true);
+        CompactionMap out = new CompactionMap(getPersistence().getCompactionMapFile());
+        out.newRecordingCacheManager(generation, Empty.INSTANCE);
+        out.carryOver(generation, CompactionMapEntry.newNodeEntry(
+                newGCGeneration(1, 1, true), "stable", RecordId.NULL.toString10(), (byte) -3));
+        out.persist(generation, new LinkedHashMap<RecordId, RecordId>());
+
+        List<CompactionMapEntry> entries = new CompactionMap(getPersistence().getCompactionMapFile()).readNodes();
+        assertEquals(1, entries.size());
+        assertTrue(entries.get(0).isNode());
+        assertEquals(generation, entries.get(0).getGcGeneration());
+        assertEquals("stable", entries.get(0).getUncompacted());
+        assertEquals(RecordId.NULL.toString10(), entries.get(0).getCompacted());
+        assertEquals(-3, entries.get(0).getCost());
+        assertTrue(new CompactionMap(getPersistence().getCompactionMapFile()).read().isEmpty());
+    }
+
     @Test
     public void testGCGeneration() throws Exception {
         GCJournal out = new GCJournal(getPersistence().getGCJournalFile());
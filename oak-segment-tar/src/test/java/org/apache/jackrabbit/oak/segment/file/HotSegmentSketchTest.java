@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jackrabbit.oak.segment.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class HotSegmentSketchTest {
+
+    @Test
+    public void testEmpty() {
+        assertTrue(new HotSegmentSketch(10).getTopK().isEmpty());
+    }
+
+    @Test
+    public void testTopK() {
+        HotSegmentSketch sketch = new HotSegmentSketch(5);
+        Random random = new Random(42);
+
+        // Segments 0 to 4 are read 600 to 3000 times, while 10000 other
+        // segments are read about 3 times each
+
+        for (int i = 0; i < 30000; i++) {
+            sketch.add(0, 100 + random.nextInt(10000));
+            if (i % 50 == 0) {
+                for (int hot = 0; hot < 5; hot++) {
+                    for (int k = 0; k <= hot; k++) {
+                        sketch.add(0, hot);
+                    }
+                }
+            }
+        }
+
+        List<Entry<UUID, Long>> top = sketch.getTopK();
+        assertEquals(5, top.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(new UUID(0, 4 - i), top.get(i).getKey());
+        }
+        assertTrue(sketch.estimate(0, 4) >= 3000);
+    }
+
+    @Test
+    public void testAging() {
+        HotSegmentSketch sketch = new HotSegmentSketch(1);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add(0, 1);
+        }
+        for (int i = 0; i < 200000; i++) {
+            sketch.add(0, 2);
+        }
+        assertTrue(sketch.estimate(0, 1) < 1000);
+        assertEquals(new UUID(0, 2), sketch.getTopK().get(0).getKey());
+    }
+
+}
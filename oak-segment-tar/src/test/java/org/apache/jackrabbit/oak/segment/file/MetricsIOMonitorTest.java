@@ -18,9 +18,13 @@
 
 package org.apache.jackrabbit.oak.segment.file;
 
+import static org.apache.jackrabbit.oak.segment.file.MetricsIOMonitor.OAK_SEGMENT_SEGMENT_CACHE_HITS;
+import static org.apache.jackrabbit.oak.segment.file.MetricsIOMonitor.OAK_SEGMENT_SEGMENT_CACHE_MISSES;
 import static org.apache.jackrabbit.oak.segment.file.MetricsIOMonitor.OAK_SEGMENT_SEGMENT_READ_BYTES;
+import static org.apache.jackrabbit.oak.segment.file.MetricsIOMonitor.OAK_SEGMENT_SEGMENT_READ_SIZE;
 import static org.apache.jackrabbit.oak.segment.file.MetricsIOMonitor.OAK_SEGMENT_SEGMENT_READ_TIME;
 import static org.apache.jackrabbit.oak.segment.file.MetricsIOMonitor.OAK_SEGMENT_SEGMENT_WRITE_BYTES;
+import static org.apache.jackrabbit.oak.segment.file.MetricsIOMonitor.OAK_SEGMENT_SEGMENT_WRITE_SIZE;
 import static org.apache.jackrabbit.oak.segment.file.MetricsIOMonitor.OAK_SEGMENT_SEGMENT_WRITE_TIME;
 import static org.junit.Assert.assertEquals;
 
@@ -30,6 +34,7 @@ import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.jackrabbit.oak.commons.concurrent.ExecutorCloser;
 import org.apache.jackrabbit.oak.stats.DefaultStatisticsProvider;
+import org.apache.jackrabbit.oak.stats.HistogramStats;
 import org.apache.jackrabbit.oak.stats.MeterStats;
 import org.apache.jackrabbit.oak.stats.StatsOptions;
 import org.apache.jackrabbit.oak.stats.TimerStats;
@@ -44,6 +49,10 @@ public class MetricsIOMonitorTest {
     private MeterStats segmentWriteBytes;
     private TimerStats segmentReadTime;
     private TimerStats segmentWriteTime;
+    private HistogramStats segmentReadSize;
+    private HistogramStats segmentWriteSize;
+    private MeterStats segmentCacheHits;
+    private MeterStats segmentCacheMisses;
 
     @Before
     public void setup() {
@@ -58,12 +67,23 @@ public class MetricsIOMonitorTest {
                 OAK_SEGMENT_SEGMENT_READ_TIME, StatsOptions.METRICS_ONLY);
         segmentWriteTime = statisticsProvider.getTimer(
                 OAK_SEGMENT_SEGMENT_WRITE_TIME, StatsOptions.METRICS_ONLY);
+        segmentReadSize = statisticsProvider.getHistogram(
+                OAK_SEGMENT_SEGMENT_READ_SIZE, StatsOptions.METRICS_ONLY);
+        segmentWriteSize = statisticsProvider.getHistogram(
+                OAK_SEGMENT_SEGMENT_WRITE_SIZE, StatsOptions.METRICS_ONLY);
+        segmentCacheHits = statisticsProvider.getMeter(
+                OAK_SEGMENT_SEGMENT_CACHE_HITS, StatsOptions.METRICS_ONLY);
+        segmentCacheMisses = statisticsProvider.getMeter(
+                OAK_SEGMENT_SEGMENT_CACHE_MISSES, StatsOptions.METRICS_ONLY);
 
         File file = new File("");
         ioMonitor.afterSegmentRead(file, 0, 0, 4, 0);
         ioMonitor.afterSegmentRead(file, 0, 0, 5, 0);
         ioMonitor.afterSegmentWrite(file, 0, 0, 3, 0);
         ioMonitor.afterSegmentWrite(file, 0, 0, 4, 0);
+        ioMonitor.onSegmentCacheHit(file, 0, 0, 4);
+        ioMonitor.onSegmentCacheHit(file, 0, 0, 5);
+        ioMonitor.onSegmentCacheMiss(file, 0, 0);
     }
 
     @After
@@ -77,5 +97,9 @@ public class MetricsIOMonitorTest {
         assertEquals(2, segmentReadTime.getCount());
         assertEquals(7, segmentWriteBytes.getCount());
         assertEquals(2, segmentWriteTime.getCount());
+        assertEquals(2, segmentReadSize.getCount());
+        assertEquals(2, segmentWriteSize.getCount());
+        assertEquals(2, segmentCacheHits.getCount());
+        assertEquals(1, segmentCacheMisses.getCount());
     }
 }
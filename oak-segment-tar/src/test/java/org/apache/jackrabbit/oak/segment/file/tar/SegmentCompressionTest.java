@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jackrabbit.oak.segment.file.tar;
+
+import static org.apache.jackrabbit.oak.segment.file.tar.GCGeneration.newGCGeneration;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.UUID;
+
+import org.apache.jackrabbit.oak.commons.Buffer;
+import org.apache.jackrabbit.oak.segment.spi.monitor.FileStoreMonitorAdapter;
+import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitorAdapter;
+import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveEntry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentCompressionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder(new File("target"));
+
+    /**
+     * @return data that looks like a segment and that compresses well.
+     */
+    private static byte[] compressibleSegment() {
+        return compressibleSegment(16 * 1024);
+    }
+
+    private static byte[] compressibleSegment(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ("abcdefgh".charAt(i % 8));
+        }
+        data[0] = '0';
+        data[1] = 'a';
+        data[2] = 'K';
+        data[3] = 13;
+        return data;
+    }
+
+    private static byte[] incompressibleSegment() {
+        byte[] data = new byte[16 * 1024];
+        new Random(42).nextBytes(data);
+        data[0] = '0';
+        data[1] = 'a';
+        data[2] = 'K';
+        data[3] = 13;
+        return data;
+    }
+
+    /**
+     * @return a bulk segment that looks like a compressed one.
+     */
+    private static byte[] bulkSegmentWithCompressedSignature() {
+        byte[] data = compressibleSegment();
+        data[0] = '0';
+        data[1] = 'a';
+        data[2] = 'Z';
+        data[3] = 0x01;
+        return data;
+    }
+
+    private static UUID dataSegmentId() {
+        UUID id = UUID.randomUUID();
+        return new UUID(id.getMostSignificantBits(), (id.getLeastSignificantBits() & 0x0FFFFFFFFFFFFFFFL) | 0xA000000000000000L);
+    }
+
+    private static UUID bulkSegmentId() {
+        UUID id = UUID.randomUUID();
+        return new UUID(id.getMostSignificantBits(), (id.getLeastSignificantBits() & 0x0FFFFFFFFFFFFFFFL) | 0xB000000000000000L);
+    }
+
+    private static byte[] toArray(Buffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+        return data;
+    }
+
+    @Test
+    public void compressedSegmentShouldRoundTrip() throws Exception {
+        byte[] data = compressibleSegment();
+        byte[] compressed = SegmentCompression.compress(data, 0, data.length);
+        assertNotNull(compressed);
+        assertTrue(compressed.length < data.length);
+        assertArrayEquals(data, toArray(SegmentCompression.decompress(Buffer.wrap(compressed))));
+        assertArrayEquals(data, SegmentCompression.decompress(compressed));
+    }
+
+    @Test
+    public void largeSegmentShouldRoundTrip() throws Exception {
+        byte[] data = compressibleSegment(256 * 1024 + 17);
+        Random random = new Random(42);
+        for (int i = 4; i < data.length; i += 97) {
+            data[i] = (byte) random.nextInt();
+        }
+        byte[] compressed = SegmentCompression.compress(data, 0, data.length);
+        assertNotNull(compressed);
+        assertTrue(compressed.length < data.length);
+        assertArrayEquals(data, SegmentCompression.decompress(compressed));
+    }
+
+    @Test
+    public void compressShouldHonourOffsetAndLength() throws Exception {
+        byte[] data = compressibleSegment();
+        byte[] padded = new byte[data.length + 100];
+        System.arraycopy(data, 0, padded, 50, data.length);
+        byte[] compressed = SegmentCompression.compress(padded, 50, data.length);
+        assertNotNull(compressed);
+        assertArrayEquals(data, SegmentCompression.decompress(compressed));
+    }
+
+    @Test
+    public void incompressibleSegmentShouldNotBeCompressed() {
+        byte[] data = incompressibleSegment();
+        assertNull(SegmentCompression.compress(data, 0, data.length));
+    }
+
+    @Test
+    public void poorlyCompressibleSegmentShouldNotBeCompressed() {
+        byte[] data = incompressibleSegment();
+        Arrays.fill(data, 4, data.length / 10, (byte) 'a');
+        assertNull(SegmentCompression.compress(data, 0, data.length));
+    }
+
+    @Test(expected = IOException.class)
+    public void uncompressedSegmentShouldBeRejected() throws Exception {
+        SegmentCompression.decompress(compressibleSegment());
+    }
+
+    @Test
+    public void onlyDataSegmentsShouldBeCompressible() {
+        assertTrue(SegmentCompression.isCompressible(dataSegmentId().getLeastSignificantBits()));
+        assertFalse(SegmentCompression.isCompressible(bulkSegmentId().getLeastSignificantBits()));
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptSegmentShouldBeDetected() throws Exception {
+        byte[] data = compressibleSegment();
+        byte[] compressed = SegmentCompression.compress(data, 0, data.length);
+        SegmentCompression.decompress(Arrays.copyOf(compressed, compressed.length / 2));
+    }
+
+    @Test
+    public void compressedAndUncompressedSegmentsShouldCoexist() throws Exception {
+        File directory = folder.newFolder();
+        SegmentTarManager compressing = new SegmentTarManager(directory, new FileStoreMonitorAdapter(), new IOMonitorAdapter(), false, false, true);
+        SegmentTarManager plain = new SegmentTarManager(directory, new FileStoreMonitorAdapter(), new IOMonitorAdapter(), false, false);
+
+        UUID a = dataSegmentId();
+        UUID b = dataSegmentId();
+        UUID c = dataSegmentId();
+        byte[] compressible = compressibleSegment();
+        byte[] incompressible = incompressibleSegment();
+
+        try (TarWriter writer = new TarWriter(compressing, "data00000a.tar")) {
+            writer.writeEntry(a.getMostSignificantBits(), a.getLeastSignificantBits(), compressible, 0, compressible.length, newGCGeneration(0, 0, false));
+            writer.writeEntry(b.getMostSignificantBits(), b.getLeastSignificantBits(), incompressible, 0, incompressible.length, newGCGeneration(0, 0, false));
+            assertArrayEquals(compressible, toArray(writer.readEntry(a.getMostSignificantBits(), a.getLeastSignificantBits())));
+        }
+
+        try (TarWriter writer = new TarWriter(plain, "data00001a.tar")) {
+            writer.writeEntry(c.getMostSignificantBits(), c.getLeastSignificantBits(), compressible, 0, compressible.length, newGCGeneration(0, 0, false));
+        }
+
+        try (TarReader reader = TarReader.open("data00000a.tar", plain)) {
+            for (SegmentArchiveEntry entry : reader.getEntries()) {
+                if (entry.getMsb() == a.getMostSignificantBits() && entry.getLsb() == a.getLeastSignificantBits()) {
+                    assertTrue(entry.getLength() < compressible.length);
+                } else {
+                    assertEquals(incompressible.length, entry.getLength());
+                }
+            }
+            assertArrayEquals(compressible, toArray(reader.readEntry(a.getMostSignificantBits(), a.getLeastSignificantBits())));
+            assertArrayEquals(incompressible, toArray(reader.readEntry(b.getMostSignificantBits(), b.getLeastSignificantBits())));
+        }
+
+        try (TarReader reader = TarReader.open("data00001a.tar", compressing)) {
+            assertArrayEquals(compressible, toArray(reader.readEntry(c.getMostSignificantBits(), c.getLeastSignificantBits())));
+        }
+
+        LinkedHashMap<UUID, byte[]> recovered = new LinkedHashMap<>();
+        plain.recoverEntries("data00000a.tar", recovered);
+        assertEquals(2, recovered.size());
+        assertArrayEquals(compressible, recovered.get(a));
+        assertArrayEquals(incompressible, recovered.get(b));
+    }
+
+    @Test
+    public void bulkSegmentsShouldNeverBeCompressedOrDecompressed() throws Exception {
+        File directory = folder.newFolder();
+        SegmentTarManager compressing = new SegmentTarManager(directory, new FileStoreMonitorAdapter(), new IOMonitorAdapter(), false, false, true);
+        SegmentTarManager plain = new SegmentTarManager(directory, new FileStoreMonitorAdapter(), new IOMonitorAdapter(), false, false);
+
+        UUID a = bulkSegmentId();
+        UUID b = bulkSegmentId();
+        byte[] bulk = bulkSegmentWithCompressedSignature();
+
+        try (TarWriter writer = new TarWriter(compressing, "data00000a.tar")) {
+            writer.writeEntry(a.getMostSignificantBits(), a.getLeastSignificantBits(), bulk, 0, bulk.length, newGCGeneration(0, 0, false));
+            assertArrayEquals(bulk, toArray(writer.readEntry(a.getMostSignificantBits(), a.getLeastSignificantBits())));
+        }
+
+        try (TarWriter writer = new TarWriter(plain, "data00001a.tar")) {
+            writer.writeEntry(b.getMostSignificantBits(), b.getLeastSignificantBits(), bulk, 0, bulk.length, newGCGeneration(0, 0, false));
+            assertArrayEquals(bulk, toArray(writer.readEntry(b.getMostSignificantBits(), b.getLeastSignificantBits())));
+        }
+
+        try (TarReader reader = TarReader.open("data00000a.tar", compressing)) {
+            assertEquals(bulk.length, reader.getEntries()[0].getLength());
+            assertArrayEquals(bulk, toArray(reader.readEntry(a.getMostSignificantBits(), a.getLeastSignificantBits())));
+        }
+
+        try (TarReader reader = TarReader.open("data00001a.tar", compressing)) {
+            assertArrayEquals(bulk, toArray(reader.readEntry(b.getMostSignificantBits(), b.getLeastSignificantBits())));
+        }
+
+        LinkedHashMap<UUID, byte[]> recovered = new LinkedHashMap<>();
+        compressing.recoverEntries("data00000a.tar", recovered);
+        compressing.recoverEntries("data00001a.tar", recovered);
+        assertEquals(2, recovered.size());
+        assertArrayEquals(bulk, recovered.get(a));
+        assertArrayEquals(bulk, recovered.get(b));
+    }
+
+}
@@ -28,17 +28,26 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.jackrabbit.oak.commons.Buffer;
 import org.apache.jackrabbit.oak.segment.file.tar.TarFiles.CleanupResult;
@@ -349,6 +358,48 @@ public class TarFilesTest {
         assertTrue(result.getReclaimedSize() > 0);
     }
 
+    @Test
+    public void testReadSegmentAfterCleanup() throws Exception {
+        UUID a = randomUUID();
+        UUID b = randomUUID();
+        UUID c = randomUUID();
+        byte[] data = randomData();
+
+        writeSegment(a, data);
+        writeSegment(b);
+        tarFiles.newWriter();
+        writeSegmentWithReferences(c, a);
+
+        // Keep `a` and `c`. The TAR reader containing `a` and `b` is replaced
+        // by a TAR reader containing only `a`.
+
+        CleanupResult result = tarFiles.cleanup(new CleanupContext() {
+
+            @Override
+            public Collection<UUID> initialReferences() {
+                return singletonList(c);
+            }
+
+            @Override
+            public boolean shouldReclaim(UUID id, GCGeneration generation, boolean referenced) {
+                return !referenced;
+            }
+
+            @Override
+            public boolean shouldFollow(UUID from, UUID to) {
+                return true;
+            }
+
+        });
+
+        assertEquals(singleton(b), result.getReclaimedSegmentIds());
+        assertTrue(containsSegment(a));
+        assertArrayEquals(data, readSegment(a));
+        assertFalse(containsSegment(b));
+        assertNull(readSegment(b));
+        assertTrue(containsSegment(c));
+    }
+
     @Test
     public void testCleanupConnectedSegments() throws Exception {
         UUID a = randomUUID();
@@ -391,4 +442,170 @@ public class TarFilesTest {
         assertTrue(result.getReclaimedSegmentIds().isEmpty());
         assertEquals(0, result.getReclaimedSize());
     }
+
+    @Test
+    public void testCleanupConcurrently() throws Exception {
+        UUID a = randomUUID();
+        UUID b = randomUUID();
+        UUID c = randomUUID();
+        UUID d = randomUUID();
+        UUID e = randomUUID();
+        UUID f = randomUUID();
+
+        // Spread the segments and their references over more TAR files
+        // than threads, so that the graphs are loaded ahead of the mark
+        // phase and the TAR files are swept concurrently.
+
+        writeSegment(a);
+        writeSegment(b);
+        tarFiles.newWriter();
+        writeSegmentWithReferences(c, a, b);
+        tarFiles.newWriter();
+        writeSegment(d);
+        writeSegment(f);
+        tarFiles.newWriter();
+        writeSegmentWithReferences(e, a, d);
+
+        CleanupResult result = tarFiles.cleanup(new CleanupContext() {
+
+            @Override
+            public Collection<UUID> initialReferences() {
+                return singletonList(e);
+            }
+
+            @Override
+            public boolean shouldReclaim(UUID id, GCGeneration generation, boolean referenced) {
+                return !referenced;
+            }
+
+            @Override
+            public boolean shouldFollow(UUID from, UUID to) {
+                return true;
+            }
+
+        }, 2);
+
+        assertFalse(result.isInterrupted());
+        assertEquals(3, result.getRemovableFiles().size());
+        assertTrue(result.getReclaimedSize() > 0);
+
+        // The TAR file containing only `c` is removed instead of being
+        // rewritten, so `c` is not reported as a reclaimed segment.
+
+        assertEquals(new HashSet<>(asList(b, f)), result.getReclaimedSegmentIds());
+
+        for (UUID id : asList(a, d, e)) {
+            assertTrue(containsSegment(id));
+        }
+        for (UUID id : asList(b, c, f)) {
+            assertFalse(containsSegment(id));
+        }
+    }
+
+    @Test
+    public void testOpenConcurrently() throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            UUID id = randomUUID();
+            writeSegment(id);
+            tarFiles.newWriter();
+            ids.add(id);
+        }
+
+        List<String> names = tarFiles.getReaderFileNames();
+        tarFiles.close();
+
+        tarFiles = TarFiles.builder()
+            .withDirectory(folder.getRoot())
+            .withTarRecovery((id, data, recovery) -> {
+                // Intentionally left blank
+            })
+            .withIOMonitor(new IOMonitorAdapter())
+            .withFileStoreMonitor(new FileStoreMonitorAdapter())
+            .withMaxFileSize(MAX_FILE_SIZE)
+            .withRemoteStoreMonitor(new RemoteStoreMonitorAdapter())
+            .withOpenConcurrency(4)
+            .build();
+
+        assertEquals(10, tarFiles.readerCount());
+        assertEquals(names, tarFiles.getReaderFileNames());
+        for (UUID id : ids) {
+            assertTrue(tarFiles.containsSegment(id.getMostSignificantBits(), id.getLeastSignificantBits()));
+        }
+    }
+
+    @Test
+    public void testInvokeAllDiscardsCompletedResultsOnInterrupt() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch running = new CountDownLatch(1);
+            AtomicInteger started = new AtomicInteger();
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                int n = i;
+                tasks.add(() -> {
+                    started.incrementAndGet();
+                    if (n == 0) {
+                        running.countDown();
+                        Thread.sleep(200);
+                    }
+                    return n;
+                });
+            }
+
+            Thread caller = Thread.currentThread();
+            Thread interrupter = new Thread(() -> {
+                try {
+                    running.await();
+                    caller.interrupt();
+                } catch (InterruptedException e) {
+                    // Intentionally left blank
+                }
+            });
+            interrupter.start();
+
+            List<Integer> discarded = new ArrayList<>();
+            try {
+                TarFiles.invokeAll(executor, tasks, discarded::add);
+                fail("Expected an IOException");
+            } catch (IOException e) {
+                assertTrue(Thread.interrupted());
+            } finally {
+                interrupter.join();
+            }
+
+            assertEquals(singletonList(0), discarded);
+            assertEquals(1, started.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvokeAllDiscardsCompletedResultsOnFailure() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            IOException failure = new IOException("Failed");
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            tasks.add(() -> 0);
+            tasks.add(() -> {
+                throw failure;
+            });
+            tasks.add(() -> 2);
+
+            List<Integer> discarded = new ArrayList<>();
+            try {
+                TarFiles.invokeAll(executor, tasks, discarded::add);
+                fail("Expected an IOException");
+            } catch (IOException e) {
+                assertSame(failure, e);
+            }
+
+            assertTrue(discarded.contains(0));
+            assertFalse(discarded.contains(1));
+            assertFalse(Thread.currentThread().isInterrupted());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
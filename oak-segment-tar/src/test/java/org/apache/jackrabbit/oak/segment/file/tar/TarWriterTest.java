@@ -21,14 +21,20 @@ package org.apache.jackrabbit.oak.segment.file.tar;
 
 import static com.google.common.base.Charsets.UTF_8;
 import static org.apache.jackrabbit.oak.segment.file.tar.GCGeneration.newGCGeneration;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.UUID;
 
+import org.apache.jackrabbit.oak.commons.Buffer;
 import org.apache.jackrabbit.oak.segment.spi.monitor.FileStoreMonitorAdapter;
 import org.apache.jackrabbit.oak.segment.spi.monitor.IOMonitorAdapter;
 import org.apache.jackrabbit.oak.segment.spi.persistence.SegmentArchiveManager;
@@ -80,11 +86,18 @@ public class TarWriterTest {
 
         long written;
 
+        volatile int synced;
+
         @Override
         public void written(long bytes) {
             written += bytes;
         }
 
+        @Override
+        public void synced(long nanos) {
+            synced++;
+        }
+
     }
 
     @Test
@@ -99,4 +112,100 @@ public class TarWriterTest {
         }
     }
 
+    @Test
+    public void testWriteQueue() throws Exception {
+        byte[] data = "Hello, World!".getBytes(UTF_8);
+        try (TarWriter writer = new TarWriter(archiveManager, 0, NoopStats.INSTANCE, monitor, 4)) {
+            for (int i = 0; i < 16; i++) {
+                writer.writeEntry(0, i, data, 0, data.length, newGCGeneration(0, 0, false));
+                assertTrue(writer.containsEntry(0, i));
+                assertArrayEquals(data, toArray(writer.readEntry(0, i)));
+            }
+            assertEquals(16, writer.getEntryCount());
+            assertFalse(writer.containsEntry(1, 0));
+
+            int syncedBefore = monitor.synced;
+            writer.flush();
+            assertTrue(monitor.synced > syncedBefore);
+            assertEquals(16 * (512 + 512), monitor.written);
+            for (int i = 0; i < 16; i++) {
+                assertArrayEquals(data, toArray(writer.readEntry(0, i)));
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testWriteQueueFailure() throws Exception {
+        testWriteQueueFailure(new IOException("test"));
+    }
+
+    @Test(timeout = 10000)
+    public void testWriteQueueRuntimeFailure() throws Exception {
+        testWriteQueueFailure(new IllegalStateException("test"));
+    }
+
+    @Test(timeout = 10000)
+    public void testWriteQueueErrorFailure() throws Exception {
+        testWriteQueueFailure(new AssertionError("test"));
+    }
+
+    private void testWriteQueueFailure(Throwable failure) throws Exception {
+        byte[] data = "Hello, World!".getBytes(UTF_8);
+        TarWriteQueue queue = new TarWriteQueue("test", 2, (msb, lsb, d, offset, size, generation) -> {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else {
+                throw (Error) failure;
+            }
+        }, () -> {}, monitor);
+        try {
+            for (int i = 0; i < 4; i++) {
+                try {
+                    queue.add(0, i, data, 0, data.length, newGCGeneration(0, 0, false));
+                } catch (IOException e) {
+                    // The I/O thread might have failed already
+                    assertSame(failure, e.getCause());
+                }
+            }
+            try {
+                queue.flush();
+                fail("Expected the flush to fail");
+            } catch (IOException e) {
+                assertSame(failure, e.getCause());
+            }
+            assertEquals(0, queue.getPendingCount());
+            assertEquals(0, queue.getPendingBytes());
+            for (int i = 0; i < 4; i++) {
+                assertFalse(queue.contains(0, i));
+                assertNull(queue.read(0, i));
+            }
+            try {
+                queue.add(0, 4, data, 0, data.length, newGCGeneration(0, 0, false));
+                fail("Expected the queue to refuse new segments");
+            } catch (IOException e) {
+                assertSame(failure, e.getCause());
+            }
+            try {
+                queue.flush();
+                fail("Expected the flush to fail");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            try {
+                queue.close();
+            } catch (IOException e) {
+                // expected, the queue failed
+            }
+        }
+    }
+
+    private static byte[] toArray(Buffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
 }
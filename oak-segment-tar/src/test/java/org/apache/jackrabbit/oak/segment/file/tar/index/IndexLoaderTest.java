@@ -19,7 +19,11 @@ package org.apache.jackrabbit.oak.segment.file.tar.index;
 
 import static org.apache.jackrabbit.oak.segment.file.tar.index.IndexLoader.newIndexLoader;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.zip.CRC32;
 
 import org.apache.jackrabbit.oak.commons.Buffer;
 import org.junit.Test;
@@ -91,4 +95,47 @@ public class IndexLoaderTest {
         assertEntry(index.entry(1), 7, 8, 9, 10, 11, 12, true);
     }
 
+    @Test
+    public void testLoadIndexV2IgnoresCompressedFlag() throws Exception {
+        Buffer buffer = Buffer.allocate(IndexEntryV2.SIZE + IndexV2.FOOTER_SIZE);
+        buffer.duplicate()
+                .putLong(1).putLong(2).putInt(3).putInt(4).putInt(5).putInt(6).put((byte) 2)
+                .putInt(checksum(buffer, IndexEntryV2.SIZE))
+                .putInt(1)
+                .putInt(IndexEntryV2.SIZE + IndexV2.FOOTER_SIZE)
+                .putInt(IndexLoaderV2.MAGIC);
+        Index index = loadIndex(buffer);
+        assertEntry(index.entry(0), 1, 2, 3, 4, 5, 6, true);
+        assertFalse(index.entry(0).isCompressed());
+    }
+
+    @Test
+    public void testLoadIndexV3() throws Exception {
+        Buffer buffer = Buffer.allocate(3 * IndexEntryV2.SIZE + IndexV2.FOOTER_SIZE);
+        buffer.duplicate()
+                .putLong(1).putLong(2).putInt(3).putInt(4).putInt(5).putInt(6).put((byte) 1)
+                .putLong(7).putLong(8).putInt(9).putInt(10).putInt(11).putInt(12).put((byte) 2)
+                .putLong(13).putLong(14).putInt(15).putInt(16).putInt(17).putInt(18).put((byte) 3)
+                .putInt(checksum(buffer, 3 * IndexEntryV2.SIZE))
+                .putInt(3)
+                .putInt(3 * IndexEntryV2.SIZE + IndexV2.FOOTER_SIZE)
+                .putInt(IndexLoaderV3.MAGIC);
+        Index index = loadIndex(buffer);
+        assertEquals(3, index.count());
+        assertEntry(index.entry(0), 1, 2, 3, 4, 5, 6, true);
+        assertFalse(index.entry(0).isCompressed());
+        assertEntry(index.entry(1), 7, 8, 9, 10, 11, 12, false);
+        assertTrue(index.entry(1).isCompressed());
+        assertEntry(index.entry(2), 13, 14, 15, 16, 17, 18, true);
+        assertTrue(index.entry(2).isCompressed());
+    }
+
+    private static int checksum(Buffer buffer, int length) {
+        Buffer entries = buffer.duplicate();
+        entries.limit(length);
+        CRC32 checksum = new CRC32();
+        entries.update(checksum);
+        return (int) checksum.getValue();
+    }
+
 }
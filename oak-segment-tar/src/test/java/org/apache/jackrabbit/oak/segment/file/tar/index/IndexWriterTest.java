@@ -19,9 +19,15 @@ package org.apache.jackrabbit.oak.segment.file.tar.index;
 
 import static org.apache.jackrabbit.oak.segment.file.tar.index.IndexWriter.newIndexWriter;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.nio.ByteBuffer;
 
+import org.apache.jackrabbit.oak.commons.Buffer;
+import org.apache.jackrabbit.oak.segment.util.ReaderAtEnd;
 import org.junit.Test;
 
 public class IndexWriterTest {
@@ -61,4 +67,33 @@ public class IndexWriterTest {
         assertArrayEquals(buffer.array(), writer.write());
     }
 
+    @Test
+    public void testWriteCompressed() throws Exception {
+        IndexWriter writer = newIndexWriter(1);
+        writer.addEntry(7, 8, 9, 10, 11, 12, true, false);
+        writer.addEntry(1, 2, 3, 4, 5, 6, false, true);
+        Buffer data = Buffer.wrap(writer.write());
+        assertEquals(IndexLoaderV3.MAGIC, data.getInt(data.limit() - Integer.BYTES));
+
+        ReaderAtEnd reader = (whence, length) -> {
+            Buffer slice = data.duplicate();
+            slice.position(slice.limit() - whence);
+            slice.limit(slice.position() + length);
+            return slice.slice();
+        };
+
+        try {
+            new IndexLoaderV2(1).loadIndex(reader);
+            fail("A reader not aware of compressed entries must reject the index");
+        } catch (InvalidIndexException e) {
+            assertEquals("Magic number mismatch", e.getMessage());
+        }
+
+        Index index = IndexLoader.newIndexLoader(1).loadIndex(reader);
+        assertFalse(index.entry(0).isCompacted());
+        assertTrue(index.entry(0).isCompressed());
+        assertTrue(index.entry(1).isCompacted());
+        assertFalse(index.entry(1).isCompressed());
+    }
+
 }
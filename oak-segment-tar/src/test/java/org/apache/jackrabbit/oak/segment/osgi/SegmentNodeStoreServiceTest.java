@@ -45,6 +45,10 @@ public class SegmentNodeStoreServiceTest {
             .withIntegerType()
             .withValue("256")
             .check());
+        assertTrue(cd.hasProperty("segmentCache.offHeapSize")
+            .withIntegerType()
+            .withValue("0")
+            .check());
         assertTrue(cd.hasProperty("stringCache.size")
             .withIntegerType()
             .withValue("256")
@@ -163,6 +167,10 @@ public class SegmentNodeStoreServiceTest {
             .withIntegerType()
             .withDefaultValue("256")
             .check());
+        assertTrue(ocd.hasAttributeDefinition("segmentCache.offHeapSize")
+            .withIntegerType()
+            .withDefaultValue("0")
+            .check());
         assertTrue(ocd.hasAttributeDefinition("stringCache.size")
             .withIntegerType()
             .withDefaultValue("256")
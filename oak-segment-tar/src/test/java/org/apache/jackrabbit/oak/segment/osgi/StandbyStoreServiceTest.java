@@ -65,6 +65,14 @@ public class StandbyStoreServiceTest {
             .withBooleanType()
             .withValue("true")
             .check());
+        assertTrue(cd.hasProperty("standby.maxinflightrequests")
+            .withIntegerType()
+            .withValue("1")
+            .check());
+        assertTrue(cd.hasProperty("standby.archivebootstrap")
+            .withBooleanType()
+            .withValue("false")
+            .check());
         assertTrue(cd.hasReference("storeProvider")
             .withInterface("org.apache.jackrabbit.oak.segment.SegmentStoreProvider")
             .withMandatoryUnaryCardinality()
@@ -116,6 +124,14 @@ public class StandbyStoreServiceTest {
             .withBooleanType()
             .withDefaultValue("true")
             .check());
+        assertTrue(ocd.hasAttributeDefinition("standby.maxinflightrequests")
+            .withIntegerType()
+            .withDefaultValue("1")
+            .check());
+        assertTrue(ocd.hasAttributeDefinition("standby.archivebootstrap")
+            .withBooleanType()
+            .withDefaultValue("false")
+            .check());
         assertTrue(ocd.hasAttributeDefinition("primary.allowed-client-ip-ranges")
             .withStringType()
             .withCardinality("2147483647")
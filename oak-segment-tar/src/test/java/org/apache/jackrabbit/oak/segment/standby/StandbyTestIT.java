@@ -21,6 +21,7 @@ package org.apache.jackrabbit.oak.segment.standby;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -152,6 +153,119 @@ public class StandbyTestIT extends TestBase {
         }
     }
 
+    @Test
+    public void testSyncPipelined() throws Exception {
+        final int blobSize = 25 * 1024;
+        final int dataNodes = 5000;
+
+        FileStore primary = serverFileStore.fileStore();
+        FileStore secondary = clientFileStore.fileStore();
+
+        NodeStore store = SegmentNodeStoreBuilders.builder(primary).build();
+        try (
+            StandbyServerSync serverSync = StandbyServerSync.builder()
+                .withPort(serverPort.getPort())
+                .withFileStore(primary)
+                .withBlobChunkSize(MB)
+                .build();
+            StandbyClientSync clientSync = new StandbyClientSync(getServerHost(), serverPort.getPort(), secondary, false, getClientTimeout(), false, folder.newFolder(), 16)
+        ) {
+            serverSync.start();
+            byte[] data = addTestContent(store, "server", blobSize, dataNodes);
+            primary.flush();
+
+            clientSync.run();
+
+            assertEquals(primary.getHead(), secondary.getHead());
+            assertEquals(0, clientSync.getFailedRequests());
+            assertEquals(0, clientSync.getInFlightRequests());
+            assertTrue(clientSync.getSegmentBytesPerSecond() > 0);
+
+            PropertyState ps = secondary.getHead().getChildNode("root")
+                    .getChildNode("server").getProperty("testBlob");
+            assertNotNull(ps);
+            Blob b = ps.getValue(Type.BINARY);
+            byte[] testData = new byte[blobSize];
+            ByteStreams.readFully(b.getNewStream(), testData);
+            assertArrayEquals(data, testData);
+        }
+    }
+
+    @Test
+    public void testSyncBootstrap() throws Exception {
+        int blobSize = 5 * MB;
+        FileStore primary = serverFileStore.fileStore();
+        FileStore secondary = clientFileStore.fileStore();
+
+        NodeStore store = SegmentNodeStoreBuilders.builder(primary).build();
+        try (
+            StandbyServerSync serverSync = StandbyServerSync.builder()
+                .withPort(serverPort.getPort())
+                .withFileStore(primary)
+                .withBlobChunkSize(MB)
+                .build();
+            StandbyClientSync clientSync = new StandbyClientSync(getServerHost(), serverPort.getPort(), secondary, false, getClientTimeout(), false, folder.newFolder(), 1, true)
+        ) {
+            serverSync.start();
+            byte[] data = addTestContent(store, "server", blobSize, 150);
+            primary.flush();
+
+            // The content doesn't fit in a single archive, so the standby is
+            // bootstrapped from the sealed archives of the primary.
+
+            int sealed = primary.getSealedTarFiles().size();
+            assertTrue(sealed > 0);
+
+            clientSync.run();
+
+            assertEquals(sealed, clientSync.getBootstrappedArchives());
+            assertEquals(primary.getHead(), secondary.getHead());
+            assertEquals(0, clientSync.getFailedRequests());
+
+            PropertyState ps = secondary.getHead().getChildNode("root")
+                    .getChildNode("server").getProperty("testBlob");
+            assertNotNull(ps);
+            Blob b = ps.getValue(Type.BINARY);
+            byte[] testData = new byte[blobSize];
+            ByteStreams.readFully(b.getNewStream(), testData);
+            assertArrayEquals(data, testData);
+
+            // A second run only synchronizes the changes.
+
+            addTestContent(store, "server2", 1024, 10);
+            primary.flush();
+            clientSync.run();
+            assertEquals(sealed, clientSync.getBootstrappedArchives());
+            assertEquals(primary.getHead(), secondary.getHead());
+        }
+    }
+
+    @Test
+    public void testSyncWithoutArchiveBootstrap() throws Exception {
+        FileStore primary = serverFileStore.fileStore();
+        FileStore secondary = clientFileStore.fileStore();
+
+        NodeStore store = SegmentNodeStoreBuilders.builder(primary).build();
+        try (
+            StandbyServerSync serverSync = StandbyServerSync.builder()
+                .withPort(serverPort.getPort())
+                .withFileStore(primary)
+                .withBlobChunkSize(MB)
+                .build();
+            StandbyClientSync clientSync = new StandbyClientSync(getServerHost(), serverPort.getPort(), secondary, false, getClientTimeout(), false, folder.newFolder())
+        ) {
+            serverSync.start();
+            addTestContent(store, "server", 5 * MB, 150);
+            primary.flush();
+            assertFalse(primary.getSealedTarFiles().isEmpty());
+
+            clientSync.run();
+
+            assertEquals(0, clientSync.getBootstrappedArchives());
+            assertEquals(primary.getHead(), secondary.getHead());
+        }
+    }
+
     private static byte[] addTestContent(NodeStore store, String child, int size, int dataNodes) throws Exception {
         NodeBuilder builder = store.getRoot().builder();
         NodeBuilder content = builder.child(child);
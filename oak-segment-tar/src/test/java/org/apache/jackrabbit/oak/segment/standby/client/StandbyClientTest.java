@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.jackrabbit.oak.segment.standby.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.io.ByteStreams;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.compression.SnappyFrameEncoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.CharsetUtil;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetArchiveRequest;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetBlobRequest;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetBlobResponse;
+import org.apache.jackrabbit.oak.segment.standby.codec.GetBlobResponseEncoder;
+import org.apache.jackrabbit.oak.segment.standby.codec.RequestDecoder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StandbyClientTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder(new File("target"));
+
+    private NioEventLoopGroup group;
+
+    private Channel server;
+
+    private static byte[] content(String id) {
+        return ("content of " + id).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static GetBlobResponse newResponse(String id) {
+        byte[] data = content(id);
+        return new GetBlobResponse("client", id, new ByteArrayInputStream(data), data.length);
+    }
+
+    /**
+     * Start a server answering every request for a binary or an archive with
+     * a stale response for a previous request, followed by the expected one.
+     */
+    @Before
+    public void setUp() throws Exception {
+        group = new NioEventLoopGroup(0);
+        server = new ServerBootstrap()
+            .group(group)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(new ChannelInitializer<SocketChannel>() {
+
+                @Override
+                public void initChannel(SocketChannel ch) {
+                    ChannelPipeline p = ch.pipeline();
+                    p.addLast(new LineBasedFrameDecoder(8192));
+                    p.addLast(new StringDecoder(CharsetUtil.UTF_8));
+                    p.addLast(new RequestDecoder());
+                    p.addLast(new SnappyFrameEncoder());
+                    p.addLast(new ChunkedWriteHandler());
+                    p.addLast(new GetBlobResponseEncoder(1024));
+                    p.addLast(new SimpleChannelInboundHandler<Object>() {
+
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
+                            String id;
+                            if (msg instanceof GetBlobRequest) {
+                                id = ((GetBlobRequest) msg).getBlobId();
+                            } else if (msg instanceof GetArchiveRequest) {
+                                id = ((GetArchiveRequest) msg).getArchiveName();
+                            } else {
+                                return;
+                            }
+                            ctx.write(newResponse("stale"));
+                            ctx.writeAndFlush(newResponse(id));
+                        }
+
+                    });
+                }
+
+            })
+            .bind("localhost", 0)
+            .sync()
+            .channel();
+    }
+
+    @After
+    public void tearDown() {
+        server.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+
+    private StandbyClient newClient() throws Exception {
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+        return new StandbyClient("localhost", port, group, "client", false, 5000, folder.newFolder());
+    }
+
+    @Test
+    public void getBlobShouldDiscardStaleResponses() throws Exception {
+        try (StandbyClient client = newClient()) {
+            try (InputStream in = client.getBlob("blob")) {
+                assertNotNull(in);
+                assertArrayEquals(content("blob"), ByteStreams.toByteArray(in));
+            }
+        }
+    }
+
+    @Test
+    public void getArchiveShouldDiscardStaleResponses() throws Exception {
+        try (StandbyClient client = newClient()) {
+            GetBlobResponse response = client.getArchive("data00000a.tar");
+            assertNotNull(response);
+            assertEquals("data00000a.tar", response.getBlobId());
+            try (InputStream in = response.getInputStream()) {
+                assertNotNull(response.getFile());
+                assertArrayEquals(content("data00000a.tar"), ByteStreams.toByteArray(in));
+            }
+        }
+    }
+
+}
@@ -20,6 +20,7 @@ package org.apache.jackrabbit.oak.segment.standby.codec;
 import static org.apache.jackrabbit.oak.segment.standby.StandbyTestUtils.hash;
 import static org.junit.Assert.assertEquals;
 
+import java.util.Random;
 import java.util.UUID;
 
 import io.netty.buffer.ByteBuf;
@@ -49,4 +50,31 @@ public class GetSegmentResponseEncoderTest {
         assertEquals(expected, buffer);
     }
 
+    @Test
+    public void encodeDirectResponse() throws Exception {
+        UUID uuid = new UUID(1, 2);
+        byte[] data = new byte[20000];
+        new Random().nextBytes(data);
+
+        ByteBuf direct = Unpooled.directBuffer(data.length);
+        direct.writeBytes(data);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new GetSegmentResponseEncoder());
+        channel.writeOutbound(new GetSegmentResponse("clientId", uuid.toString(), direct));
+        ByteBuf buffer = (ByteBuf) channel.readOutbound();
+
+        ByteBuf expected = Unpooled.buffer();
+        expected.writeInt(data.length + 25);
+        expected.writeByte(Messages.HEADER_SEGMENT);
+        expected.writeLong(uuid.getMostSignificantBits());
+        expected.writeLong(uuid.getLeastSignificantBits());
+        expected.writeLong(hash(data));
+        expected.writeBytes(data);
+
+        assertEquals(expected, buffer);
+
+        buffer.release();
+        assertEquals(0, direct.refCnt());
+    }
+
 }
@@ -60,6 +60,23 @@ public class RequestDecoderTest {
         assertEquals("segmentId", request.getSegmentId());
     }
 
+    @Test
+    public void shouldDecodeValidGetArchivesRequests() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new RequestDecoder());
+        channel.writeInbound(Messages.newGetArchivesRequest("clientId", false));
+        GetArchivesRequest request = (GetArchivesRequest) channel.readInbound();
+        assertEquals("clientId", request.getClientId());
+    }
+
+    @Test
+    public void shouldDecodeValidGetArchiveRequests() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new RequestDecoder());
+        channel.writeInbound(Messages.newGetArchiveRequest("clientId", "data00000a.tar", false));
+        GetArchiveRequest request = (GetArchiveRequest) channel.readInbound();
+        assertEquals("clientId", request.getClientId());
+        assertEquals("data00000a.tar", request.getArchiveName());
+    }
+
     @Test
     public void shouldDropInvalidMessages() throws Exception {
         EmbeddedChannel channel = new EmbeddedChannel(new RequestDecoder());
@@ -18,6 +18,7 @@
 package org.apache.jackrabbit.oak.segment.standby.codec;
 
 import static com.google.common.collect.Iterables.elementsEqual;
+import static com.google.common.collect.Iterables.isEmpty;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
@@ -179,6 +180,33 @@ public class ResponseDecoderTest {
         assertTrue(elementsEqual(asList("b", "c"), response.getReferences()));
     }
 
+    @Test
+    public void shouldDecodeValidGetArchivesResponses() throws Exception {
+        byte[] data = "data00000a.tar,data00001a.tar".getBytes(Charsets.UTF_8);
+
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(data.length + 1);
+        buf.writeByte(Messages.HEADER_ARCHIVES);
+        buf.writeBytes(data);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new ResponseDecoder(folder.newFolder()));
+        channel.writeInbound(buf);
+        GetArchivesResponse response = (GetArchivesResponse) channel.readInbound();
+        assertTrue(elementsEqual(asList("data00000a.tar", "data00001a.tar"), response.getArchiveNames()));
+    }
+
+    @Test
+    public void shouldDecodeValidEmptyGetArchivesResponses() throws Exception {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(1);
+        buf.writeByte(Messages.HEADER_ARCHIVES);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new ResponseDecoder(folder.newFolder()));
+        channel.writeInbound(buf);
+        GetArchivesResponse response = (GetArchivesResponse) channel.readInbound();
+        assertTrue(isEmpty(response.getArchiveNames()));
+    }
+
     @Test
     public void shouldDropGetReferencesResponsesWithoutDelimiter() throws Exception {
         byte[] data = "a".getBytes(Charsets.UTF_8);
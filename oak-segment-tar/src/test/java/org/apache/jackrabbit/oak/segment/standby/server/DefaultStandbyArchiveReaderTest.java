@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.jackrabbit.oak.segment.standby.server;
+
+import static com.google.common.collect.Iterables.elementsEqual;
+import static com.google.common.collect.Iterables.isEmpty;
+import static com.google.common.collect.Lists.newArrayList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.jackrabbit.oak.segment.SegmentNodeStoreBuilders;
+import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.file.FileStoreBuilder;
+import org.apache.jackrabbit.oak.spi.commit.CommitInfo;
+import org.apache.jackrabbit.oak.spi.commit.EmptyHook;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.apache.jackrabbit.oak.spi.state.NodeStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DefaultStandbyArchiveReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder(new File("target"));
+
+    private FileStore newFileStore() throws Exception {
+        return FileStoreBuilder.fileStoreBuilder(folder.getRoot())
+                .withMaxFileSize(1)
+                .build();
+    }
+
+    private static void addContent(FileStore store) throws Exception {
+        NodeStore nodeStore = SegmentNodeStoreBuilders.builder(store).build();
+        NodeBuilder builder = nodeStore.getRoot().builder();
+        byte[] data = new byte[4 * 1024 * 1024];
+        new Random().nextBytes(data);
+        builder.setProperty("blob", nodeStore.createBlob(new ByteArrayInputStream(data)));
+        nodeStore.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+        store.flush();
+    }
+
+    @Test
+    public void shouldReturnNoArchivesForEmptyStore() throws Exception {
+        try (FileStore store = newFileStore()) {
+            DefaultStandbyArchiveReader reader = new DefaultStandbyArchiveReader(store);
+            assertTrue(isEmpty(reader.readArchiveNames()));
+        }
+    }
+
+    @Test
+    public void shouldReturnSealedArchives() throws Exception {
+        try (FileStore store = newFileStore()) {
+            addContent(store);
+
+            DefaultStandbyArchiveReader reader = new DefaultStandbyArchiveReader(store);
+            List<String> names = newArrayList(reader.readArchiveNames());
+            assertFalse(names.isEmpty());
+
+            List<String> expected = newArrayList();
+            for (File file : store.getSealedTarFiles()) {
+                expected.add(file.getName());
+            }
+            assertTrue(elementsEqual(expected, names));
+
+            for (String name : names) {
+                File file = reader.readArchive(name);
+                assertEquals(new File(folder.getRoot(), name), file);
+                assertTrue(file.isFile());
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotReturnUnknownArchives() throws Exception {
+        try (FileStore store = newFileStore()) {
+            addContent(store);
+
+            DefaultStandbyArchiveReader reader = new DefaultStandbyArchiveReader(store);
+            assertNull(reader.readArchive("data99999a.tar"));
+            assertNull(reader.readArchive("journal.log"));
+            assertNull(reader.readArchive("../data00000a.tar"));
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.jackrabbit.oak.segment.standby.server;
+
+import static java.util.UUID.randomUUID;
+import static org.apache.jackrabbit.oak.segment.DefaultSegmentWriterBuilder.defaultSegmentWriterBuilder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.UUID;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import org.apache.jackrabbit.oak.plugins.memory.EmptyNodeState;
+import org.apache.jackrabbit.oak.segment.RecordId;
+import org.apache.jackrabbit.oak.segment.SegmentId;
+import org.apache.jackrabbit.oak.segment.SegmentWriter;
+import org.apache.jackrabbit.oak.segment.file.FileStore;
+import org.apache.jackrabbit.oak.segment.file.FileStoreBuilder;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DefaultStandbySegmentReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder(new File("target"));
+
+    private FileStore newFileStore() throws Exception {
+        return FileStoreBuilder.fileStoreBuilder(folder.getRoot())
+            .withMemoryMapping(true)
+            .build();
+    }
+
+    private static String writeSegment(FileStore store) throws Exception {
+        SegmentWriter writer = defaultSegmentWriterBuilder("test").build(store);
+        NodeBuilder builder = EmptyNodeState.EMPTY_NODE.builder();
+        for (int i = 0; i < 100; i++) {
+            builder.setChildNode("child-" + i).setProperty("p", "value-" + i);
+        }
+        RecordId id = writer.writeNode(builder.getNodeState());
+        writer.flush();
+        return id.getSegmentId().asUUID().toString();
+    }
+
+    private static byte[] readSegment(FileStore store, String id) throws Exception {
+        UUID uuid = UUID.fromString(id);
+        SegmentId segmentId = store.getSegmentIdProvider().newSegmentId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        store.readSegment(segmentId).writeTo(stream);
+        return stream.toByteArray();
+    }
+
+    @Test
+    public void shouldReturnNullWhenSegmentDoesNotExist() throws Exception {
+        try (FileStore store = newFileStore()) {
+            DefaultStandbySegmentReader reader = new DefaultStandbySegmentReader(store);
+            assertNull(reader.readSegment(randomUUID().toString()));
+        }
+    }
+
+    @Test
+    public void shouldReturnSegmentContent() throws Exception {
+        String id;
+
+        try (FileStore store = newFileStore()) {
+            id = writeSegment(store);
+        }
+
+        // Reopen the store to read the segment from a memory mapped tar file.
+        try (FileStore store = newFileStore()) {
+            byte[] expected = readSegment(store, id);
+            ByteBuf data = new DefaultStandbySegmentReader(store).readSegment(id);
+            assertArrayEquals(expected, ByteBufUtil.getBytes(data));
+        }
+    }
+
+}
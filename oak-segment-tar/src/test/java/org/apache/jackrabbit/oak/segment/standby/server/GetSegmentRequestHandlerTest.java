@@ -25,6 +25,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.UUID;
 
+import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.apache.jackrabbit.oak.segment.standby.codec.GetSegmentRequest;
 import org.apache.jackrabbit.oak.segment.standby.codec.GetSegmentResponse;
@@ -37,7 +38,7 @@ public class GetSegmentRequestHandlerTest {
         byte[] data = new byte[] {3, 4, 5};
 
         StandbySegmentReader reader = mock(StandbySegmentReader.class);
-        when(reader.readSegment("segmentId")).thenReturn(data);
+        when(reader.readSegment("segmentId")).thenReturn(Unpooled.wrappedBuffer(data));
 
         EmbeddedChannel channel = new EmbeddedChannel(new GetSegmentRequestHandler(reader));
         channel.writeInbound(new GetSegmentRequest("clientId", "segmentId"));
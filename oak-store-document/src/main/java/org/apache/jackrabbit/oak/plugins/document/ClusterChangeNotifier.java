@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.plugins.document;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import org.apache.jackrabbit.oak.plugins.document.persistentCache.broadcast.Broadcaster;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Pushes notifications about changes of this cluster node to other cluster
+ * nodes. After a background write persisted the {@code _lastRev} of the root
+ * document and the corresponding journal entry, the revision is announced with
+ * a {@link Broadcaster}. Other cluster nodes receive the revision and can run
+ * their background read right away instead of waiting for the next periodic
+ * background read. Messages may get lost, hence the periodic background read
+ * remains in place as a fallback.
+ * <p>
+ * The broadcaster must not be shared with the persistent cache, which uses a
+ * different message format.
+ */
+class ClusterChangeNotifier implements Broadcaster.Listener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterChangeNotifier.class);
+
+    /**
+     * Marker at the start of each message.
+     */
+    private static final int MAGIC = 0x4f414b31;
+
+    /**
+     * Size of a message: magic, clusterId, timestamp and counter.
+     */
+    private static final int MESSAGE_SIZE = 4 + 4 + 8 + 4;
+
+    private final Broadcaster broadcaster;
+
+    private final int clusterId;
+
+    private final Consumer<Revision> listener;
+
+    /**
+     * Creates a new notifier and registers it with the given broadcaster.
+     *
+     * @param broadcaster the broadcaster to send and receive notifications.
+     * @param clusterId the clusterId of the local cluster node. Notifications
+     *          with this clusterId are ignored.
+     * @param listener called with the revision announced by another cluster
+     *          node.
+     */
+    ClusterChangeNotifier(@NotNull Broadcaster broadcaster,
+                          int clusterId,
+                          @NotNull Consumer<Revision> listener) {
+        this.broadcaster = checkNotNull(broadcaster);
+        this.clusterId = clusterId;
+        this.listener = checkNotNull(listener);
+        broadcaster.addListener(this);
+    }
+
+    /**
+     * Announces a revision of the local cluster node, which was written to
+     * the {@code _lastRev} of the root document.
+     *
+     * @param revision the revision.
+     */
+    void announce(@NotNull Revision revision) {
+        ByteBuffer buff = ByteBuffer.allocate(MESSAGE_SIZE);
+        buff.putInt(MAGIC);
+        buff.putInt(revision.getClusterId());
+        buff.putLong(revision.getTimestamp());
+        buff.putInt(revision.getCounter());
+        ((Buffer) buff).flip();
+        try {
+            broadcaster.send(buff);
+        } catch (RuntimeException e) {
+            // best effort, other cluster nodes will eventually
+            // pick up the change with the periodic background read
+            LOG.debug("Unable to announce revision {}", revision, e);
+        }
+    }
+
+    @Override
+    public void receive(ByteBuffer buff) {
+        if (buff.remaining() < MESSAGE_SIZE || buff.getInt() != MAGIC) {
+            // not a cluster change notification
+            return;
+        }
+        int id = buff.getInt();
+        long timestamp = buff.getLong();
+        int counter = buff.getInt();
+        if (id == clusterId) {
+            return;
+        }
+        Revision r = new Revision(timestamp, counter, id);
+        LOG.debug("Received change notification with revision {}", r);
+        try {
+            listener.accept(r);
+        } catch (RuntimeException e) {
+            LOG.warn("Exception while processing change notification for revision {}", r, e);
+        }
+    }
+
+    /**
+     * Stops receiving notifications. This does not close the broadcaster.
+     */
+    void close() {
+        broadcaster.removeListener(this);
+    }
+}
@@ -528,7 +528,7 @@ public class Commit {
         if (doc == null) {
             return;
         }
-        if (doc.getMemory() > SPLIT_CANDIDATE_THRESHOLD || doc.hasBinary()) {
+        if (doc.getEstimatedSize() > SPLIT_CANDIDATE_THRESHOLD || doc.hasBinary()) {
             nodeStore.addSplitCandidate(doc.getId());
         }
     }
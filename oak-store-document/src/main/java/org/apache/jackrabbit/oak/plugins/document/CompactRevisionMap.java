@@ -0,0 +1,466 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.plugins.document;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.jackrabbit.oak.cache.CacheValue;
+import org.apache.jackrabbit.oak.commons.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static org.apache.jackrabbit.oak.plugins.document.StableRevisionComparator.REVERSE;
+
+/**
+ * An immutable, memory efficient map of revisions to string values as used
+ * for the local value maps of a sealed {@link NodeDocument}. Instead of a
+ * tree of entries with boxed {@link Revision} keys, the revisions are kept in
+ * parallel arrays of timestamp, counter and clusterId, sorted in
+ * {@link StableRevisionComparator#REVERSE} order. Values are stored as
+ * indexes into a table of distinct values. {@link Revision} and entry
+ * objects are created on access.
+ * <p>
+ * Range views returned by {@link #subMap}, {@link #headMap} and
+ * {@link #tailMap} share the arrays with this map.
+ */
+final class CompactRevisionMap extends AbstractMap<Revision, String>
+        implements NavigableMap<Revision, String>, CacheValue {
+
+    private final long[] timestamps;
+
+    private final int[] counters;
+
+    private final int[] clusterIds;
+
+    /**
+     * Index into {@link #table} for each entry or -1 for a {@code null}
+     * value.
+     */
+    private final int[] valueIndexes;
+
+    /**
+     * The distinct values of this map.
+     */
+    private final String[] table;
+
+    /**
+     * First index (inclusive) of this map or view.
+     */
+    private final int from;
+
+    /**
+     * Last index (exclusive) of this map or view.
+     */
+    private final int to;
+
+    private CompactRevisionMap(long[] timestamps, int[] counters,
+                               int[] clusterIds, int[] valueIndexes,
+                               String[] table, int from, int to) {
+        this.timestamps = timestamps;
+        this.counters = counters;
+        this.clusterIds = clusterIds;
+        this.valueIndexes = valueIndexes;
+        this.table = table;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Creates a compact copy of the given map if possible. This is only the
+     * case when the given map is sorted in
+     * {@link StableRevisionComparator#REVERSE} order, all keys are non-branch
+     * {@link Revision}s and all values are {@code String}s or {@code null}.
+     *
+     * @param map the map to copy.
+     * @return the compact copy or {@code null} if the map cannot be
+     *          represented as a {@code CompactRevisionMap}.
+     */
+    @Nullable
+    static CompactRevisionMap create(@NotNull Map<?, ?> map) {
+        if (!(map instanceof SortedMap)
+                || ((SortedMap<?, ?>) map).comparator() != REVERSE) {
+            return null;
+        }
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            Object k = e.getKey();
+            Object v = e.getValue();
+            if (!(k instanceof Revision) || ((Revision) k).isBranch()
+                    || !(v == null || v instanceof String)) {
+                return null;
+            }
+        }
+        int size = map.size();
+        long[] timestamps = new long[size];
+        int[] counters = new int[size];
+        int[] clusterIds = new int[size];
+        int[] valueIndexes = new int[size];
+        Map<String, Integer> indexes = new HashMap<>();
+        int i = 0;
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            Revision r = (Revision) e.getKey();
+            timestamps[i] = r.getTimestamp();
+            counters[i] = r.getCounter();
+            clusterIds[i] = r.getClusterId();
+            String v = (String) e.getValue();
+            if (v == null) {
+                valueIndexes[i] = -1;
+            } else {
+                Integer idx = indexes.get(v);
+                if (idx == null) {
+                    idx = indexes.size();
+                    indexes.put(v, idx);
+                }
+                valueIndexes[i] = idx;
+            }
+            i++;
+        }
+        String[] table = new String[indexes.size()];
+        for (Map.Entry<String, Integer> e : indexes.entrySet()) {
+            table[e.getValue()] = e.getKey();
+        }
+        return new CompactRevisionMap(timestamps, counters, clusterIds,
+                valueIndexes, table, 0, size);
+    }
+
+    //-----------------------------< CacheValue >-------------------------------
+
+    @Override
+    public int getMemory() {
+        // shallow size and the arrays shared with views
+        long size = 40 + 16 + (long) timestamps.length * 8
+                + 3 * (16 + (long) counters.length * 4)
+                + 16 + (long) table.length * 4;
+        for (String v : table) {
+            size += StringUtils.estimateMemoryUsage(v);
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    //--------------------------------< Map >-----------------------------------
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Revision && search((Revision) key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof Revision)) {
+            return null;
+        }
+        int idx = search((Revision) key);
+        return idx >= 0 ? valueAt(idx) : null;
+    }
+
+    @NotNull
+    @Override
+    public Set<Entry<Revision, String>> entrySet() {
+        return new AbstractSet<Entry<Revision, String>>() {
+            @NotNull
+            @Override
+            public Iterator<Entry<Revision, String>> iterator() {
+                return new Iterator<Entry<Revision, String>>() {
+                    private int next = from;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < to;
+                    }
+
+                    @Override
+                    public Entry<Revision, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return entryAt(next++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompactRevisionMap.this.size();
+            }
+        };
+    }
+
+    //----------------------------< SortedMap >---------------------------------
+
+    @Override
+    public Comparator<? super Revision> comparator() {
+        return REVERSE;
+    }
+
+    @Override
+    public Revision firstKey() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(from);
+    }
+
+    @Override
+    public Revision lastKey() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(to - 1);
+    }
+
+    @NotNull
+    @Override
+    public SortedMap<Revision, String> subMap(Revision fromKey, Revision toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @NotNull
+    @Override
+    public SortedMap<Revision, String> headMap(Revision toKey) {
+        return headMap(toKey, false);
+    }
+
+    @NotNull
+    @Override
+    public SortedMap<Revision, String> tailMap(Revision fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    //--------------------------< NavigableMap >--------------------------------
+
+    @Override
+    public Entry<Revision, String> lowerEntry(Revision key) {
+        return entryOrNull(lowerIndex(key));
+    }
+
+    @Override
+    public Revision lowerKey(Revision key) {
+        return keyOrNull(lowerIndex(key));
+    }
+
+    @Override
+    public Entry<Revision, String> floorEntry(Revision key) {
+        return entryOrNull(floorIndex(key));
+    }
+
+    @Override
+    public Revision floorKey(Revision key) {
+        return keyOrNull(floorIndex(key));
+    }
+
+    @Override
+    public Entry<Revision, String> ceilingEntry(Revision key) {
+        return entryOrNull(ceilingIndex(key));
+    }
+
+    @Override
+    public Revision ceilingKey(Revision key) {
+        return keyOrNull(ceilingIndex(key));
+    }
+
+    @Override
+    public Entry<Revision, String> higherEntry(Revision key) {
+        return entryOrNull(higherIndex(key));
+    }
+
+    @Override
+    public Revision higherKey(Revision key) {
+        return keyOrNull(higherIndex(key));
+    }
+
+    @Override
+    public Entry<Revision, String> firstEntry() {
+        return entryOrNull(from);
+    }
+
+    @Override
+    public Entry<Revision, String> lastEntry() {
+        return entryOrNull(to - 1);
+    }
+
+    @Override
+    public Entry<Revision, String> pollFirstEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Entry<Revision, String> pollLastEntry() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public NavigableMap<Revision, String> descendingMap() {
+        // rarely used, fall back to a copy
+        return Collections.unmodifiableNavigableMap(
+                new TreeMap<>(this).descendingMap());
+    }
+
+    @Override
+    public NavigableSet<Revision> navigableKeySet() {
+        return Collections.unmodifiableNavigableSet(
+                new TreeMap<>(this).navigableKeySet());
+    }
+
+    @Override
+    public NavigableSet<Revision> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @NotNull
+    @Override
+    public NavigableMap<Revision, String> subMap(Revision fromKey,
+                                                 boolean fromInclusive,
+                                                 Revision toKey,
+                                                 boolean toInclusive) {
+        if (REVERSE.compare(fromKey, toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        int lo = fromInclusive ? ceilingIndex(fromKey) : higherIndex(fromKey);
+        int hi = toInclusive ? higherIndex(toKey) : ceilingIndex(toKey);
+        return view(lo, Math.max(lo, hi));
+    }
+
+    @NotNull
+    @Override
+    public NavigableMap<Revision, String> headMap(Revision toKey,
+                                                  boolean inclusive) {
+        return view(from, inclusive ? higherIndex(toKey) : ceilingIndex(toKey));
+    }
+
+    @NotNull
+    @Override
+    public NavigableMap<Revision, String> tailMap(Revision fromKey,
+                                                  boolean inclusive) {
+        return view(inclusive ? ceilingIndex(fromKey) : higherIndex(fromKey), to);
+    }
+
+    //------------------------------< internal >--------------------------------
+
+    private CompactRevisionMap view(int lo, int hi) {
+        if (lo == from && hi == to) {
+            return this;
+        }
+        return new CompactRevisionMap(timestamps, counters, clusterIds,
+                valueIndexes, table, lo, hi);
+    }
+
+    private Revision keyAt(int idx) {
+        return new Revision(timestamps[idx], counters[idx], clusterIds[idx]);
+    }
+
+    private String valueAt(int idx) {
+        int v = valueIndexes[idx];
+        return v < 0 ? null : table[v];
+    }
+
+    private Entry<Revision, String> entryAt(int idx) {
+        return new SimpleImmutableEntry<>(keyAt(idx), valueAt(idx));
+    }
+
+    private Entry<Revision, String> entryOrNull(int idx) {
+        return idx >= from && idx < to ? entryAt(idx) : null;
+    }
+
+    private Revision keyOrNull(int idx) {
+        return idx >= from && idx < to ? keyAt(idx) : null;
+    }
+
+    /**
+     * Compares the revision at the given index with the given revision in
+     * the order of this map, which is {@link StableRevisionComparator#REVERSE}.
+     */
+    private int compareAt(int idx, Revision r) {
+        long ts = timestamps[idx];
+        int comp = ts < r.getTimestamp() ? -1 : ts > r.getTimestamp() ? 1 : 0;
+        if (comp == 0) {
+            comp = Integer.compare(counters[idx], r.getCounter());
+        }
+        if (comp == 0) {
+            comp = Integer.compare(clusterIds[idx], r.getClusterId());
+        }
+        if (comp == 0 && r.isBranch()) {
+            // a non-branch revision is greater than a branch revision
+            // with the same timestamp, counter and clusterId
+            comp = 1;
+        }
+        return -comp;
+    }
+
+    /**
+     * Binary search for the given revision within the bounds of this map.
+     *
+     * @return the index of the revision if present, otherwise
+     *          {@code (-(insertion point) - 1)}.
+     */
+    private int search(Revision r) {
+        int lo = from;
+        int hi = to - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int comp = compareAt(mid, r);
+            if (comp < 0) {
+                lo = mid + 1;
+            } else if (comp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    private int ceilingIndex(Revision r) {
+        int idx = search(r);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+
+    private int higherIndex(Revision r) {
+        int idx = search(r);
+        return idx >= 0 ? idx + 1 : -idx - 1;
+    }
+
+    private int floorIndex(Revision r) {
+        int idx = search(r);
+        return idx >= 0 ? idx : -idx - 2;
+    }
+
+    private int lowerIndex(Revision r) {
+        int idx = search(r);
+        return idx >= 0 ? idx - 1 : -idx - 2;
+    }
+}
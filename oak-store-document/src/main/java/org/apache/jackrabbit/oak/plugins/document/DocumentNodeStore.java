@@ -49,6 +49,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -74,6 +75,7 @@ import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -120,6 +122,7 @@ import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
 import org.apache.jackrabbit.oak.spi.state.NodeState;
 import org.apache.jackrabbit.oak.spi.state.NodeStateDiff;
 import org.apache.jackrabbit.oak.spi.state.NodeStore;
+import org.apache.jackrabbit.oak.spi.state.PrefetchNodeStore;
 import org.apache.jackrabbit.oak.spi.whiteboard.Whiteboard;
 import org.apache.jackrabbit.oak.stats.Clock;
 import org.apache.jackrabbit.oak.commons.PerfLogger;
@@ -133,7 +136,8 @@ import org.slf4j.LoggerFactory;
  * Implementation of a NodeStore on {@link DocumentStore}.
  */
 public final class DocumentNodeStore
-        implements NodeStore, RevisionContext, Observable, Clusterable, NodeStateDiffer {
+        implements NodeStore, RevisionContext, Observable, Clusterable, NodeStateDiffer,
+        PrefetchNodeStore {
 
     private static final Logger LOG = LoggerFactory.getLogger(DocumentNodeStore.class);
 
@@ -164,6 +168,11 @@ public final class DocumentNodeStore
     private static final boolean FAST_DIFF = Boolean.parseBoolean(
             System.getProperty("oak.documentMK.fastDiff", "true"));
 
+    /**
+     * Projection for queries that only need the path of the documents.
+     */
+    private static final List<String> PATH_PROJECTION = ImmutableList.of(NodeDocument.PATH);
+
     /**
      * Feature flag to enable concurrent add/remove operations of hidden empty
      * nodes. See OAK-2673.
@@ -312,6 +321,15 @@ public final class DocumentNodeStore
 
     private Thread backgroundReadThread;
 
+    private final BackgroundReadOperation backgroundReadOperation;
+
+    /**
+     * Pushes and receives notifications about changes of cluster nodes.
+     * {@code null} if not configured.
+     */
+    @Nullable
+    private final ClusterChangeNotifier clusterChangeNotifier;
+
     /**
      * Monitor object to synchronize background reads.
      */
@@ -394,6 +412,14 @@ public final class DocumentNodeStore
     private final Cache<NamePathRev, DocumentNodeState.Children> nodeChildrenCache;
     private final CacheStats nodeChildrenCacheStats;
 
+    /**
+     * Child documents read with a full range query.
+     *
+     * Key: lower bound of the range, value: id of the first child document
+     */
+    private final Cache<String, String> childDocsRead
+            = CacheBuilder.newBuilder().maximumSize(1024).build();
+
     /**
      * The change log to keep track of commits for diff operations.
      */
@@ -677,9 +703,16 @@ public final class DocumentNodeStore
         commitQueue = new CommitQueue(this);
         commitQueue.setStatisticsCollector(nodeStoreStatsCollector);
         batchCommitQueue = new BatchCommitQueue(store);
+        if (builder.getClusterChangeBroadcaster() != null) {
+            clusterChangeNotifier = new ClusterChangeNotifier(
+                    builder.getClusterChangeBroadcaster(), clusterId,
+                    this::externalChangeAnnounced);
+        } else {
+            clusterChangeNotifier = null;
+        }
         // prepare background threads
-        backgroundReadThread = new Thread(
-                new BackgroundReadOperation(this, isDisposed),
+        backgroundReadOperation = new BackgroundReadOperation(this, isDisposed);
+        backgroundReadThread = new Thread(backgroundReadOperation,
                 "DocumentNodeStore background read thread " + threadNamePostfix);
         backgroundReadThread.setDaemon(true);
         backgroundUpdateThread = new Thread(
@@ -822,6 +855,10 @@ public final class DocumentNodeStore
             clusterNodeInfo.dispose();
         }
 
+        if (clusterChangeNotifier != null) {
+            clusterChangeNotifier.close();
+        }
+
         store.dispose();
 
         if (blobStore instanceof Closeable) {
@@ -1186,6 +1223,30 @@ public final class DocumentNodeStore
         }
     }
 
+    /**
+     * Prefetches the documents of the nodes at the given paths into the cache
+     * of the underlying document store with as few round-trips as possible.
+     * Nodes already present in the node cache for the given revision are
+     * skipped. This is useful before reading a batch of nodes one by one,
+     * e.g. the paths of a query result.
+     *
+     * @param paths the paths of the nodes to prefetch.
+     * @param rev the read revision.
+     */
+    public void prefetch(@NotNull Iterable<Path> paths,
+                         @NotNull RevisionVector rev) {
+        checkNotNull(rev);
+        Set<String> ids = new LinkedHashSet<>();
+        for (Path p : checkNotNull(paths)) {
+            if (nodeCache.getIfPresent(new PathRev(p, rev)) == null) {
+                ids.add(Utils.getIdFromPath(p));
+            }
+        }
+        if (!ids.isEmpty()) {
+            store.prefetch(Collection.NODES, ids);
+        }
+    }
+
     @NotNull
     DocumentNodeState.Children getChildren(@NotNull final AbstractDocumentNodeState parent,
                                            @NotNull final String name,
@@ -1249,7 +1310,7 @@ public final class DocumentNodeStore
         // child nodes than requested.
         int rawLimit = (int) Math.min(Integer.MAX_VALUE, ((long) limit) + 1);
         for (;;) {
-            docs = readChildDocs(path, name, rawLimit);
+            docs = readChildDocs(path, name, rev, rawLimit);
             int numReturned = 0;
             for (NodeDocument doc : docs) {
                 numReturned++;
@@ -1292,16 +1353,24 @@ public final class DocumentNodeStore
      * ascending child node name order. If a {@code name} is passed, the first
      * child document returned is after the given name. That is, the name is the
      * lower exclusive bound.
+     * <p>
+     * Child documents are read with a full range query, unless the same range
+     * was read before and its first document is still cached. Only the paths
+     * are read in this case and the documents not yet cached are prefetched.
+     * The returned documents are then partial and only guaranteed to contain
+     * the id and path.
      *
      * @param path the path of the parent document.
      * @param name the name of the lower bound child node (exclusive) or the
      *              empty {@code String} if no lower bound is given.
+     * @param rev the read revision.
      * @param limit the maximum number of child documents to return.
      * @return the child documents.
      */
     @NotNull
     private Iterable<NodeDocument> readChildDocs(@NotNull final Path path,
                                                  @NotNull String name,
+                                                 @NotNull RevisionVector rev,
                                                  final int limit) {
         final String to = Utils.getKeyUpperLimit(checkNotNull(path));
         final String from;
@@ -1310,7 +1379,22 @@ public final class DocumentNodeStore
         } else {
             from = Utils.getIdFromPath(new Path(path, name));
         }
-        return store.query(Collection.NODES, from, to, limit);
+        String firstId = childDocsRead.getIfPresent(from);
+        if (firstId != null && store.getIfCached(Collection.NODES, firstId) != null) {
+            List<NodeDocument> docs = store.query(Collection.NODES,
+                    from, to, null, 0, limit, PATH_PROJECTION);
+            List<Path> paths = new ArrayList<>(docs.size());
+            for (NodeDocument doc : docs) {
+                paths.add(doc.getPath());
+            }
+            prefetch(paths, rev);
+            return docs;
+        }
+        List<NodeDocument> docs = store.query(Collection.NODES, from, to, limit);
+        if (!docs.isEmpty()) {
+            childDocsRead.put(from, docs.get(0).getId());
+        }
+        return docs;
     }
 
     /**
@@ -2055,6 +2139,30 @@ public final class DocumentNodeStore
         return commitValueResolver.resolve(changeRevision, doc);
     }
 
+    //------------------------< PrefetchNodeStore >-----------------------------
+
+    /**
+     * Prefetches the documents of the nodes at the given paths, e.g. the
+     * upcoming rows of a query result. The nodes are read at the root
+     * revision of {@code rootState} if it is a document node state, and at
+     * the head revision otherwise.
+     *
+     * @param paths the paths of the nodes to prefetch.
+     * @param rootState the root state the nodes will be read from.
+     */
+    @Override
+    public void prefetch(@NotNull java.util.Collection<String> paths,
+                         @NotNull NodeState rootState) {
+        RevisionVector rev = rootState instanceof AbstractDocumentNodeState
+                ? ((AbstractDocumentNodeState) rootState).getRootRevision()
+                : getHeadRevision();
+        List<Path> p = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            p.add(Path.fromString(path));
+        }
+        prefetch(p, rev);
+    }
+
     //----------------------< background operations >---------------------------
 
     /** Used for testing only */
@@ -2458,7 +2566,8 @@ public final class DocumentNodeStore
     //-----------------------------< internal >---------------------------------
 
     private BackgroundWriteStats backgroundWrite() {
-        return unsavedLastRevisions.persist(getDocumentStore(),
+        final AtomicReference<Revision> written = new AtomicReference<>();
+        BackgroundWriteStats stats = unsavedLastRevisions.persist(getDocumentStore(),
                 new Supplier<Revision>() {
             @Override
             public Revision get() {
@@ -2468,8 +2577,39 @@ public final class DocumentNodeStore
             @Override
             public void acquiring(Revision mostRecent) {
                 pushJournalEntry(mostRecent);
+                written.set(mostRecent);
             }
         }, backgroundOperationLock.writeLock());
+        Revision r = written.get();
+        if (r != null && clusterChangeNotifier != null) {
+            // _lastRev and journal entry are persisted,
+            // let other cluster nodes know about it
+            clusterChangeNotifier.announce(r);
+        }
+        return stats;
+    }
+
+    /**
+     * Called when another cluster node announced a change with the given
+     * revision. Triggers a background read if the revision is newer than
+     * the one currently known for the cluster node.
+     *
+     * @param r the announced revision.
+     */
+    private void externalChangeAnnounced(@NotNull Revision r) {
+        if (isDisposed.get()) {
+            return;
+        }
+        Revision known = getHeadRevision().getRevision(r.getClusterId());
+        if (known == null || r.compareRevisionTime(known) > 0) {
+            // the background read must not use a cached root document
+            // older than the announced change
+            store.invalidateCache(NODES, Utils.getIdFromPath(ROOT));
+            BackgroundReadOperation op = backgroundReadOperation;
+            if (op != null) {
+                op.wakeUp();
+            }
+        }
     }
 
     private void maybeRefreshHeadRevision() {
@@ -2984,6 +3124,7 @@ public final class DocumentNodeStore
                 }
             }
         }
+        prefetch(paths, toRev);
         for (Path p : paths) {
             DocumentNodeState fromNode = getNode(p, fromRev);
             DocumentNodeState toNode = getNode(p, toRev);
@@ -3162,6 +3303,7 @@ public final class DocumentNodeStore
         private final AtomicBoolean isDisposed;
         private final Supplier<Integer> delaySupplier;
         private boolean failing;
+        private boolean wakeUpRequested;
 
         NodeStoreTask(final DocumentNodeStore nodeStore,
                       final AtomicBoolean isDisposed,
@@ -3187,13 +3329,32 @@ public final class DocumentNodeStore
 
         protected abstract void execute(@NotNull DocumentNodeStore nodeStore);
 
+        /**
+         * Wakes up this task if it is waiting for the next execution, or
+         * skips the next wait if it is currently executing.
+         */
+        void wakeUp() {
+            synchronized (isDisposed) {
+                wakeUpRequested = true;
+                isDisposed.notifyAll();
+            }
+        }
+
         @Override
         public void run() {
             int delay = delaySupplier.get();
             while (delay != 0 && !isDisposed.get()) {
                 synchronized (isDisposed) {
                     try {
-                        isDisposed.wait(delay);
+                        long end = System.currentTimeMillis() + delay;
+                        long remaining = delay;
+                        // other tasks may be woken up as well,
+                        // wait again unless this task was requested
+                        while (!wakeUpRequested && !isDisposed.get() && remaining > 0) {
+                            isDisposed.wait(remaining);
+                            remaining = end - System.currentTimeMillis();
+                        }
+                        wakeUpRequested = false;
                     } catch (InterruptedException e) {
                         // ignore
                     }
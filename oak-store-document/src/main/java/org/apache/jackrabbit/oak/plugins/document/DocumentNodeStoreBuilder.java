@@ -47,6 +47,7 @@ import org.apache.jackrabbit.oak.plugins.document.persistentCache.CacheType;
 import org.apache.jackrabbit.oak.plugins.document.persistentCache.EvictionListener;
 import org.apache.jackrabbit.oak.plugins.document.persistentCache.PersistentCache;
 import org.apache.jackrabbit.oak.plugins.document.persistentCache.PersistentCacheStats;
+import org.apache.jackrabbit.oak.plugins.document.persistentCache.broadcast.Broadcaster;
 import org.apache.jackrabbit.oak.plugins.document.util.RevisionsKey;
 import org.apache.jackrabbit.oak.plugins.document.util.StringValue;
 import org.apache.jackrabbit.oak.spi.blob.AbstractBlobStore;
@@ -134,6 +135,7 @@ public class DocumentNodeStoreBuilder<T extends DocumentNodeStoreBuilder<T>> {
     private PersistentCache persistentCache;
     private String journalCacheURI;
     private PersistentCache journalCache;
+    private Broadcaster clusterChangeBroadcaster;
     private LeaseFailureHandler leaseFailureHandler;
     private StatisticsProvider statisticsProvider = StatisticsProvider.NOOP;
     private BlobStoreStats blobStoreStats;
@@ -187,6 +189,28 @@ public class DocumentNodeStoreBuilder<T extends DocumentNodeStoreBuilder<T>> {
         return thisBuilder();
     }
 
+    /**
+     * Sets the broadcaster used to push notifications about changes to other
+     * cluster nodes. When set, a cluster node announces the revision of each
+     * background write and other cluster nodes perform a background read
+     * immediately instead of waiting for the next periodic background read.
+     * The broadcaster must not be shared with the persistent cache and is not
+     * closed when the node store is disposed. By default no notifications
+     * are sent.
+     *
+     * @param broadcaster the broadcaster or {@code null} to disable.
+     * @return this
+     */
+    public T setClusterChangeBroadcaster(@Nullable Broadcaster broadcaster) {
+        this.clusterChangeBroadcaster = broadcaster;
+        return thisBuilder();
+    }
+
+    @Nullable
+    public Broadcaster getClusterChangeBroadcaster() {
+        return clusterChangeBroadcaster;
+    }
+
     /**
      * Use the timing document store wrapper.
      *
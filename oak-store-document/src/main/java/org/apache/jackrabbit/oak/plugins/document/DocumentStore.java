@@ -132,6 +132,45 @@ public interface DocumentStore {
                                        long startValue,
                                        int limit) throws DocumentStoreException;
 
+    /**
+     * Same as {@link #query(Collection, String, String, String, long, int)},
+     * but the returned documents may only contain the given fields and the
+     * {@link Document#ID}. Implementations may return more fields, e.g. when
+     * the backend cannot read individual fields, but callers must not rely on
+     * them. The returned documents may be incomplete and are therefore never
+     * put into a cache.
+     * <p>
+     * The default implementation returns complete documents and delegates to
+     * {@link #query(Collection, String, String, int)} when no indexed property
+     * is given.
+     *
+     * @param <T> the document type
+     * @param collection the collection
+     * @param fromKey the start value (excluding)
+     * @param toKey the end value (excluding)
+     * @param indexedProperty the name of the indexed property (optional)
+     * @param startValue the minimum value of the indexed property
+     * @param limit the maximum number of entries to return
+     * @param projection the fields to return in addition to the id.
+     * @return the list (possibly empty)
+     * @throws DocumentStoreException if the operation failed. E.g. because of
+     *          an I/O error.
+     */
+    @NotNull
+    default <T extends Document> List<T> query(Collection<T> collection,
+                                               String fromKey,
+                                               String toKey,
+                                               String indexedProperty,
+                                               long startValue,
+                                               int limit,
+                                               @NotNull List<String> projection)
+            throws DocumentStoreException {
+        if (indexedProperty == null) {
+            return query(collection, fromKey, toKey, limit);
+        }
+        return query(collection, fromKey, toKey, indexedProperty, startValue, limit);
+    }
+
     /**
      * Remove a document. This method does nothing if there is no document
      * with the given key.
@@ -411,6 +450,25 @@ public interface DocumentStore {
     @Nullable
     <T extends Document> T getIfCached(Collection<T> collection, String key);
 
+    /**
+     * Prefetches the documents with the given keys into the cache, if this
+     * implementation has a cache for the given collection. Implementations
+     * should read the documents that are not yet cached with as few
+     * round-trips to the backend as possible. This method is only a hint and
+     * a subsequent {@code find} call for a key may still hit the backend. The
+     * default implementation does nothing.
+     *
+     * @param <T> the document type
+     * @param collection the collection
+     * @param keys the keys of the documents to prefetch
+     * @throws DocumentStoreException if the operation failed. E.g. because of
+     *          an I/O error.
+     */
+    default <T extends Document> void prefetch(Collection<T> collection,
+                                               Iterable<String> keys)
+            throws DocumentStoreException {
+    }
+
     /**
      * Set the level of guarantee for read and write operations, if supported by this backend.
      *
@@ -99,6 +99,13 @@ public final class NodeDocument extends Document {
      */
     public static final String MAX_ID_VALUE = ";";
 
+    /**
+     * Whether the revision maps of a sealed document are kept in the compact
+     * {@link CompactRevisionMap} representation. Enabled by default.
+     */
+    static final boolean COMPACT_REVISION_MAPS =
+            !Boolean.getBoolean("oak.documentMK.disableCompactRevisionMaps");
+
     /**
      * A size threshold after which to consider a document a split candidate.
      * TODO: check which value is the best one
@@ -1712,6 +1719,39 @@ public final class NodeDocument extends Document {
                 }));
     }
 
+    /**
+     * Returns the estimated size of this document as if all its maps were
+     * regular maps. Unlike {@link #getMemory()}, this estimate does not depend
+     * on the in-memory representation of the document and is used to decide
+     * whether a document should be split.
+     *
+     * @return the estimated size of this document.
+     */
+    int getEstimatedSize() {
+        return Utils.estimateMemoryUsage(data, false);
+    }
+
+    //-------------------------------< Document >-------------------------------
+
+    /**
+     * Revision maps are kept as {@link CompactRevisionMap}s, if possible.
+     * Nested maps and maps with values other than strings are sealed as
+     * usual.
+     */
+    @NotNull
+    @Override
+    protected Map<?, ?> transformAndSeal(@NotNull Map<Object, Object> map,
+                                         @Nullable String key,
+                                         int level) {
+        if (level == 1 && COMPACT_REVISION_MAPS) {
+            CompactRevisionMap compact = CompactRevisionMap.create(map);
+            if (compact != null) {
+                return compact;
+            }
+        }
+        return super.transformAndSeal(map, key, level);
+    }
+
     //-------------------------< UpdateOp modifiers >---------------------------
 
     public static void setChildrenFlag(@NotNull UpdateOp op,
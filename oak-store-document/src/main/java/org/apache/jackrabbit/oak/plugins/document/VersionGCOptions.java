@@ -29,20 +29,23 @@ public class VersionGCOptions {
     public final int maxIterations;
     public final long maxDurationMs;
     public final double delayFactor;
+    public final int parallelism;
 
     public VersionGCOptions() {
         this(100000, 100000, TimeUnit.MINUTES.toMillis(1),
-                0, TimeUnit.HOURS.toMillis(0), 0);
+                0, TimeUnit.HOURS.toMillis(0), 0, 1);
     }
 
     private VersionGCOptions(int overflow, long collectLimit, long precisionMs,
-                             int maxIterations, long maxDurationMs, double delayFactor) {
+                             int maxIterations, long maxDurationMs, double delayFactor,
+                             int parallelism) {
         this.overflowToDiskThreshold = overflow;
         this.collectLimit = collectLimit;
         this.precisionMs = precisionMs;
         this.maxIterations = maxIterations;
         this.maxDurationMs = maxDurationMs;
         this.delayFactor = delayFactor;
+        this.parallelism = parallelism;
     }
 
     /**
@@ -52,7 +55,7 @@ public class VersionGCOptions {
      */
     public VersionGCOptions withOverflowToDiskThreshold(int overflowToDiskThreshold) {
         return new VersionGCOptions(overflowToDiskThreshold, this.collectLimit,
-                this.precisionMs, this.maxIterations, this.maxDurationMs, this.delayFactor);
+                this.precisionMs, this.maxIterations, this.maxDurationMs, this.delayFactor, this.parallelism);
     }
 
     /**
@@ -65,7 +68,7 @@ public class VersionGCOptions {
      */
     public VersionGCOptions withCollectLimit(long limit) {
         return new VersionGCOptions(this.overflowToDiskThreshold, limit,
-                this.precisionMs, this.maxIterations, this.maxDurationMs, this.delayFactor);
+                this.precisionMs, this.maxIterations, this.maxDurationMs, this.delayFactor, this.parallelism);
     }
 
     /**
@@ -79,7 +82,7 @@ public class VersionGCOptions {
      */
     public VersionGCOptions withPrecisionMs(TimeUnit unit, long t) {
         return new VersionGCOptions(this.overflowToDiskThreshold, this.collectLimit,
-                unit.toMillis(t), this.maxIterations, this.maxDurationMs, this.delayFactor);
+                unit.toMillis(t), this.maxIterations, this.maxDurationMs, this.delayFactor, this.parallelism);
     }
 
     /**
@@ -93,7 +96,7 @@ public class VersionGCOptions {
      */
     public VersionGCOptions withMaxDuration(TimeUnit unit, long t) {
         return new VersionGCOptions(this.overflowToDiskThreshold, this.collectLimit,
-                this.precisionMs, this.maxIterations, unit.toMillis(t), this.delayFactor);
+                this.precisionMs, this.maxIterations, unit.toMillis(t), this.delayFactor, this.parallelism);
     }
 
     /**
@@ -106,7 +109,7 @@ public class VersionGCOptions {
      */
     public VersionGCOptions withMaxIterations(int max) {
         return new VersionGCOptions(this.overflowToDiskThreshold, this.collectLimit,
-                this.precisionMs, this.maxIterations, max, this.delayFactor);
+                this.precisionMs, this.maxIterations, max, this.delayFactor, this.parallelism);
     }
 
     /**
@@ -122,7 +125,23 @@ public class VersionGCOptions {
      */
     public VersionGCOptions withDelayFactor(double f) {
         return new VersionGCOptions(this.overflowToDiskThreshold, this.collectLimit,
-                this.precisionMs, this.maxIterations, this.maxDurationMs, f);
+                this.precisionMs, this.maxIterations, this.maxDurationMs, f, this.parallelism);
+    }
+
+    /**
+     * Set the number of workers that check and remove garbage concurrently.
+     * With a value greater than 1 the time interval inspected by a run is
+     * split into slices of the {@code _modified} time and the slices are
+     * processed in parallel, each issuing its own queries and batch removals.
+     * This bounds the number of concurrent operations a garbage collector
+     * puts on the database. 1, e.g. sequential collection, is the default.
+     *
+     * @param parallelism the maximum number of concurrent workers
+     */
+    public VersionGCOptions withParallelism(int parallelism) {
+        return new VersionGCOptions(this.overflowToDiskThreshold, this.collectLimit,
+                this.precisionMs, this.maxIterations, this.maxDurationMs, this.delayFactor,
+                Math.max(1, parallelism));
     }
 
 }
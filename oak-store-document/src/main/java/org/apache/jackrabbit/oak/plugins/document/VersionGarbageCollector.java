@@ -27,8 +27,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.base.Function;
@@ -36,6 +43,7 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -59,6 +67,7 @@ import static com.google.common.base.StandardSystemProperty.LINE_SEPARATOR;
 import static com.google.common.collect.Iterables.all;
 import static com.google.common.collect.Iterators.partition;
 import static com.google.common.util.concurrent.Atomics.newReference;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static org.apache.jackrabbit.oak.plugins.document.Collection.NODES;
 import static org.apache.jackrabbit.oak.plugins.document.Collection.SETTINGS;
@@ -74,6 +83,8 @@ public class VersionGarbageCollector {
     private static final int DELETE_BATCH_SIZE = 450;
     private static final int UPDATE_BATCH_SIZE = 450;
     private static final int PROGRESS_BATCH_SIZE = 10000;
+    //Number of _modified slices per worker when collecting in parallel
+    private static final int SLICES_PER_WORKER = 4;
     private static final String STATUS_IDLE = "IDLE";
     private static final String STATUS_INITIALIZING = "INITIALIZING";
     private static final Logger log = LoggerFactory.getLogger(VersionGarbageCollector.class);
@@ -156,6 +167,7 @@ public class VersionGarbageCollector {
                 success = true;
                 return overall;
             } finally {
+                job.close();
                 overall.active.stop();
                 collector.set(null);
                 overall.success = success;
@@ -347,6 +359,19 @@ public class VersionGarbageCollector {
                 this.updateResurrectedDocumentsElapsed += run.updateResurrectedDocuments.elapsed(MICROSECONDS);
             }
         }
+
+        /**
+         * Adds the counts of a partial run, e.g. of a worker collecting in
+         * parallel with others, to the counts of this run.
+         */
+        void addCounts(VersionGCStats part) {
+            this.limitExceeded |= part.limitExceeded;
+            this.deletedDocGCCount += part.deletedDocGCCount;
+            this.deletedLeafDocGCCount += part.deletedLeafDocGCCount;
+            this.splitDocGCCount += part.splitDocGCCount;
+            this.intermediateSplitDocGCCount += part.intermediateSplitDocGCCount;
+            this.updateResurrectedGCCount += part.updateResurrectedGCCount;
+        }
     }
 
     private enum GCPhase {
@@ -459,6 +484,9 @@ public class VersionGarbageCollector {
         private final AtomicBoolean cancel = new AtomicBoolean();
         private final GCMonitor monitor;
         private final Supplier<String> status;
+        // workers of a parallel collection, shared by all iterations of the
+        // job. Created on first use, only accessed by the thread running gc()
+        private ExecutorService workers;
 
         GCJob(long maxRevisionAgeMillis,
               VersionGCOptions options,
@@ -488,6 +516,21 @@ public class VersionGarbageCollector {
             return status.get();
         }
 
+        void close() {
+            if (workers != null) {
+                workers.shutdown();
+                workers = null;
+            }
+        }
+
+        private ExecutorService getWorkers() {
+            if (workers == null) {
+                workers = Executors.newFixedThreadPool(
+                        options.parallelism, new WorkerThreadFactory());
+            }
+            return workers;
+        }
+
         private VersionGCStats gc(long maxRevisionAgeInMillis) throws IOException {
             VersionGCStats stats = new VersionGCStats();
             stats.active.start();
@@ -504,7 +547,12 @@ public class VersionGarbageCollector {
                     final RevisionVector sweepRevisions = nodeStore.getSweepRevisions();
                     monitor.info("Looking at revisions in {}", rec.scope);
 
-                    collectDeletedDocuments(phases, headRevision, rec);
+                    if (options.parallelism > 1) {
+                        collectDeletedDocumentsInParallel(phases, headRevision, rec);
+                    } else {
+                        collectDeletedDocuments(phases, headRevision, rec.scope,
+                                rec.maxCollect, new AtomicLong());
+                    }
                     collectSplitDocuments(phases, sweepRevisions, rec);
                 }
             } catch (LimitExceededException ex) {
@@ -534,15 +582,128 @@ public class VersionGarbageCollector {
             }
         }
 
+        /**
+         * Splits the scope of this run into slices of the {@code _modified}
+         * time and collects the deleted documents of the slices concurrently
+         * with at most {@link VersionGCOptions#parallelism} workers. The
+         * counts of the workers are added to the stats of {@code phases},
+         * the collect limit applies to the documents collected by all workers.
+         * The timings of the individual phases are not broken down, the time
+         * spent by the workers is reported as collecting time.
+         */
+        private void collectDeletedDocumentsInParallel(GCPhases phases,
+                                                       final RevisionVector headRevision,
+                                                       final VersionGCRecommendations rec)
+                throws IOException, LimitExceededException {
+            List<TimeInterval> slices = slice(rec.scope);
+            if (slices.size() < 2) {
+                collectDeletedDocuments(phases, headRevision, rec.scope,
+                        rec.maxCollect, new AtomicLong());
+                return;
+            }
+            if (!phases.start(GCPhase.COLLECTING)) {
+                return;
+            }
+            monitor.info("Collecting deleted documents in {} slices with {} workers",
+                    slices.size(), options.parallelism);
+            final AtomicLong collected = new AtomicLong();
+            List<Future<VersionGCStats>> results = Lists.newArrayList();
+            for (final TimeInterval slice : slices) {
+                results.add(getWorkers().submit(() -> collectSlice(
+                        headRevision, slice, rec.maxCollect, collected)));
+            }
+            // wait for all workers, even after a failure or an interrupt.
+            // The remaining workers are stopped through the cancel flag, so
+            // that none of them is still querying or deleting documents
+            // once this method returns
+            Throwable failure = null;
+            boolean interrupted = false;
+            for (Future<VersionGCStats> r : results) {
+                while (true) {
+                    try {
+                        VersionGCStats sliceStats = interrupted ? getUninterruptibly(r) : r.get();
+                        phases.stats.addCounts(sliceStats);
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause();
+                            cancel.set(true);
+                        } else {
+                            failure.addSuppressed(e.getCause());
+                        }
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        if (failure == null) {
+                            failure = new IOException("Interrupted while waiting for revision GC workers", e);
+                        }
+                        cancel.set(true);
+                        continue;
+                    }
+                    break;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                Throwables.propagateIfPossible(failure, IOException.class);
+                throw new IOException(failure);
+            }
+            phases.stop(GCPhase.COLLECTING);
+            if (phases.stats.limitExceeded) {
+                throw new LimitExceededException();
+            }
+        }
+
+        /**
+         * Collects the deleted documents within the given {@code scope} with
+         * separate stats. Used by the workers of a parallel collection.
+         */
+        private VersionGCStats collectSlice(RevisionVector headRevision,
+                                            TimeInterval scope,
+                                            long maxCollect,
+                                            AtomicLong collected)
+                throws IOException {
+            VersionGCStats stats = new VersionGCStats();
+            GCPhases phases = new GCPhases(cancel, stats, GCMonitor.EMPTY);
+            try {
+                collectDeletedDocuments(phases, headRevision, scope, maxCollect, collected);
+            } catch (LimitExceededException ex) {
+                stats.limitExceeded = true;
+            } catch (IOException | RuntimeException | Error e) {
+                // stop the other workers right away
+                cancel.set(true);
+                throw e;
+            } finally {
+                phases.close();
+            }
+            return stats;
+        }
+
+        private List<TimeInterval> slice(TimeInterval scope) {
+            long duration = scope.getDurationMs();
+            long numSlices = Math.min(options.parallelism * SLICES_PER_WORKER,
+                    duration / Math.max(1, options.precisionMs));
+            List<TimeInterval> slices = Lists.newArrayList();
+            long fromMs = scope.fromMs;
+            for (long i = 1; i <= numSlices; i++) {
+                long toMs = i == numSlices ? scope.toMs : scope.fromMs + duration * i / numSlices;
+                slices.add(new TimeInterval(fromMs, toMs));
+                fromMs = toMs;
+            }
+            return slices;
+        }
+
         private void collectDeletedDocuments(GCPhases phases,
                                              RevisionVector headRevision,
-                                             VersionGCRecommendations rec)
+                                             TimeInterval scope,
+                                             long maxCollect,
+                                             AtomicLong collected)
                 throws IOException, LimitExceededException {
             int docsTraversed = 0;
-            DeletedDocsGC gc = new DeletedDocsGC(headRevision, cancel, options, monitor);
+            DeletedDocsGC gc = new DeletedDocsGC(headRevision, cancel, collected, options, monitor);
             try {
                 if (phases.start(GCPhase.COLLECTING)) {
-                    Iterable<NodeDocument> itr = versionStore.getPossiblyDeletedDocs(rec.scope.fromMs, rec.scope.toMs);
+                    Iterable<NodeDocument> itr = versionStore.getPossiblyDeletedDocs(scope.fromMs, scope.toMs);
                     try {
                         for (NodeDocument doc : itr) {
                             // continue with GC?
@@ -562,7 +723,7 @@ public class VersionGarbageCollector {
                                 gc.possiblyDeleted(doc);
                                 phases.stop(GCPhase.CHECKING);
                             }
-                            if (rec.maxCollect > 0 && gc.docIdsToDelete.getSize() > rec.maxCollect) {
+                            if (maxCollect > 0 && collected.get() > maxCollect) {
                                 throw new LimitExceededException();
                             }
                             if (gc.hasLeafBatch()) {
@@ -618,6 +779,7 @@ public class VersionGarbageCollector {
 
         private final RevisionVector headRevision;
         private final AtomicBoolean cancel;
+        private final AtomicLong collected;
         private final List<String> leafDocIdsToDelete = Lists.newArrayList();
         private final List<String> resurrectedIds = Lists.newArrayList();
         private final StringSort docIdsToDelete;
@@ -630,10 +792,12 @@ public class VersionGarbageCollector {
 
         public DeletedDocsGC(@NotNull RevisionVector headRevision,
                              @NotNull AtomicBoolean cancel,
+                             @NotNull AtomicLong collected,
                              @NotNull VersionGCOptions options,
                              @NotNull GCMonitor monitor) {
             this.headRevision = checkNotNull(headRevision);
             this.cancel = checkNotNull(cancel);
+            this.collected = checkNotNull(collected);
             this.timer = Stopwatch.createUnstarted();
             this.options = options;
             this.monitor = monitor;
@@ -789,6 +953,7 @@ public class VersionGarbageCollector {
 
         private void addDocument(String id) throws IOException {
             docIdsToDelete.add(id);
+            collected.incrementAndGet();
         }
 
         private void addLeafDocument(String id) throws IOException {
@@ -1056,6 +1221,18 @@ public class VersionGarbageCollector {
         }
     }
 
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NotNull Runnable r) {
+            Thread t = new Thread(r, "Oak VersionGarbageCollector worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
     private static final class LimitExceededException extends Exception {
         private static final long serialVersionUID = 6578586397629516408L;
     }
@@ -452,6 +452,31 @@ public class NodeDocumentCache implements Closeable {
         }
     }
 
+    /**
+     * Caches the documents with the given keys as missing ({@link
+     * NodeDocument#NULL}) if they have been neither put nor invalidated during
+     * the tracker lifetime. Keys already present in the cache are left as is.
+     * This follows the rules of {@link #putNonConflictingDocs(CacheChangesTracker, Iterable)}
+     * for keys the caller found to be missing in the store.
+     *
+     * @param tracker
+     *            used to decide whether the keys should be put into cache
+     * @param keys
+     *            of the missing documents
+     */
+    public void putNonConflictingMissing(CacheChangesTracker tracker, Iterable<String> keys) {
+        for (String key : keys) {
+            Lock lock = locks.acquire(key);
+            try {
+                if (getIfPresent(key) == null && !tracker.mightBeenAffected(key)) {
+                    putInternal(key, NodeDocument.NULL, tracker);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
     //----------------------------< internal >----------------------------------
 
     /**
@@ -484,16 +509,20 @@ public class NodeDocumentCache implements Closeable {
      *                      all trackers.
      */
     protected final void putInternal(@NotNull NodeDocument doc, @Nullable CacheChangesTracker trackerToSkip) {
-        if (isLeafPreviousDocId(doc.getId())) {
-            prevDocumentsCache.put(new StringValue(doc.getId()), doc);
+        putInternal(doc.getId(), doc, trackerToSkip);
+    }
+
+    private void putInternal(@NotNull String key, @NotNull NodeDocument doc, @Nullable CacheChangesTracker trackerToSkip) {
+        if (isLeafPreviousDocId(key)) {
+            prevDocumentsCache.put(new StringValue(key), doc);
         } else {
-            nodeDocumentsCache.put(new StringValue(doc.getId()), doc);
+            nodeDocumentsCache.put(new StringValue(key), doc);
         }
         for (CacheChangesTracker tracker : changeTrackers) {
             if (tracker == trackerToSkip) {
                 continue;
             }
-            tracker.putDocument(doc.getId());
+            tracker.putDocument(key);
         }
     }
 
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -82,6 +83,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.mongodb.BasicDBObject;
 import com.mongodb.MongoException;
 import com.mongodb.WriteConcern;
@@ -96,6 +98,7 @@ import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
@@ -103,6 +106,7 @@ import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.in;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.Iterables.filter;
@@ -607,7 +611,20 @@ public class MongoDocumentStore implements DocumentStore {
                                               long startValue,
                                               int limit) {
         return queryWithRetry(collection, fromKey, toKey, indexedProperty,
-                startValue, limit, maxQueryTimeMS);
+                startValue, limit, maxQueryTimeMS, null);
+    }
+
+    @NotNull
+    @Override
+    public <T extends Document> List<T> query(Collection<T> collection,
+                                              String fromKey,
+                                              String toKey,
+                                              String indexedProperty,
+                                              long startValue,
+                                              int limit,
+                                              @NotNull List<String> projection) {
+        return queryWithRetry(collection, fromKey, toKey, indexedProperty,
+                startValue, limit, maxQueryTimeMS, checkNotNull(projection));
     }
 
     /**
@@ -621,7 +638,8 @@ public class MongoDocumentStore implements DocumentStore {
                                                         String indexedProperty,
                                                         long startValue,
                                                         int limit,
-                                                        long maxQueryTime) {
+                                                        long maxQueryTime,
+                                                        @Nullable List<String> projection) {
         int numAttempts = queryRetries + 1;
         MongoException ex = null;
         for (int i = 0; i < numAttempts; i++) {
@@ -630,7 +648,7 @@ public class MongoDocumentStore implements DocumentStore {
             }
             try {
                 return queryInternal(collection, fromKey, toKey,
-                        indexedProperty, startValue, limit, maxQueryTime);
+                        indexedProperty, startValue, limit, maxQueryTime, projection);
             } catch (MongoException e) {
                 ex = e;
             }
@@ -643,6 +661,11 @@ public class MongoDocumentStore implements DocumentStore {
         }
     }
 
+    /**
+     * Queries for documents. If a {@code projection} is given, only those
+     * fields and the {@link Document#ID} are read from MongoDB and the
+     * resulting partial documents are not put into the cache.
+     */
     @SuppressWarnings("unchecked")
     @NotNull
     protected <T extends Document> List<T> queryInternal(Collection<T> collection,
@@ -651,8 +674,9 @@ public class MongoDocumentStore implements DocumentStore {
                                                          String indexedProperty,
                                                          long startValue,
                                                          int limit,
-                                                         long maxQueryTime) {
-        log("query", fromKey, toKey, indexedProperty, startValue, limit);
+                                                         long maxQueryTime,
+                                                         @Nullable List<String> projection) {
+        log("query", fromKey, toKey, indexedProperty, startValue, limit, projection);
 
         List<Bson> clauses = new ArrayList<>();
         clauses.add(Filters.gt(Document.ID, fromKey));
@@ -686,7 +710,7 @@ public class MongoDocumentStore implements DocumentStore {
         boolean isSlaveOk = false;
         int resultSize = 0;
         CacheChangesTracker cacheChangesTracker = null;
-        if (parentId != null && collection == Collection.NODES) {
+        if (parentId != null && collection == Collection.NODES && projection == null) {
             cacheChangesTracker = nodesCache.registerTracker(fromKey, toKey);
         }
         try {
@@ -708,6 +732,11 @@ public class MongoDocumentStore implements DocumentStore {
                     result = dbCollection.find(query);
                 }
                 result.sort(BY_ID_ASC);
+                if (projection != null) {
+                    List<String> fields = new ArrayList<>(projection);
+                    fields.add(Document.ID);
+                    result.projection(Projections.include(fields));
+                }
                 if (limit >= 0) {
                     result.limit(limit);
                 }
@@ -1198,10 +1227,7 @@ public class MongoDocumentStore implements DocumentStore {
     private <T extends Document> Map<String, T> findDocuments(Collection<T> collection, Set<String> keys) {
         Map<String, T> docs = new HashMap<String, T>();
         if (!keys.isEmpty()) {
-            List<Bson> conditions = new ArrayList<>(keys.size());
-            for (String key : keys) {
-                conditions.add(getByKeyQuery(key));
-            }
+            Bson query = Filters.in(Document.ID, keys);
             MongoCollection<BasicDBObject> dbCollection;
             if (secondariesWithinAcceptableLag()) {
                 dbCollection = getDBCollection(collection);
@@ -1212,9 +1238,9 @@ public class MongoDocumentStore implements DocumentStore {
             execute(session -> {
                 FindIterable<BasicDBObject> cursor;
                 if (session != null) {
-                    cursor = dbCollection.find(session, Filters.or(conditions));
+                    cursor = dbCollection.find(session, query);
                 } else {
-                    cursor = dbCollection.find(Filters.or(conditions));
+                    cursor = dbCollection.find(query);
                 }
                 for (BasicDBObject doc : cursor) {
                     T foundDoc = convertFromDBObject(collection, doc);
@@ -1618,6 +1644,36 @@ public class MongoDocumentStore implements DocumentStore {
         return doc;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T extends Document> void prefetch(Collection<T> collection,
+                                              Iterable<String> keys) {
+        if (collection != Collection.NODES) {
+            return;
+        }
+        Set<String> uncached = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (nodesCache.getIfPresent(key) == null) {
+                uncached.add(key);
+            }
+        }
+        log("prefetch", uncached.size());
+        final long start = PERFLOG.start();
+        int numRead = 0;
+        for (List<String> batch : Iterables.partition(uncached, IN_CLAUSE_BATCH_SIZE)) {
+            Set<String> batchKeys = new HashSet<>(batch);
+            try (CacheChangesTracker tracker = nodesCache.registerTracker(batchKeys)) {
+                Map<String, T> docs = findDocuments(collection, batchKeys);
+                nodesCache.putNonConflictingDocs(tracker,
+                        (Iterable<NodeDocument>) docs.values());
+                nodesCache.putNonConflictingMissing(tracker,
+                        Sets.difference(batchKeys, docs.keySet()));
+                numRead += docs.size();
+            }
+        }
+        PERFLOG.end(start, 1, "prefetch: keys={}, found={}", uncached.size(), numRead);
+    }
+
     @NotNull
     private static Bson createQueryForUpdate(String key,
                                              Map<Key, Condition> conditions) {
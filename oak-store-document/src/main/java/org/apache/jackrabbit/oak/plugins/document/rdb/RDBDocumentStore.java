@@ -25,6 +25,7 @@ import static org.apache.jackrabbit.oak.plugins.document.rdb.RDBJDBCTools.closeR
 import static org.apache.jackrabbit.oak.plugins.document.rdb.RDBJDBCTools.closeStatement;
 import static org.apache.jackrabbit.oak.plugins.document.rdb.RDBJDBCTools.createTableName;
 import static org.apache.jackrabbit.oak.plugins.document.util.Utils.getModuleVersion;
+import static org.apache.jackrabbit.oak.plugins.document.util.Utils.isIdFromLongPath;
 
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
@@ -298,6 +299,24 @@ public class RDBDocumentStore implements DocumentStore {
         return internalQuery(collection, fromKey, toKey, EMPTY_KEY_PATTERN, conditions, limit);
     }
 
+    @NotNull
+    @Override
+    public <T extends Document> List<T> query(Collection<T> collection, String fromKey, String toKey, String indexedProperty,
+            long startValue, int limit, @NotNull List<String> projection) {
+        RDBTableMetaData tmd = getTable(collection);
+        for (String field : projection) {
+            if (!tmd.getColumnProperties().contains(field) && !NodeDocument.PATH.equals(field)) {
+                // field is only available in DATA/BDATA, read complete documents
+                return query(collection, fromKey, toKey, indexedProperty, startValue, limit);
+            }
+        }
+        List<QueryCondition> conditions = Collections.emptyList();
+        if (indexedProperty != null) {
+            conditions = Collections.singletonList(new QueryCondition(indexedProperty, ">=", startValue));
+        }
+        return internalColumnQuery(collection, fromKey, toKey, conditions, limit, projection.contains(NodeDocument.PATH));
+    }
+
     @NotNull
     protected <T extends Document> List<T> query(Collection<T> collection, String fromKey, String toKey,
             List<String> excludeKeyPatterns, List<QueryCondition> conditions, int limit) {
@@ -831,6 +850,30 @@ public class RDBDocumentStore implements DocumentStore {
         }
     }
 
+    @Override
+    public <T extends Document> void prefetch(Collection<T> collection, Iterable<String> keys) {
+        if (collection != Collection.NODES) {
+            return;
+        }
+        Set<String> uncached = new HashSet<String>();
+        for (String key : keys) {
+            if (nodesCache.getIfPresent(key) == null) {
+                uncached.add(key);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            try (CacheChangesTracker tracker = obtainTracker(collection, uncached)) {
+                Map<String, T> docs = readDocumentsUncached(collection, uncached);
+                List<NodeDocument> toCache = new ArrayList<NodeDocument>(docs.size());
+                for (T doc : docs.values()) {
+                    toCache.add((NodeDocument) doc);
+                }
+                nodesCache.putNonConflictingDocs(tracker, toCache);
+                nodesCache.putNonConflictingMissing(tracker, Sets.difference(uncached, docs.keySet()));
+            }
+        }
+    }
+
     private <T extends Document> T getIfCached(Collection<T> collection, String id, long modCount) {
         T doc = getIfCached(collection, id);
         if (doc != null && doc.getModCount() != null && doc.getModCount() == modCount) {
@@ -1745,14 +1788,7 @@ public class RDBDocumentStore implements DocumentStore {
             List<String> excludeKeyPatterns, List<QueryCondition> conditions, int limit) {
         Connection connection = null;
         RDBTableMetaData tmd = getTable(collection);
-        for (QueryCondition cond : conditions) {
-            if (!INDEXEDPROPERTIES.contains(cond.getPropertyName())) {
-                String message = "indexed property " + cond.getPropertyName() + " not supported, query was '" + cond
-                        + "'; supported properties are " + INDEXEDPROPERTIES;
-                LOG.info(message);
-                throw new DocumentStoreException(message);
-            }
-        }
+        checkIndexedProperties(conditions);
 
         final Stopwatch watch = startWatch();
         int resultSize = 0;
@@ -1822,6 +1858,69 @@ public class RDBDocumentStore implements DocumentStore {
         }
     }
 
+    /**
+     * Queries documents, but only reads the table columns and leaves out the
+     * serialized document in DATA/BDATA. The returned documents are partial
+     * and therefore neither taken from nor put into the cache. The path of
+     * a document with a hashed long path id cannot be derived from its id;
+     * if {@code needsPath} is set, such documents are read completely.
+     */
+    private <T extends Document> List<T> internalColumnQuery(Collection<T> collection, String fromKey, String toKey,
+            List<QueryCondition> conditions, int limit, boolean needsPath) {
+        Connection connection = null;
+        RDBTableMetaData tmd = getTable(collection);
+        checkIndexedProperties(conditions);
+
+        final Stopwatch watch = startWatch();
+        int resultSize = 0;
+
+        try {
+            connection = this.ch.getROConnection();
+            String from = collection == Collection.NODES && NodeDocument.MIN_ID_VALUE.equals(fromKey) ? null : fromKey;
+            String to = collection == Collection.NODES && NodeDocument.MAX_ID_VALUE.equals(toKey) ? null : toKey;
+
+            List<RDBRow> dbresult = db.query(connection, tmd, from, to, EMPTY_KEY_PATTERN, conditions, limit, false);
+            connection.commit();
+            this.ch.closeConnection(connection);
+            connection = null;
+
+            int size = dbresult.size();
+            List<T> result = new ArrayList<T>(size);
+            for (int i = 0; i < size; i++) {
+                RDBRow row = dbresult.set(i, null);
+                T doc = null;
+                if (needsPath && isIdFromLongPath(row.getId())) {
+                    doc = readDocumentCached(collection, row.getId(), Integer.MAX_VALUE);
+                }
+                if (doc == null) {
+                    doc = convertFromDBObject(collection, row);
+                    doc.seal();
+                }
+                result.add(doc);
+            }
+            resultSize = result.size();
+            return result;
+        } catch (Exception ex) {
+            LOG.error("SQL exception on query", ex);
+            throw asDocumentStoreException(ex, "SQL exception on query");
+        } finally {
+            this.ch.closeConnection(connection);
+            stats.doneQuery(watch.elapsed(TimeUnit.NANOSECONDS), collection, fromKey, toKey,
+                    !conditions.isEmpty(), resultSize, -1, false);
+        }
+    }
+
+    private static void checkIndexedProperties(List<QueryCondition> conditions) {
+        for (QueryCondition cond : conditions) {
+            if (!INDEXEDPROPERTIES.contains(cond.getPropertyName())) {
+                String message = "indexed property " + cond.getPropertyName() + " not supported, query was '" + cond
+                        + "'; supported properties are " + INDEXEDPROPERTIES;
+                LOG.info(message);
+                throw new DocumentStoreException(message);
+            }
+        }
+    }
+
     private static interface MyCloseableIterable<T> extends Closeable, Iterable<T> {
     }
 
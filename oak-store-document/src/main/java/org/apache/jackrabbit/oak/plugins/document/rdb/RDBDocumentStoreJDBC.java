@@ -440,17 +440,33 @@ public class RDBDocumentStoreJDBC {
     @NotNull
     public List<RDBRow> query(Connection connection, RDBTableMetaData tmd, String minId, String maxId,
             List<String> excludeKeyPatterns, List<QueryCondition> conditions, int limit) throws SQLException {
+        return query(connection, tmd, minId, maxId, excludeKeyPatterns, conditions, limit, true);
+    }
+
+    /**
+     * Like {@link #query(Connection, RDBTableMetaData, String, String, List, List, int)},
+     * but when {@code includeData} is {@code false} only the table columns
+     * are read; DATA and BDATA are skipped and the returned rows carry an
+     * empty JSON object instead.
+     */
+    @NotNull
+    public List<RDBRow> query(Connection connection, RDBTableMetaData tmd, String minId, String maxId,
+            List<String> excludeKeyPatterns, List<QueryCondition> conditions, int limit, boolean includeData)
+            throws SQLException {
         long start = System.currentTimeMillis();
         List<RDBRow> result = new ArrayList<RDBRow>();
         long dataTotal = 0, bdataTotal = 0;
         PreparedStatement stmt = null;
         String fields;
         if (tmd.hasSplitDocs()) {
-            fields = "ID, MODIFIED, MODCOUNT, CMODCOUNT, HASBINARY, DELETEDONCE, VERSION, SDTYPE, SDMAXREVTIME, DATA, BDATA";
+            fields = "ID, MODIFIED, MODCOUNT, CMODCOUNT, HASBINARY, DELETEDONCE, VERSION, SDTYPE, SDMAXREVTIME";
         } else if (tmd.hasVersion()) {
-            fields = "ID, MODIFIED, MODCOUNT, CMODCOUNT, HASBINARY, DELETEDONCE, VERSION, DATA, BDATA";
+            fields = "ID, MODIFIED, MODCOUNT, CMODCOUNT, HASBINARY, DELETEDONCE, VERSION";
         } else {
-            fields = "ID, MODIFIED, MODCOUNT, CMODCOUNT, HASBINARY, DELETEDONCE, DATA, BDATA";
+            fields = "ID, MODIFIED, MODCOUNT, CMODCOUNT, HASBINARY, DELETEDONCE";
+        }
+        if (includeData) {
+            fields += ", DATA, BDATA";
         }
         ResultSet rs = null;
         try {
@@ -477,8 +493,8 @@ public class RDBDocumentStoreJDBC {
                 long schemaVersion = tmd.hasVersion() ? readLongFromResultSet(rs, field++) : 0;
                 long sdType = tmd.hasSplitDocs() ? readLongFromResultSet(rs, field++) : RDBRow.LONG_UNSET;
                 long sdMaxRevTime = tmd.hasSplitDocs() ? readLongFromResultSet(rs, field++) : RDBRow.LONG_UNSET;
-                String data = rs.getString(field++);
-                byte[] bdata = rs.getBytes(field++);
+                String data = includeData ? rs.getString(field++) : "{}";
+                byte[] bdata = includeData ? rs.getBytes(field++) : null;
                 result.add(new RDBRow(id, hasBinary, deletedOnce, modified, modcount, cmodcount, schemaVersion, sdType,
                         sdMaxRevTime, data, bdata));
                 dataTotal += data == null ? 0 : data.length();
@@ -85,6 +85,14 @@ public final class LeaseCheckDocumentStoreWrapper implements DocumentStore {
         return delegate.query(collection, fromKey, toKey, indexedProperty, startValue, limit);
     }
 
+    @Override
+    public final <T extends Document> List<T> query(Collection<T> collection,
+            String fromKey, String toKey, String indexedProperty,
+            long startValue, int limit, List<String> projection) {
+        performLeaseCheck();
+        return delegate.query(collection, fromKey, toKey, indexedProperty, startValue, limit, projection);
+    }
+
     @Override
     public final <T extends Document> void remove(Collection<T> collection, String key) {
         performLeaseCheck();
@@ -180,6 +188,13 @@ public final class LeaseCheckDocumentStoreWrapper implements DocumentStore {
         return delegate.getIfCached(collection, key);
     }
 
+    @Override
+    public final <T extends Document> void prefetch(Collection<T> collection,
+            Iterable<String> keys) {
+        performLeaseCheck();
+        delegate.prefetch(collection, keys);
+    }
+
     @Override
     public final void setReadWriteMode(String readWriteMode) {
         performLeaseCheck();
@@ -130,6 +130,29 @@ public class LoggingDocumentStoreWrapper implements DocumentStore {
         }
     }
 
+    @Override
+    @NotNull
+    public <T extends Document> List<T> query(final Collection<T> collection,
+                                final String fromKey,
+                                final String toKey,
+                                final String indexedProperty,
+                                final long startValue,
+                                final int limit,
+                                final List<String> projection) {
+        try {
+            logMethod("query", collection, fromKey, toKey, indexedProperty, startValue, limit, projection);
+            return logResult(new Callable<List<T>>() {
+                @Override
+                public List<T> call() throws Exception {
+                    return store.query(collection, fromKey, toKey, indexedProperty, startValue, limit, projection);
+                }
+            });
+        } catch (Exception e) {
+            logException(e);
+            throw convert(e);
+        }
+    }
+
     @Override
     public <T extends Document> void remove(Collection<T> collection, String key) {
         try {
@@ -317,6 +340,18 @@ public class LoggingDocumentStoreWrapper implements DocumentStore {
         }
     }
 
+    @Override
+    public <T extends Document> void prefetch(final Collection<T> collection,
+                                              final Iterable<String> keys) {
+        try {
+            logMethod("prefetch", collection, keys);
+            store.prefetch(collection, keys);
+        } catch (Exception e) {
+            logException(e);
+            throw convert(e);
+        }
+    }
+
     @Override
     public void setReadWriteMode(String readWriteMode) {
         try {
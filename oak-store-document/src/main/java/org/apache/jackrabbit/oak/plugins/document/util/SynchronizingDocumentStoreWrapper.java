@@ -64,6 +64,14 @@ public class SynchronizingDocumentStoreWrapper implements DocumentStore {
         return store.query(collection, fromKey, toKey, indexedProperty, startValue, limit);
     }
 
+    @Override
+    @NotNull
+    public synchronized <T extends Document> List<T> query(final Collection<T> collection, final String fromKey,
+            final String toKey, final String indexedProperty, final long startValue, final int limit,
+            final List<String> projection) {
+        return store.query(collection, fromKey, toKey, indexedProperty, startValue, limit, projection);
+    }
+
     @Override
     public synchronized <T extends Document> void remove(Collection<T> collection, String key) {
         store.remove(collection, key);
@@ -132,6 +140,11 @@ public class SynchronizingDocumentStoreWrapper implements DocumentStore {
         return store.getIfCached(collection, key);
     }
 
+    @Override
+    public synchronized <T extends Document> void prefetch(final Collection<T> collection, final Iterable<String> keys) {
+        store.prefetch(collection, keys);
+    }
+
     @Override
     public synchronized void setReadWriteMode(String readWriteMode) {
         store.setReadWriteMode(readWriteMode);
@@ -163,6 +163,28 @@ public class TimingDocumentStoreWrapper implements DocumentStore {
         }
     }
 
+    @Override
+    @NotNull
+    public <T extends Document> List<T> query(Collection<T> collection,
+                                              String fromKey,
+                                              String toKey,
+                                              String indexedProperty,
+                                              long startValue,
+                                              int limit,
+                                              List<String> projection) {
+        try {
+            long start = now();
+            List<T> result = base.query(collection, fromKey, toKey, indexedProperty, startValue, limit, projection);
+            updateAndLogTimes("query3", start, 0, size(result));
+            if (logCommonCall()) {
+                logCommonCall(start, "query3 " + collection + " " + fromKey + " " + toKey + " " + indexedProperty + " " + startValue + " " + limit + " " + projection);
+            }
+            return result;
+        } catch (Exception e) {
+            throw convert(e);
+        }
+    }
+
     @Override
     public <T extends Document> void remove(Collection<T> collection, String key) {
         try {
@@ -350,6 +372,17 @@ public class TimingDocumentStoreWrapper implements DocumentStore {
         }
     }
 
+    @Override
+    public <T extends Document> void prefetch(Collection<T> collection, Iterable<String> keys) {
+        try {
+            long start = now();
+            base.prefetch(collection, keys);
+            updateAndLogTimes("prefetch", start, 0, 0);
+        } catch (Exception e) {
+            throw convert(e);
+        }
+    }
+
     @Override
     public void setReadWriteMode(String readWriteMode) {
         try {
@@ -35,6 +35,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.AbstractIterator;
 
+import org.apache.jackrabbit.oak.cache.CacheValue;
 import org.apache.jackrabbit.oak.commons.OakVersion;
 import org.apache.jackrabbit.oak.commons.PathUtils;
 import org.apache.jackrabbit.oak.commons.StringUtils;
@@ -133,8 +134,21 @@ public class Utils {
         return depth;
     }
 
-    @SuppressWarnings("unchecked")
     public static int estimateMemoryUsage(Map<?, Object> map) {
+        return estimateMemoryUsage(map, true);
+    }
+
+    /**
+     * Estimates the memory usage of the given map.
+     *
+     * @param map the map.
+     * @param compact whether nested maps with a compact representation
+     *          (implementing {@link CacheValue}) are estimated with their own
+     *          memory usage or like any other map.
+     * @return the estimated memory usage.
+     */
+    @SuppressWarnings("unchecked")
+    public static int estimateMemoryUsage(Map<?, Object> map, boolean compact) {
         if (map == null) {
             return 0;
         }
@@ -155,8 +169,10 @@ public class Utils {
                 size += 8;
             } else if (o instanceof Integer) {
                 size += 8;
+            } else if (compact && o instanceof CacheValue) {
+                size += 8 + (long)((CacheValue) o).getMemory();
             } else if (o instanceof Map) {
-                size += 8 + (long)estimateMemoryUsage((Map<String, Object>) o);
+                size += 8 + (long)estimateMemoryUsage((Map<String, Object>) o, compact);
             } else if (o == null) {
                 // zero
             } else {
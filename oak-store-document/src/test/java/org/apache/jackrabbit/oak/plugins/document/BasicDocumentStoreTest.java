@@ -40,6 +40,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.Lists;
@@ -566,6 +567,86 @@ public class BasicDocumentStoreTest extends AbstractDocumentStoreTest {
         }
     }
 
+    @Test
+    public void testPrefetch() {
+        String base = this.getClass().getName() + ".testPrefetch-";
+        List<UpdateOp> ops = new ArrayList<UpdateOp>();
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) {
+            String id = base + i;
+            ops.add(new UpdateOp(id, true));
+            ids.add(id);
+            removeMe.add(id);
+        }
+        assertTrue(super.ds.create(Collection.NODES, ops));
+        super.ds.invalidateCache();
+
+        String missing = base + "missing";
+        ids.add(missing);
+        super.ds.prefetch(Collection.NODES, ids);
+        for (String id : ids.subList(0, 10)) {
+            assertNotNull("document not prefetched: " + id,
+                    super.ds.getIfCached(Collection.NODES, id));
+        }
+        assertNull(super.ds.getIfCached(Collection.NODES, missing));
+        assertNull(super.ds.find(Collection.NODES, missing));
+
+        // missing documents may be cached as missing, but must not hide
+        // a document created afterwards
+        removeMe.add(missing);
+        assertTrue(super.ds.create(Collection.NODES, Collections.singletonList(new UpdateOp(missing, true))));
+        assertNotNull(super.ds.find(Collection.NODES, missing));
+    }
+
+    @Test
+    public void testQueryWithProjection() {
+        Path parent = Path.fromString("/" + this.getClass().getName() + ".testQueryWithProjection");
+        List<UpdateOp> ops = new ArrayList<UpdateOp>();
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            Path p = new Path(parent, "node-" + i);
+            UpdateOp op = new UpdateOp(Utils.getIdFromPath(p), true);
+            op.set(NodeDocument.MODIFIED_IN_SECS, 1000L + i);
+            op.set("prop", "value");
+            ops.add(op);
+            ids.add(op.getId());
+        }
+        Path longPath = new Path(parent, Strings.repeat("x", Utils.PATH_LONG + 1));
+        UpdateOp op = new UpdateOp(Utils.getIdFromPath(longPath), true);
+        op.set(NodeDocument.MODIFIED_IN_SECS, 2000L);
+        op.set(NodeDocument.PATH, longPath.toString());
+        ops.add(op);
+        ids.add(op.getId());
+        removeMe.addAll(ids);
+        assertTrue(super.ds.create(Collection.NODES, ops));
+        super.ds.invalidateCache();
+
+        List<NodeDocument> docs = super.ds.query(Collection.NODES, Utils.getKeyLowerLimit(parent),
+                Utils.getKeyUpperLimit(parent), NodeDocument.MODIFIED_IN_SECS, 1002L, 100,
+                Collections.singletonList(NodeDocument.PATH));
+        Set<String> expectedIds = new HashSet<String>(ids.subList(2, ids.size()));
+        Set<Path> paths = new HashSet<Path>();
+        for (NodeDocument doc : docs) {
+            assertTrue("unexpected document: " + doc.getId(), expectedIds.remove(doc.getId()));
+            paths.add(doc.getPath());
+        }
+        assertTrue("documents missing: " + expectedIds, expectedIds.isEmpty());
+        assertTrue(paths.contains(longPath));
+        assertTrue(paths.contains(new Path(parent, "node-4")));
+
+        docs = super.ds.query(Collection.NODES, Utils.getKeyLowerLimit(parent),
+                Utils.getKeyUpperLimit(parent), null, 0, 100,
+                Collections.singletonList(NodeDocument.MODIFIED_IN_SECS));
+        assertEquals(ids.size(), docs.size());
+        for (NodeDocument doc : docs) {
+            assertNotNull(doc.getModified());
+        }
+        // a full read still returns the complete document
+        NodeDocument doc = super.ds.find(Collection.NODES, ids.get(0));
+        assertNotNull(doc);
+        assertEquals("value", doc.get("prop"));
+    }
+
     @Test
     public void testModifiedMaxUpdateQuery() {
         String id = this.getClass().getName() + ".testModifiedMaxUpdate";
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.plugins.document;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jackrabbit.oak.api.CommitFailedException;
+import org.apache.jackrabbit.oak.plugins.document.memory.MemoryDocumentStore;
+import org.apache.jackrabbit.oak.plugins.document.persistentCache.broadcast.InMemoryBroadcaster;
+import org.apache.jackrabbit.oak.spi.commit.CommitInfo;
+import org.apache.jackrabbit.oak.spi.commit.EmptyHook;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.apache.jackrabbit.oak.spi.state.NodeStore;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterChangeNotifierTest {
+
+    @Rule
+    public DocumentMKBuilderProvider builderProvider = new DocumentMKBuilderProvider();
+
+    @Test
+    public void announceAndReceive() {
+        InMemoryBroadcaster broadcaster = new InMemoryBroadcaster();
+        List<Revision> received1 = new CopyOnWriteArrayList<>();
+        List<Revision> received2 = new CopyOnWriteArrayList<>();
+        ClusterChangeNotifier n1 = new ClusterChangeNotifier(broadcaster, 1, received1::add);
+        ClusterChangeNotifier n2 = new ClusterChangeNotifier(broadcaster, 2, received2::add);
+
+        Revision r = new Revision(42, 7, 1);
+        n1.announce(r);
+        // own announcements are ignored
+        assertTrue(received1.isEmpty());
+        assertEquals(1, received2.size());
+        assertEquals(r, received2.get(0));
+
+        n2.close();
+        n1.announce(new Revision(43, 0, 1));
+        assertEquals(1, received2.size());
+        n1.close();
+    }
+
+    @Test
+    public void ignoreOtherMessages() {
+        InMemoryBroadcaster broadcaster = new InMemoryBroadcaster();
+        List<Revision> received = new CopyOnWriteArrayList<>();
+        ClusterChangeNotifier n = new ClusterChangeNotifier(broadcaster, 1, received::add);
+        broadcaster.send(ByteBuffer.wrap(new byte[3]));
+        broadcaster.send(ByteBuffer.wrap(new byte[64]));
+        assertTrue(received.isEmpty());
+        n.close();
+    }
+
+    @Test
+    public void backgroundReadOnNotification() throws Exception {
+        InMemoryBroadcaster broadcaster = new InMemoryBroadcaster();
+        MemoryDocumentStore store = new MemoryDocumentStore();
+        // long async delay, changes are only visible
+        // quickly when pushed by the other cluster node
+        int asyncDelay = (int) TimeUnit.MINUTES.toMillis(10);
+        DocumentNodeStore ns1 = builderProvider.newBuilder()
+                .setDocumentStore(store).setClusterId(1)
+                .setAsyncDelay(asyncDelay)
+                .setClusterChangeBroadcaster(broadcaster).getNodeStore();
+        DocumentNodeStore ns2 = builderProvider.newBuilder()
+                .setDocumentStore(store).setClusterId(2)
+                .setAsyncDelay(asyncDelay)
+                .setClusterChangeBroadcaster(broadcaster).getNodeStore();
+
+        NodeBuilder builder = ns1.getRoot().builder();
+        builder.child("foo");
+        merge(ns1, builder);
+        assertFalse(ns2.getRoot().hasChildNode("foo"));
+
+        ns1.runBackgroundUpdateOperations();
+
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!ns2.getRoot().hasChildNode("foo") && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertTrue(ns2.getRoot().hasChildNode("foo"));
+    }
+
+    private static void merge(NodeStore store, NodeBuilder builder)
+            throws CommitFailedException {
+        store.merge(builder, EmptyHook.INSTANCE, CommitInfo.EMPTY);
+    }
+}
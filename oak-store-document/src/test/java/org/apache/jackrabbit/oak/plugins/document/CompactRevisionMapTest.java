@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.plugins.document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.jackrabbit.oak.plugins.document.memory.MemoryDocumentStore;
+import org.junit.Test;
+
+import static org.apache.jackrabbit.oak.plugins.document.Collection.NODES;
+import static org.apache.jackrabbit.oak.plugins.document.StableRevisionComparator.REVERSE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompactRevisionMapTest {
+
+    @Test
+    public void sameAsTreeMap() {
+        Random r = new Random(42);
+        TreeMap<Revision, String> expected = new TreeMap<>(REVERSE);
+        for (int i = 0; i < 200; i++) {
+            Revision rev = new Revision(r.nextInt(50), r.nextInt(3), r.nextInt(3) + 1);
+            expected.put(rev, r.nextBoolean() ? "c" : "v" + i);
+        }
+        CompactRevisionMap actual = CompactRevisionMap.create(expected);
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.firstKey(), actual.firstKey());
+        assertEquals(expected.lastKey(), actual.lastKey());
+        assertEquals(expected.descendingMap(), actual.descendingMap());
+        assertEquals(new ArrayList<>(expected.navigableKeySet()),
+                new ArrayList<>(actual.navigableKeySet()));
+
+        List<Revision> probes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            probes.add(new Revision(r.nextInt(52) - 1, r.nextInt(3), r.nextInt(3) + 1,
+                    r.nextInt(10) == 0));
+        }
+        for (Revision p : probes) {
+            assertEquals(expected.get(p), actual.get(p));
+            assertEquals(expected.containsKey(p), actual.containsKey(p));
+            assertEquals(expected.lowerEntry(p), actual.lowerEntry(p));
+            assertEquals(expected.floorEntry(p), actual.floorEntry(p));
+            assertEquals(expected.ceilingEntry(p), actual.ceilingEntry(p));
+            assertEquals(expected.higherEntry(p), actual.higherEntry(p));
+            assertEquals(expected.headMap(p), actual.headMap(p));
+            assertEquals(expected.headMap(p, true), actual.headMap(p, true));
+            assertEquals(expected.tailMap(p), actual.tailMap(p));
+            assertEquals(expected.tailMap(p, false), actual.tailMap(p, false));
+        }
+        for (int i = 0; i + 1 < probes.size(); i += 2) {
+            Revision from = probes.get(i);
+            Revision to = probes.get(i + 1);
+            if (REVERSE.compare(from, to) > 0) {
+                Revision tmp = from;
+                from = to;
+                to = tmp;
+            }
+            NavigableMap<Revision, String> e = expected.subMap(from, true, to, false);
+            NavigableMap<Revision, String> a = actual.subMap(from, true, to, false);
+            assertEquals(e, a);
+            assertEquals(e.firstEntry(), a.firstEntry());
+            assertEquals(e.lastEntry(), a.lastEntry());
+            if (!e.isEmpty()) {
+                Revision mid = e.firstKey();
+                assertEquals(e.tailMap(mid, false), a.tailMap(mid, false));
+                assertEquals(e.floorKey(mid), a.floorKey(mid));
+                assertEquals(e.higherKey(mid), a.higherKey(mid));
+            }
+        }
+    }
+
+    @Test
+    public void notCompactable() {
+        TreeMap<Revision, Object> map = new TreeMap<>(REVERSE);
+        map.put(new Revision(1, 0, 1), 1L);
+        assertNull(CompactRevisionMap.create(map));
+
+        map.clear();
+        map.put(new Revision(1, 0, 1, true), "c");
+        assertNull(CompactRevisionMap.create(map));
+
+        TreeMap<Revision, String> natural = new TreeMap<>(StableRevisionComparator.INSTANCE);
+        natural.put(new Revision(1, 0, 1), "c");
+        assertNull(CompactRevisionMap.create(natural));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutable() {
+        TreeMap<Revision, String> map = new TreeMap<>(REVERSE);
+        map.put(new Revision(1, 0, 1), "c");
+        CompactRevisionMap.create(map).put(new Revision(2, 0, 1), "c");
+    }
+
+    @Test
+    public void sealedDocument() {
+        MemoryDocumentStore store = new MemoryDocumentStore();
+        UpdateOp op = new UpdateOp("0:/", true);
+        for (int i = 0; i < 100; i++) {
+            Revision r = new Revision(i, 0, 1);
+            NodeDocument.setRevision(op, r, "c");
+            op.setMapEntry("prop", r, "\"value-" + i + "\"");
+        }
+        store.createOrUpdate(NODES, op);
+        NodeDocument doc = store.find(NODES, "0:/");
+
+        NodeDocument copy = new NodeDocument(store);
+        doc.deepCopy(copy);
+        int uncompacted = copy.getMemory();
+        copy.seal();
+
+        SortedMap<Revision, String> revisions = copy.getLocalRevisions();
+        assertTrue(revisions instanceof CompactRevisionMap);
+        assertEquals(100, revisions.size());
+        assertEquals("c", revisions.get(new Revision(42, 0, 1)));
+        assertEquals("\"value-42\"", copy.getLocalMap("prop").get(new Revision(42, 0, 1)));
+        assertTrue("compact: " + copy.getMemory() + ", uncompacted: " + uncompacted,
+                copy.getMemory() < uncompacted);
+        // split decisions do not depend on the in-memory representation
+        assertEquals(uncompacted, copy.getEstimatedSize());
+    }
+}
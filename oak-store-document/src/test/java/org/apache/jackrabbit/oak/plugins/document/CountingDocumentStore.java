@@ -124,6 +124,22 @@ public class CountingDocumentStore implements DocumentStore {
         return delegate.query(collection, fromKey, toKey, indexedProperty, startValue, limit);
     }
 
+    @NotNull
+    @Override
+    public <T extends Document> List<T> query(Collection<T> collection,
+                                              String fromKey,
+                                              String toKey,
+                                              String indexedProperty,
+                                              long startValue,
+                                              int limit,
+                                              @NotNull List<String> projection) {
+        getStats(collection).numQueryCalls++;
+        if (printStacks) {
+            new Exception("query3 [" + getStats(collection).numQueryCalls + "] (" + collection + ") " + fromKey + ", to " + toKey + ". limit " + limit).printStackTrace();
+        }
+        return delegate.query(collection, fromKey, toKey, indexedProperty, startValue, limit, projection);
+    }
+
     @Override
     public <T extends Document> void remove(Collection<T> collection,
                                             String key) {
@@ -208,6 +224,12 @@ public class CountingDocumentStore implements DocumentStore {
         return delegate.getIfCached(collection, key);
     }
 
+    @Override
+    public <T extends Document> void prefetch(Collection<T> collection,
+                                              Iterable<String> keys) {
+        delegate.prefetch(collection, keys);
+    }
+
     @Override
     public void setReadWriteMode(String readWriteMode) {
         delegate.setReadWriteMode(readWriteMode);
@@ -3790,6 +3790,69 @@ public class DocumentNodeStoreTest {
         assertEquals(1, store.getNumQueryCalls(NODES));
     }
 
+    @Test
+    public void readChildrenProjectionOnlyForCachedReRead() throws Exception {
+        final AtomicInteger projectionQueries = new AtomicInteger();
+        final List<String> prefetched = new ArrayList<>();
+        CountingDocumentStore store = new CountingDocumentStore(new MemoryDocumentStore()) {
+            @NotNull
+            @Override
+            public <T extends Document> List<T> query(Collection<T> collection,
+                                                      String fromKey,
+                                                      String toKey,
+                                                      String indexedProperty,
+                                                      long startValue,
+                                                      int limit,
+                                                      @NotNull List<String> projection) {
+                projectionQueries.incrementAndGet();
+                return super.query(collection, fromKey, toKey,
+                        indexedProperty, startValue, limit, projection);
+            }
+
+            @Override
+            public <T extends Document> void prefetch(Collection<T> collection,
+                                                      Iterable<String> keys) {
+                Iterables.addAll(prefetched, keys);
+                super.prefetch(collection, keys);
+            }
+        };
+        DocumentNodeStore ns = builderProvider.newBuilder().setAsyncDelay(0)
+                .setDocumentStore(store).getNodeStore();
+        NodeBuilder builder = ns.getRoot().builder();
+        for (int i = 0; i < 10; i++) {
+            builder.child("test").child("node-" + i);
+        }
+        merge(ns, builder);
+
+        // cold read: a single query with complete documents
+        ns.getNodeChildrenCache().invalidateAll();
+        store.resetCounters();
+        assertEquals(10, Iterables.size(ns.getRoot().getChildNode("test").getChildNodeNames()));
+        assertEquals(1, store.getNumQueryCalls(NODES));
+        assertEquals(0, projectionQueries.get());
+        assertTrue(prefetched.isEmpty());
+
+        // re-read with cached documents: only paths are queried
+        // and no cached node is prefetched again
+        ns.getNodeChildrenCache().invalidateAll();
+        store.resetCounters();
+        assertEquals(10, Iterables.size(ns.getRoot().getChildNode("test").getChildNodeNames()));
+        assertEquals(1, store.getNumQueryCalls(NODES));
+        assertEquals(1, projectionQueries.get());
+        assertTrue(prefetched.isEmpty());
+        assertEquals(0, store.getNumFindCalls(NODES));
+
+        // re-read with a new child: only the new child is prefetched
+        builder = ns.getRoot().builder();
+        builder.child("test").child("node-10");
+        merge(ns, builder);
+        ns.getNodeChildrenCache().invalidateAll();
+        store.resetCounters();
+        assertEquals(11, Iterables.size(ns.getRoot().getChildNode("test").getChildNodeNames()));
+        assertEquals(1, store.getNumQueryCalls(NODES));
+        assertEquals(2, projectionQueries.get());
+    }
+
     @Test
     public void getChildNodeCountTest() throws Exception {
         final long UL = Long.MAX_VALUE; // unknown
@@ -530,7 +530,7 @@ public class DocumentSplitTest extends BaseDocumentMKTest {
         store.findAndUpdate(NODES, op);
         NodeDocument doc = store.find(NODES, id);
         assertNotNull(doc);
-        assertTrue(doc.getMemory() > DOC_SIZE_THRESHOLD);
+        assertTrue(doc.getEstimatedSize() > DOC_SIZE_THRESHOLD);
 
         // some fake previous doc references to trigger UpdateOp
         // for an intermediate document
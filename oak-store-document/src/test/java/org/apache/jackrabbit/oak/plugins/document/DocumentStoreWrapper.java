@@ -68,6 +68,19 @@ public class DocumentStoreWrapper implements DocumentStore {
                 indexedProperty, startValue, limit);
     }
 
+    @NotNull
+    @Override
+    public <T extends Document> List<T> query(Collection<T> collection,
+                                              String fromKey,
+                                              String toKey,
+                                              String indexedProperty,
+                                              long startValue,
+                                              int limit,
+                                              @NotNull List<String> projection) {
+        return store.query(collection, fromKey, toKey,
+                indexedProperty, startValue, limit, projection);
+    }
+
     @Override
     public <T extends Document> void remove(Collection<T> collection,
                                             String key) {
@@ -144,6 +157,12 @@ public class DocumentStoreWrapper implements DocumentStore {
         return store.getIfCached(collection, key);
     }
 
+    @Override
+    public <T extends Document> void prefetch(Collection<T> collection,
+                                              Iterable<String> keys) {
+        store.prefetch(collection, keys);
+    }
+
     @Override
     public void setReadWriteMode(String readWriteMode) {
         store.setReadWriteMode(readWriteMode);
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.plugins.document;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.jcr.SimpleCredentials;
+
+import org.apache.jackrabbit.oak.InitialContent;
+import org.apache.jackrabbit.oak.Oak;
+import org.apache.jackrabbit.oak.api.ContentRepository;
+import org.apache.jackrabbit.oak.api.ContentSession;
+import org.apache.jackrabbit.oak.api.Result;
+import org.apache.jackrabbit.oak.api.ResultRow;
+import org.apache.jackrabbit.oak.api.Root;
+import org.apache.jackrabbit.oak.api.Tree;
+import org.apache.jackrabbit.oak.api.Type;
+import org.apache.jackrabbit.oak.plugins.document.memory.MemoryDocumentStore;
+import org.apache.jackrabbit.oak.plugins.document.util.Utils;
+import org.apache.jackrabbit.oak.plugins.index.property.PropertyIndexEditorProvider;
+import org.apache.jackrabbit.oak.plugins.index.property.PropertyIndexProvider;
+import org.apache.jackrabbit.oak.spi.security.OpenSecurityProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.apache.jackrabbit.oak.api.QueryEngine.NO_MAPPINGS;
+import static org.apache.jackrabbit.oak.plugins.document.util.Utils.closeIfCloseable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QueryPrefetchTest {
+
+    @Rule
+    public DocumentMKBuilderProvider builderProvider = new DocumentMKBuilderProvider();
+
+    private final Set<String> prefetched = Collections.synchronizedSet(new HashSet<String>());
+
+    private final DocumentStore store = new DocumentStoreWrapper(new MemoryDocumentStore()) {
+        @Override
+        public <T extends Document> void prefetch(Collection<T> collection,
+                                                  Iterable<String> keys) {
+            for (String key : keys) {
+                prefetched.add(key);
+            }
+            super.prefetch(collection, keys);
+        }
+    };
+
+    private DocumentNodeStore ns;
+
+    private ContentRepository repository;
+
+    private ContentSession session;
+
+    @Before
+    public void before() throws Exception {
+        ns = builderProvider.newBuilder().setAsyncDelay(0)
+                .setDocumentStore(store).getNodeStore();
+        repository = new Oak(ns)
+                .with(new InitialContent())
+                .with(new PropertyIndexEditorProvider())
+                .with(new PropertyIndexProvider())
+                .with(new OpenSecurityProvider())
+                .createContentRepository();
+        session = repository.login(new SimpleCredentials("admin", "admin".toCharArray()), null);
+        Root root = session.getLatestRoot();
+        Tree idx = root.getTree("/").addChild("oak:index").addChild("p");
+        idx.setProperty("jcr:primaryType", "oak:QueryIndexDefinition", Type.NAME);
+        idx.setProperty("type", "property");
+        idx.setProperty("propertyNames", newArrayList("p"), Type.NAMES);
+        root.commit();
+    }
+
+    @After
+    public void after() throws Exception {
+        session.close();
+        closeIfCloseable(repository);
+        ns.dispose();
+    }
+
+    @Test
+    public void queryResultsArePrefetched() throws Exception {
+        Root root = session.getLatestRoot();
+        Tree t = root.getTree("/").addChild("test");
+        t.setProperty("jcr:primaryType", "nt:unstructured", Type.NAME);
+        for (int i = 0; i < 50; i++) {
+            Tree child = t.addChild("node-" + i);
+            child.setProperty("jcr:primaryType", "nt:unstructured", Type.NAME);
+            child.setProperty("p", "v");
+        }
+        root.commit();
+        ns.getNodeCache().invalidateAll();
+        prefetched.clear();
+
+        root = session.getLatestRoot();
+        Result result = root.getQueryEngine().executeQuery(
+                "SELECT * FROM [nt:base] WHERE [p] = 'v'", "JCR-SQL2",
+                Collections.emptyMap(), NO_MAPPINGS);
+        int count = 0;
+        for (ResultRow row : result.getRows()) {
+            assertTrue("not prefetched: " + row.getPath(),
+                    prefetched.contains(Utils.getIdFromPath(row.getPath())));
+            count++;
+        }
+        assertEquals(50, count);
+    }
+}
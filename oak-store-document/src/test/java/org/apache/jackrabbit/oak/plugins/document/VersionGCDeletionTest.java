@@ -22,6 +22,7 @@ package org.apache.jackrabbit.oak.plugins.document;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -29,17 +30,25 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import org.apache.jackrabbit.oak.api.CommitFailedException;
 import org.apache.jackrabbit.oak.plugins.document.VersionGarbageCollector.VersionGCStats;
@@ -309,6 +318,192 @@ public class VersionGCDeletionTest {
         assertNull(ts.find(Collection.NODES, "2:/x/split"));
     }
 
+    @Test
+    public void parallelDeletion() throws Exception {
+        final Set<String> threads = Sets.newConcurrentHashSet();
+        MemoryDocumentStore ms = new MemoryDocumentStore() {
+            @Override
+            public <T extends Document> int remove(Collection<T> collection,
+                                                   Map<String, Long> toRemove) {
+                threads.add(Thread.currentThread().getName());
+                return super.remove(collection, toRemove);
+            }
+        };
+        VersionGarbageCollector gc = createParallelGC(ms);
+        VersionGCStats stats = gc.gc(1, HOURS);
+        assertEquals(100, stats.deletedDocGCCount);
+        assertEquals(100, stats.deletedLeafDocGCCount);
+        assertFalse(stats.limitExceeded);
+        for (int i = 0; i < 100; i++) {
+            assertNull(ms.find(Collection.NODES, Utils.getIdFromPath("/node/c-" + i)));
+        }
+        assertFalse(threads.isEmpty());
+        for (String name : threads) {
+            assertTrue(name, name.startsWith("Oak VersionGarbageCollector worker"));
+        }
+    }
+
+    @Test
+    public void cancelParallelDeletion() throws Exception {
+        final CountDownLatch removing = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        MemoryDocumentStore ms = new MemoryDocumentStore() {
+            @Override
+            public <T extends Document> int remove(Collection<T> collection,
+                                                   Map<String, Long> toRemove) {
+                removing.countDown();
+                try {
+                    proceed.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return super.remove(collection, toRemove);
+            }
+        };
+        final VersionGarbageCollector gc = createParallelGC(ms);
+        ExecutorService executor = newSingleThreadExecutor();
+        try {
+            Future<VersionGCStats> f = executor.submit(() -> gc.gc(1, HOURS));
+
+            // cancel while the workers are deleting documents
+            assertTrue(removing.await(10, SECONDS));
+            gc.cancel();
+            proceed.countDown();
+
+            VersionGCStats stats = f.get(10, SECONDS);
+            assertTrue(stats.canceled);
+            assertTrue(stats.deletedDocGCCount < 100);
+        } finally {
+            proceed.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void failParallelDeletion() throws Exception {
+        final AtomicInteger removals = new AtomicInteger();
+        final AtomicInteger active = new AtomicInteger();
+        MemoryDocumentStore ms = new MemoryDocumentStore() {
+            @Override
+            public <T extends Document> int remove(Collection<T> collection,
+                                                   Map<String, Long> toRemove) {
+                active.incrementAndGet();
+                try {
+                    if (removals.getAndIncrement() == 0) {
+                        throw new DocumentStoreException("failure");
+                    }
+                    // keep the other workers busy while the failure is handled
+                    Thread.sleep(100);
+                    return super.remove(collection, toRemove);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    active.decrementAndGet();
+                }
+            }
+        };
+        VersionGarbageCollector gc = createParallelGC(ms);
+        try {
+            gc.gc(1, HOURS);
+            fail("must fail with a DocumentStoreException");
+        } catch (DocumentStoreException e) {
+            // expected
+        }
+        // no worker is still deleting documents in the background and
+        // the slices not started before the failure were skipped
+        assertEquals(0, active.get());
+        int count = removals.get();
+        assertTrue("removals: " + count, count <= 4);
+        Thread.sleep(500);
+        assertEquals(count, removals.get());
+    }
+
+    @Test
+    public void interruptParallelDeletion() throws Exception {
+        final CountDownLatch removing = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final AtomicInteger active = new AtomicInteger();
+        MemoryDocumentStore ms = new MemoryDocumentStore() {
+            @Override
+            public <T extends Document> int remove(Collection<T> collection,
+                                                   Map<String, Long> toRemove) {
+                active.incrementAndGet();
+                try {
+                    removing.countDown();
+                    proceed.await();
+                    return super.remove(collection, toRemove);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    active.decrementAndGet();
+                }
+            }
+        };
+        final VersionGarbageCollector gc = createParallelGC(ms);
+        final AtomicReference<Thread> gcThread = new AtomicReference<>();
+        ExecutorService executor = newSingleThreadExecutor();
+        try {
+            Future<VersionGCStats> f = executor.submit(() -> {
+                gcThread.set(Thread.currentThread());
+                return gc.gc(1, HOURS);
+            });
+            assertTrue(removing.await(10, SECONDS));
+            gcThread.get().interrupt();
+
+            // gc() waits for the running workers before it returns
+            Thread.sleep(200);
+            assertFalse(f.isDone());
+            proceed.countDown();
+
+            try {
+                f.get(10, SECONDS);
+                fail("must fail with an IOException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+            assertEquals(0, active.get());
+        } finally {
+            proceed.countDown();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Creates 100 deleted nodes, removed in batches spread over 90 minutes,
+     * and returns a garbage collector collecting them with four workers.
+     */
+    private VersionGarbageCollector createParallelGC(MemoryDocumentStore ms)
+            throws Exception {
+        store = new DocumentMK.Builder().clock(clock)
+                .setLeaseCheckMode(LeaseCheckMode.LENIENT)
+                .setDocumentStore(ms).setAsyncDelay(0).getNodeStore();
+
+        NodeBuilder builder = store.getRoot().builder();
+        NodeBuilder node = builder.child("node");
+        for (int i = 0; i < 100; i++) {
+            node.child("c-" + i);
+        }
+        merge(store, builder);
+
+        // remove nodes in batches spread over 90 minutes
+        for (int i = 0; i < 100; i += 10) {
+            builder = store.getRoot().builder();
+            node = builder.child("node");
+            for (int j = i; j < i + 10; j++) {
+                node.getChildNode("c-" + j).remove();
+            }
+            merge(store, builder);
+            store.runBackgroundOperations();
+            clock.waitUntil(clock.getTime() + MINUTES.toMillis(10));
+        }
+
+        clock.waitUntil(clock.getTime() + HOURS.toMillis(2));
+
+        VersionGarbageCollector gc = store.getVersionGarbageCollector();
+        gc.setOptions(gc.getOptions().withParallelism(4));
+        return gc;
+    }
+
     // OAK-2420
     @Test
     public void queryWhileDocsAreRemoved() throws Exception {
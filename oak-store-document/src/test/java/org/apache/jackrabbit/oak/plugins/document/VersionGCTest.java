@@ -149,6 +149,27 @@ public class VersionGCTest {
         assertTrue(stats.get().canceled);
     }
 
+    @Test
+    public void cancelParallel() throws Exception {
+        gc.setOptions(gc.getOptions().withParallelism(4));
+        // block gc call
+        store.semaphore.acquireUninterruptibly();
+        Future<VersionGCStats> stats = gc();
+        boolean gcBlocked = false;
+        for (int i = 0; i < 10; i ++) {
+            if (store.semaphore.hasQueuedThreads()) {
+                gcBlocked = true;
+                break;
+            }
+            Thread.sleep(100);
+        }
+        assertTrue(gcBlocked);
+        // now cancel the GC
+        gc.cancel();
+        store.semaphore.release();
+        assertTrue(stats.get().canceled);
+    }
+
     @Test
     public void cancelMustNotUpdateLastOldestTimeStamp() throws Exception {
         // get previous entry from SETTINGS
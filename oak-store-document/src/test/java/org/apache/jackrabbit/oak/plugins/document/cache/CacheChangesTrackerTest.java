@@ -42,6 +42,8 @@ import java.util.concurrent.ExecutionException;
 import static org.apache.jackrabbit.oak.plugins.document.util.Utils.getKeyLowerLimit;
 import static org.apache.jackrabbit.oak.plugins.document.util.Utils.getKeyUpperLimit;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class CacheChangesTrackerTest {
@@ -162,6 +164,23 @@ public class CacheChangesTrackerTest {
         assertTrue(tracker.mightBeenAffected("2:/parent/external"));
     }
 
+    @Test
+    public void testPutNonConflictingMissing() {
+        NodeDocumentCache cache = createCache();
+        CacheChangesTracker tracker = cache.registerTracker(ImmutableSet.of("1:/missing", "1:/created", "1:/cached"));
+
+        cache.put(createDoc("1:/created"));
+        NodeDocument cached = createDoc("1:/cached");
+        cache.putNonConflictingDocs(tracker, ImmutableSet.of(cached));
+        cache.putNonConflictingMissing(tracker, ImmutableSet.of("1:/missing", "1:/created", "1:/cached"));
+
+        assertSame(NodeDocument.NULL, cache.getIfPresent("1:/missing"));
+        assertNotSame(NodeDocument.NULL, cache.getIfPresent("1:/created"));
+        assertSame(cached, cache.getIfPresent("1:/cached"));
+        assertFalse(tracker.mightBeenAffected("1:/missing"));
+        tracker.close();
+    }
+
     private NodeDocumentCache createCache() {
         Cache<CacheValue, NodeDocument> nodeDocumentsCache = new CacheLIRS<CacheValue, NodeDocument>(10);
         Cache<StringValue, NodeDocument> prevDocumentsCache = new CacheLIRS<StringValue, NodeDocument>(10);
@@ -28,6 +28,7 @@ import org.apache.jackrabbit.oak.plugins.document.NodeDocument;
 import org.apache.jackrabbit.oak.plugins.document.Path;
 import org.apache.jackrabbit.oak.plugins.document.util.Utils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.junit.Test;
 
 import com.mongodb.MongoClient;
@@ -126,10 +127,11 @@ public class RetryReadIT extends AbstractMongoConnectionTest {
                                                              String indexedProperty,
                                                              long startValue,
                                                              int limit,
-                                                             long maxQueryTime) {
+                                                             long maxQueryTime,
+                                                             @Nullable List<String> projection) {
             maybeFail();
             return super.queryInternal(collection, fromKey, toKey,
-                    indexedProperty, startValue, limit, maxQueryTime);
+                    indexedProperty, startValue, limit, maxQueryTime, projection);
         }
 
         private void maybeFail() {
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jackrabbit.oak.spi.state;
+
+import java.util.Collection;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A node store that can read a batch of nodes ahead of time, before they
+ * are read one by one. Implemented by node stores where reading many nodes
+ * in a single operation is considerably cheaper than reading them
+ * individually, e.g. with a remote backend.
+ */
+public interface PrefetchNodeStore {
+
+    /**
+     * A prefetch node store that doesn't prefetch anything.
+     */
+    PrefetchNodeStore NOOP = (paths, rootState) -> {};
+
+    /**
+     * Prefetch the nodes at the given paths. This is only a hint, the
+     * implementation may ignore some or all of the paths.
+     *
+     * @param paths the absolute paths of the nodes to prefetch
+     * @param rootState the root state the nodes will be read from
+     */
+    void prefetch(@NotNull Collection<String> paths, @NotNull NodeState rootState);
+
+}